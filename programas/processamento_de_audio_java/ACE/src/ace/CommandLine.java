@@ -79,6 +79,12 @@ public class CommandLine
      */
     public boolean save_intermediate_arffs = false;
 
+    /**
+     * The number of threads to train and test classifiers on during cross validation
+     * and experimentation.
+     */
+    public int threads = Runtime.getRuntime().availableProcessors();
+
     // Loading Options
 
     /**
@@ -281,6 +287,13 @@ public class CommandLine
                 save_intermediate_arffs = true;
             if (Utils.getFlag("verbose", options))
                 verbose = true;
+            String threads_option = Utils.getOption("threads", options);
+            if (threads_option.length() != 0)
+            {
+                threads = Integer.parseInt(threads_option);
+                if (threads < 1)
+                    throw new Exception("Must use at least 1 thread");
+            }
 
             // Loading Options
             // Load previously saved ACE project
@@ -453,13 +466,15 @@ public class CommandLine
                  data_board = new DataBoard(taxonomy_file,
                         feature_key_file,
                         feature_vector_files,
-                        classifications_file);
+                        classifications_file,
+                        true);
              else
                  // if using data from an ARFF file, instances are converted to ACE datatypes stored in this data_board
                  data_board = new DataBoard(arff_file);
 
             //Initialize Coordinator object
             doer = new Coordinator(data_board, arff_file, save_intermediate_arffs);
+            doer.threads = threads;
 
             // Set maximum number of attributes permitted for Exhaustive Search
             // Exhasutive search is not permitted to be performed on data sets with
@@ -738,6 +753,7 @@ public class CommandLine
                 "-verbose: The results for the paritioning and classification of each individual instance is printed and saved " +
                 "as well as detailed information about the dimensionality reduction " +
                 "that was performed. Incorrect classifications are marked with an asterix.\n" +
+                "-threads: The number of folds to train and test at once. Defaults to the number of processors.\n" +
                 "\nEXPERIMENTATION OPTIONS\n" +
                 "-exp: Perform a cross-validation and output the results to standard out. Specifies the number of cross-validation folds.\n" +
                 "-sres: Saves results in files with the given base file name. If not present, results are saved with default base file name.\n" +
@@ -745,7 +761,8 @@ public class CommandLine
                 "-max_spread: The maximum ratio between the number of training instances belonging to any class compared to the least populous class.\n" +
                 "-max_memb: The maximum number of training instances that may belong to each class.\n" +
                 "-rand_ord: The presence of this flag causes training instances to be randomly reordered.\n" +
-                "-verbose: The presence of this flag causes extra information about the dimensionality reduction to be printed and saved.");
+                "-verbose: The presence of this flag causes extra information about the dimensionality reduction to be printed and saved.\n" +
+                "-threads: The number of folds of all classifiers and feature sets to train and test at once. Defaults to the number of processors.");
      }
 
      /**
@@ -767,6 +784,7 @@ public class CommandLine
          System.out.println("max_spread: " + max_spread);
          System.out.println("max_membership: " + max_membership);
          System.out.println("save_intermediate_arffs: " + save_intermediate_arffs);
+         System.out.println("threads: " + threads);
          System.out.println("taxonomy_file: " + taxonomy_file);
          System.out.println("feature_key_file: " + feature_key_file);
          System.out.println("classifications_file: " + classifications_file);
@@ -12,6 +12,7 @@ import ace.datatypes.*;
 import weka.core.*;
 import java.io.*;
 import java.util.LinkedList;
+import java.util.concurrent.ForkJoinPool;
 import weka.filters.supervised.instance.SpreadSubsample;
 import weka.filters.unsupervised.instance.Randomize;
 import weka.core.converters.ArffLoader;
@@ -63,6 +64,13 @@ public class Coordinator {
      */
     public boolean save_intermediate_arffs;
 
+    /**
+     * The number of threads to train and test classifiers on during cross
+     * validation and experimentation. If 1, folds are trained and tested one
+     * after another. Defaults to the number of available processors.
+     */
+    public int threads = Runtime.getRuntime().availableProcessors();
+
 
     /* CONSTRUCTORS **********************************************************/
 
@@ -241,7 +249,7 @@ public class Coordinator {
             if(arff_path!=null)
                 throw new Exception ("Could not classify "+ arff_path + "\nERROR: " + e.getMessage());
             else
-                throw new Exception ("Could not classify "+ data_board.feature_vectors[0].identifier  + "\nERROR: " + e.getMessage());
+                throw new Exception ("Could not classify "+ data_board.getInstanceIdentifier(0)  + "\nERROR: " + e.getMessage());
         }
         return resulting_classifications;
     }
@@ -384,16 +392,28 @@ public class Coordinator {
             // Store a report for this cross validation
             StringBuffer cv_results = new StringBuffer();
 
-            // Perform the cross validation
-            results =  cver.crossValidate(trained, cvres, instances, out, cv_results,
-                    file_name, feature_selector, save_intermediate_arffs, verbose, 0);
+            // Perform the cross validation, training and testing the folds at once
+            // if more than one thread is to be used
+            ForkJoinPool pool = null;
+            if (threads > 1)
+                pool = new ForkJoinPool(Math.min(threads, folds));
+            try
+            {
+                results =  cver.crossValidate(trained, cvres, instances, out, cv_results,
+                        file_name, feature_selector, save_intermediate_arffs, verbose, 0, pool);
+            }
+            finally
+            {
+                if (pool != null)
+                    pool.shutdownNow();
+            }
         }
         catch(Exception e)
         {
            if(arff_path!=null)
                 throw new Exception ("Could not cross validate "+ arff_path + "\nERROR: " + e.getMessage());
             else
-                throw new Exception ("Could not cross validate "+ data_board.feature_vectors[0].identifier + "\nERROR: " + e.getMessage());
+                throw new Exception ("Could not cross validate "+ data_board.getInstanceIdentifier(0) + "\nERROR: " + e.getMessage());
         }
         return results;
 
@@ -494,7 +514,7 @@ public class Coordinator {
         try
         {
             // Experiment on this set of Instances
-            Experimenter exp = new Experimenter(out);
+            Experimenter exp = new Experimenter(out, threads);
             best = exp.crossValidateMultiApproaches(folds, instances, results_base_file_name,
                     save_intermediate_arffs, verbose, max_attribute, identifiers, num_overall, hierarchy);
         }
@@ -504,8 +524,8 @@ public class Coordinator {
                 throw new Exception ("Could not experiment on "+ arff_path + "\nERROR: " +
                         e.getMessage());
             else
-                throw new Exception ("Could not experiment on "+ data_board.feature_vectors[0].
-                        identifier + "\nERROR: " + e.getMessage());
+                throw new Exception ("Could not experiment on "+ data_board.getInstanceIdentifier(0)
+                        + "\nERROR: " + e.getMessage());
         }
         return best;
     }
@@ -12,7 +12,13 @@ import java.io.*;
 import java.text.*;
 import ace.datatypes.*;
 import weka.core.*;
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import weka.classifiers.Classifier;
 
 
 /**
@@ -161,15 +167,215 @@ public class CrossValidator
             boolean verbose,
             int i)
             throws Exception
+    {
+        return crossValidate(trained, cvres, instances, out, cv_results, file_name,
+                feature_selector, save_intermediate_arffs, verbose, i, null);
+    }
+
+    /**
+     * Cross validates a set of Weka Instances, training and testing the folds
+     * on the given pool of threads. Each fold is trained on its own copy of the
+     * given Classifier. The results of the folds are combined in fold order, so
+     * the results are identical to those of a serial cross validation. The
+     * parameters are the same as those of the serial <i>crossValidate</i>, except:
+     *
+     * @param pool                      The pool to train and test the folds on.
+     *                                  The folds are trained and tested one after
+     *                                  another on the calling thread if this is null.
+     * @return                          A string containing a summary of the results
+     *                                  of this cross validation.
+     * @throws Exception                If a problem occurs.
+     */
+    public String crossValidate(TrainedModel trained,
+            CrossValidationResults[] cvres,
+            Instances instances,
+            OutputStream out,
+            StringBuffer cv_results,
+            String file_name,
+            String feature_selector,
+            boolean save_intermediate_arffs,
+            boolean verbose,
+            int i,
+            ForkJoinPool pool)
+            throws Exception
     {
         // Give progress report to the user
         out.write(("\tCross Validating....\n").getBytes());
 
+        // Individual classifications are only reported for a single cross validation
+        boolean keep_instances = verbose && cvres.length == 1;
+        FoldResults[] fold_results = new FoldResults[folds.length];
+        if (pool == null)
+        {
+            for (int fold = 0; fold < folds.length; fold++)
+                fold_results[fold] = validateFold(trained, instances, fold, save_intermediate_arffs, keep_instances);
+        }
+        else
+        {
+            ArrayList<ForkJoinTask<FoldResults>> tasks = submitFolds(pool, trained, instances, save_intermediate_arffs, keep_instances);
+            for (int fold = 0; fold < folds.length; fold++)
+                fold_results[fold] = getFoldResults(tasks.get(fold));
+        }
+
+        // Leave the given TrainedModel as a serial cross validation would, trained on the last fold
+        trained.classifier = fold_results[folds.length - 1].trained.classifier;
+        trained.class_attribute = fold_results[folds.length - 1].trained.class_attribute;
+
+        return reportCrossValidation(trained, cvres, instances, cv_results, file_name,
+                feature_selector, verbose, i, fold_results);
+    }
+
+    /**
+     * Trains and tests a copy of the Weka Classifier in the given TrainedModel
+     * on one fold of this cross validation. The given TrainedModel is not modified,
+     * so many folds may be validated with it at once on different threads.
+     *
+     * @param trained                   The TrainedModel containing the untrained
+     *                                  Classifier to copy and any dimensionality
+     *                                  reduction that was performed.
+     * @param instances                 The Weka Instances being cross validated.
+     * @param fold                      The fold to train and test.
+     * @param save_intermediate_arffs   Whether or not to save testing data to an
+     *                                  arff file.
+     * @param keep_instances            Whether or not to keep the training, testing
+     *                                  and classified instances of the fold in the
+     *                                  results, for reporting individual classifications.
+     * @return                          The results of the fold. The TrainedModel
+     *                                  is only kept for the last fold.
+     * @throws Exception                If a problem occurs.
+     */
+    public FoldResults validateFold(TrainedModel trained,
+            Instances instances,
+            int fold,
+            boolean save_intermediate_arffs,
+            boolean keep_instances)
+            throws Exception
+    {
+        long start_time = System.currentTimeMillis();
+        FoldResults results = new FoldResults();
+
+        // Initialize empty Instances objects to store training and testing data
+        Instances training = new Instances(instances, 100);
+        Instances testing = new Instances(instances, 100);
+
+        // Get training and testing instances
+        // Appropriate instances are added to Instances objects training and testing
+        String[][] identifiers = getPartitionedInstances(training, testing, fold);
+
+        // Train a copy of the Classifier
+        TrainedModel fold_model = new TrainedModel(Classifier.makeCopy(trained.classifier),
+                trained.attribute_selector, null);
+        Trainer.train(training, fold_model);
+
+        // Test the Classifier, store results
+        Instances classified = InstanceClassifier.classifyInstances(fold_model, testing,
+                save_intermediate_arffs);
+
+        // Calculate statistics per fold
+        // Get error rate and confusion matrix for this classification
+        double correct_count = InstanceClassifier.getCorrectCount(testing, classified);
+        double total_count = (double) testing.numInstances();
+        results.success_rate = 100.0 * correct_count / total_count;
+        results.error_rate = 100 - results.success_rate;
+        results.confusion_matrix = InstanceClassifier.getConfusionMatrix(testing, classified, getClassNames(instances));
+
+        if (fold == folds.length - 1)
+            results.trained = fold_model;
+        if (keep_instances)
+        {
+            results.training = training;
+            results.testing = testing;
+            results.classified = classified;
+            results.identifiers = identifiers;
+        }
+        results.time = System.currentTimeMillis() - start_time;
+        return results;
+    }
+
+    /**
+     * Submits a task to the given pool for each fold of this cross validation.
+     * Each task calls <i>validateFold</i>.
+     *
+     * @param pool                      The pool to train and test the folds on.
+     * @param trained                   The TrainedModel containing the untrained
+     *                                  Classifier to copy for each fold.
+     * @param instances                 The Weka Instances being cross validated.
+     * @param save_intermediate_arffs   Whether or not to save testing data to an
+     *                                  arff file.
+     * @param keep_instances            Whether or not to keep the instances of
+     *                                  each fold in its results.
+     * @return                          The task of each fold, in fold order.
+     */
+    public ArrayList<ForkJoinTask<FoldResults>> submitFolds(ForkJoinPool pool,
+            final TrainedModel trained,
+            final Instances instances,
+            final boolean save_intermediate_arffs,
+            final boolean keep_instances)
+    {
+        ArrayList<ForkJoinTask<FoldResults>> tasks = new ArrayList<ForkJoinTask<FoldResults>>(folds.length);
+        for (int fold = 0; fold < folds.length; fold++)
+        {
+            final int this_fold = fold;
+            tasks.add(pool.submit(new Callable<FoldResults>()
+            {
+                public FoldResults call() throws Exception
+                {
+                    return validateFold(trained, instances, this_fold, save_intermediate_arffs, keep_instances);
+                }
+            }));
+        }
+        return tasks;
+    }
+
+    /**
+     * Waits for the given fold task to finish and returns its results.
+     *
+     * @param task          A task returned by <i>submitFolds</i>.
+     * @return              The results of the fold.
+     * @throws Exception    The exception thrown while training or testing the fold,
+     *                      if any.
+     */
+    public static FoldResults getFoldResults(ForkJoinTask<FoldResults> task)
+            throws Exception
+    {
+        try
+        {
+            return task.get();
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof Exception)
+                throw (Exception) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Combines the results of the folds of a cross validation, in fold order,
+     * stores the overall statistics in <i>cvres</i> and prepares the report of
+     * the cross validation. The parameters are the same as those of
+     * <i>crossValidate</i>, except:
+     *
+     * @param fold_results              The results of each fold, in fold order.
+     * @return                          A string containing a summary of the results
+     *                                  of this cross validation.
+     * @throws Exception                If a problem occurs.
+     */
+    public String reportCrossValidation(TrainedModel trained,
+            CrossValidationResults[] cvres,
+            Instances instances,
+            StringBuffer cv_results,
+            String file_name,
+            String feature_selector,
+            boolean verbose,
+            int i,
+            FoldResults[] fold_results)
+            throws Exception
+    {
         // Get measurments and objects needed for the calculation of cross validation statistics
         // Limit measurments to 2 decimal places
         DecimalFormat df = new DecimalFormat("####0.0#");
-        long cross_val_start_time = System.currentTimeMillis();
-        int num_folds = folds.length;
+        int num_folds = fold_results.length;
         // Array to store error rates of each fold
         double[] error_rates = new double[num_folds];
         // Array to store confusion matricies for each fold
@@ -177,6 +383,8 @@ public class CrossValidator
         double[][][] confusion_matrices = new double[num_folds][][];
         // Get class names from instances for use in confusion matrix
         String[] classes = getClassNames(instances);
+        // The time taken to train and test all folds
+        long cross_val_time = 0;
 
         // Initialize StringBuffer object to store a summary of the results of this
         // cross validation
@@ -185,50 +393,30 @@ public class CrossValidator
         per_fold.append("\n==================================================\n");
         per_fold.append("\n----------RESULTS PER FOLD----------\n");
 
-        // Perform and time the cross-validation
-        // For each fold, train, test, and store.
+        // Collect the statistics of each fold
         for (int fold = 0; fold < num_folds; fold++)
         {
-            // Initialize empty Instances objects to store training and testing data
-            Instances training = new Instances(instances, 100);
-            Instances testing = new Instances(instances, 100);
-
-            // Get training and testing instances
-            // Appropriate instances are added to Instances objects training and testing
-            String[][] identifiers = getPartitionedInstances(training, testing, fold);
-            // Train the Classifier
-            Trainer.train(training, trained);
-
-            // Test the Classifier, store results
-            Instances classified = InstanceClassifier.classifyInstances(trained, testing,
-                    save_intermediate_arffs);
-
-            // Calculate statistics per fold
-            // Get error rate and confusion matrix for this classification
-            double correct_count = InstanceClassifier.getCorrectCount(testing, classified);
-            double total_count = (double) testing.numInstances();
-            double success_rate = 100.0 * correct_count / total_count;
-            error_rates[fold] = 100 - success_rate;
-            confusion_matrices[fold] = InstanceClassifier.getConfusionMatrix(testing, classified, classes);
+            error_rates[fold] = fold_results[fold].error_rate;
+            confusion_matrices[fold] = fold_results[fold].confusion_matrix;
+            cross_val_time += fold_results[fold].time;
 
             // Only collect summary of statistics per fold when performing a single cross validation
             if(cvres.length == 1)
             {
                 per_fold.append("\n*************** FOLD: " + fold + " ***************");
-                per_fold.append("\nSuccess rate: " + df.format(success_rate));
+                per_fold.append("\nSuccess rate: " + df.format(fold_results[fold].success_rate));
                 per_fold.append("\nConfusion matrix: \n" + InstanceClassifier.formatConfusionMatrix(confusion_matrices[fold], classes));
                 // Give report of individual classifications if verbose option was specified
                 if(verbose)
-                    per_fold.append(getClassifications(testing, classified, training, identifiers) + "\n");
+                    per_fold.append(getClassifications(fold_results[fold].testing, fold_results[fold].classified,
+                            fold_results[fold].training, fold_results[fold].identifiers) + "\n");
             }
         }
-        // Keep track of how long the cross validation took to finish.
-        long cross_val_end_time = System.currentTimeMillis();
 
         // Calculate and store statistics overall
         //cvres[i].classifier_descriptions = (trained.classifier.getClass().toString().substring(trained.classifier.getClass().toString().lastIndexOf(".")+1));
         cvres[i].error_rates = mckay.utilities.staticlibraries.MathAndStatsMethods.getAverage(error_rates);
-        cvres[i].cross_val_times = ((double) (cross_val_end_time - cross_val_start_time)) / 60000.0;
+        cvres[i].cross_val_times = ((double) cross_val_time) / 60000.0;
         cvres[i].standard_deviation = mckay.utilities.staticlibraries.MathAndStatsMethods.getStandardDeviation(error_rates);
         double[][] average_confusion_matrix = getOverallConfusionMatrix(confusion_matrices);
         cvres[i].cross_validation_confusion_matrices = InstanceClassifier.formatConfusionMatrix(average_confusion_matrix, classes);
@@ -10,8 +10,11 @@ package ace;
 import ace.datatypes.*;
 import java.io.*;
 import java.text.*;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import weka.classifiers.*;
 import weka.core.*;
 import weka.classifiers.bayes.*;
@@ -59,16 +62,38 @@ public class Experimenter
      */
     OutputStream out;
 
+    /**
+     * The number of threads to train and test classifiers on. The folds of every
+     * classifier and every set of dimensionality reduced instances are scheduled
+     * together on a work-stealing pool of this many threads. If 1, each fold
+     * is trained and tested in turn on the calling thread.
+     */
+    int threads;
+
     /* CONSTRUCTOR ***********************************************************/
 
     /**
-     * Constructs an instance if an Experimenter.
+     * Constructs an instance if an Experimenter that trains and tests classifiers
+     * on one thread per available processor.
      *
      * @param out  Progress reports are sent here as the experimentation runs.
      */
     public Experimenter(OutputStream out)
+    {
+        this(out, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs an instance if an Experimenter.
+     *
+     * @param out       Progress reports are sent here as the experimentation runs.
+     * @param threads   The number of threads to train and test classifiers on.
+     *                  If 1, classifiers are trained and tested one after another.
+     */
+    public Experimenter(OutputStream out, int threads)
     {
         this.out= out;
+        this.threads = threads;
     }
 
     /* PUBLIC METHOD *********************************************************/
@@ -172,6 +197,43 @@ public class Experimenter
         CrossValidationResults[][] cvres = new CrossValidationResults[instances_array.length][];
         int[] best_indices = new int[instances_array.length];
 
+        // Prepare the classifiers and the partitioning for each set of instances
+        Classifier[][] classifiers = new Classifier[instances_array.length][];
+        CrossValidator[] cvers = new CrossValidator[instances_array.length];
+        for (int inst = 0; inst < instances_array.length; inst++)
+        {
+            // Prepare a variety of untrained classifiers to perform tests with
+            classifiers[inst] = Coordinator.getAllUntrainedClassifiers(classifier_descriptions_list);
+
+            // This array specifies the partitioning of the Instances for the experimentation.
+            // The same partitioning will be used for all cross validations.
+            int[] partition_array = CrossValidator.generatePartitionArray(folds, num_overall);
+            cvers[inst] = new CrossValidator(instances_array[inst], partition_array, folds, hierarchy, identifiers);
+            cvres[inst] = CrossValidationResults.generateArray(classifier_descriptions_list);
+        }
+
+        // Schedule every fold of every classifier on every set of instances at once,
+        // each with its own copy of the classifier. Results are collected below
+        // in the same order as a serial experiment.
+        ForkJoinPool pool = null;
+        ArrayList<ArrayList<ArrayList<ForkJoinTask<FoldResults>>>> tasks =
+                new ArrayList<ArrayList<ArrayList<ForkJoinTask<FoldResults>>>>(instances_array.length);
+        if (threads > 1)
+        {
+            pool = new ForkJoinPool(threads);
+            for (int inst = 0; inst < instances_array.length; inst++)
+            {
+                tasks.add(new ArrayList<ArrayList<ForkJoinTask<FoldResults>>>(classifiers[inst].length));
+                for (int i = 0; i < classifiers[inst].length; i++)
+                {
+                    TrainedModel trained = new TrainedModel();
+                    trained.classifier = classifiers[inst][i];
+                    tasks.get(inst).add(cvers[inst].submitFolds(pool, trained, instances_array[inst],
+                            save_intermediate_arffs, false));
+                }
+            }
+        }
+
         // Apply a variety of classifiers to each set of instances
         for (int inst = 0; inst < instances_array.length; inst++)
         {
@@ -189,35 +251,51 @@ public class Experimenter
             out.write(("TIME TAKEN: " + preparation_times[0][inst] + " minutes\n").getBytes());
             out.write((features_selected[inst] + "\n").getBytes());
 
-            // Prepare a variety of untrained classifiers to perform tests with
-            Classifier[] classifiers = Coordinator.getAllUntrainedClassifiers(classifier_descriptions_list);
-
-            // This array specifies the partitioning of the Instances for the experimentation.
-            // The same partitioning will be used for all cross validations.
-            int[] partition_array = CrossValidator.generatePartitionArray(folds, num_overall);
             // Perform cross-validataion with each classifier, storing the classifier
             // description and its performance and erasing the classifier
-
-            CrossValidator cver = new CrossValidator(instances_array[inst], partition_array, folds, hierarchy, identifiers);
-            cvres[inst] = CrossValidationResults.generateArray(classifier_descriptions_list);
-
-            for (int i = 0; i < classifiers.length; i++)
+            CrossValidator cver = cvers[inst];
+            for (int i = 0; i < classifiers[inst].length; i++)
             {
                 // Trained Model to be used during Cross Validation
                 TrainedModel trained = new TrainedModel();
-                trained.classifier = classifiers[i];
+                trained.classifier = classifiers[inst][i];
 
                 // Report current progress to standard out
-                out.write(("Testing classifier " + (i + 1) + " of " + classifiers.length + "...\n").getBytes());
+                out.write(("Testing classifier " + (i + 1) + " of " + classifiers[inst].length + "...\n").getBytes());
 
                 // This should always be null because Experimenter coordinates the
                 // saving of its own file.
                 String file_name = null;
 
                 // Cross validate this set of Instances with this Classifier
-                cver.crossValidate(trained, cvres[inst], instances_array[inst],
-                        out, cv_results, file_name, cvres[inst][i].classifier_descriptions,
-                        save_intermediate_arffs, verbose, i);
+                if (pool == null)
+                    cver.crossValidate(trained, cvres[inst], instances_array[inst],
+                            out, cv_results, file_name, cvres[inst][i].classifier_descriptions,
+                            save_intermediate_arffs, verbose, i);
+                else
+                {
+                    // Give the same progress report as a serial cross validation
+                    out.write(("\tCross Validating....\n").getBytes());
+
+                    // Wait for the folds scheduled above and combine them in fold order
+                    FoldResults[] fold_results = new FoldResults[folds];
+                    try
+                    {
+                        for (int fold = 0; fold < folds; fold++)
+                            fold_results[fold] = CrossValidator.getFoldResults(tasks.get(inst).get(i).get(fold));
+                    }
+                    catch (Exception e)
+                    {
+                        // Stop the folds that have not been validated yet
+                        pool.shutdownNow();
+                        throw e;
+                    }
+                    trained.classifier = fold_results[folds - 1].trained.classifier;
+                    trained.class_attribute = fold_results[folds - 1].trained.class_attribute;
+                    cver.reportCrossValidation(trained, cvres[inst], instances_array[inst],
+                            cv_results, file_name, cvres[inst][i].classifier_descriptions,
+                            verbose, i, fold_results);
+                }
             }
 
             // Store error rates of each cross validation
@@ -264,6 +342,8 @@ public class Experimenter
                 writer.writeBytes(best_results.toString());
             }
         }
+        if (pool != null)
+            pool.shutdown();
         out.flush();
 
         // Find the best result accross all feature selection methods and classifiers
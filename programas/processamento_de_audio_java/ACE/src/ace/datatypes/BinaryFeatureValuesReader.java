@@ -0,0 +1,527 @@
+/*
+ * BinaryFeatureValuesReader.java
+ * Version 2.2.2
+ *
+ * Last modified on October 17, 2026.
+ * McGill University
+ */
+
+package ace.datatypes;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedList;
+
+
+/**
+ * Objects of this class provide access to feature values saved in the ACE
+ * binary feature values format by the BinaryFeatureValuesWriter class (see it
+ * for a description of the format). The file is memory-mapped rather than
+ * read, so opening it only involves reading its header and instance
+ * identifiers, and individual feature values can be accessed directly by row
+ * and column without loading the rest of the file. The file may be larger
+ * than 2 GB.
+ *
+ * <p>The getDataSets method returns the contents of the file as DataSet
+ * objects identical to those produced by parsing an ACE XML Feature Values
+ * file holding the same feature values, so that files in this format can be
+ * used wherever ACE XML Feature Values files are. They may also be passed to
+ * a DataSetReceiver one at a time, so that only one of them is held in memory
+ * at once.
+ *
+ * <p>Objects of this class are not modified after construction, and so may
+ * be accessed by multiple threads at once.
+ *
+ * @author agent
+ */
+public class BinaryFeatureValuesReader
+{
+     /* FIELDS ****************************************************************/
+
+
+     /**
+      * The feature definitions stored in the header of the file.
+      */
+     private   FeatureDefinition[]       feature_definitions;
+
+
+     /**
+      * The index of the first column of each feature in feature_definitions.
+      */
+     private   int[]                     first_columns;
+
+
+     /**
+      * The total number of columns in each row.
+      */
+     private   int                       number_of_columns;
+
+
+     /**
+      * The size in bytes of each row.
+      */
+     private   int                       row_size;
+
+
+     /**
+      * The offset in bytes of the first column from the start of each row.
+      */
+     private   int                       values_offset;
+
+
+     /**
+      * The number of rows in the file.
+      */
+     private   int                       number_of_rows;
+
+
+     /**
+      * The identifiers of the instances in the file.
+      */
+     private   String[]                  identifiers;
+
+
+     /**
+      * The number of rows in each of row_segments, except possibly the last.
+      */
+     private   int                       rows_per_segment;
+
+
+     /**
+      * The memory-mapped rows of the file. Each segment holds rows_per_segment
+      * rows, since no single mapping can exceed 2 GB.
+      */
+     private   MappedByteBuffer[]        row_segments;
+
+
+     /* CONSTRUCTORS **********************************************************/
+
+
+     /**
+      * Open the given file in the ACE binary feature values format and read
+      * its header and instance identifiers. The rows of the file are mapped
+      * into memory, and are not read until they are accessed.
+      *
+      * @param file_path     The path of the file to open.
+      * @throws Exception    An informative exception is thrown if the file
+      *                      cannot be read or is not a valid file in the ACE
+      *                      binary feature values format.
+      */
+     public BinaryFeatureValuesReader(String file_path)
+          throws Exception
+     {
+          // Mappings stay valid after the channel is closed
+          try (RandomAccessFile file = new RandomAccessFile(file_path, "r"))
+          {
+               FileChannel channel = file.getChannel();
+               long file_size = channel.size();
+               if (file_size < 12 + BinaryFeatureValuesWriter.FOOTER_SIZE)
+                    throw new Exception(file_path + " is too short to be a binary feature values file.");
+
+               // Read the footer
+               ByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY, file_size - BinaryFeatureValuesWriter.FOOTER_SIZE, BinaryFeatureValuesWriter.FOOTER_SIZE);
+               long identifiers_position = footer.getLong();
+               long number_of_rows_in_file = footer.getLong();
+               if (footer.getInt() != BinaryFeatureValuesWriter.MAGIC_NUMBER)
+                    throw new Exception(file_path + " is not a complete binary feature values file. Perhaps it was not closed after it was written?");
+               if (identifiers_position < 12 || identifiers_position > file_size - BinaryFeatureValuesWriter.FOOTER_SIZE - 4)
+                    throw new Exception(file_path + " is not a valid binary feature values file, as its footer is corrupt.");
+               if (number_of_rows_in_file > Integer.MAX_VALUE)
+                    throw new Exception(file_path + " has more rows than can be accessed.");
+               number_of_rows = (int) number_of_rows_in_file;
+
+               // Read the header
+               ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(identifiers_position, Integer.MAX_VALUE));
+               if (header.getInt() != BinaryFeatureValuesWriter.MAGIC_NUMBER)
+                    throw new Exception(file_path + " is not a binary feature values file.");
+               int version = header.getInt();
+               if (version != BinaryFeatureValuesWriter.FORMAT_VERSION)
+                    throw new Exception(file_path + " is in version " + version + " of the binary feature values format, but only version " + BinaryFeatureValuesWriter.FORMAT_VERSION + " can be read.");
+               feature_definitions = new FeatureDefinition[header.getInt()];
+               first_columns = new int[feature_definitions.length];
+               number_of_columns = 0;
+               for (int feat = 0; feat < feature_definitions.length; feat++)
+               {
+                    String name = readString(header);
+                    String description = readString(header);
+                    boolean is_sequential = header.get() != 0;
+                    int dimensions = header.getInt();
+                    feature_definitions[feat] = new FeatureDefinition(name, description, is_sequential, dimensions);
+                    first_columns[feat] = number_of_columns;
+                    number_of_columns += dimensions;
+               }
+               long rows_position = BinaryFeatureValuesWriter.getPaddedSize(header.position());
+               row_size = BinaryFeatureValuesWriter.getRowSize(feature_definitions.length, number_of_columns);
+               values_offset = row_size - 8 * number_of_columns;
+               if (rows_position + number_of_rows_in_file * row_size != identifiers_position)
+                    throw new Exception(file_path + " is not a valid binary feature values file, as its rows do not match its feature definitions.");
+
+               // Read the identifiers
+               ByteBuffer identifiers_buffer = channel.map(FileChannel.MapMode.READ_ONLY, identifiers_position, file_size - BinaryFeatureValuesWriter.FOOTER_SIZE - identifiers_position);
+               identifiers = new String[identifiers_buffer.getInt()];
+               for (int i = 0; i < identifiers.length; i++)
+                    identifiers[i] = readString(identifiers_buffer);
+
+               // Map the rows
+               rows_per_segment = Integer.MAX_VALUE / row_size;
+               row_segments = new MappedByteBuffer[(int) (((long) number_of_rows + rows_per_segment - 1) / rows_per_segment)];
+               for (int seg = 0; seg < row_segments.length; seg++)
+               {
+                    int rows_in_segment = Math.min(rows_per_segment, number_of_rows - seg * rows_per_segment);
+                    row_segments[seg] = channel.map( FileChannel.MapMode.READ_ONLY,
+                         rows_position + (long) seg * rows_per_segment * row_size,
+                         (long) rows_in_segment * row_size );
+               }
+          }
+     }
+
+
+     /* PUBLIC METHODS ********************************************************/
+
+
+     /**
+      * Returns the feature definitions stored in the file. Their order
+      * corresponds to the order of the columns of each row.
+      *
+      * @return    The feature definitions.
+      */
+     public FeatureDefinition[] getFeatureDefinitions()
+     {
+          return feature_definitions;
+     }
+
+
+     /**
+      * Returns the number of instances in the file.
+      *
+      * @return    The number of instances.
+      */
+     public int getNumberOfInstances()
+     {
+          return identifiers.length;
+     }
+
+
+     /**
+      * Returns the identifier of the given instance.
+      *
+      * @param instance      The index of the instance.
+      * @return              Its identifier.
+      */
+     public String getIdentifier(int instance)
+     {
+          return identifiers[instance];
+     }
+
+
+     /**
+      * Returns the number of rows in the file. There is one row for the
+      * overall feature values of each instance and one for each of its
+      * sub-sections.
+      *
+      * @return    The number of rows.
+      */
+     public int getNumberOfRows()
+     {
+          return number_of_rows;
+     }
+
+
+     /**
+      * Returns the total number of columns in each row. Each dimension of each
+      * feature has one column.
+      *
+      * @return    The number of columns.
+      */
+     public int getNumberOfColumns()
+     {
+          return number_of_columns;
+     }
+
+
+     /**
+      * Returns the index of the first column holding values of the given
+      * feature.
+      *
+      * @param feature       The index of the feature in the feature
+      *                      definitions.
+      * @return              The index of its first column.
+      */
+     public int getFirstColumn(int feature)
+     {
+          return first_columns[feature];
+     }
+
+
+     /**
+      * Returns the index of the instance that the given row belongs to.
+      *
+      * @param row      The index of the row.
+      * @return         The index of its instance.
+      */
+     public int getInstance(int row)
+     {
+          return getSegment(row).getInt(getOffset(row));
+     }
+
+
+     /**
+      * Returns the index of the sub-section of its instance that the given row
+      * holds, or -1 if it holds the overall feature values of the instance.
+      *
+      * @param row      The index of the row.
+      * @return         The index of its sub-section, or -1.
+      */
+     public int getSection(int row)
+     {
+          return getSegment(row).getInt(getOffset(row) + 4);
+     }
+
+
+     /**
+      * Returns the start of the sub-section held by the given row, or NaN if
+      * it holds the overall feature values of an instance.
+      *
+      * @param row      The index of the row.
+      * @return         The start of its sub-section.
+      */
+     public double getStart(int row)
+     {
+          return getSegment(row).getDouble(getOffset(row) + 8);
+     }
+
+
+     /**
+      * Returns the end of the sub-section held by the given row, or NaN if
+      * it holds the overall feature values of an instance.
+      *
+      * @param row      The index of the row.
+      * @return         The end of its sub-section.
+      */
+     public double getStop(int row)
+     {
+          return getSegment(row).getDouble(getOffset(row) + 16);
+     }
+
+
+     /**
+      * Returns the value in the given row and column. This is NaN if no value
+      * is present.
+      *
+      * @param row      The index of the row.
+      * @param column   The index of the column.
+      * @return         The value.
+      */
+     public double getValue(int row, int column)
+     {
+          return getSegment(row).getDouble(getOffset(row) + values_offset + 8 * column);
+     }
+
+
+     /**
+      * Returns the values of the given feature in the given row.
+      *
+      * @param row      The index of the row.
+      * @param feature  The index of the feature in the feature definitions.
+      * @return         The values of the feature, or null if the feature is
+      *                 missing from the row.
+      */
+     public double[] getFeatureValues(int row, int feature)
+     {
+          MappedByteBuffer segment = getSegment(row);
+          int offset = getOffset(row);
+          int number_of_values = segment.getInt(offset + 24 + 4 * feature);
+          if (number_of_values == 0)
+               return null;
+          double[] values = new double[number_of_values];
+          int first_value_offset = offset + values_offset + 8 * first_columns[feature];
+          for (int val = 0; val < number_of_values; val++)
+               values[val] = segment.getDouble(first_value_offset + 8 * val);
+          return values;
+     }
+
+
+     /**
+      * Returns the contents of the file as an array of DataSet objects, one
+      * for each instance, with any sub-sections of an instance stored as its
+      * sub-sets. The DataSets are identical to those produced by parsing an
+      * ACE XML Feature Values file with the same contents: only the features
+      * present in a row are stored in the feature_names and feature_values
+      * fields of the corresponding DataSet (which are null if there are none),
+      * sub-sets have no identifiers and the sub_sets field is null if an
+      * instance has no sub-sections.
+      *
+      * @return    The DataSets.
+      */
+     public DataSet[] getDataSets()
+     {
+          DataSet[] data_sets = new DataSet[identifiers.length];
+          int row = 0;
+          for (int instance = 0; instance < data_sets.length; instance++)
+          {
+               int end_row = getEndOfInstance(instance, row);
+               data_sets[instance] = getDataSet(instance, row, end_row);
+               row = end_row;
+          }
+          return data_sets;
+     }
+
+
+     /**
+      * Passes the contents of the file to the given receiver one DataSet at a
+      * time, in the order of the instances in the file. Each DataSet is the
+      * same as the corresponding entry of the array returned by getDataSets,
+      * but only one DataSet is created at a time, so files larger than the
+      * available memory can be processed.
+      *
+      * @param receiver      The object to pass each DataSet to.
+      * @throws Exception    Any exception thrown by the receiver is passed
+      *                      on.
+      */
+     public void getDataSets(DataSetReceiver receiver)
+          throws Exception
+     {
+          int row = 0;
+          for (int instance = 0; instance < identifiers.length; instance++)
+          {
+               int end_row = getEndOfInstance(instance, row);
+               receiver.dataSetParsed(getDataSet(instance, row, end_row));
+               row = end_row;
+          }
+     }
+
+
+     /**
+      * Returns whether the given file is in the ACE binary feature values
+      * format. Only the beginning of the file is checked.
+      *
+      * @param file_path     The path of the file to check.
+      * @return              True if the file begins with the MAGIC_NUMBER of
+      *                      the format, false if it does not or cannot be
+      *                      read.
+      */
+     public static boolean isBinaryFeatureValuesFile(String file_path)
+     {
+          try (DataInputStream input = new DataInputStream(new FileInputStream(file_path)))
+          {
+               return input.readInt() == BinaryFeatureValuesWriter.MAGIC_NUMBER;
+          }
+          catch (IOException e)
+          {
+               return false;
+          }
+     }
+
+
+     /* PRIVATE METHODS *******************************************************/
+
+
+     /**
+      * Returns the mapped segment holding the given row.
+      *
+      * @param row      The index of the row.
+      * @return         The segment holding it.
+      */
+     private MappedByteBuffer getSegment(int row)
+     {
+          return row_segments[row / rows_per_segment];
+     }
+
+
+     /**
+      * Returns the offset of the given row within its segment.
+      *
+      * @param row      The index of the row.
+      * @return         Its offset in bytes.
+      */
+     private int getOffset(int row)
+     {
+          return (row % rows_per_segment) * row_size;
+     }
+
+
+     /**
+      * Returns the index of the first row after the given one that does not
+      * belong to the given instance. Rows are written one instance at a time
+      * by BinaryFeatureValuesWriter, so the rows of an instance are always
+      * consecutive.
+      *
+      * @param instance      The index of the instance.
+      * @param row           The index of the first row of the instance.
+      * @return              The index of the row after its last row.
+      */
+     private int getEndOfInstance(int instance, int row)
+     {
+          while (row < number_of_rows && getInstance(row) == instance)
+               row++;
+          return row;
+     }
+
+
+     /**
+      * Returns the DataSet of the given instance, as described for the
+      * getDataSets method.
+      *
+      * @param instance      The index of the instance.
+      * @param first_row     The index of the first row of the instance.
+      * @param end_row       The index of the row after its last row.
+      * @return              The DataSet.
+      */
+     private DataSet getDataSet(int instance, int first_row, int end_row)
+     {
+          DataSet instance_data_set = new DataSet();
+          instance_data_set.identifier = identifiers[instance];
+
+          LinkedList<DataSet> sub_sets = new LinkedList<DataSet>();
+          for (int row = first_row; row < end_row; row++)
+          {
+               DataSet data_set = instance_data_set;
+               if (getSection(row) != -1)
+               {
+                    data_set = new DataSet();
+                    data_set.start = getStart(row);
+                    data_set.stop = getStop(row);
+                    data_set.parent = instance_data_set;
+                    sub_sets.add(data_set);
+               }
+
+               LinkedList<String> names = new LinkedList<String>();
+               LinkedList<double[]> values = new LinkedList<double[]>();
+               for (int feat = 0; feat < feature_definitions.length; feat++)
+               {
+                    double[] feature_values = getFeatureValues(row, feat);
+                    if (feature_values != null)
+                    {
+                         names.add(feature_definitions[feat].name);
+                         values.add(feature_values);
+                    }
+               }
+               if (!names.isEmpty())
+               {
+                    data_set.feature_names = names.toArray(new String[names.size()]);
+                    data_set.feature_values = values.toArray(new double[values.size()][]);
+               }
+          }
+          if (!sub_sets.isEmpty())
+               instance_data_set.sub_sets = sub_sets.toArray(new DataSet[sub_sets.size()]);
+
+          return instance_data_set;
+     }
+
+
+     /**
+      * Read a string stored as an int byte count followed by UTF-8 bytes.
+      *
+      * @param buffer   The buffer to read from, positioned at the string.
+      * @return         The string read.
+      */
+     private static String readString(ByteBuffer buffer)
+     {
+          byte[] bytes = new byte[buffer.getInt()];
+          buffer.get(bytes);
+          return new String(bytes, StandardCharsets.UTF_8);
+     }
+}
@@ -0,0 +1,495 @@
+/*
+ * BinaryFeatureValuesWriter.java
+ * Version 2.2.2
+ *
+ * Last modified on October 17, 2026.
+ * McGill University
+ */
+
+package ace.datatypes;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+
+
+/**
+ * Objects of this class save feature values in the ACE binary feature values
+ * format. This is a compact alternative to ACE XML Feature Values files that
+ * can be loaded far more quickly, since no text needs to be parsed. Feature
+ * values are written one instance at a time as they become available, so
+ * that only the identifiers of the instances are held in memory until the
+ * file is closed. Files in this format are read by the
+ * BinaryFeatureValuesReader class.
+ *
+ * <p>The file begins with a header holding the feature definitions, so no
+ * separate ACE XML Feature Definitions file is needed. This is followed by
+ * one row for the overall feature values of each instance, and one row for
+ * each of its sub-sections (e.g. windows). Every row has the same size and
+ * layout, so any feature value can be found directly from the indices of its
+ * row and column. The identifiers of the instances are stored after the last
+ * row, and the file ends with a fixed-size footer indicating where they
+ * begin. All numbers are big-endian and all strings are stored as an int
+ * byte count followed by UTF-8 bytes. In detail:
+ *
+ * <ul>
+ * <li><b>Header</b>: the int MAGIC_NUMBER, the int FORMAT_VERSION, the int
+ * number of feature definitions, then the name, description, is_sequential
+ * (one byte) and dimensions (int) of each feature definition. The header is
+ * padded with zeros to a multiple of 8 bytes.
+ * <li><b>Row</b>: the int index of the instance that the row belongs to, the
+ * int index of the sub-section (-1 for the overall values of the instance),
+ * the double start and stop of the sub-section (NaN for the overall values),
+ * the int number of values present for each feature (0 if the feature is
+ * missing), padded with zeros to a multiple of 8 bytes, and then one double
+ * column for each dimension of each feature, in the order of the feature
+ * definitions. Columns for which no value is present hold NaN.
+ * <li><b>Identifiers</b>: the int number of instances, then the identifier of
+ * each instance.
+ * <li><b>Footer</b>: the long position of the identifiers in the file, the
+ * long number of rows and the int MAGIC_NUMBER again.
+ * </ul>
+ *
+ * <p>Feature values are stored with full double precision, unlike ACE XML
+ * Feature Values files, which round them to four significant digits.
+ *
+ * @author agent
+ */
+public class BinaryFeatureValuesWriter
+{
+     /* FIELDS ****************************************************************/
+
+
+     /**
+      * The number that begins and ends each file in this format ("ACEB" in
+      * ASCII).
+      */
+     public static final int                  MAGIC_NUMBER = 0x41434542;
+
+
+     /**
+      * The version of the format written by this class.
+      */
+     public static final int                  FORMAT_VERSION = 1;
+
+
+     /**
+      * The extension given to files in this format.
+      */
+     public static final String               FILE_EXTENSION = ".acebin";
+
+
+     /**
+      * The size in bytes of the footer at the end of each file.
+      */
+     public static final int                  FOOTER_SIZE = 20;
+
+
+     /**
+      * Used to write the file.
+      */
+     private   DataOutputStream               output;
+
+
+     /**
+      * The number of bytes written to the file so far.
+      */
+     private   long                           bytes_written;
+
+
+     /**
+      * The definitions of the features that are saved, in the order of their
+      * columns. Null if the header has not been written yet.
+      */
+     private   FeatureDefinition[]            feature_definitions;
+
+
+     /**
+      * The index of each feature in feature_definitions, keyed by feature name.
+      */
+     private   HashMap<String, Integer>       feature_indices;
+
+
+     /**
+      * The index of the first column of each feature in feature_definitions.
+      */
+     private   int[]                          first_columns;
+
+
+     /**
+      * The total number of columns in each row.
+      */
+     private   int                            number_of_columns;
+
+
+     /**
+      * Used to assemble each row before it is written. Has the size of a row.
+      */
+     private   ByteBuffer                     row_buffer;
+
+
+     /**
+      * The identifiers of the instances written so far.
+      */
+     private   LinkedList<String>             identifiers;
+
+
+     /**
+      * The number of rows written so far.
+      */
+     private   long                           number_of_rows;
+
+
+     /* CONSTRUCTORS **********************************************************/
+
+
+     /**
+      * Prepare to write a file in the ACE binary feature values format to the
+      * given stream. Nothing is written until the header is written.
+      *
+      * @param destination   The stream to write to. It is closed by the close
+      *                      method.
+      */
+     public BinaryFeatureValuesWriter(OutputStream destination)
+     {
+          output = new DataOutputStream(new BufferedOutputStream(destination));
+          bytes_written = 0;
+          feature_definitions = null;
+          identifiers = new LinkedList<String>();
+          number_of_rows = 0;
+     }
+
+
+     /* PUBLIC METHODS ********************************************************/
+
+
+     /**
+      * Returns whether the header has been written.
+      *
+      * @return    Whether writeHeader has been called.
+      */
+     public boolean isHeaderWritten()
+     {
+          return feature_definitions != null;
+     }
+
+
+     /**
+      * Write the header of the file, consisting of the definitions of the
+      * features that will be saved. Must be called before any instances are
+      * written.
+      *
+      * @param definitions   The definitions of the features that will be
+      *                      saved. The dimensions of each determine how many
+      *                      values can be saved for it.
+      * @throws Exception    An informative exception is thrown if the header
+      *                      has already been written, if two features have the
+      *                      same name or if the stream cannot be written to.
+      */
+     public void writeHeader(FeatureDefinition[] definitions)
+          throws Exception
+     {
+          if (feature_definitions != null)
+               throw new Exception("The header of the binary feature values file has already been written.");
+
+          // Find the columns of each feature
+          feature_indices = new HashMap<String, Integer>();
+          first_columns = new int[definitions.length];
+          number_of_columns = 0;
+          for (int feat = 0; feat < definitions.length; feat++)
+          {
+               if (feature_indices.put(definitions[feat].name, feat) != null)
+                    throw new Exception("More than one feature is named " + definitions[feat].name + ".");
+               first_columns[feat] = number_of_columns;
+               number_of_columns += definitions[feat].dimensions;
+          }
+          row_buffer = ByteBuffer.allocate(getRowSize(definitions.length, number_of_columns));
+
+          // Write the header
+          output.writeInt(MAGIC_NUMBER);
+          output.writeInt(FORMAT_VERSION);
+          output.writeInt(definitions.length);
+          bytes_written += 12;
+          for (int feat = 0; feat < definitions.length; feat++)
+          {
+               writeString(definitions[feat].name);
+               writeString(definitions[feat].description);
+               output.writeBoolean(definitions[feat].is_sequential);
+               output.writeInt(definitions[feat].dimensions);
+               bytes_written += 5;
+          }
+          writePadding();
+
+          feature_definitions = definitions;
+     }
+
+
+     /**
+      * Start a new instance and write its overall feature values. Any
+      * sub-sections of the instance must be written after this, and before the
+      * next instance is started.
+      *
+      * @param identifier         The identifier of the instance. Often a file
+      *                           path.
+      * @param feature_names      The names of the features in each
+      *                           corresponding (by first indice) entry of
+      *                           feature_values. May be null if there are no
+      *                           feature values.
+      * @param feature_values     The overall feature values of the instance.
+      *                           The first indice identifies the feature and
+      *                           the second identifies the feature value.
+      *                           Features may be null if they are missing, and
+      *                           the whole array may be null if there are no
+      *                           overall feature values.
+      * @throws Exception         An informative exception is thrown if the
+      *                           header has not been written, if a feature is
+      *                           not among its feature definitions, if a
+      *                           feature has more values than its definition
+      *                           allows or if the stream cannot be written to.
+      */
+     public void writeInstance( String identifier,
+          String[] feature_names,
+          double[][] feature_values )
+          throws Exception
+     {
+          if (feature_definitions == null)
+               throw new Exception("The header of the binary feature values file must be written before any instances.");
+          identifiers.add(identifier);
+          writeRow(-1, Double.NaN, Double.NaN, feature_names, feature_values);
+     }
+
+
+     /**
+      * Write the feature values of a sub-section (e.g. a window) of the
+      * instance most recently started with writeInstance.
+      *
+      * @param section            The index of the sub-section within its
+      *                           instance.
+      * @param start              The start of the sub-section.
+      * @param stop               The end of the sub-section.
+      * @param feature_names      The names of the features in each
+      *                           corresponding (by first indice) entry of
+      *                           feature_values. May be null if there are no
+      *                           feature values.
+      * @param feature_values     The feature values of the sub-section. The
+      *                           first indice identifies the feature and the
+      *                           second identifies the feature value. Features
+      *                           may be null if they are missing, and the whole
+      *                           array may be null if there are no feature
+      *                           values.
+      * @throws Exception         An informative exception is thrown if no
+      *                           instance has been started, if a feature is not
+      *                           among the feature definitions, if a feature
+      *                           has more values than its definition allows or
+      *                           if the stream cannot be written to.
+      */
+     public void writeSubSection( int section,
+          double start,
+          double stop,
+          String[] feature_names,
+          double[][] feature_values )
+          throws Exception
+     {
+          if (identifiers.isEmpty())
+               throw new Exception("An instance must be written before any of its sub-sections.");
+          writeRow(section, start, stop, feature_names, feature_values);
+     }
+
+
+     /**
+      * Write the given DataSets as instances, along with their sub-sets. The
+      * feature_names fields of the DataSets and their sub-sets must be set.
+      *
+      * @param data_sets     The DataSets to write.
+      * @throws Exception    An informative exception is thrown if the DataSets
+      *                      cannot be written. See writeInstance.
+      */
+     public void writeDataSets(DataSet[] data_sets)
+          throws Exception
+     {
+          for (int set = 0; set < data_sets.length; set++)
+          {
+               writeInstance( data_sets[set].identifier,
+                    data_sets[set].feature_names,
+                    data_sets[set].feature_values );
+               if (data_sets[set].sub_sets != null)
+                    for (int sub = 0; sub < data_sets[set].sub_sets.length; sub++)
+                         writeSubSection( sub,
+                              data_sets[set].sub_sets[sub].start,
+                              data_sets[set].sub_sets[sub].stop,
+                              data_sets[set].sub_sets[sub].feature_names,
+                              data_sets[set].sub_sets[sub].feature_values );
+          }
+     }
+
+
+     /**
+      * Write the identifiers of the instances and the footer, and close the
+      * stream. A header with no feature definitions is written first if no
+      * header has been written.
+      *
+      * @throws Exception    An exception is thrown if the stream cannot be
+      *                      written to or closed.
+      */
+     public void close()
+          throws Exception
+     {
+          if (feature_definitions == null)
+               writeHeader(new FeatureDefinition[0]);
+
+          long identifiers_position = bytes_written;
+          output.writeInt(identifiers.size());
+          bytes_written += 4;
+          for (String identifier : identifiers)
+               writeString(identifier);
+
+          output.writeLong(identifiers_position);
+          output.writeLong(number_of_rows);
+          output.writeInt(MAGIC_NUMBER);
+          output.close();
+     }
+
+
+     /**
+      * Save the given DataSets to a new file in the ACE binary feature values
+      * format, along with the given feature definitions. Any existing file at
+      * the path is overwritten.
+      *
+      * @param data_sets     The DataSets to save.
+      * @param definitions   The definitions of the features in the DataSets.
+      * @param to_save_to    The file to save to.
+      * @throws Exception    An informative exception is thrown if the file
+      *                      cannot be saved.
+      */
+     public static void saveDataSets( DataSet[] data_sets,
+          FeatureDefinition[] definitions,
+          File to_save_to )
+          throws Exception
+     {
+          BinaryFeatureValuesWriter writer = new BinaryFeatureValuesWriter(new FileOutputStream(to_save_to));
+          writer.writeHeader(definitions);
+          writer.writeDataSets(data_sets);
+          writer.close();
+     }
+
+
+     /**
+      * Find the size in bytes of each row of a file in this format.
+      *
+      * @param number_of_features     The number of feature definitions.
+      * @param number_of_columns      The total number of dimensions of all
+      *                               feature definitions.
+      * @return                       The size of a row.
+      */
+     public static int getRowSize(int number_of_features, int number_of_columns)
+     {
+          return 24 + (int) getPaddedSize(4 * number_of_features) + 8 * number_of_columns;
+     }
+
+
+     /**
+      * Round the given number of bytes up to a multiple of 8, so that doubles
+      * following them are aligned.
+      *
+      * @param size     A number of bytes.
+      * @return         The padded number of bytes.
+      */
+     public static long getPaddedSize(long size)
+     {
+          return (size + 7) / 8 * 8;
+     }
+
+
+     /* PRIVATE METHODS *******************************************************/
+
+
+     /**
+      * Write a row of feature values.
+      *
+      * @param section            The index of the sub-section, or -1 for the
+      *                           overall values of an instance.
+      * @param start              The start of the sub-section, or NaN.
+      * @param stop               The end of the sub-section, or NaN.
+      * @param feature_names      The names of the features in feature_values.
+      * @param feature_values     The values to write.
+      * @throws Exception         An informative exception is thrown if the
+      *                           values do not match the feature definitions
+      *                           or cannot be written.
+      */
+     private void writeRow( int section,
+          double start,
+          double stop,
+          String[] feature_names,
+          double[][] feature_values )
+          throws Exception
+     {
+          // Find the columns of the values to write
+          int[] value_counts = new int[feature_definitions.length];
+          double[] row_values = new double[number_of_columns];
+          Arrays.fill(row_values, Double.NaN);
+          if (feature_values != null)
+               for (int feat = 0; feat < feature_values.length; feat++)
+                    if (feature_values[feat] != null)
+                    {
+                         Integer index = feature_indices.get(feature_names[feat]);
+                         if (index == null)
+                              throw new Exception("The " + feature_names[feat] + " feature does not have a feature definition in the binary feature values file.");
+                         if (feature_values[feat].length > feature_definitions[index].dimensions)
+                              throw new Exception( "The " + feature_names[feat] + " feature has " + feature_values[feat].length +
+                                   " values, but its feature definition only allows " + feature_definitions[index].dimensions + "." );
+                         value_counts[index] = feature_values[feat].length;
+                         System.arraycopy(feature_values[feat], 0, row_values, first_columns[index], feature_values[feat].length);
+                    }
+
+          // Assemble and write the row
+          row_buffer.clear();
+          row_buffer.putInt(identifiers.size() - 1);
+          row_buffer.putInt(section);
+          row_buffer.putDouble(start);
+          row_buffer.putDouble(stop);
+          for (int feat = 0; feat < value_counts.length; feat++)
+               row_buffer.putInt(value_counts[feat]);
+          row_buffer.position(row_buffer.capacity() - 8 * number_of_columns);
+          for (int col = 0; col < row_values.length; col++)
+               row_buffer.putDouble(row_values[col]);
+          output.write(row_buffer.array());
+          bytes_written += row_buffer.capacity();
+          number_of_rows++;
+     }
+
+
+     /**
+      * Write a string as an int byte count followed by its UTF-8 bytes.
+      *
+      * @param to_write      The string to write. Null is written as an empty
+      *                      string.
+      * @throws IOException  Thrown if the stream cannot be written to.
+      */
+     private void writeString(String to_write)
+          throws IOException
+     {
+          byte[] bytes = (to_write == null ? "" : to_write).getBytes(StandardCharsets.UTF_8);
+          output.writeInt(bytes.length);
+          output.write(bytes);
+          bytes_written += 4 + bytes.length;
+     }
+
+
+     /**
+      * Write zeros until a multiple of 8 bytes have been written.
+      *
+      * @throws IOException  Thrown if the stream cannot be written to.
+      */
+     private void writePadding()
+          throws IOException
+     {
+          while (bytes_written % 8 != 0)
+          {
+               output.writeByte(0);
+               bytes_written++;
+          }
+     }
+}
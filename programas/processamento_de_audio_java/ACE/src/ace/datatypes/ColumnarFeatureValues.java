@@ -0,0 +1,1270 @@
+/*
+ * ColumnarFeatureValues.java
+ * Version 2.2.2
+ *
+ * Last modified on October 17, 2026.
+ * McGill University
+ */
+
+package ace.datatypes;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Objects of this class hold the feature values of a set of instances in
+ * columns, as a far more compact alternative to an array of DataSets. Each
+ * dimension of each feature has contiguous arrays of doubles holding its
+ * values for every instance and every sub-section of an instance, rather than
+ * each instance and sub-section having its own arrays of values and of
+ * feature names. Feature names are held once, in the shared feature
+ * definitions.
+ *
+ * <p>The layout of the values is the same as that of the ACE binary feature
+ * values format (see BinaryFeatureValuesWriter), but with rows and columns
+ * transposed. There is one row for the overall feature values of each
+ * instance, followed by one row for each of its sub-sections (e.g. windows),
+ * and one column for each dimension of each feature, in the order of the
+ * feature definitions. Columns for which no value is present hold NaN.
+ *
+ * <p>The overall rows and the sub-section rows of instances often hold
+ * entirely different features. Windowed jSymbolic and jAudio output, for
+ * example, has the values of each feature in its sub-section rows and only
+ * the overall averages and standard deviations of these values in its overall
+ * rows. Each column therefore holds its values in the overall rows and its
+ * values in the sub-section rows in two separate arrays, and each of these is
+ * only allocated once a value is stored in it. Columns take no space in the
+ * rows that they never have values in.
+ *
+ * <p>DataSets are added one at a time, so objects of this class may be passed
+ * to DataSet.streamDataSetFiles as a DataSetReceiver in order to load ACE XML
+ * or binary feature values files without ever holding all of their DataSets
+ * in memory. Features are matched to their definitions by name, as they are
+ * when writing binary feature values files, or by position if a DataSet has
+ * no feature names.
+ *
+ * <p>The getDataSet and getDataSets methods present the stored feature values
+ * as DataSets again, in the same form as DataSet.orderAndCompactFeatures
+ * leaves them: every feature is listed in the order of the feature
+ * definitions, and missing features are null. The feature_names fields of
+ * these DataSets share a single array, which should therefore not be
+ * changed.
+ *
+ * <p>Objects of this class can be saved to and loaded from DataBoard snapshot
+ * files (see DataBoardSnapshot). When they are loaded lazily, each column is
+ * only read from the memory-mapped file the first time that it is accessed.
+ * Objects that are not being added to may be accessed by multiple threads at
+ * once, including while their columns are being loaded.
+ *
+ * @author agent
+ */
+public class ColumnarFeatureValues
+     implements DataSetReceiver, Serializable
+{
+     /* FIELDS ****************************************************************/
+
+
+     /**
+      * The feature definitions that the columns are laid out by.
+      */
+     private   FeatureDefinition[]       feature_definitions;
+
+
+     /**
+      * The names of all of the features in feature_definitions, shared by the
+      * DataSets returned by getDataSet.
+      */
+     private   String[]                  feature_names;
+
+
+     /**
+      * The index of each feature in feature_definitions, keyed by name.
+      */
+     private   HashMap<String, Integer>  feature_indices;
+
+
+     /**
+      * The index of the first column of each feature in feature_definitions.
+      * Has one more entry than there are features, holding the total number
+      * of columns.
+      */
+     private   int[]                     first_columns;
+
+
+     /**
+      * The values of each column in the rows holding the overall feature
+      * values of instances. The first indice identifies the column and the
+      * second identifies the instance. Null for columns that have no value in
+      * any of these rows. Arrays may be longer than the number of instances
+      * while DataSets are still being added, in which case their extra
+      * entries are NaN.
+      */
+     private   double[][]                overall_columns;
+
+
+     /**
+      * The values of each column in the rows holding the sub-sections of
+      * instances. The first indice identifies the column and the second
+      * identifies the sub-section, counting the sub-sections of all instances
+      * in order. Null for columns that have no value in any of these rows.
+      * Arrays may be longer than the number of sub-sections while DataSets are
+      * still being added, in which case their extra entries are NaN.
+      */
+     private   double[][]                section_columns;
+
+
+     /**
+      * The memory-mapped columns of a DataBoard snapshot file that have not
+      * been read into the overall_columns and section_columns fields yet, for
+      * objects that were loaded lazily. The first indice identifies the
+      * column. The second is 0 for its values in the overall rows and 1 for
+      * its values in the sub-section rows, which are null if the column has
+      * no values in those rows. The entries of overall_columns and
+      * section_columns are null for these columns. Null once every column has
+      * been read, or if the columns were not loaded lazily.
+      */
+     private   transient volatile DoubleBuffer[][] unloaded_columns;
+
+
+     /**
+      * The number of non-null entries in unloaded_columns.
+      */
+     private   transient int         number_of_unloaded_columns;
+
+
+     /**
+      * The start and stop of the sub-section held by each row, or NaN for rows
+      * holding the overall values of an instance.
+      */
+     private   double[]                  starts;
+
+     private   double[]                  stops;
+
+
+     /**
+      * The rows of each feature that the feature is missing from. The first
+      * indice identifies the feature.
+      */
+     private   BitSet[]                  missing_features;
+
+
+     /**
+      * The number of values of each feature in each row, for features that
+      * have been stored with fewer values than their definitions allow. The
+      * first indice identifies the feature, and is null for features that have
+      * always had all of their values. An entry of 0 means that the feature
+      * has all of its values in that row, or is missing from it.
+      */
+     private   int[][]                   value_counts;
+
+
+     /**
+      * The rows that no feature is present in.
+      */
+     private   BitSet                    empty_rows;
+
+
+     /**
+      * The index of the instance that each row belongs to.
+      */
+     private   int[]                     row_instances;
+
+
+     /**
+      * The number of rows stored.
+      */
+     private   int                       number_of_rows;
+
+
+     /**
+      * The number of rows stored that hold sub-sections.
+      */
+     private   int                       number_of_sections;
+
+
+     /**
+      * The number of sub-sections that the arrays of section_columns have
+      * space for.
+      */
+     private   int                       section_capacity;
+
+
+     /**
+      * The identifiers of the instances.
+      */
+     private   String[]                  identifiers;
+
+
+     /**
+      * The index of the row holding the overall values of each instance. Has
+      * one more entry than there are instances, holding number_of_rows. The
+      * length of identifiers is the number of instances that the arrays of
+      * overall_columns have space for.
+      */
+     private   int[]                     first_rows;
+
+
+     /**
+      * The number of instances stored.
+      */
+     private   int                       number_of_instances;
+
+
+     /**
+      * Flags stored in DataBoard snapshots for each column, indicating whether
+      * it has values in the overall rows and in the sub-section rows.
+      */
+     private   static final byte         OVERALL_VALUES_STORED = 1;
+
+     private   static final byte         SECTION_VALUES_STORED = 2;
+
+
+     /**
+      * An identifier for use in serialization.
+      */
+     private   static final long         serialVersionUID = 2L;
+
+
+     /* CONSTRUCTORS **********************************************************/
+
+
+     /**
+      * Set up an empty store whose columns are laid out by the given feature
+      * definitions.
+      *
+      * @param definitions   The definitions of the features to be stored.
+      *                      The dimensions of each determine how many values
+      *                      can be stored for it.
+      * @throws Exception    An informative exception is thrown if two
+      *                      features have the same name.
+      */
+     public ColumnarFeatureValues(FeatureDefinition[] definitions)
+          throws Exception
+     {
+          feature_definitions = definitions;
+          feature_names = new String[definitions.length];
+          feature_indices = new HashMap<String, Integer>(definitions.length * 2);
+          first_columns = new int[definitions.length + 1];
+          for (int feat = 0; feat < definitions.length; feat++)
+          {
+               if (feature_indices.put(definitions[feat].name, feat) != null)
+                    throw new Exception("More than one feature is named " + definitions[feat].name + ".");
+               feature_names[feat] = definitions[feat].name;
+               first_columns[feat + 1] = first_columns[feat] + definitions[feat].dimensions;
+          }
+
+          int initial_rows = 16;
+          overall_columns = new double[first_columns[definitions.length]][];
+          section_columns = new double[first_columns[definitions.length]][];
+          starts = new double[initial_rows];
+          stops = new double[initial_rows];
+          missing_features = new BitSet[definitions.length];
+          for (int feat = 0; feat < definitions.length; feat++)
+               missing_features[feat] = new BitSet();
+          value_counts = new int[definitions.length][];
+          empty_rows = new BitSet();
+          row_instances = new int[initial_rows];
+          number_of_rows = 0;
+          number_of_sections = 0;
+          section_capacity = 0;
+          identifiers = new String[initial_rows];
+          first_rows = new int[initial_rows + 1];
+          number_of_instances = 0;
+     }
+
+
+     /* PUBLIC METHODS ********************************************************/
+
+
+     /**
+      * Parses the given ACE XML or binary feature values files and returns
+      * their contents in columns laid out by the given feature definitions.
+      * Only one DataSet is held in memory at a time while parsing.
+      *
+      * @param feature_vector_files    The paths of the files to parse.
+      * @param definitions             The definitions of the features in the
+      *                                files.
+      * @return                        The feature values of the files.
+      * @throws Exception              An informative exception is thrown if
+      *                                a file cannot be parsed or holds
+      *                                features that do not match the
+      *                                definitions.
+      */
+     public static ColumnarFeatureValues parseDataSetFiles( String[] feature_vector_files,
+          FeatureDefinition[] definitions )
+          throws Exception
+     {
+          ColumnarFeatureValues feature_values = new ColumnarFeatureValues(definitions);
+          DataSet.streamDataSetFiles(feature_vector_files, feature_values);
+          feature_values.trimToSize();
+          return feature_values;
+     }
+
+
+     /**
+      * Generates feature definitions for the features in the given ACE XML
+      * or binary feature values files, in the order that they are first
+      * encountered. Each is given as many dimensions as the most values found
+      * for it, so that columns laid out by these definitions can hold every
+      * value in the files. Only one DataSet is held in memory at a time.
+      *
+      * @param feature_vector_files    The paths of the files to parse.
+      * @return                        The generated feature definitions.
+      *                                Null if the files hold no features.
+      * @throws Exception              An exception is thrown if a file
+      *                                cannot be parsed.
+      */
+     public static FeatureDefinition[] generateFeatureDefinitions(String[] feature_vector_files)
+          throws Exception
+     {
+          final LinkedHashMap<String, Integer> dimensions = new LinkedHashMap<String, Integer>();
+          DataSet.streamDataSetFiles(feature_vector_files, new DataSetReceiver()
+          {
+               public void dataSetParsed(DataSet data_set)
+               {
+                    noteDimensions(data_set, dimensions);
+               }
+          });
+          return generateFeatureDefinitions(dimensions);
+     }
+
+
+     /**
+      * Generates feature definitions for the features in the given DataSets,
+      * as described for the file version of this method.
+      *
+      * @param data_sets     The DataSets holding the features.
+      * @return              The generated feature definitions. Null if the
+      *                      DataSets hold no features.
+      */
+     public static FeatureDefinition[] generateFeatureDefinitions(DataSet[] data_sets)
+     {
+          LinkedHashMap<String, Integer> dimensions = new LinkedHashMap<String, Integer>();
+          for (int set = 0; set < data_sets.length; set++)
+               noteDimensions(data_sets[set], dimensions);
+          return generateFeatureDefinitions(dimensions);
+     }
+
+
+     /**
+      * Returns the given DataSets in columns laid out by the given feature
+      * definitions.
+      *
+      * @param data_sets     The DataSets to store.
+      * @param definitions   The definitions of their features.
+      * @return              The feature values of the DataSets.
+      * @throws Exception    An informative exception is thrown if the
+      *                      DataSets hold features that do not match the
+      *                      definitions.
+      */
+     public static ColumnarFeatureValues storeDataSets( DataSet[] data_sets,
+          FeatureDefinition[] definitions )
+          throws Exception
+     {
+          ColumnarFeatureValues feature_values = new ColumnarFeatureValues(definitions);
+          for (int set = 0; set < data_sets.length; set++)
+               feature_values.addDataSet(data_sets[set]);
+          feature_values.trimToSize();
+          return feature_values;
+     }
+
+
+     /**
+      * Adds the given DataSet as a new instance, along with its sub-sets.
+      *
+      * @param data_set      The DataSet to add.
+      * @throws Exception    An informative exception is thrown if a feature
+      *                      is not among the feature definitions or has more
+      *                      values than its definition allows.
+      */
+     public void addDataSet(DataSet data_set)
+          throws Exception
+     {
+          loadAllColumns();
+          if (number_of_instances == identifiers.length)
+          {
+               int capacity = Math.max(16, 2 * identifiers.length);
+               first_rows = Arrays.copyOf(first_rows, capacity + 1);
+               identifiers = Arrays.copyOf(identifiers, capacity);
+               reserveSpace(overall_columns, capacity);
+          }
+
+          int first_row = number_of_rows;
+          try
+          {
+               addRow(true, Double.NaN, Double.NaN, data_set.feature_names, data_set.feature_values);
+               if (data_set.sub_sets != null)
+                    for (int sub = 0; sub < data_set.sub_sets.length; sub++)
+                         addRow( false,
+                              data_set.sub_sets[sub].start,
+                              data_set.sub_sets[sub].stop,
+                              data_set.sub_sets[sub].feature_names,
+                              data_set.sub_sets[sub].feature_values );
+          }
+          catch (Exception e)
+          {
+               // Leave no partly added instance behind
+               removeRows(first_row);
+               throw new Exception("Could not store the feature values of " + data_set.identifier + ":\n" + e.getMessage());
+          }
+
+          identifiers[number_of_instances] = data_set.identifier;
+          first_rows[number_of_instances] = first_row;
+          number_of_instances++;
+          first_rows[number_of_instances] = number_of_rows;
+     }
+
+
+     /**
+      * Adds the given DataSet as a new instance. Called when a DataSet is
+      * parsed from a feature values file.
+      *
+      * @param data_set      The DataSet to add.
+      * @throws Exception    An informative exception is thrown if the DataSet
+      *                      cannot be added. See addDataSet.
+      */
+     public void dataSetParsed(DataSet data_set)
+          throws Exception
+     {
+          addDataSet(data_set);
+     }
+
+
+     /**
+      * Releases any space reserved for DataSets that have not been added. This
+      * should be called once all DataSets have been added.
+      */
+     public void trimToSize()
+     {
+          loadAllColumns();
+          reserveSpace(overall_columns, number_of_instances);
+          reserveSpace(section_columns, number_of_sections);
+          section_capacity = number_of_sections;
+          starts = Arrays.copyOf(starts, number_of_rows);
+          stops = Arrays.copyOf(stops, number_of_rows);
+          row_instances = Arrays.copyOf(row_instances, number_of_rows);
+          for (int feat = 0; feat < value_counts.length; feat++)
+               if (value_counts[feat] != null)
+                    value_counts[feat] = Arrays.copyOf(value_counts[feat], number_of_rows);
+          identifiers = Arrays.copyOf(identifiers, number_of_instances);
+          first_rows = Arrays.copyOf(first_rows, number_of_instances + 1);
+     }
+
+
+     /**
+      * Returns the feature definitions that the columns are laid out by.
+      *
+      * @return    The feature definitions.
+      */
+     public FeatureDefinition[] getFeatureDefinitions()
+     {
+          return feature_definitions;
+     }
+
+
+     /**
+      * Returns the number of instances stored.
+      *
+      * @return    The number of instances.
+      */
+     public int getNumberOfInstances()
+     {
+          return number_of_instances;
+     }
+
+
+     /**
+      * Returns the identifier of the given instance.
+      *
+      * @param instance      The index of the instance.
+      * @return              Its identifier.
+      */
+     public String getIdentifier(int instance)
+     {
+          return identifiers[instance];
+     }
+
+
+     /**
+      * Returns the index of the row holding the overall feature values of the
+      * given instance. The rows of its sub-sections follow it.
+      *
+      * @param instance      The index of the instance.
+      * @return              The index of its first row.
+      */
+     public int getFirstRow(int instance)
+     {
+          return first_rows[instance];
+     }
+
+
+     /**
+      * Returns the number of sub-sections of the given instance.
+      *
+      * @param instance      The index of the instance.
+      * @return              The number of its sub-sections.
+      */
+     public int getNumberOfSections(int instance)
+     {
+          return first_rows[instance + 1] - first_rows[instance] - 1;
+     }
+
+
+     /**
+      * Returns the number of rows stored. There is one row for the overall
+      * feature values of each instance and one for each of its sub-sections.
+      *
+      * @return    The number of rows.
+      */
+     public int getNumberOfRows()
+     {
+          return number_of_rows;
+     }
+
+
+     /**
+      * Returns the total number of columns. Each dimension of each feature has
+      * one column.
+      *
+      * @return    The number of columns.
+      */
+     public int getNumberOfColumns()
+     {
+          return overall_columns.length;
+     }
+
+
+     /**
+      * Returns the index of the first column holding values of the given
+      * feature.
+      *
+      * @param feature       The index of the feature in the feature
+      *                      definitions.
+      * @return              The index of its first column.
+      */
+     public int getFirstColumn(int feature)
+     {
+          return first_columns[feature];
+     }
+
+
+     /**
+      * Returns the start of the sub-section held by the given row, or NaN if
+      * it holds the overall feature values of an instance.
+      *
+      * @param row      The index of the row.
+      * @return         The start of its sub-section.
+      */
+     public double getStart(int row)
+     {
+          return starts[row];
+     }
+
+
+     /**
+      * Returns the end of the sub-section held by the given row, or NaN if
+      * it holds the overall feature values of an instance.
+      *
+      * @param row      The index of the row.
+      * @return         The end of its sub-section.
+      */
+     public double getStop(int row)
+     {
+          return stops[row];
+     }
+
+
+     /**
+      * Returns the value in the given row and column. This is NaN if no value
+      * is present.
+      *
+      * @param row      The index of the row.
+      * @param column   The index of the column.
+      * @return         The value.
+      */
+     public double getValue(int row, int column)
+     {
+          int instance = row_instances[row];
+          if (row == first_rows[instance])
+               return getColumnValue(getOverallColumn(column), instance);
+          return getColumnValue(getSectionColumn(column), row - instance - 1);
+     }
+
+
+     /**
+      * Copies the values of the given row into the beginning of the given
+      * array, one entry for each column. Columns for which no value is
+      * present are given a value of NaN.
+      *
+      * @param row           The index of the row.
+      * @param destination   The array to copy the values into. Must have at
+      *                      least as many entries as there are columns.
+      */
+     public void getRowValues(int row, double[] destination)
+     {
+          int instance = row_instances[row];
+          if (row == first_rows[instance])
+               for (int col = 0; col < overall_columns.length; col++)
+                    destination[col] = getColumnValue(getOverallColumn(col), instance);
+          else
+               for (int col = 0; col < section_columns.length; col++)
+                    destination[col] = getColumnValue(getSectionColumn(col), row - instance - 1);
+     }
+
+
+     /**
+      * Returns whether any feature is present in the given row.
+      *
+      * @param row      The index of the row.
+      * @return         True if at least one feature is present.
+      */
+     public boolean hasFeatureValues(int row)
+     {
+          return !empty_rows.get(row);
+     }
+
+
+     /**
+      * Returns the values of the given feature in the given row.
+      *
+      * @param row      The index of the row.
+      * @param feature  The index of the feature in the feature definitions.
+      * @return         The values of the feature, or null if the feature is
+      *                 missing from the row.
+      */
+     public double[] getFeatureValues(int row, int feature)
+     {
+          if (missing_features[feature].get(row))
+               return null;
+          int number_of_values = first_columns[feature + 1] - first_columns[feature];
+          if (value_counts[feature] != null && value_counts[feature][row] != 0)
+               number_of_values = value_counts[feature][row];
+          double[] values = new double[number_of_values];
+          for (int val = 0; val < number_of_values; val++)
+               values[val] = getValue(row, first_columns[feature] + val);
+          return values;
+     }
+
+
+     /**
+      * Returns the feature values of the given instance as a DataSet, with any
+      * sub-sections of the instance stored as its sub-sets. The feature_names
+      * and feature_values fields of each DataSet list every feature in the
+      * order of the feature definitions, with null values for missing
+      * features, or are both null if no features are present. Sub-sets have
+      * no identifiers and the sub_sets field is null if the instance has no
+      * sub-sections.
+      *
+      * @param instance      The index of the instance.
+      * @return              The DataSet.
+      */
+     public DataSet getDataSet(int instance)
+     {
+          DataSet instance_data_set = new DataSet();
+          instance_data_set.identifier = identifiers[instance];
+          int first_row = first_rows[instance];
+          storeFeatureValues(instance_data_set, first_row);
+
+          int sections = getNumberOfSections(instance);
+          if (sections > 0)
+          {
+               instance_data_set.sub_sets = new DataSet[sections];
+               for (int sec = 0; sec < sections; sec++)
+               {
+                    DataSet data_set = new DataSet();
+                    data_set.start = starts[first_row + 1 + sec];
+                    data_set.stop = stops[first_row + 1 + sec];
+                    data_set.parent = instance_data_set;
+                    storeFeatureValues(data_set, first_row + 1 + sec);
+                    instance_data_set.sub_sets[sec] = data_set;
+               }
+          }
+
+          return instance_data_set;
+     }
+
+
+     /**
+      * Returns the feature values of all instances as DataSets, as described
+      * for the getDataSet method.
+      *
+      * @return    The DataSets.
+      */
+     public DataSet[] getDataSets()
+     {
+          DataSet[] data_sets = new DataSet[number_of_instances];
+          for (int instance = 0; instance < data_sets.length; instance++)
+               data_sets[instance] = getDataSet(instance);
+          return data_sets;
+     }
+
+
+     /* PRIVATE METHODS *******************************************************/
+
+
+     /**
+      * Write the contents of this object to the given DataBoard snapshot. These
+      * are written as the feature definitions, the int number of instances,
+      * the int number of rows, the identifier of each instance, the
+      * first_rows field (without a count), the empty_rows field, the
+      * missing_features and value_counts fields of each feature, a byte for
+      * each column holding OVERALL_VALUES_STORED and SECTION_VALUES_STORED
+      * flags, padding to a multiple of 8 bytes, and then the starts and stops
+      * fields and the values of each column. A BitSet is written as an int
+      * count followed by its words, and a value_counts entry as an int count
+      * (-1 for null) followed by its ints. The values of a column are written
+      * as one double for each instance, if it has values in the overall rows,
+      * followed by one double for each sub-section, if it has values in the
+      * sub-section rows. Columns therefore take no space in the rows that they
+      * never have values in.
+      *
+      * @param snapshot      The snapshot to write to.
+      * @throws IOException  An exception is thrown if the snapshot file cannot
+      *                      be written to.
+      */
+     void writeSnapshot(DataBoardSnapshot snapshot)
+          throws IOException
+     {
+          snapshot.writeFeatureDefinitions(feature_definitions);
+          snapshot.writeInt(number_of_instances);
+          snapshot.writeInt(number_of_rows);
+          for (int instance = 0; instance < number_of_instances; instance++)
+               snapshot.writeString(identifiers[instance]);
+          snapshot.writeInts(first_rows, number_of_instances + 1);
+          writeBitSet(snapshot, empty_rows);
+          for (int feat = 0; feat < feature_definitions.length; feat++)
+          {
+               writeBitSet(snapshot, missing_features[feat]);
+               if (value_counts[feat] == null)
+                    snapshot.writeInt(-1);
+               else
+               {
+                    snapshot.writeInt(number_of_rows);
+                    snapshot.writeInts(value_counts[feat], number_of_rows);
+               }
+          }
+
+          for (int col = 0; col < overall_columns.length; col++)
+          {
+               byte stored = 0;
+               if (getOverallColumn(col) != null)
+                    stored |= OVERALL_VALUES_STORED;
+               if (getSectionColumn(col) != null)
+                    stored |= SECTION_VALUES_STORED;
+               snapshot.writeByte(stored);
+          }
+
+          snapshot.writePadding();
+          snapshot.writeDoubles(starts, number_of_rows);
+          snapshot.writeDoubles(stops, number_of_rows);
+          for (int col = 0; col < overall_columns.length; col++)
+          {
+               if (overall_columns[col] != null)
+                    snapshot.writeDoubles(overall_columns[col], number_of_instances);
+               if (section_columns[col] != null)
+                    snapshot.writeDoubles(section_columns[col], number_of_sections);
+          }
+     }
+
+
+     /**
+      * Read the contents of an object written to a DataBoard snapshot by
+      * writeSnapshot.
+      *
+      * @param snapshot      The snapshot to read from.
+      * @param lazily        Whether to map the columns and only read each one
+      *                      the first time that it is accessed, rather than
+      *                      reading them all straight away.
+      * @return              The object read.
+      * @throws Exception    An informative exception is thrown if the
+      *                      snapshot is invalid.
+      */
+     static ColumnarFeatureValues readSnapshot( DataBoardSnapshot snapshot,
+          boolean lazily )
+          throws Exception
+     {
+          ColumnarFeatureValues feature_values = new ColumnarFeatureValues(snapshot.readFeatureDefinitions());
+          int number_of_instances = snapshot.readInt();
+          int number_of_rows = snapshot.readInt();
+          String[] identifiers = new String[number_of_instances];
+          for (int instance = 0; instance < number_of_instances; instance++)
+               identifiers[instance] = snapshot.readString();
+          feature_values.identifiers = identifiers;
+          feature_values.first_rows = snapshot.readInts(number_of_instances + 1);
+          feature_values.number_of_instances = number_of_instances;
+          feature_values.row_instances = new int[number_of_rows];
+          for (int instance = 0; instance < number_of_instances; instance++)
+               Arrays.fill( feature_values.row_instances,
+                    feature_values.first_rows[instance],
+                    feature_values.first_rows[instance + 1],
+                    instance );
+          feature_values.empty_rows = readBitSet(snapshot);
+          for (int feat = 0; feat < feature_values.feature_definitions.length; feat++)
+          {
+               feature_values.missing_features[feat] = readBitSet(snapshot);
+               int number_of_counts = snapshot.readInt();
+               if (number_of_counts != -1)
+                    feature_values.value_counts[feat] = snapshot.readInts(number_of_counts);
+          }
+
+          int number_of_columns = feature_values.overall_columns.length;
+          byte[] stored = new byte[number_of_columns];
+          for (int col = 0; col < number_of_columns; col++)
+               stored[col] = snapshot.readByte();
+
+          snapshot.skipPadding();
+          feature_values.starts = new double[number_of_rows];
+          snapshot.mapDoubles(number_of_rows).get(feature_values.starts);
+          feature_values.stops = new double[number_of_rows];
+          snapshot.mapDoubles(number_of_rows).get(feature_values.stops);
+          feature_values.number_of_rows = number_of_rows;
+          feature_values.number_of_sections = number_of_rows - number_of_instances;
+          feature_values.section_capacity = feature_values.number_of_sections;
+          DoubleBuffer[][] mapped_columns = new DoubleBuffer[number_of_columns][];
+          int number_of_mapped_columns = 0;
+          for (int col = 0; col < number_of_columns; col++)
+               if (stored[col] != 0)
+               {
+                    mapped_columns[col] = new DoubleBuffer[2];
+                    if ((stored[col] & OVERALL_VALUES_STORED) != 0)
+                         mapped_columns[col][0] = snapshot.mapDoubles(number_of_instances);
+                    if ((stored[col] & SECTION_VALUES_STORED) != 0)
+                         mapped_columns[col][1] = snapshot.mapDoubles(feature_values.number_of_sections);
+                    number_of_mapped_columns++;
+               }
+          if (lazily && number_of_mapped_columns > 0)
+          {
+               feature_values.number_of_unloaded_columns = number_of_mapped_columns;
+               feature_values.unloaded_columns = mapped_columns;
+          }
+          else
+               for (int col = 0; col < number_of_columns; col++)
+                    if (mapped_columns[col] != null)
+                         feature_values.readColumn(col, mapped_columns[col]);
+          return feature_values;
+     }
+
+
+     /**
+      * Write the given BitSet to the given DataBoard snapshot, as described
+      * for the writeSnapshot method.
+      *
+      * @param snapshot      The snapshot to write to.
+      * @param bits          The BitSet to write.
+      * @throws IOException  An exception is thrown if the snapshot file cannot
+      *                      be written to.
+      */
+     private static void writeBitSet( DataBoardSnapshot snapshot,
+          BitSet bits )
+          throws IOException
+     {
+          long[] words = bits.toLongArray();
+          snapshot.writeInt(words.length);
+          snapshot.writeLongs(words, words.length);
+     }
+
+
+     /**
+      * Read a BitSet written by writeBitSet.
+      *
+      * @param snapshot      The snapshot to read from.
+      * @return              The BitSet read.
+      */
+     private static BitSet readBitSet(DataBoardSnapshot snapshot)
+     {
+          return BitSet.valueOf(snapshot.readLongs(snapshot.readInt()));
+     }
+
+
+     /**
+      * Returns the values of the given column in the overall rows, reading
+      * the column from the snapshot file that this object was loaded from if
+      * this has not been done yet.
+      *
+      * @param column   The index of the column.
+      * @return         Its values, indexed by instance. Null if it has no
+      *                 values in the overall rows.
+      */
+     private double[] getOverallColumn(int column)
+     {
+          if (unloaded_columns != null)
+               loadColumn(column);
+          return overall_columns[column];
+     }
+
+
+     /**
+      * Returns the values of the given column in the sub-section rows,
+      * reading the column from the snapshot file that this object was loaded
+      * from if this has not been done yet.
+      *
+      * @param column   The index of the column.
+      * @return         Its values, indexed by sub-section. Null if it has no
+      *                 values in the sub-section rows.
+      */
+     private double[] getSectionColumn(int column)
+     {
+          if (unloaded_columns != null)
+               loadColumn(column);
+          return section_columns[column];
+     }
+
+
+     /**
+      * Returns the given entry of the given column values, or NaN if there
+      * are no values.
+      *
+      * @param values   The values of a column in the overall rows or in the
+      *                 sub-section rows. May be null.
+      * @param index    The index of the entry.
+      * @return         The value.
+      */
+     private static double getColumnValue(double[] values, int index)
+     {
+          if (values == null)
+               return Double.NaN;
+          return values[index];
+     }
+
+
+     /**
+      * Reads the given column from the snapshot file that this object was
+      * loaded from, if this has not been done yet. Once every column has been
+      * read, the unloaded_columns field is set to null, so that no further
+      * columns need to be read under this lock.
+      *
+      * @param column   The index of the column.
+      */
+     private synchronized void loadColumn(int column)
+     {
+          if (unloaded_columns != null && unloaded_columns[column] != null)
+          {
+               readColumn(column, unloaded_columns[column]);
+               unloaded_columns[column] = null;
+               number_of_unloaded_columns--;
+               if (number_of_unloaded_columns == 0)
+                    unloaded_columns = null;
+          }
+     }
+
+
+     /**
+      * Reads every column that has not been read yet from the snapshot file
+      * that this object was loaded from.
+      */
+     private void loadAllColumns()
+     {
+          for (int col = 0; unloaded_columns != null && col < overall_columns.length; col++)
+               loadColumn(col);
+     }
+
+
+     /**
+      * Reads the values of the given column from the given memory-mapped
+      * values of a DataBoard snapshot file.
+      *
+      * @param column   The index of the column.
+      * @param mapped   The values of the column in the overall rows and in
+      *                 the sub-section rows, as described for the
+      *                 unloaded_columns field.
+      */
+     private void readColumn(int column, DoubleBuffer[] mapped)
+     {
+          if (mapped[0] != null)
+          {
+               overall_columns[column] = new double[number_of_instances];
+               mapped[0].get(overall_columns[column]);
+          }
+          if (mapped[1] != null)
+          {
+               section_columns[column] = new double[number_of_sections];
+               mapped[1].get(section_columns[column]);
+          }
+     }
+
+
+     /**
+      * Reads any columns that have not been read yet before this object is
+      * serialized.
+      *
+      * @param stream        The stream that this object is serialized to.
+      * @throws IOException  An exception is thrown if the stream cannot be
+      *                      written to.
+      */
+     private void writeObject(ObjectOutputStream stream)
+          throws IOException
+     {
+          loadAllColumns();
+          stream.defaultWriteObject();
+     }
+
+
+     /**
+      * Adds a row of feature values to the instance being added, reserving
+      * more space first if needed. Space for the overall row of the instance
+      * must already have been reserved.
+      *
+      * @param overall            Whether the row holds the overall feature
+      *                           values of the instance, rather than one of
+      *                           its sub-sections.
+      * @param start              The start of the sub-section, or NaN.
+      * @param stop               The end of the sub-section, or NaN.
+      * @param names              The names of the features in values. If
+      *                           null, the features in values are taken to
+      *                           be in the order of the feature definitions.
+      * @param values             The values to add. Features may be null if
+      *                           they are missing, and the whole array may be
+      *                           null if there are no feature values.
+      * @throws Exception         An informative exception is thrown if the
+      *                           values do not match the feature definitions.
+      */
+     private void addRow( boolean overall,
+          double start,
+          double stop,
+          String[] names,
+          double[][] values )
+          throws Exception
+     {
+          if (number_of_rows == starts.length)
+               reserveRows(Math.max(16, 2 * starts.length));
+          int row = number_of_rows;
+          number_of_rows++;
+
+          // Find where the row is stored in the columns
+          double[][] row_columns;
+          int row_index;
+          int capacity;
+          if (overall)
+          {
+               row_columns = overall_columns;
+               row_index = number_of_instances;
+               capacity = identifiers.length;
+          }
+          else
+          {
+               if (number_of_sections == section_capacity)
+               {
+                    section_capacity = Math.max(16, 2 * section_capacity);
+                    reserveSpace(section_columns, section_capacity);
+               }
+               row_columns = section_columns;
+               row_index = number_of_sections;
+               capacity = section_capacity;
+               number_of_sections++;
+          }
+
+          starts[row] = start;
+          stops[row] = stop;
+          row_instances[row] = number_of_instances;
+          for (int feat = 0; feat < missing_features.length; feat++)
+               missing_features[feat].set(row);
+          empty_rows.set(row);
+
+          if (values != null)
+               for (int feat = 0; feat < values.length; feat++)
+                    if (values[feat] != null)
+                    {
+                         // Find the definition of the feature
+                         int index = feat;
+                         String name;
+                         if (names != null)
+                         {
+                              name = names[feat];
+                              Integer found = feature_indices.get(name);
+                              if (found == null)
+                                   throw new Exception("The " + name + " feature does not have a feature definition.");
+                              index = found;
+                         }
+                         else if (feat < feature_names.length)
+                              name = feature_names[feat];
+                         else
+                              throw new Exception("There are more features than feature definitions.");
+                         int dimensions = first_columns[index + 1] - first_columns[index];
+                         if (values[feat].length > dimensions)
+                              throw new Exception( "The " + name + " feature has " + values[feat].length +
+                                   " values, but its feature definition only allows " + dimensions + "." );
+
+                         for (int val = 0; val < values[feat].length; val++)
+                         {
+                              int col = first_columns[index] + val;
+                              if (row_columns[col] == null)
+                                   row_columns[col] = newColumnValues(capacity);
+                              row_columns[col][row_index] = values[feat][val];
+                         }
+                         if (values[feat].length < dimensions)
+                         {
+                              if (value_counts[index] == null)
+                                   value_counts[index] = new int[starts.length];
+                              value_counts[index][row] = values[feat].length;
+                         }
+                         else if (value_counts[index] != null)
+                              value_counts[index][row] = 0;
+                         if (values[feat].length > 0)
+                         {
+                              missing_features[index].clear(row);
+                              empty_rows.clear(row);
+                         }
+                    }
+     }
+
+
+     /**
+      * Removes the rows of the instance being added, which start at the given
+      * row, and resets any values that they stored to NaN.
+      *
+      * @param first_row     The index of the overall row of the instance.
+      */
+     private void removeRows(int first_row)
+     {
+          if (first_row == number_of_rows)
+               return;
+          int first_section = first_row - number_of_instances;
+          for (int col = 0; col < overall_columns.length; col++)
+          {
+               if (overall_columns[col] != null)
+                    overall_columns[col][number_of_instances] = Double.NaN;
+               if (section_columns[col] != null)
+                    Arrays.fill(section_columns[col], first_section, number_of_sections, Double.NaN);
+          }
+          for (int feat = 0; feat < missing_features.length; feat++)
+               missing_features[feat].clear(first_row, number_of_rows);
+          empty_rows.clear(first_row, number_of_rows);
+          number_of_rows = first_row;
+          number_of_sections = first_section;
+     }
+
+
+     /**
+      * Increases the number of rows that there is space for.
+      *
+      * @param capacity      The number of rows to reserve space for.
+      */
+     private void reserveRows(int capacity)
+     {
+          starts = Arrays.copyOf(starts, capacity);
+          stops = Arrays.copyOf(stops, capacity);
+          row_instances = Arrays.copyOf(row_instances, capacity);
+          for (int feat = 0; feat < value_counts.length; feat++)
+               if (value_counts[feat] != null)
+                    value_counts[feat] = Arrays.copyOf(value_counts[feat], capacity);
+     }
+
+
+     /**
+      * Changes the number of entries that each of the given column values
+      * has space for. Added entries are NaN.
+      *
+      * @param row_columns   The values of each column in the overall rows or
+      *                      in the sub-section rows. Entries may be null.
+      *                      Updated by this method.
+      * @param capacity      The number of entries to reserve space for.
+      */
+     private static void reserveSpace(double[][] row_columns, int capacity)
+     {
+          for (int col = 0; col < row_columns.length; col++)
+               if (row_columns[col] != null)
+               {
+                    int old_length = row_columns[col].length;
+                    row_columns[col] = Arrays.copyOf(row_columns[col], capacity);
+                    if (capacity > old_length)
+                         Arrays.fill(row_columns[col], old_length, capacity, Double.NaN);
+               }
+     }
+
+
+     /**
+      * Returns new column values with the given number of entries, all of
+      * which are NaN.
+      *
+      * @param capacity      The number of entries.
+      * @return              The column values.
+      */
+     private static double[] newColumnValues(int capacity)
+     {
+          double[] values = new double[capacity];
+          Arrays.fill(values, Double.NaN);
+          return values;
+     }
+
+
+     /**
+      * Stores the features of the given row in the feature_names and
+      * feature_values fields of the given DataSet, as described for the
+      * getDataSet method.
+      *
+      * @param data_set      The DataSet to store the feature values in.
+      * @param row           The index of the row.
+      */
+     private void storeFeatureValues(DataSet data_set, int row)
+     {
+          if (empty_rows.get(row))
+               return;
+
+          data_set.feature_names = feature_names;
+          data_set.feature_values = new double[feature_definitions.length][];
+          for (int feat = 0; feat < feature_definitions.length; feat++)
+               data_set.feature_values[feat] = getFeatureValues(row, feat);
+     }
+
+
+     /**
+      * Notes the names of the features in the given DataSet and its sub-sets,
+      * along with the most values found for each so far.
+      *
+      * @param data_set      The DataSet to examine.
+      * @param dimensions    The most values found for each feature so far,
+      *                      keyed by feature name in the order that the
+      *                      features were first encountered. Updated by this
+      *                      method.
+      */
+     private static void noteDimensions( DataSet data_set,
+          Map<String, Integer> dimensions )
+     {
+          if (data_set.feature_names != null)
+               for (int feat = 0; feat < data_set.feature_names.length; feat++)
+               {
+                    int number_of_values = 1;
+                    if (data_set.feature_values != null && data_set.feature_values[feat] != null)
+                         number_of_values = Math.max(1, data_set.feature_values[feat].length);
+                    Integer so_far = dimensions.get(data_set.feature_names[feat]);
+                    if (so_far == null || so_far.intValue() < number_of_values)
+                         dimensions.put(data_set.feature_names[feat], number_of_values);
+               }
+          if (data_set.sub_sets != null)
+               for (int sec = 0; sec < data_set.sub_sets.length; sec++)
+                    noteDimensions(data_set.sub_sets[sec], dimensions);
+     }
+
+
+     /**
+      * Returns non-sequential feature definitions with the given names and
+      * dimensions.
+      *
+      * @param dimensions    The dimensions of each feature, keyed by feature
+      *                      name in the order that the definitions are to be
+      *                      in.
+      * @return              The feature definitions. Null if there are no
+      *                      features.
+      */
+     private static FeatureDefinition[] generateFeatureDefinitions(Map<String, Integer> dimensions)
+     {
+          if (dimensions.isEmpty())
+               return null;
+          FeatureDefinition[] generated = new FeatureDefinition[dimensions.size()];
+          int feat = 0;
+          for (Map.Entry<String, Integer> feature : dimensions.entrySet())
+          {
+               generated[feat] = new FeatureDefinition(feature.getKey(), "", false, feature.getValue().intValue());
+               feat++;
+          }
+          return generated;
+     }
+}
@@ -9,6 +9,7 @@
 package ace.datatypes;
 
 import java.io.*;
+import java.util.HashMap;
 import java.util.LinkedList;
 import weka.core.*;
 import weka.core.converters.ArffLoader;
@@ -20,13 +21,16 @@ import weka.core.converters.ArffLoader;
  * classifications of instances.
  *
  * <p>The contents of objects of this class can be loaded from ACE XML files or a Weka ARFF file using
- * one of the constructors. Methods are also implemented for saving and loading
+ * one of the constructors. Feature values may also be loaded from files in the ACE binary feature values
+ * format (see BinaryFeatureValuesWriter), which are memory-mapped rather than parsed. Methods are also implemented for saving and loading
  * objects of this class directly as serializable objects. The contents of an
  * object of this class may also be separated and saved as individual XML files.
  *
  * <p>A method is also available for generating a Weka ARFF file from an object
  * of this class. This method also generates an array of strings identifying
- * the source of each line in the resulting ARFF file.
+ * the source of each line in the resulting ARFF file. Feature vector files may
+ * also be converted directly to ARFF or CSV files one instance at a time,
+ * without being loaded into a DataBoard first.
  *
  * @author Cory McKay (ACE 1.x) and Jessica Thompson (ACE 2.x)
  */
@@ -64,6 +68,19 @@ public class DataBoard
      public    DataSet[]                     feature_vectors;
 
 
+     /**
+      * The feature vectors in columnar form. This is an alternative to the
+      * feature_vectors field that takes far less memory, and from which Weka
+      * Instances can be built far more quickly, for large numbers of
+      * instances.
+      *
+      * <p>Only used if feature_vectors is null, in which case the methods of
+      * this class that need feature vectors use this field instead. The
+      * getFeatureVectors method presents its contents as DataSets.
+      */
+     public    ColumnarFeatureValues         feature_vector_columns;
+
+
      /**
       * The model classifications that are used in supervised training.
       * Can include classifications for sub-sections of instances as well
@@ -78,6 +95,21 @@ public class DataBoard
       */
      public    SegmentedClassification[]     model_classifications;
 
+     /**
+      * The model_classifications field indexed by identifier, so that the
+      * model classification of a DataSet can be found without searching
+      * through all of them. Built when first needed and built again whenever
+      * a different array is assigned to the model_classifications field.
+      * Entries of that array should therefore not be replaced in place.
+      */
+     private   transient HashMap<String, SegmentedClassification> model_classification_index;
+
+     /**
+      * The array of model classifications that model_classification_index
+      * was built from.
+      */
+     private   transient SegmentedClassification[] indexed_model_classifications;
+
      /**
       * An identifier for use in serialization.
       */
@@ -95,6 +127,7 @@ public class DataBoard
           taxonomy = null;
           feature_definitions = null;
           feature_vectors = null;
+          feature_vector_columns = null;
           model_classifications = null;
           /*taxonomy = new Taxonomy();
           feature_definitions = new FeatureDefinition[0];
@@ -171,7 +204,13 @@ public class DataBoard
       *                                 feature_key_file was provided, the
       *                                 feature_vector files are ordered and
       *                                 compacted based on it. An entrys of "" i
-      *                                 considered equivalent to null.
+      *                                 considered equivalent to null. Files
+      *                                 in the ACE binary feature values
+      *                                 format may be given instead of XML
+      *                                 files. If all of them are, and no
+      *                                 feature_key_file is provided, the
+      *                                 feature definitions stored in the
+      *                                 first of them are used.
       * @param	taxonomy_file		The path of a taxonomy_file XML file
       *					holding the model classifications that
       *                                 are used in supervised training using
@@ -191,6 +230,42 @@ public class DataBoard
           String[] feature_vector_files,
           String classifications_file )
           throws Exception
+     {
+          this(taxonomy_file, feature_key_file, feature_vector_files, classifications_file, false);
+     }
+
+
+     /**
+      * Generates a DataBoard based on the contents of the given XML files, as
+      * described for the constructor above, optionally storing the feature
+      * vectors in the feature_vector_columns field rather than the
+      * feature_vectors field. Storing them in columns takes far less memory
+      * for large numbers of instances, and the files are parsed without ever
+      * holding all of their DataSets in memory.
+      *
+      * <p>When the feature vectors are stored in columns, features are matched
+      * to their definitions by name. Feature definitions are generated from
+      * the feature vector files if no feature_key_file is provided and they
+      * are not all in the ACE binary feature values format.
+      *
+      * @param	taxonomy_file           See the constructor above.
+      * @param	feature_key_file        See the constructor above.
+      * @param	feature_vector_files    See the constructor above.
+      * @param	classifications_file    See the constructor above.
+      * @param	store_in_columns        Whether to store the feature vectors
+      *                                 in feature_vector_columns rather than
+      *                                 in feature_vectors.
+      * @throws	Exception		An informative exception is thrown
+      *					if any of the file paths provided are
+      *					invalid or if the data contained in the
+      *					files is incompatible with one another.
+      */
+     public DataBoard( String taxonomy_file,
+          String feature_key_file,
+          String[] feature_vector_files,
+          String classifications_file,
+          boolean store_in_columns )
+          throws Exception
      {
           // Parse the provided classifications_file and store its contents
           taxonomy = null;
@@ -208,9 +283,36 @@ public class DataBoard
           // If feature definitions are available, the features in the feature
           // vectors are ordered and compacted.
           feature_vectors = null;
+          feature_vector_columns = null;
           if (feature_vector_files != null)
                if (!feature_vector_files[0].equals(""))
-                    feature_vectors = DataSet.parseDataSetFiles(feature_vector_files, feature_definitions);
+               {
+                    if (store_in_columns)
+                    {
+                         // The columns are laid out by the feature definitions,
+                         // so these are needed first
+                         if (feature_definitions == null)
+                              feature_definitions = getColumnFeatureDefinitions(feature_vector_files);
+                         if (feature_definitions == null)
+                              throw new Exception( "Cannot store feature vectors in columns because no\n" +
+                                   "feature definitions are available." );
+                         feature_vector_columns = ColumnarFeatureValues.parseDataSetFiles(feature_vector_files, feature_definitions);
+                    }
+                    else
+                         feature_vectors = DataSet.parseDataSetFiles(feature_vector_files, feature_definitions);
+               }
+
+          // Files in the ACE binary feature values format hold their own
+          // feature definitions, which are used if none were provided
+          if (feature_definitions == null && feature_vectors != null)
+          {
+               boolean all_binary = true;
+               for (int i = 0; i < feature_vector_files.length; i++)
+                    if (!BinaryFeatureValuesReader.isBinaryFeatureValuesFile(feature_vector_files[i]))
+                         all_binary = false;
+               if (all_binary)
+                    feature_definitions = new BinaryFeatureValuesReader(feature_vector_files[0]).getFeatureDefinitions();
+          }
 
           // Parse the provided model_classifications and store its contents
           model_classifications = null;
@@ -293,13 +395,59 @@ public class DataBoard
       * FeatureDefinitions in order to minimize storage space and processing
       * overhead.
       *
+      * <p>If the feature vectors are stored in columns, new DataSets are
+      * generated from them each time that this method is called.
+      *
       * @return The array of DataSet objects of this DataBoard.
       */
      public DataSet[] getFeatureVectors()
      {
+          if (feature_vectors == null && feature_vector_columns != null)
+               return feature_vector_columns.getDataSets();
           return feature_vectors;
      }
 
+
+     /**
+      * Returns the identifier of the given instance.
+      *
+      * @param instance   The index of the instance among the feature vectors.
+      * @return           Its identifier.
+      */
+     public String getInstanceIdentifier(int instance)
+     {
+          if (feature_vectors == null)
+               return feature_vector_columns.getIdentifier(instance);
+          return feature_vectors[instance].identifier;
+     }
+
+
+     /**
+      * Moves the feature vectors stored in the feature_vectors field into the
+      * feature_vector_columns field, which takes far less memory for large
+      * numbers of instances. The feature_vectors field is set to null.
+      * Feature definitions are generated from the feature vectors if none are
+      * stored, with as many dimensions as the most values found for each
+      * feature.
+      *
+      * @throws Exception   An informative exception is thrown if no feature
+      *                     vectors are stored or if their features do not
+      *                     match the feature definitions.
+      */
+     public void storeFeatureVectorsInColumns()
+          throws Exception
+     {
+          if (feature_vectors == null)
+               throw new Exception("No feature vectors are stored to be moved into columns.");
+          if (feature_definitions == null)
+               feature_definitions = ColumnarFeatureValues.generateFeatureDefinitions(feature_vectors);
+          if (feature_definitions == null)
+               throw new Exception( "Cannot store feature vectors in columns because no\n" +
+                    "feature definitions are available." );
+          feature_vector_columns = ColumnarFeatureValues.storeDataSets(feature_vectors, feature_definitions);
+          feature_vectors = null;
+     }
+
      /**
       * Returns the model classifications that are used in supervised training.
       * This can include classifications for sub-sections of instances as well
@@ -417,10 +565,7 @@ public class DataBoard
      {
           if (model_classifications == null)
                return null;
-          for (int i = 0; i < model_classifications.length; i++)
-               if (model_classifications[i].identifier.equals(data_set.identifier))
-                    return model_classifications[i];
-          return null;
+          return getModelClassificationIndex().get(data_set.identifier);
      }
 
 
@@ -453,7 +598,7 @@ public class DataBoard
           if (feature_definitions == null)
                throw new Exception( "Cannot set up instances because no feature\n" +
                     "definitions are available." );
-          if (feature_vectors == null)
+          if (feature_vectors == null && feature_vector_columns == null)
                throw new Exception( "Cannot set up instances because no feature\n" +
                     "vectors are available." );
 
@@ -511,6 +656,12 @@ public class DataBoard
       * per instance, the feature vector for an instance with multiple classes
       * is repeated twice, once for each class.
       *
+      * <p>If the feature vectors are stored in the feature_vector_columns
+      * field, their values are copied straight from their columns, and each
+      * value is stored in the attribute of the feature that it belongs to.
+      * Otherwise the values of each DataSet are stored in the order that they
+      * appear in the DataSet.
+      *
       * @param	set_of_instances             The Weka Instances object to store
       *                                      individual instances in.
       * @param	use_top_level_features       Whether or not to store overall
@@ -534,7 +685,7 @@ public class DataBoard
           if (feature_definitions == null)
                throw new Exception( "Cannot set up instances because no feature\n" +
                     "definitions are available." );
-          if (feature_vectors == null)
+          if (feature_vectors == null && feature_vector_columns == null)
                throw new Exception( "Cannot set up instances because no feature\n" +
                     "vectors are available." );
           if (!use_top_level_features && !use_sub_section_features)
@@ -542,6 +693,16 @@ public class DataBoard
                     "specified to store neither top-level nor\n" +
                     "sub-section features." );
 
+          // Copy the feature values straight from their columns if they are
+          // stored in columns
+          if (feature_vectors == null)
+          {
+               storeInstancesFromColumns( set_of_instances,
+                    use_top_level_features,
+                    use_sub_section_features );
+               return;
+          }
+
           // Find the model classifications of data sets overall and of their sections
           String[][] model_classifications_overall = null;
           String[][][] model_classifications_sections = null;
@@ -550,11 +711,11 @@ public class DataBoard
                if (use_top_level_features)
                     model_classifications_overall =
                          SegmentedClassification.getOverallLabelsOfDataSets( feature_vectors,
-                         model_classifications );
+                         getUniqueModelClassificationIndex() );
                if (use_sub_section_features)
                     model_classifications_sections =
                          SegmentedClassification.getSubSectionLabelsOfDataSets( feature_vectors,
-                         model_classifications );
+                         getUniqueModelClassificationIndex() );
           }
 
           // Store the feature vectors and the model classifications, if any
@@ -718,16 +879,18 @@ public class DataBoard
           int current_instance = 0;
 
           // Go through the input data sets one by one
-          for (int set = 0; set < feature_vectors.length; set++)
+          int num_overall = getNumOverall();
+          for (int set = 0; set < num_overall; set++)
           {
                // Match the DataSet that a set of features are stored in and the
                // SegmentedClassification that its classification will be stored in
+               DataSet data_set = getFeatureVector(set);
                SegmentedClassification this_classification = new SegmentedClassification();
-               this_classification.identifier = feature_vectors[set].identifier;
+               this_classification.identifier = data_set.identifier;
 
                // Process top-level overall features
                if (use_top_level_features)
-                    if (feature_vectors[set].feature_values != null)
+                    if (data_set.feature_values != null)
                     {
                     double predicted = trained.classifier.classifyInstance(instances.instance(current_instance));
                     current_instance++;
@@ -739,22 +902,22 @@ public class DataBoard
                     // no sub-sections to store
                     if (!use_sub_section_features)
                          overall_classifications.add(this_classification);
-                    else if (feature_vectors[set].sub_sets == null)
+                    else if (data_set.sub_sets == null)
                          overall_classifications.add(this_classification);
 
                     }
 
                // Process features of sub-sections
                if (use_sub_section_features)
-                    if (feature_vectors[set].sub_sets != null)
+                    if (data_set.sub_sets != null)
                     {
                     // The list of classificaitons for each sub-secion
                     LinkedList<SegmentedClassification> sub_section_classifications = new LinkedList<SegmentedClassification>();
 
                     // Go through the sub-sections one by one
-                    for (int sec = 0 ; sec < feature_vectors[set].sub_sets.length; sec++)
+                    for (int sec = 0 ; sec < data_set.sub_sets.length; sec++)
                     {
-                         DataSet this_sub_section = feature_vectors[set].sub_sets[sec];
+                         DataSet this_sub_section = data_set.sub_sets[sec];
 
                          if (this_sub_section.feature_values != null)
                          {
@@ -840,7 +1003,8 @@ public class DataBoard
                throw new Exception( "Cannot save ARFF file because it has been\n" +
                     "specified to store neither top-level nor\n" +
                     "sub-section features." );
-          if (feature_vectors == null)
+          DataSet[] vectors = getFeatureVectors();
+          if (vectors == null)
                throw new Exception( "Cannot save ARFF file because no feature\n" +
                     "vectors are available." );
 
@@ -848,7 +1012,7 @@ public class DataBoard
 		  FeatureDefinition[] these_feature_definitions = feature_definitions;
 		  if (these_feature_definitions == null)
 		  {
-				these_feature_definitions = FeatureDefinition.generateFeatureDefinitions(feature_vectors);
+				these_feature_definitions = FeatureDefinition.generateFeatureDefinitions(vectors);
 				if (these_feature_definitions == null)
 					throw new Exception( "Cannot save ARFF file because no feature\n" +
 						"definitions are available." );
@@ -858,33 +1022,8 @@ public class DataBoard
           FileOutputStream to = new FileOutputStream(databoard_file);
           DataOutputStream writer = new DataOutputStream(to);
 
-          // Write the relation name
-          writer.writeBytes("@relation " + relation_name + "\n\n");
-
-          // Write the feature names
-          for (int i = 0; i < these_feature_definitions.length; i++)
-          {
-               if (these_feature_definitions[i].dimensions == 1)
-                    writer.writeBytes("@attribute " + these_feature_definitions[i].name.replace(' ', '_') + " numeric\n");
-               else
-                    for (int j = 0; j < these_feature_definitions[i].dimensions; j++)
-                         writer.writeBytes("@attribute " + these_feature_definitions[i].name.replace(' ', '_') + "_" + j + " numeric\n");
-          }
-
-          // Write the class names
-          String[] class_names = getClassNames();
-          if (class_names != null)
-          {
-               writer.writeBytes("@attribute class? { ");
-               for (int i = 0; i < class_names.length; i++)
-               {
-                    writer.writeBytes(class_names[i].replace(' ', '_'));
-                    if (i != class_names.length - 1)
-                         writer.writeBytes(", ");
-                    else
-                         writer.writeBytes(" }\n");
-               }
-          }
+          // Write the relation name, feature names and class names
+          writeARFFHeader(writer, relation_name, these_feature_definitions, getClassNames());
 
           // Find the model classifications of data sets overall and of their sections
           String[][] model_classifications_overall = null;
@@ -893,118 +1032,26 @@ public class DataBoard
           {
                if (use_top_level_features)
                     model_classifications_overall =
-                         SegmentedClassification.getOverallLabelsOfDataSets( feature_vectors,
-                         model_classifications );
+                         SegmentedClassification.getOverallLabelsOfDataSets( vectors,
+                         getUniqueModelClassificationIndex() );
                if (use_sub_section_features)
                     model_classifications_sections =
-                         SegmentedClassification.getSubSectionLabelsOfDataSets( feature_vectors,
-                         model_classifications );
+                         SegmentedClassification.getSubSectionLabelsOfDataSets( vectors,
+                         getUniqueModelClassificationIndex() );
           }
 
           // Write the feature vectors and the model classifications, if any
-          writer.writeBytes("\n@data\n");
           LinkedList<String> identifiers = new LinkedList<String>();
-          for (int i = 0; i < feature_vectors.length; i++)
-          {
-               // Process top-level overall features
-               if (use_top_level_features)
-               {
-                    // Find the top-level overall feature values
-                    String[][] top_feat_vals = feature_vectors[i].getFeatureValuesOfTopLevel(these_feature_definitions);
-
-                    // Write the top-level overall feature values and model classifications
-                    if (top_feat_vals != null)
-                    {
-                         // May need to repeat a given instance multiple times
-                         // if it has multiple classes
-                         int classes = 1;
-                         if (model_classifications_overall != null)
-                              if (model_classifications_overall[i] != null)
-                                   classes = model_classifications_overall[i].length;
-
-                         // Write the feature values and model classifications
-                         for (int cla = 0; cla < classes; cla++)
-                              for (int j = 0; j < top_feat_vals.length; j++)
-                                   for (int k = 0; k < top_feat_vals[j].length; k++)
-                                   {
-                              // Write the feature value
-                              writer.writeBytes(top_feat_vals[j][k]);
-
-                              // Write the model classification if features done
-                              if ( j == top_feat_vals.length - 1 && k == top_feat_vals[j].length - 1 )
-                              {
-                                   if (model_classifications_overall != null)
-                                   {
-                                        if (model_classifications_overall[i] != null)
-                                             writer.writeBytes(", " + model_classifications_overall[i][cla].replace(' ', '_'));
-                                        else
-                                             writer.writeBytes(", ?");
-                                   }
-                                   writer.writeBytes("\n");
-
-                                   // Store the identifier
-                                   identifiers.add(feature_vectors[i].identifier);
-                              }
-                              else
-                                   writer.writeBytes(", ");
-                                   }
-                    }
-               }
-
-               // Process features of sub-sections
-               if (use_sub_section_features)
-               {
-                    // Find the sub-section feature values
-                    String[][][] sec_feat_vals = feature_vectors[i].getFeatureValuesOfSubSections(these_feature_definitions);
-
-                    // Write the sub-section feature values and model classifications
-                    // for each sub-section
-                    if (sec_feat_vals != null)
-                    {
-                         for (int sec = 0 ; sec < sec_feat_vals.length; sec++)
-                         {
-                              if (sec_feat_vals[sec] != null)
-                              {
-                                   // May need to repeat a given instance multiple times
-                                   // if it has multiple classes
-                                   int classes = 1;
-                                   if (model_classifications_sections != null)
-                                        if (model_classifications_sections[i] != null)
-                                             if (model_classifications_sections[i][sec] != null)
-                                                  classes = model_classifications_sections[i][sec].length;
-
-                                   // Write the feature values and model classifications
-                                   for (int cla = 0; cla < classes; cla++)
-                                        for (int j = 0; j < sec_feat_vals[sec].length; j++)
-                                             for (int k = 0; k < sec_feat_vals[sec][j].length; k++)
-                                             {
-                                        // Write the feature value
-                                        writer.writeBytes(sec_feat_vals[sec][j][k]);
-
-                                        // Write the model classification if features done
-                                        if ( j == sec_feat_vals[sec].length - 1 && k == sec_feat_vals[sec][j].length - 1 )
-                                        {
-                                             if (model_classifications_sections != null)
-                                                  if (model_classifications_sections[i] != null)
-                                                  {
-                                                  if (model_classifications_sections[i][sec] != null)
-                                                       writer.writeBytes(", " + model_classifications_sections[i][sec][cla].replace(' ', '_'));
-                                                  else
-                                                       writer.writeBytes(", ?");
-                                                  }
-                                             writer.writeBytes("\n");
-
-                                             // Store the identifier
-                                             identifiers.add(feature_vectors[i].identifier + ":  Start=" + feature_vectors[i].sub_sets[sec].start + "Stop=" + feature_vectors[i].sub_sets[sec].stop);
-                                        }
-                                        else
-                                             writer.writeBytes(", ");
-                                             }
-                              }
-                         }
-                    }
-               }
-          }
+          for (int i = 0; i < vectors.length; i++)
+               writeARFFData( writer,
+                    vectors[i],
+                    these_feature_definitions,
+                    use_top_level_features,
+                    use_sub_section_features,
+                    model_classifications != null,
+                    (model_classifications_overall == null) ? null : model_classifications_overall[i],
+                    (model_classifications_sections == null) ? null : model_classifications_sections[i],
+                    identifiers );
 
           // Close the output streams
           writer.close();
@@ -1072,7 +1119,8 @@ public class DataBoard
 					+ "specified to store neither top-level nor\n"
 					+ "sub-section features.");
 		}
-		if (feature_vectors == null)
+		DataSet[] vectors = getFeatureVectors();
+		if (vectors == null)
 		{
 			throw new Exception("Cannot save CSV file because no feature\n"
 					+ "vectors are available.");
@@ -1082,7 +1130,7 @@ public class DataBoard
 		FeatureDefinition[] these_feature_definitions = feature_definitions;
 		if (these_feature_definitions == null)
 		{
-			these_feature_definitions = FeatureDefinition.generateFeatureDefinitions(feature_vectors);
+			these_feature_definitions = FeatureDefinition.generateFeatureDefinitions(vectors);
 			if (these_feature_definitions == null)
 			{
 				throw new Exception("Cannot save ARFF file because no feature\n"
@@ -1096,30 +1144,7 @@ public class DataBoard
 
 		// Write the feature names, if requested
 		if (include_feature_names)
-		{
-			if (include_instance_identifiers)
-				writer.writeBytes(",");
-			
-			for (int i = 0; i < these_feature_definitions.length; i++)
-			{
-				if (these_feature_definitions[i].dimensions == 1)
-					writer.writeBytes(these_feature_definitions[i].name.replace(' ', '_'));
-				else
-				{
-					for (int j = 0; j < these_feature_definitions[i].dimensions; j++)
-					{
-						writer.writeBytes(these_feature_definitions[i].name.replace(' ', '_') + "_" + j);
-						if (j != these_feature_definitions[i].dimensions - 1)
-							writer.writeBytes(",");
-					}
-				}
-
-				if (i == these_feature_definitions.length - 1)
-					writer.writeBytes("\n");
-				else
-					writer.writeBytes(",");
-			}
-		}
+			writeCSVHeader(writer, these_feature_definitions, include_instance_identifiers);
 
 		// Find the model classifications of data sets overall and of their sections
 		String[][] model_classifications_overall = null;
@@ -1129,135 +1154,32 @@ public class DataBoard
 			if (include_top_level_features)
 			{
 				model_classifications_overall
-						= SegmentedClassification.getOverallLabelsOfDataSets(feature_vectors,
-								model_classifications);
+						= SegmentedClassification.getOverallLabelsOfDataSets(vectors,
+								getUniqueModelClassificationIndex());
 			}
 			if (include_sub_section_features)
 			{
 				model_classifications_sections
-						= SegmentedClassification.getSubSectionLabelsOfDataSets(feature_vectors,
-								model_classifications);
+						= SegmentedClassification.getSubSectionLabelsOfDataSets(vectors,
+								getUniqueModelClassificationIndex());
 			}
 		}
 
 		// Write the feature vectors and, if requested, the model classifications (if any)
 		// and instance identifiers.
 		LinkedList<String> identifiers = new LinkedList<>();
-		for (int i = 0; i < feature_vectors.length; i++)
+		for (int i = 0; i < vectors.length; i++)
 		{
-			// Process top-level overall features
-			if (include_top_level_features)
-			{
-				// Find the top-level overall feature values
-				String[][] top_feat_vals = feature_vectors[i].getFeatureValuesOfTopLevel(these_feature_definitions);
-
-				// Write the top-level overall feature values and model classifications
-				if (top_feat_vals != null)
-				{
-					// May need to repeat a given instance multiple times
-					// if it has multiple classes
-					int classes = 1;
-					if (model_classifications_overall != null)
-						if (model_classifications_overall[i] != null)
-								classes = model_classifications_overall[i].length;
-	
-					// Write the data
-					for (int cla = 0; cla < classes; cla++)
-					{
-						// Write the insantce identifier, if requested
-						if (include_instance_identifiers)
-							writer.writeBytes("\"" + feature_vectors[i].identifier + "\",");
-
-						// Write the feature values and model classifications
-						for (int j = 0; j < top_feat_vals.length; j++)
-						{
-							for (int k = 0; k < top_feat_vals[j].length; k++)
-							{
-								// Write the feature value
-								writer.writeBytes(top_feat_vals[j][k]);
-
-								// Write the model classification if features done
-								if (j == top_feat_vals.length - 1 && k == top_feat_vals[j].length - 1)
-								{
-									if (model_classifications_overall != null)
-									{
-										if (model_classifications_overall[i] != null)
-											writer.writeBytes(", " + model_classifications_overall[i][cla].replace(' ', '_'));
-										else writer.writeBytes(", ?");
-									}
-									writer.writeBytes("\n");
-
-									// Store the identifier
-									identifiers.add(feature_vectors[i].identifier);
-								}
-								else writer.writeBytes(", ");
-							}
-						}
-					}
-				}
-			}
-
-			// Process features of sub-sections
-			if (include_sub_section_features)
-			{
-				// Find the sub-section feature values
-				String[][][] sec_feat_vals = feature_vectors[i].getFeatureValuesOfSubSections(these_feature_definitions);
-
-				// Write the sub-section feature values and model classifications
-				// for each sub-section
-				if (sec_feat_vals != null)
-				{
-					for (int sec = 0; sec < sec_feat_vals.length; sec++)
-					{
-						if (sec_feat_vals[sec] != null)
-						{
-							// May need to repeat a given instance multiple times
-							// if it has multiple classes
-							int classes = 1;
-							if (model_classifications_sections != null)
-								if (model_classifications_sections[i] != null)
-									if (model_classifications_sections[i][sec] != null)
-										classes = model_classifications_sections[i][sec].length;
-
-							// Write the feature values and model classifications
-							for (int cla = 0; cla < classes; cla++)
-							{
-								// Write the insantce identifier, if requested
-								if (include_instance_identifiers)
-									writer.writeBytes("\"" + feature_vectors[i].identifier + "_" + sec + "\",");
-
-								for (int j = 0; j < sec_feat_vals[sec].length; j++)
-								{
-									for (int k = 0; k < sec_feat_vals[sec][j].length; k++)
-									{
-										// Write the feature value
-										writer.writeBytes(sec_feat_vals[sec][j][k]);
-
-										// Write the model classification if features done
-										if (j == sec_feat_vals[sec].length - 1 && k == sec_feat_vals[sec][j].length - 1)
-										{
-											if (model_classifications_sections != null)
-											{
-												if (model_classifications_sections[i] != null)
-												{
-													if (model_classifications_sections[i][sec] != null)
-														writer.writeBytes(", " + model_classifications_sections[i][sec][cla].replace(' ', '_'));
-													else writer.writeBytes(", ?");
-												}
-											}
-											writer.writeBytes("\n");
-
-											// Store the identifier
-											identifiers.add(feature_vectors[i].identifier + ":  Start=" + feature_vectors[i].sub_sets[sec].start + "Stop=" + feature_vectors[i].sub_sets[sec].stop);
-										}
-										else writer.writeBytes(", ");
-									}
-								}
-							}
-						}
-					}
-				}
-			}
+			writeCSVData( writer,
+			              vectors[i],
+			              these_feature_definitions,
+			              include_instance_identifiers,
+			              include_top_level_features,
+			              include_sub_section_features,
+			              model_classifications != null,
+			              (model_classifications_overall == null) ? null : model_classifications_overall[i],
+			              (model_classifications_sections == null) ? null : model_classifications_sections[i],
+			              identifiers );
 		}
 
 		// Close the output streams
@@ -1268,39 +1190,228 @@ public class DataBoard
 		return identifiers.toArray(new String[1]);
 	}
 
-	 
+
      /**
-      * Saves the stored taxonomy, feature definitions, feature vectors and/or
-      * model classifications stored in this DataBoard to individual XML files
-      * of the respectively appropriate type. Each file is only saved if the
-      * corresponding parameter is not null.
+      * Produces a Weka ARFF file from the given feature vector files. The
+      * file is identical to the one that the saveToARFF method would produce
+      * for a DataBoard loaded from these files and the given feature
+      * definitions, with no taxonomy or model classifications. However, each
+      * instance is written as soon as it has been parsed and is then
+      * discarded, rather than all instances being loaded first, so that files
+      * holding more feature values than fit in memory can be converted.
       *
-      * @param	taxonomy_file           The file to save the taxonomy to. Null
-      *                                 if the taxonomy is not to be saved.
-      * @param	feature_key_file        The file to save the feature defintions
-      *                                 to. Null if the definitions are not to
-      *                                 be saved.
-      * @param	feature_vector_file     The file to save the feature vectors to.
-      *                                 Null if the vectors are not to be saved.
-      * @param	classifications_file	The file to save the model
-      *                                 classifications to. Null if the
-      *                                 classificaitons not to be saved.
-      * @throws	Exception               An informative exception is thrown if
-      *                                 a request is made to save a file type
-      *                                 whose corresponding field is empty.
+      * <p>If no feature definitions are given, they are generated in the same
+      * way as by the saveToARFF method. This involves parsing the files one
+      * extra time to find the names of all of their features, unless they are
+      * all in the ACE binary feature values format, in which case the
+      * definitions stored in the first of them are used.
+      *
+      * @param	feature_vector_files         The paths of ACE XML feature
+      *                                      vector files or of files in the
+      *                                      ACE binary feature values format.
+      * @param	feature_definitions          The definitions of the features
+      *                                      to save. May be null.
+      * @param	relation_name                The name of the relation that is
+      *                                      being saved to the ARFF file.
+      * @param	arff_file                    The ARFF file to be saved into.
+      * @param	use_top_level_features       Whether or not to save overall
+      *                                      features for individual
+      *                                      instances.
+      * @param	use_sub_section_features     Whether or not to save the sub-
+      *                                      sections of instances.
+      * @return                              The data set and section
+      *                                      corresponding to each feature
+      *                                      vector line saved in the ARFF
+      *                                      file.
+      * @throws	Exception                    An exception is thrown if a file
+      *                                      cannot be parsed or written, if
+      *                                      no feature definitions are
+      *                                      available or if both of the
+      *                                      boolean parameters are false.
       */
-     public void saveXMLFiles( File taxonomy_file,
-          File feature_key_file,
-          File feature_vector_file,
-          File classifications_file )
+     public static String[] convertToARFF( String[] feature_vector_files,
+          FeatureDefinition[] feature_definitions,
+          String relation_name,
+          File arff_file,
+          final boolean use_top_level_features,
+          final boolean use_sub_section_features )
           throws Exception
      {
-          if (taxonomy_file != null && taxonomy == null)
-               throw new Exception("No taxonomy is stored to be saved.");
-          if (feature_key_file != null && feature_definitions == null)
-               throw new Exception("No feature definitinos are stored to be saved.");
-          if (feature_vector_file != null && feature_vectors == null)
-               throw new Exception("No feature vectors are stored to be saved.");
+          // Throw an exception if it is specified not to record any features
+          if (!use_top_level_features && !use_sub_section_features)
+               throw new Exception( "Cannot save ARFF file because it has been\n" +
+                    "specified to store neither top-level nor\n" +
+                    "sub-section features." );
+
+          // Prepare feature definitions if they are not available
+          final FeatureDefinition[] these_feature_definitions =
+               getConversionFeatureDefinitions(feature_vector_files, feature_definitions);
+          if (these_feature_definitions == null)
+               throw new Exception( "Cannot save ARFF file because no feature\n" +
+                    "definitions are available." );
+
+          // Write the header, and then each instance as it is parsed
+          final DataOutputStream writer = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(arff_file)));
+          final LinkedList<String> identifiers = new LinkedList<String>();
+          try
+          {
+               writeARFFHeader(writer, relation_name, these_feature_definitions, null);
+               DataSet.streamDataSetFiles(feature_vector_files, new DataSetReceiver()
+               {
+                    public void dataSetParsed(DataSet data_set) throws Exception
+                    {
+                         writeARFFData( writer,
+                              data_set,
+                              these_feature_definitions,
+                              use_top_level_features,
+                              use_sub_section_features,
+                              false,
+                              null,
+                              null,
+                              identifiers );
+                    }
+               });
+          }
+          catch (Exception e)
+          {
+               // Do not leave a partly written file behind
+               writer.close();
+               arff_file.delete();
+               throw e;
+          }
+          writer.close();
+
+          // Return the identifiers
+          return identifiers.toArray(new String[1]);
+     }
+
+
+	/**
+	 * Produces a CSV file from the given feature vector files. The file is identical to the one that the
+	 * saveToCSV method would produce for a DataBoard loaded from these files and the given feature
+	 * definitions, with no taxonomy or model classifications. However, each instance is written as soon as
+	 * it has been parsed and is then discarded, rather than all instances being loaded first, so that files
+	 * holding more feature values than fit in memory can be converted.
+	 *
+	 * <p>If no feature definitions are given, they are generated in the same way as by the saveToCSV
+	 * method. This involves parsing the files one extra time to find the names of all of their features,
+	 * unless they are all in the ACE binary feature values format, in which case the definitions stored in
+	 * the first of them are used.</p>
+	 *
+	 * @param	feature_vector_files			The paths of ACE XML feature vector files or of files in the
+	 *											ACE binary feature values format.
+	 * @param	feature_definitions				The definitions of the features to save. May be null.
+	 * @param	save_file						The File to save the CSV data to.
+	 * @param	include_feature_names			Whether or not to include the names of features in the first
+	 *											row of the CSV file.
+	 * @param	include_instance_identifiers	Whether or not to include instance identifiers in the first
+	 *											column of the CSV file
+	 * @param	include_top_level_features		Whether or not to save overall features for individual 
+	 *											instances.
+	 * @param	include_sub_section_features	Whether or not to save the sub-sections features of individual 
+	 *											instances.
+	 * @return									The dataset and section identifiers corresponding to each
+	 *											feature vector line saved in the CSV file.
+	 * @throws	Exception						An exception is thrown if a file cannot be parsed or written,
+	 *											if no feature definitions are available or if both of the
+	 *											include_..._features parameters are false.
+	 */
+	public static String[] convertToCSV( String[] feature_vector_files,
+										 FeatureDefinition[] feature_definitions,
+										 File save_file,
+										 boolean include_feature_names,
+										 final boolean include_instance_identifiers,
+										 final boolean include_top_level_features,
+										 final boolean include_sub_section_features )
+	throws Exception
+	{
+		// Throw an exception if it is specified not to record any features
+		if (!include_top_level_features && !include_sub_section_features)
+		{
+			throw new Exception("Cannot save CSV file because it has been\n"
+					+ "specified to store neither top-level nor\n"
+					+ "sub-section features.");
+		}
+
+		// Prepare feature definitions if they are not available
+		final FeatureDefinition[] these_feature_definitions = getConversionFeatureDefinitions(feature_vector_files, feature_definitions);
+		if (these_feature_definitions == null)
+		{
+			throw new Exception("Cannot save CSV file because no feature\n"
+					+ "definitions are available.");
+		}
+
+		// Write the feature names, if requested, and then each instance as it is parsed
+		final DataOutputStream writer = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(save_file)));
+		final LinkedList<String> identifiers = new LinkedList<>();
+		try
+		{
+			if (include_feature_names)
+				writeCSVHeader(writer, these_feature_definitions, include_instance_identifiers);
+			DataSet.streamDataSetFiles(feature_vector_files, new DataSetReceiver()
+			{
+				public void dataSetParsed(DataSet data_set) throws Exception
+				{
+					writeCSVData( writer,
+					              data_set,
+					              these_feature_definitions,
+					              include_instance_identifiers,
+					              include_top_level_features,
+					              include_sub_section_features,
+					              false,
+					              null,
+					              null,
+					              identifiers );
+				}
+			});
+		}
+		catch (Exception e)
+		{
+			// Do not leave a partly written file behind
+			writer.close();
+			save_file.delete();
+			throw e;
+		}
+		writer.close();
+
+		// Return the identifiers
+		return identifiers.toArray(new String[1]);
+	}
+
+	 
+     /**
+      * Saves the stored taxonomy, feature definitions, feature vectors and/or
+      * model classifications stored in this DataBoard to individual XML files
+      * of the respectively appropriate type. Each file is only saved if the
+      * corresponding parameter is not null.
+      *
+      * @param	taxonomy_file           The file to save the taxonomy to. Null
+      *                                 if the taxonomy is not to be saved.
+      * @param	feature_key_file        The file to save the feature defintions
+      *                                 to. Null if the definitions are not to
+      *                                 be saved.
+      * @param	feature_vector_file     The file to save the feature vectors to.
+      *                                 Null if the vectors are not to be saved.
+      * @param	classifications_file	The file to save the model
+      *                                 classifications to. Null if the
+      *                                 classificaitons not to be saved.
+      * @throws	Exception               An informative exception is thrown if
+      *                                 a request is made to save a file type
+      *                                 whose corresponding field is empty.
+      */
+     public void saveXMLFiles( File taxonomy_file,
+          File feature_key_file,
+          File feature_vector_file,
+          File classifications_file )
+          throws Exception
+     {
+          if (taxonomy_file != null && taxonomy == null)
+               throw new Exception("No taxonomy is stored to be saved.");
+          if (feature_key_file != null && feature_definitions == null)
+               throw new Exception("No feature definitinos are stored to be saved.");
+          DataSet[] vectors = getFeatureVectors();
+          if (feature_vector_file != null && vectors == null)
+               throw new Exception("No feature vectors are stored to be saved.");
           if (classifications_file != null && model_classifications == null)
                throw new Exception("No model classifications are stored to be saved.");
 
@@ -1309,14 +1420,15 @@ public class DataBoard
           if (feature_key_file != null)
                FeatureDefinition.saveFeatureDefinitions(feature_definitions, feature_key_file, new String(""));
           if (feature_vector_file != null)
-               DataSet.saveDataSets(feature_vectors, feature_definitions, feature_vector_file, new String(""));
+               DataSet.saveDataSets(vectors, feature_definitions, feature_vector_file, new String(""));
           if (classifications_file != null)
                SegmentedClassification.saveClassifications(model_classifications, classifications_file, new String(""));
      }
 
 
      /**
-      * Save the contents of this DataBoard to a File.
+      * Save the contents of this DataBoard to a File in the ACE DataBoard
+      * snapshot format (see DataBoardSnapshot).
       *
       * @param	databoard_file	The File to save to.
       * @param	to_save         The DataBoard to save.
@@ -1325,17 +1437,13 @@ public class DataBoard
      public static void saveDataBoard(DataBoard to_save, File databoard_file)
      throws Exception
      {
-          FileOutputStream save_stream = new FileOutputStream(databoard_file);
-          ObjectOutputStream object_stream = new ObjectOutputStream(save_stream);
-          object_stream.writeObject(to_save);
-          object_stream.flush();
-          save_stream.close();
+          DataBoardSnapshot.save(to_save, databoard_file);
      }
 
 
      /**
-      * Load the specified DataBoard serialized object file and return its
-      * contents.
+      * Load the specified DataBoard file and return its contents. All feature
+      * values are read straight away.
       *
       * @param	databoard_file	The File to load.
       * @return			The loaded DataBoard.
@@ -1345,6 +1453,31 @@ public class DataBoard
      public static DataBoard loadDataBoard(File databoard_file)
      throws Exception
      {
+          return loadDataBoard(databoard_file, false);
+     }
+
+
+     /**
+      * Load the specified DataBoard file and return its contents. The file may
+      * be in the ACE DataBoard snapshot format or, if it was saved by an
+      * earlier version of ACE, a serialized DataBoard object.
+      *
+      * @param	databoard_file	        The File to load.
+      * @param	load_columns_lazily     Whether feature values stored in
+      *                                 columns are only to be read from a
+      *                                 snapshot file when they are first
+      *                                 accessed. The file should then not be
+      *                                 changed while the DataBoard is in use.
+      * @return                         The loaded DataBoard.
+      * @throws	Exception               Throws an exception if an error
+      *                                 occurs during loading.
+      */
+     public static DataBoard loadDataBoard(File databoard_file, boolean load_columns_lazily)
+     throws Exception
+     {
+          if (DataBoardSnapshot.isSnapshotFile(databoard_file))
+               return DataBoardSnapshot.load(databoard_file, load_columns_lazily);
+
           FileInputStream load_stream = new FileInputStream(databoard_file);
           ObjectInputStream object_stream = new ObjectInputStream(load_stream);
           DataBoard board = (DataBoard) object_stream.readObject();
@@ -1399,16 +1532,15 @@ public class DataBoard
          int k = 0;
          for(int i = 0; i < num_overall; i++)
          {
-             identifiers[k] = feature_vectors[i].identifier;
+             String identifier = getInstanceIdentifier(i);
+             identifiers[k] = identifier;
              hierarchy[k] = String.valueOf(i);
-             if (feature_vectors[i].sub_sets != null)
+             int sections = getNumberOfSections(i);
+             for (int j = 0; j < sections; j++)
              {
-                 for (int j = 0; j < feature_vectors[i].sub_sets.length; j++)
-                 {
-                     k++;
-                     identifiers[k] = j + "_" + feature_vectors[i].identifier;
-                     hierarchy[k] = String.valueOf(i) + "_" + String.valueOf(j);
-                 }
+                 k++;
+                 identifiers[k] = j + "_" + identifier;
+                 hierarchy[k] = String.valueOf(i) + "_" + String.valueOf(j);
              }
              k++;
          }
@@ -1419,6 +1551,440 @@ public class DataBoard
      /* PRIVATE METHODS *******************************************************/
 
 
+     /**
+      * Returns the feature definitions to use when converting the given
+      * feature vector files, as described for the convertToARFF method.
+      *
+      * @param	feature_vector_files    The paths of the files to convert.
+      * @param	feature_definitions     The definitions provided. May be null.
+      * @return                         The definitions to use. Null if none
+      *                                 are provided and the files hold no
+      *                                 features.
+      * @throws	Exception               An exception is thrown if a file
+      *                                 cannot be parsed.
+      */
+     private static FeatureDefinition[] getConversionFeatureDefinitions( String[] feature_vector_files,
+          FeatureDefinition[] feature_definitions )
+          throws Exception
+     {
+          if (feature_definitions != null)
+               return feature_definitions;
+
+          // Files in the ACE binary feature values format hold their own
+          // feature definitions, which are used if all files are binary
+          boolean all_binary = true;
+          for (int i = 0; i < feature_vector_files.length; i++)
+               if (!BinaryFeatureValuesReader.isBinaryFeatureValuesFile(feature_vector_files[i]))
+                    all_binary = false;
+          if (all_binary)
+               return new BinaryFeatureValuesReader(feature_vector_files[0]).getFeatureDefinitions();
+
+          return FeatureDefinition.generateFeatureDefinitions(feature_vector_files);
+     }
+
+
+     /**
+      * Returns the feature definitions to lay out the columns of the given
+      * feature vector files by when no feature definitions are stored. Files
+      * in the ACE binary feature values format hold their own definitions,
+      * which are used if all files are binary. Otherwise definitions are
+      * generated with as many dimensions as the most values found for each
+      * feature, so that no values are lost.
+      *
+      * @param	feature_vector_files    The paths of the files to parse.
+      * @return                         The feature definitions. Null if the
+      *                                 files hold no features.
+      * @throws	Exception               An exception is thrown if a file
+      *                                 cannot be parsed.
+      */
+     private static FeatureDefinition[] getColumnFeatureDefinitions(String[] feature_vector_files)
+          throws Exception
+     {
+          boolean all_binary = true;
+          for (int i = 0; i < feature_vector_files.length; i++)
+               if (!BinaryFeatureValuesReader.isBinaryFeatureValuesFile(feature_vector_files[i]))
+                    all_binary = false;
+          if (all_binary)
+               return new BinaryFeatureValuesReader(feature_vector_files[0]).getFeatureDefinitions();
+
+          return ColumnarFeatureValues.generateFeatureDefinitions(feature_vector_files);
+     }
+
+
+     /**
+      * Writes the header of a Weka ARFF file, up to and including the line
+      * that starts its data section.
+      *
+      * @param	writer                       The stream to write to.
+      * @param	relation_name                The name of the relation.
+      * @param	these_feature_definitions    The features to declare
+      *                                      attributes for.
+      * @param	class_names                  The classes to declare a class
+      *                                      attribute for. Null if there is
+      *                                      no class attribute.
+      * @throws	Exception                    An exception is thrown if the
+      *                                      stream cannot be written to.
+      */
+     private static void writeARFFHeader( DataOutputStream writer,
+          String relation_name,
+          FeatureDefinition[] these_feature_definitions,
+          String[] class_names )
+          throws Exception
+     {
+          // Write the relation name
+          writer.writeBytes("@relation " + relation_name + "\n\n");
+
+          // Write the feature names
+          for (int i = 0; i < these_feature_definitions.length; i++)
+          {
+               if (these_feature_definitions[i].dimensions == 1)
+                    writer.writeBytes("@attribute " + these_feature_definitions[i].name.replace(' ', '_') + " numeric\n");
+               else
+                    for (int j = 0; j < these_feature_definitions[i].dimensions; j++)
+                         writer.writeBytes("@attribute " + these_feature_definitions[i].name.replace(' ', '_') + "_" + j + " numeric\n");
+          }
+
+          // Write the class names, if any
+          if (class_names != null)
+          {
+               writer.writeBytes("@attribute class? { ");
+               for (int i = 0; i < class_names.length; i++)
+               {
+                    writer.writeBytes(class_names[i].replace(' ', '_'));
+                    if (i != class_names.length - 1)
+                         writer.writeBytes(", ");
+                    else
+                         writer.writeBytes(" }\n");
+               }
+          }
+
+          // Start the data section
+          writer.writeBytes("\n@data\n");
+     }
+
+
+     /**
+      * Writes the data lines of a Weka ARFF file that correspond to one
+      * instance, as described for the saveToARFF method.
+      *
+      * @param	writer                       The stream to write to.
+      * @param	data_set                     The feature values of the
+      *                                      instance.
+      * @param	these_feature_definitions    The features to write, in
+      *                                      order.
+      * @param	use_top_level_features       Whether or not to save overall
+      *                                      features for the instance.
+      * @param	use_sub_section_features     Whether or not to save the sub-
+      *                                      sections of the instance.
+      * @param	has_classifications          Whether or not a class is
+      *                                      written at the end of each line.
+      * @param	overall_classifications      The model classifications of
+      *                                      the instance overall. Null if it
+      *                                      has none.
+      * @param	section_classifications      The model classifications of
+      *                                      each sub-section of the
+      *                                      instance. Null if it has none.
+      * @param	identifiers                  The identifier of each line
+      *                                      written is added to this list.
+      * @throws	Exception                    An exception is thrown if the
+      *                                      stream cannot be written to.
+      */
+     private static void writeARFFData( DataOutputStream writer,
+          DataSet data_set,
+          FeatureDefinition[] these_feature_definitions,
+          boolean use_top_level_features,
+          boolean use_sub_section_features,
+          boolean has_classifications,
+          String[] overall_classifications,
+          String[][] section_classifications,
+          LinkedList<String> identifiers )
+          throws Exception
+     {
+          // Process top-level overall features
+          if (use_top_level_features)
+          {
+               // Find the top-level overall feature values
+               String[][] top_feat_vals = data_set.getFeatureValuesOfTopLevel(these_feature_definitions);
+
+               // Write the top-level overall feature values and model classifications
+               if (top_feat_vals != null)
+               {
+                    // May need to repeat a given instance multiple times
+                    // if it has multiple classes
+                    int classes = 1;
+                    if (has_classifications)
+                         if (overall_classifications != null)
+                              classes = overall_classifications.length;
+
+                    // Write the feature values and model classifications
+                    for (int cla = 0; cla < classes; cla++)
+                         for (int j = 0; j < top_feat_vals.length; j++)
+                              for (int k = 0; k < top_feat_vals[j].length; k++)
+                              {
+                         // Write the feature value
+                         writer.writeBytes(top_feat_vals[j][k]);
+
+                         // Write the model classification if features done
+                         if ( j == top_feat_vals.length - 1 && k == top_feat_vals[j].length - 1 )
+                         {
+                              if (has_classifications)
+                              {
+                                   if (overall_classifications != null)
+                                        writer.writeBytes(", " + overall_classifications[cla].replace(' ', '_'));
+                                   else
+                                        writer.writeBytes(", ?");
+                              }
+                              writer.writeBytes("\n");
+
+                              // Store the identifier
+                              identifiers.add(data_set.identifier);
+                         }
+                         else
+                              writer.writeBytes(", ");
+                              }
+               }
+          }
+
+          // Process features of sub-sections
+          if (use_sub_section_features)
+          {
+               // Find the sub-section feature values
+               String[][][] sec_feat_vals = data_set.getFeatureValuesOfSubSections(these_feature_definitions);
+
+               // Write the sub-section feature values and model classifications
+               // for each sub-section
+               if (sec_feat_vals != null)
+               {
+                    for (int sec = 0 ; sec < sec_feat_vals.length; sec++)
+                    {
+                         if (sec_feat_vals[sec] != null)
+                         {
+                              // May need to repeat a given instance multiple times
+                              // if it has multiple classes
+                              int classes = 1;
+                              if (has_classifications)
+                                   if (section_classifications != null)
+                                        if (section_classifications[sec] != null)
+                                             classes = section_classifications[sec].length;
+
+                              // Write the feature values and model classifications
+                              for (int cla = 0; cla < classes; cla++)
+                                   for (int j = 0; j < sec_feat_vals[sec].length; j++)
+                                        for (int k = 0; k < sec_feat_vals[sec][j].length; k++)
+                                        {
+                                   // Write the feature value
+                                   writer.writeBytes(sec_feat_vals[sec][j][k]);
+
+                                   // Write the model classification if features done
+                                   if ( j == sec_feat_vals[sec].length - 1 && k == sec_feat_vals[sec][j].length - 1 )
+                                   {
+                                        if (has_classifications)
+                                             if (section_classifications != null)
+                                             {
+                                             if (section_classifications[sec] != null)
+                                                  writer.writeBytes(", " + section_classifications[sec][cla].replace(' ', '_'));
+                                             else
+                                                  writer.writeBytes(", ?");
+                                             }
+                                        writer.writeBytes("\n");
+
+                                        // Store the identifier
+                                        identifiers.add(data_set.identifier + ":  Start=" + data_set.sub_sets[sec].start + "Stop=" + data_set.sub_sets[sec].stop);
+                                   }
+                                   else
+                                        writer.writeBytes(", ");
+                                        }
+                         }
+                    }
+               }
+          }
+     }
+
+
+	/**
+	 * Writes the first row of a CSV file, which lists the feature names.
+	 *
+	 * @param	writer							The stream to write to.
+	 * @param	these_feature_definitions		The features to list.
+	 * @param	include_instance_identifiers	Whether or not the first column holds instance identifiers.
+	 * @throws	Exception						An exception is thrown if the stream cannot be written to.
+	 */
+	private static void writeCSVHeader( DataOutputStream writer,
+										FeatureDefinition[] these_feature_definitions,
+										boolean include_instance_identifiers )
+	throws Exception
+	{
+		if (include_instance_identifiers)
+			writer.writeBytes(",");
+		
+		for (int i = 0; i < these_feature_definitions.length; i++)
+		{
+			if (these_feature_definitions[i].dimensions == 1)
+				writer.writeBytes(these_feature_definitions[i].name.replace(' ', '_'));
+			else
+			{
+				for (int j = 0; j < these_feature_definitions[i].dimensions; j++)
+				{
+					writer.writeBytes(these_feature_definitions[i].name.replace(' ', '_') + "_" + j);
+					if (j != these_feature_definitions[i].dimensions - 1)
+						writer.writeBytes(",");
+				}
+			}
+
+			if (i == these_feature_definitions.length - 1)
+				writer.writeBytes("\n");
+			else
+				writer.writeBytes(",");
+		}
+	}
+
+
+	/**
+	 * Writes the rows of a CSV file that correspond to one instance, as described for the saveToCSV method.
+	 *
+	 * @param	writer							The stream to write to.
+	 * @param	data_set						The feature values of the instance.
+	 * @param	these_feature_definitions		The features to write, in order.
+	 * @param	include_instance_identifiers	Whether or not to include the instance identifier in the first
+	 *											column.
+	 * @param	include_top_level_features		Whether or not to save overall features for the instance.
+	 * @param	include_sub_section_features	Whether or not to save the sub-sections features of the instance.
+	 * @param	has_classifications				Whether or not a class is written at the end of each row.
+	 * @param	overall_classifications			The model classifications of the instance overall. Null if it
+	 *											has none.
+	 * @param	section_classifications			The model classifications of each sub-section of the instance.
+	 *											Null if it has none.
+	 * @param	identifiers						The identifier of each row written is added to this list.
+	 * @throws	Exception						An exception is thrown if the stream cannot be written to.
+	 */
+	private static void writeCSVData( DataOutputStream writer,
+									  DataSet data_set,
+									  FeatureDefinition[] these_feature_definitions,
+									  boolean include_instance_identifiers,
+									  boolean include_top_level_features,
+									  boolean include_sub_section_features,
+									  boolean has_classifications,
+									  String[] overall_classifications,
+									  String[][] section_classifications,
+									  LinkedList<String> identifiers )
+	throws Exception
+	{
+		// Process top-level overall features
+		if (include_top_level_features)
+		{
+			// Find the top-level overall feature values
+			String[][] top_feat_vals = data_set.getFeatureValuesOfTopLevel(these_feature_definitions);
+
+			// Write the top-level overall feature values and model classifications
+			if (top_feat_vals != null)
+			{
+				// May need to repeat a given instance multiple times
+				// if it has multiple classes
+				int classes = 1;
+				if (has_classifications)
+					if (overall_classifications != null)
+							classes = overall_classifications.length;
+
+				// Write the data
+				for (int cla = 0; cla < classes; cla++)
+				{
+					// Write the insantce identifier, if requested
+					if (include_instance_identifiers)
+						writer.writeBytes("\"" + data_set.identifier + "\",");
+
+					// Write the feature values and model classifications
+					for (int j = 0; j < top_feat_vals.length; j++)
+					{
+						for (int k = 0; k < top_feat_vals[j].length; k++)
+						{
+							// Write the feature value
+							writer.writeBytes(top_feat_vals[j][k]);
+
+							// Write the model classification if features done
+							if (j == top_feat_vals.length - 1 && k == top_feat_vals[j].length - 1)
+							{
+								if (has_classifications)
+								{
+									if (overall_classifications != null)
+										writer.writeBytes(", " + overall_classifications[cla].replace(' ', '_'));
+									else writer.writeBytes(", ?");
+								}
+								writer.writeBytes("\n");
+
+								// Store the identifier
+								identifiers.add(data_set.identifier);
+							}
+							else writer.writeBytes(", ");
+						}
+					}
+				}
+			}
+		}
+
+		// Process features of sub-sections
+		if (include_sub_section_features)
+		{
+			// Find the sub-section feature values
+			String[][][] sec_feat_vals = data_set.getFeatureValuesOfSubSections(these_feature_definitions);
+
+			// Write the sub-section feature values and model classifications
+			// for each sub-section
+			if (sec_feat_vals != null)
+			{
+				for (int sec = 0; sec < sec_feat_vals.length; sec++)
+				{
+					if (sec_feat_vals[sec] != null)
+					{
+						// May need to repeat a given instance multiple times
+						// if it has multiple classes
+						int classes = 1;
+						if (has_classifications)
+							if (section_classifications != null)
+								if (section_classifications[sec] != null)
+									classes = section_classifications[sec].length;
+
+						// Write the feature values and model classifications
+						for (int cla = 0; cla < classes; cla++)
+						{
+							// Write the insantce identifier, if requested
+							if (include_instance_identifiers)
+								writer.writeBytes("\"" + data_set.identifier + "_" + sec + "\",");
+
+							for (int j = 0; j < sec_feat_vals[sec].length; j++)
+							{
+								for (int k = 0; k < sec_feat_vals[sec][j].length; k++)
+								{
+									// Write the feature value
+									writer.writeBytes(sec_feat_vals[sec][j][k]);
+
+									// Write the model classification if features done
+									if (j == sec_feat_vals[sec].length - 1 && k == sec_feat_vals[sec][j].length - 1)
+									{
+										if (has_classifications)
+										{
+											if (section_classifications != null)
+											{
+												if (section_classifications[sec] != null)
+													writer.writeBytes(", " + section_classifications[sec][cla].replace(' ', '_'));
+												else writer.writeBytes(", ?");
+											}
+										}
+										writer.writeBytes("\n");
+
+										// Store the identifier
+										identifiers.add(data_set.identifier + ":  Start=" + data_set.sub_sets[sec].start + "Stop=" + data_set.sub_sets[sec].stop);
+									}
+									else writer.writeBytes(", ");
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+
      /**
       * Verifies the compatibility of the fields of this class. Throws an
       * Exception if there is a problem.
@@ -1432,7 +1998,7 @@ public class DataBoard
      throws Exception
      {
           if (model_classifications != null)
-               if (!SegmentedClassification.verifyUniquenessOfIdentifiers(model_classifications))
+               if (getModelClassificationIndex().size() != model_classifications.length)
                     throw new Exception( "The provided model classifications are invalid\n" +
                          "because two instances have the same identifier." );
 
@@ -1472,6 +2038,191 @@ public class DataBoard
      }
 
 
+     /**
+      * Returns the DataSet holding the feature values of the given instance.
+      * This is taken from the feature_vectors field or, if it is null,
+      * generated from the feature_vector_columns field.
+      *
+      * @param instance   The index of the instance among the feature vectors.
+      * @return           The DataSet of the instance.
+      */
+     private DataSet getFeatureVector(int instance)
+     {
+          if (feature_vectors == null)
+               return feature_vector_columns.getDataSet(instance);
+          return feature_vectors[instance];
+     }
+
+
+     /**
+      * Returns the number of sub-sections of the given instance.
+      *
+      * @param instance   The index of the instance among the feature vectors.
+      * @return           The number of its sub-sections. 0 if it has none.
+      */
+     private int getNumberOfSections(int instance)
+     {
+          if (feature_vectors == null)
+               return feature_vector_columns.getNumberOfSections(instance);
+          if (feature_vectors[instance].sub_sets == null)
+               return 0;
+          return feature_vectors[instance].sub_sets.length;
+     }
+
+
+     /**
+      * Stores the feature values held in the feature_vector_columns field and
+      * the model classifications, if any, in the given set of Weka Instances,
+      * as described for the storeInstances method. Feature values are copied
+      * straight from their columns.
+      *
+      * @param	set_of_instances             The Weka Instances object to store
+      *                                      individual instances in.
+      * @param	use_top_level_features       Whether or not to store overall
+      *                                      classifications for individual
+      *                                      instances.
+      * @param	use_sub_section_features     Whether or not to store the sub-
+      *                                      sections of instances.
+      * @throws	Exception                    An exception is thrown if the
+      *                                      columns do not match the
+      *                                      attributes of set_of_instances or
+      *                                      if the model classifications are
+      *                                      invalid.
+      */
+     private void storeInstancesFromColumns( Instances set_of_instances,
+          boolean use_top_level_features,
+          boolean use_sub_section_features )
+          throws Exception
+     {
+          ColumnarFeatureValues columns = feature_vector_columns;
+          if (columns.getNumberOfColumns() != set_of_instances.numAttributes() - 1)
+               throw new Exception( "Cannot set up instances because the stored feature\n" +
+                    "vectors do not match the feature definitions." );
+
+          HashMap<String, SegmentedClassification> classification_index = null;
+          if (model_classifications != null)
+               classification_index = getUniqueModelClassificationIndex();
+
+          for (int i = 0; i < columns.getNumberOfInstances(); i++)
+          {
+               // Find the model classification of this instance, if any
+               SegmentedClassification model_classification = null;
+               if (classification_index != null)
+                    model_classification = classification_index.get(columns.getIdentifier(i));
+               int first_row = columns.getFirstRow(i);
+
+               // Process top-level overall features
+               if (use_top_level_features)
+                    storeInstancesOfRow( set_of_instances,
+                         first_row,
+                         (model_classification == null) ? null : model_classification.classifications );
+
+               // Process features of sub-sections, labelling each with the
+               // model classification of the section that it overlaps the most
+               int sections = columns.getNumberOfSections(i);
+               if (use_sub_section_features && sections > 0)
+               {
+                    String[][] section_labels = null;
+                    if (model_classification != null && model_classification.sub_classifications != null)
+                    {
+                         double[] starts = new double[sections];
+                         double[] stops = new double[sections];
+                         for (int sec = 0; sec < sections; sec++)
+                         {
+                              starts[sec] = columns.getStart(first_row + 1 + sec);
+                              stops[sec] = columns.getStop(first_row + 1 + sec);
+                         }
+                         section_labels = SegmentedClassification.getSubSectionLabels( starts,
+                              stops,
+                              model_classification.sub_classifications );
+                    }
+                    for (int sec = 0; sec < sections; sec++)
+                         storeInstancesOfRow( set_of_instances,
+                              first_row + 1 + sec,
+                              (section_labels == null) ? null : section_labels[sec] );
+               }
+          }
+     }
+
+
+     /**
+      * Stores the feature values of the given row of the feature_vector_columns
+      * field in the given set of Weka Instances, once for each of the given
+      * classes. Nothing is stored if no features are present in the row.
+      *
+      * @param	set_of_instances   The Weka Instances object to store the row
+      *                            in.
+      * @param	row                The index of the row.
+      * @param	classes            The model classes of the row. Null if
+      *                            there are none, in which case the row is
+      *                            stored once with a missing class.
+      */
+     private void storeInstancesOfRow( Instances set_of_instances,
+          int row,
+          String[] classes )
+     {
+          if (!feature_vector_columns.hasFeatureValues(row))
+               return;
+
+          double[] values = new double[set_of_instances.numAttributes()];
+          feature_vector_columns.getRowValues(row, values);
+          values[values.length - 1] = Instance.missingValue();
+          Instance this_instance = new Instance(1.0, values);
+          this_instance.setDataset(set_of_instances);
+
+          // Instances are copied when they are added, so the same one can be
+          // added once for each class
+          if (classes == null)
+               set_of_instances.add(this_instance);
+          else
+               for (int cla = 0; cla < classes.length; cla++)
+               {
+                    this_instance.setClassValue(classes[cla]);
+                    set_of_instances.add(this_instance);
+               }
+     }
+
+
+     /**
+      * Returns the model_classifications field indexed by identifier, building
+      * the index if it has not been built yet for the array currently held in
+      * model_classifications. Should only be called if model_classifications
+      * is not null.
+      *
+      * @return   The model classifications keyed by identifier.
+      */
+     private HashMap<String, SegmentedClassification> getModelClassificationIndex()
+     {
+          if (model_classification_index == null || indexed_model_classifications != model_classifications)
+          {
+               model_classification_index = SegmentedClassification.getIdentifierIndex(model_classifications);
+               indexed_model_classifications = model_classifications;
+          }
+          return model_classification_index;
+     }
+
+
+     /**
+      * Returns the model_classifications field indexed by identifier, as
+      * returned by getModelClassificationIndex, after verifying that no two
+      * model classifications have the same identifier.
+      *
+      * @return             The model classifications keyed by identifier.
+      * @throws Exception   An exception is thrown if the model
+      *                     classifications contain multiple instances with
+      *                     the same identifier.
+      */
+     private HashMap<String, SegmentedClassification> getUniqueModelClassificationIndex()
+          throws Exception
+     {
+          HashMap<String, SegmentedClassification> index = getModelClassificationIndex();
+          if (index.size() != model_classifications.length)
+               throw new Exception( "Given classifications contain multiple references\n" +
+                    "to instances with the same identifier." );
+          return index;
+     }
+
+
 
      /**
       * Returns true if either the array of DataSet objects or SegmentedClassification
@@ -1490,6 +2241,12 @@ public class DataBoard
                      return true;
                  }
          }
+         else if(feature_vector_columns!=null)
+         {
+            for(int i = 0; i < feature_vector_columns.getNumberOfInstances(); i++)
+                 if (feature_vector_columns.getNumberOfSections(i) > 0)
+                     return true;
+         }
          if(model_classifications!= null)
          {
             for(int i = 0; i < model_classifications.length; i++)
@@ -1506,6 +2263,8 @@ public class DataBoard
       */
      public int getNumOverall()
      {
+         if (feature_vectors == null)
+             return feature_vector_columns.getNumberOfInstances();
          int num_overall = feature_vectors.length;
          return num_overall;
      }
@@ -1522,8 +2281,7 @@ public class DataBoard
          int num_total = num_overall;
          for(int i=0; i < num_overall; i++)
          {
-            if (feature_vectors[i].sub_sets != null)
-                num_total += feature_vectors[i].sub_sets.length;
+            num_total += getNumberOfSections(i);
 
          }
          return num_total;
@@ -0,0 +1,923 @@
+/*
+ * DataBoardSnapshot.java
+ * Version 2.2.2
+ *
+ * Last modified on October 17, 2026.
+ * McGill University
+ */
+
+package ace.datatypes;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedList;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+
+
+/**
+ * Saves and loads the contents of DataBoards in the ACE DataBoard snapshot
+ * format. This is a versioned binary format that is far smaller and faster to
+ * load than Java serialization of a DataBoard, and that does not depend on the
+ * internal layout of the classes that it stores. Strings are stored once each
+ * in a string table and referred to by index, and feature values are stored as
+ * bulk arrays of primitives.
+ *
+ * <p>Files are memory-mapped when they are loaded. Feature vectors stored in
+ * columns (see ColumnarFeatureValues) may also be loaded lazily, in which case
+ * each column is only read from the file the first time that it is accessed,
+ * and the file should not be changed while the loaded DataBoard is in use.
+ *
+ * <p>All numbers are big-endian. A string reference is the int index of the
+ * string in the string table, or -1 for null. A string array is an int count
+ * (-1 for null) followed by a string reference for each entry. In detail:
+ *
+ * <ul>
+ * <li><b>Header</b>: the int MAGIC_NUMBER and the int FORMAT_VERSION.
+ * <li><b>Taxonomy</b>: the int number of nodes (-1 if there is no taxonomy),
+ * then the name (string reference) and int number of children of each node,
+ * in depth-first order starting from the root.
+ * <li><b>Feature definitions</b>: the int number of definitions (-1 if there
+ * are none), then the name, description, is_sequential (one byte) and
+ * dimensions (int) of each.
+ * <li><b>Model classifications</b>: the int number of classifications (-1 if
+ * there are none), then for each the identifier, start, stop, role,
+ * classifications, misc_info_key and misc_info_info, followed by its
+ * sub_classifications stored in the same way.
+ * <li><b>Feature vectors</b>: one byte indicating how the feature vectors are
+ * stored (VECTORS_NONE, VECTORS_DATA_SETS or VECTORS_COLUMNS). DataSets are
+ * stored as an int count followed by the identifier, start, stop,
+ * feature_names, feature_values (int count, then the int number of values and
+ * values of each feature, with -1 for null) and sub_sets of each. Columns are
+ * stored as described for ColumnarFeatureValues.writeSnapshot, and end with
+ * their values, padded to start at a multiple of 8 bytes.
+ * <li><b>String table</b>: the int number of strings, then each string as an
+ * int byte count followed by UTF-8 bytes.
+ * <li><b>Footer</b>: the long position of the string table in the file and
+ * the int MAGIC_NUMBER again.
+ * </ul>
+ *
+ * <p>Everything before the feature values held in columns must fit in the
+ * first 2 GB of a file, but the columns themselves may be larger.
+ *
+ * @author agent
+ */
+public class DataBoardSnapshot
+{
+     /* FIELDS ****************************************************************/
+
+
+     /**
+      * The number that begins and ends each file in this format ("ACES" in
+      * ASCII).
+      */
+     public static final int                  MAGIC_NUMBER = 0x41434553;
+
+
+     /**
+      * The version of the format written by this class.
+      */
+     public static final int                  FORMAT_VERSION = 2;
+
+
+     /**
+      * The size in bytes of the footer at the end of each file.
+      */
+     public static final int                  FOOTER_SIZE = 12;
+
+
+     /**
+      * Codes indicating how the feature vectors of a DataBoard are stored.
+      */
+     static final byte                        VECTORS_NONE = 0;
+
+     static final byte                        VECTORS_DATA_SETS = 1;
+
+     static final byte                        VECTORS_COLUMNS = 2;
+
+
+     /**
+      * The size in bytes of the chunks that bulk arrays are written in.
+      */
+     private static final int                 CHUNK_SIZE = 65536;
+
+
+     /**
+      * Used to write the file while saving. Null while loading.
+      */
+     private   DataOutputStream               output;
+
+
+     /**
+      * The number of bytes written to the file so far while saving.
+      */
+     private   long                           bytes_written;
+
+
+     /**
+      * The index of each string written so far in the string table, keyed by
+      * the string, and the strings themselves in order of index.
+      */
+     private   HashMap<String, Integer>       string_indices;
+
+     private   LinkedList<String>             strings_to_write;
+
+
+     /**
+      * Used to assemble chunks of bulk arrays before they are written.
+      */
+     private   ByteBuffer                     chunk;
+
+
+     /**
+      * The path of the file being loaded. Null while saving.
+      */
+     private   String                         file_path;
+
+
+     /**
+      * The channel of the file being loaded.
+      */
+     private   FileChannel                    channel;
+
+
+     /**
+      * The memory-mapped contents of the file being loaded, up to its string
+      * table or the first 2 GB of the file, whichever comes first.
+      */
+     private   ByteBuffer                     buffer;
+
+
+     /**
+      * The position in the file of the next bulk array of doubles to be
+      * mapped while loading. Set by the first call to mapDoubles.
+      */
+     private   long                           mapped_position;
+
+
+     /**
+      * The position in the file of the string table.
+      */
+     private   long                           strings_position;
+
+
+     /**
+      * The string table of the file being loaded.
+      */
+     private   String[]                       strings;
+
+
+     /* CONSTRUCTORS **********************************************************/
+
+
+     /**
+      * Prepare to save a file to the given stream.
+      *
+      * @param destination   The stream to write to.
+      */
+     private DataBoardSnapshot(OutputStream destination)
+     {
+          output = new DataOutputStream(new BufferedOutputStream(destination, CHUNK_SIZE));
+          bytes_written = 0;
+          string_indices = new HashMap<String, Integer>();
+          strings_to_write = new LinkedList<String>();
+          chunk = ByteBuffer.allocate(CHUNK_SIZE);
+     }
+
+
+     /**
+      * Open the given file, check its header and footer and read its string
+      * table.
+      *
+      * @param file          The file to load.
+      * @param channel       The channel to read the file through.
+      * @throws Exception    An informative exception is thrown if the file is
+      *                      not a complete file in this format, or is in an
+      *                      unsupported version of it.
+      */
+     private DataBoardSnapshot(File file, FileChannel channel)
+          throws Exception
+     {
+          file_path = file.getPath();
+          this.channel = channel;
+          mapped_position = -1;
+
+          long file_size = channel.size();
+          if (file_size < 8 + FOOTER_SIZE)
+               throw new Exception(file_path + " is too short to be a DataBoard snapshot file.");
+
+          // Read the footer
+          ByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY, file_size - FOOTER_SIZE, FOOTER_SIZE);
+          strings_position = footer.getLong();
+          if (footer.getInt() != MAGIC_NUMBER)
+               throw new Exception(file_path + " is not a complete DataBoard snapshot file. Perhaps it was not finished being saved?");
+          if (strings_position < 8 || strings_position > file_size - FOOTER_SIZE - 4)
+               throw new Exception(file_path + " is not a valid DataBoard snapshot file, as its footer is corrupt.");
+
+          // Read the string table
+          ByteBuffer strings_buffer = channel.map(FileChannel.MapMode.READ_ONLY, strings_position, file_size - FOOTER_SIZE - strings_position);
+          strings = new String[strings_buffer.getInt()];
+          for (int i = 0; i < strings.length; i++)
+          {
+               byte[] bytes = new byte[strings_buffer.getInt()];
+               strings_buffer.get(bytes);
+               strings[i] = new String(bytes, StandardCharsets.UTF_8);
+          }
+
+          // Map the rest and check the header
+          buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(strings_position, Integer.MAX_VALUE));
+          if (buffer.getInt() != MAGIC_NUMBER)
+               throw new Exception(file_path + " is not a DataBoard snapshot file.");
+          int version = buffer.getInt();
+          if (version != FORMAT_VERSION)
+               throw new Exception(file_path + " is in version " + version + " of the DataBoard snapshot format, but only version " + FORMAT_VERSION + " can be read.");
+     }
+
+
+     /* PUBLIC METHODS ********************************************************/
+
+
+     /**
+      * Save the contents of the given DataBoard to the given file in the ACE
+      * DataBoard snapshot format. Any existing file is overwritten. Feature
+      * vectors are saved in whichever of the feature_vectors and
+      * feature_vector_columns fields they are stored in.
+      *
+      * @param to_save       The DataBoard to save.
+      * @param to_save_to    The file to save to.
+      * @throws Exception    An exception is thrown if the file cannot be
+      *                      written to.
+      */
+     public static void save(DataBoard to_save, File to_save_to)
+          throws Exception
+     {
+          DataBoardSnapshot snapshot = new DataBoardSnapshot(new FileOutputStream(to_save_to));
+          try
+          {
+               snapshot.writeInt(MAGIC_NUMBER);
+               snapshot.writeInt(FORMAT_VERSION);
+               snapshot.writeTaxonomy(to_save.taxonomy);
+               snapshot.writeFeatureDefinitions(to_save.feature_definitions);
+               snapshot.writeClassifications(to_save.model_classifications);
+               if (to_save.feature_vectors != null)
+               {
+                    snapshot.writeByte(VECTORS_DATA_SETS);
+                    snapshot.writeDataSets(to_save.feature_vectors);
+               }
+               else if (to_save.feature_vector_columns != null)
+               {
+                    snapshot.writeByte(VECTORS_COLUMNS);
+                    to_save.feature_vector_columns.writeSnapshot(snapshot);
+               }
+               else
+                    snapshot.writeByte(VECTORS_NONE);
+               snapshot.writeStringTableAndFooter();
+          }
+          finally
+          {
+               snapshot.output.close();
+          }
+     }
+
+
+     /**
+      * Load a DataBoard from the given file in the ACE DataBoard snapshot
+      * format. Feature vectors are stored in the same field of the DataBoard
+      * as they were when it was saved.
+      *
+      * @param to_load                 The file to load.
+      * @param load_columns_lazily     Whether feature values stored in
+      *                                columns are only to be read from the
+      *                                file when they are first accessed,
+      *                                rather than straight away. Has no effect
+      *                                on feature vectors stored as DataSets.
+      * @return                        The loaded DataBoard.
+      * @throws Exception              An informative exception is thrown if
+      *                                the file cannot be read or is not a
+      *                                valid file in this format.
+      */
+     public static DataBoard load(File to_load, boolean load_columns_lazily)
+          throws Exception
+     {
+          // Mappings stay valid after the channel is closed
+          try (RandomAccessFile file = new RandomAccessFile(to_load, "r"))
+          {
+               DataBoardSnapshot snapshot = new DataBoardSnapshot(to_load, file.getChannel());
+               try
+               {
+                    DataBoard board = new DataBoard();
+                    board.taxonomy = snapshot.readTaxonomy();
+                    board.feature_definitions = snapshot.readFeatureDefinitions();
+                    board.model_classifications = snapshot.readClassifications();
+                    byte vectors = snapshot.readByte();
+                    if (vectors == VECTORS_DATA_SETS)
+                         board.feature_vectors = snapshot.readDataSets(null);
+                    else if (vectors == VECTORS_COLUMNS)
+                         board.feature_vector_columns = ColumnarFeatureValues.readSnapshot(snapshot, load_columns_lazily);
+                    else if (vectors != VECTORS_NONE)
+                         throw new Exception(snapshot.file_path + " is not a valid DataBoard snapshot file, as it holds an unknown kind of feature vectors.");
+                    return board;
+               }
+               catch (BufferUnderflowException | IndexOutOfBoundsException e)
+               {
+                    throw new Exception(snapshot.file_path + " is not a valid DataBoard snapshot file, as it is truncated or corrupt.");
+               }
+          }
+     }
+
+
+     /**
+      * Returns whether the given file is in the ACE DataBoard snapshot format.
+      * Only the beginning of the file is checked.
+      *
+      * @param file     The file to check.
+      * @return         True if the file begins with the MAGIC_NUMBER of the
+      *                 format, false if it does not or cannot be read.
+      */
+     public static boolean isSnapshotFile(File file)
+     {
+          try (DataInputStream input = new DataInputStream(new FileInputStream(file)))
+          {
+               return input.readInt() == MAGIC_NUMBER;
+          }
+          catch (IOException e)
+          {
+               return false;
+          }
+     }
+
+
+     /* PRIVATE METHODS *******************************************************/
+
+
+     /**
+      * Write an int, byte or double.
+      *
+      * @param value         The value to write.
+      * @throws IOException  An exception is thrown if the file cannot be
+      *                      written to.
+      */
+     void writeInt(int value)
+          throws IOException
+     {
+          output.writeInt(value);
+          bytes_written += 4;
+     }
+
+     void writeByte(byte value)
+          throws IOException
+     {
+          output.writeByte(value);
+          bytes_written += 1;
+     }
+
+     void writeDouble(double value)
+          throws IOException
+     {
+          output.writeDouble(value);
+          bytes_written += 8;
+     }
+
+
+     /**
+      * Write a reference to the given string, adding it to the string table
+      * if it is not already there.
+      *
+      * @param value         The string. May be null.
+      * @throws IOException  An exception is thrown if the file cannot be
+      *                      written to.
+      */
+     void writeString(String value)
+          throws IOException
+     {
+          if (value == null)
+          {
+               writeInt(-1);
+               return;
+          }
+          Integer index = string_indices.get(value);
+          if (index == null)
+          {
+               index = strings_to_write.size();
+               string_indices.put(value, index);
+               strings_to_write.add(value);
+          }
+          writeInt(index);
+     }
+
+
+     /**
+      * Write the given array of strings as a count followed by a reference to
+      * each string.
+      *
+      * @param values        The strings. May be null.
+      * @throws IOException  An exception is thrown if the file cannot be
+      *                      written to.
+      */
+     void writeStrings(String[] values)
+          throws IOException
+     {
+          if (values == null)
+          {
+               writeInt(-1);
+               return;
+          }
+          writeInt(values.length);
+          for (int i = 0; i < values.length; i++)
+               writeString(values[i]);
+     }
+
+
+     /**
+      * Write the first entries of the given array in bulk, with no count.
+      *
+      * @param values        The values to write.
+      * @param length        The number of entries to write.
+      * @throws IOException  An exception is thrown if the file cannot be
+      *                      written to.
+      */
+     void writeInts(int[] values, int length)
+          throws IOException
+     {
+          for (int written = 0; written < length; )
+          {
+               int count = Math.min(length - written, CHUNK_SIZE / 4);
+               chunk.clear();
+               chunk.asIntBuffer().put(values, written, count);
+               output.write(chunk.array(), 0, 4 * count);
+               written += count;
+          }
+          bytes_written += 4L * length;
+     }
+
+     void writeLongs(long[] values, int length)
+          throws IOException
+     {
+          for (int written = 0; written < length; )
+          {
+               int count = Math.min(length - written, CHUNK_SIZE / 8);
+               chunk.clear();
+               chunk.asLongBuffer().put(values, written, count);
+               output.write(chunk.array(), 0, 8 * count);
+               written += count;
+          }
+          bytes_written += 8L * length;
+     }
+
+     void writeDoubles(double[] values, int length)
+          throws IOException
+     {
+          for (int written = 0; written < length; )
+          {
+               int count = Math.min(length - written, CHUNK_SIZE / 8);
+               chunk.clear();
+               chunk.asDoubleBuffer().put(values, written, count);
+               output.write(chunk.array(), 0, 8 * count);
+               written += count;
+          }
+          bytes_written += 8L * length;
+     }
+
+
+     /**
+      * Write zeros until the number of bytes written is a multiple of 8, so
+      * that the doubles that follow can be mapped efficiently.
+      *
+      * @throws IOException  An exception is thrown if the file cannot be
+      *                      written to.
+      */
+     void writePadding()
+          throws IOException
+     {
+          while (bytes_written % 8 != 0)
+               writeByte((byte) 0);
+     }
+
+
+     /**
+      * Write the given feature definitions, as described in the class
+      * description.
+      *
+      * @param definitions   The definitions to write. May be null.
+      * @throws IOException  An exception is thrown if the file cannot be
+      *                      written to.
+      */
+     void writeFeatureDefinitions(FeatureDefinition[] definitions)
+          throws IOException
+     {
+          if (definitions == null)
+          {
+               writeInt(-1);
+               return;
+          }
+          writeInt(definitions.length);
+          for (int feat = 0; feat < definitions.length; feat++)
+          {
+               writeString(definitions[feat].name);
+               writeString(definitions[feat].description);
+               writeByte(definitions[feat].is_sequential ? (byte) 1 : (byte) 0);
+               writeInt(definitions[feat].dimensions);
+          }
+     }
+
+
+     /**
+      * Read an int, byte or double.
+      *
+      * @return    The value read.
+      */
+     int readInt()
+     {
+          return buffer.getInt();
+     }
+
+     byte readByte()
+     {
+          return buffer.get();
+     }
+
+     double readDouble()
+     {
+          return buffer.getDouble();
+     }
+
+
+     /**
+      * Read a reference to a string in the string table.
+      *
+      * @return    The string referred to. May be null.
+      */
+     String readString()
+     {
+          int index = buffer.getInt();
+          if (index == -1)
+               return null;
+          return strings[index];
+     }
+
+
+     /**
+      * Read an array of strings written by writeStrings.
+      *
+      * @return    The strings. May be null.
+      */
+     String[] readStrings()
+     {
+          int count = buffer.getInt();
+          if (count == -1)
+               return null;
+          String[] values = new String[count];
+          for (int i = 0; i < count; i++)
+               values[i] = readString();
+          return values;
+     }
+
+
+     /**
+      * Read the given number of entries written in bulk.
+      *
+      * @param length   The number of entries to read.
+      * @return         The values read.
+      */
+     int[] readInts(int length)
+     {
+          int[] values = new int[length];
+          buffer.asIntBuffer().get(values);
+          buffer.position(buffer.position() + 4 * length);
+          return values;
+     }
+
+     long[] readLongs(int length)
+     {
+          long[] values = new long[length];
+          buffer.asLongBuffer().get(values);
+          buffer.position(buffer.position() + 8 * length);
+          return values;
+     }
+
+     double[] readDoubles(int length)
+     {
+          double[] values = new double[length];
+          buffer.asDoubleBuffer().get(values);
+          buffer.position(buffer.position() + 8 * length);
+          return values;
+     }
+
+
+     /**
+      * Skip the zeros written by writePadding.
+      */
+     void skipPadding()
+     {
+          while (buffer.position() % 8 != 0)
+               buffer.get();
+     }
+
+
+     /**
+      * Map the given number of doubles written in bulk, without reading them.
+      * Once this has been called, only further bulk arrays of doubles can be
+      * read, and only through this method, since they may lie beyond the
+      * first 2 GB of the file.
+      *
+      * @param length        The number of doubles to map.
+      * @return              The mapped doubles.
+      * @throws Exception    An informative exception is thrown if the
+      *                      doubles lie beyond the end of the file or cannot
+      *                      be mapped.
+      */
+     DoubleBuffer mapDoubles(int length)
+          throws Exception
+     {
+          if (mapped_position == -1)
+               mapped_position = buffer.position();
+          long size = 8L * length;
+          if (mapped_position + size > strings_position)
+               throw new Exception(file_path + " is not a valid DataBoard snapshot file, as it is truncated or corrupt.");
+          DoubleBuffer values = channel.map(FileChannel.MapMode.READ_ONLY, mapped_position, size).asDoubleBuffer();
+          mapped_position += size;
+          return values;
+     }
+
+
+     /**
+      * Read feature definitions written by writeFeatureDefinitions.
+      *
+      * @return    The feature definitions. May be null.
+      */
+     FeatureDefinition[] readFeatureDefinitions()
+     {
+          int count = buffer.getInt();
+          if (count == -1)
+               return null;
+          FeatureDefinition[] definitions = new FeatureDefinition[count];
+          for (int feat = 0; feat < count; feat++)
+          {
+               String name = readString();
+               String description = readString();
+               boolean is_sequential = buffer.get() != 0;
+               int dimensions = buffer.getInt();
+               definitions[feat] = new FeatureDefinition(name, description, is_sequential, dimensions);
+          }
+          return definitions;
+     }
+
+
+     /**
+      * Write the given taxonomy, as described in the class description.
+      *
+      * @param taxonomy      The taxonomy to write. May be null.
+      * @throws IOException  An exception is thrown if the file cannot be
+      *                      written to.
+      */
+     private void writeTaxonomy(Taxonomy taxonomy)
+          throws IOException
+     {
+          if (taxonomy == null || taxonomy.taxonomy == null)
+          {
+               writeInt(-1);
+               return;
+          }
+          DefaultMutableTreeNode root = (DefaultMutableTreeNode) taxonomy.taxonomy.getRoot();
+          writeInt(countNodes(root));
+          Enumeration<?> nodes = root.preorderEnumeration();
+          while (nodes.hasMoreElements())
+          {
+               DefaultMutableTreeNode node = (DefaultMutableTreeNode) nodes.nextElement();
+               Object name = node.getUserObject();
+               writeString(name == null ? null : name.toString());
+               writeInt(node.getChildCount());
+          }
+     }
+
+
+     /**
+      * Returns the number of nodes in the tree with the given root.
+      *
+      * @param root     The root of the tree.
+      * @return         The number of nodes, including the root.
+      */
+     private static int countNodes(DefaultMutableTreeNode root)
+     {
+          int count = 0;
+          Enumeration<?> nodes = root.preorderEnumeration();
+          while (nodes.hasMoreElements())
+          {
+               nodes.nextElement();
+               count++;
+          }
+          return count;
+     }
+
+
+     /**
+      * Write the given model classifications, as described in the class
+      * description.
+      *
+      * @param classifications    The classifications to write. May be null.
+      * @throws IOException       An exception is thrown if the file cannot be
+      *                           written to.
+      */
+     private void writeClassifications(SegmentedClassification[] classifications)
+          throws IOException
+     {
+          if (classifications == null)
+          {
+               writeInt(-1);
+               return;
+          }
+          writeInt(classifications.length);
+          for (int i = 0; i < classifications.length; i++)
+          {
+               SegmentedClassification classification = classifications[i];
+               writeString(classification.identifier);
+               writeDouble(classification.start);
+               writeDouble(classification.stop);
+               writeString(classification.role);
+               writeStrings(classification.classifications);
+               writeStrings(classification.misc_info_key);
+               writeStrings(classification.misc_info_info);
+               writeClassifications(classification.sub_classifications);
+          }
+     }
+
+
+     /**
+      * Write the given DataSets, as described in the class description.
+      *
+      * @param data_sets     The DataSets to write. May be null.
+      * @throws IOException  An exception is thrown if the file cannot be
+      *                      written to.
+      */
+     private void writeDataSets(DataSet[] data_sets)
+          throws IOException
+     {
+          if (data_sets == null)
+          {
+               writeInt(-1);
+               return;
+          }
+          writeInt(data_sets.length);
+          for (int set = 0; set < data_sets.length; set++)
+          {
+               DataSet data_set = data_sets[set];
+               writeString(data_set.identifier);
+               writeDouble(data_set.start);
+               writeDouble(data_set.stop);
+               writeStrings(data_set.feature_names);
+               if (data_set.feature_values == null)
+                    writeInt(-1);
+               else
+               {
+                    writeInt(data_set.feature_values.length);
+                    for (int feat = 0; feat < data_set.feature_values.length; feat++)
+                    {
+                         double[] values = data_set.feature_values[feat];
+                         if (values == null)
+                              writeInt(-1);
+                         else
+                         {
+                              writeInt(values.length);
+                              writeDoubles(values, values.length);
+                         }
+                    }
+               }
+               writeDataSets(data_set.sub_sets);
+          }
+     }
+
+
+     /**
+      * Write the string table and the footer.
+      *
+      * @throws IOException  An exception is thrown if the file cannot be
+      *                      written to.
+      */
+     private void writeStringTableAndFooter()
+          throws IOException
+     {
+          long strings_position = bytes_written;
+          output.writeInt(strings_to_write.size());
+          for (String value : strings_to_write)
+          {
+               byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+               output.writeInt(bytes.length);
+               output.write(bytes);
+          }
+          output.writeLong(strings_position);
+          output.writeInt(MAGIC_NUMBER);
+     }
+
+
+     /**
+      * Read a taxonomy written by writeTaxonomy.
+      *
+      * @return    The taxonomy. May be null.
+      */
+     private Taxonomy readTaxonomy()
+     {
+          int count = buffer.getInt();
+          if (count == -1)
+               return null;
+
+          // Rebuild the tree in depth-first order, keeping track of how many
+          // children each node on the path from the root still needs
+          LinkedList<DefaultMutableTreeNode> path = new LinkedList<DefaultMutableTreeNode>();
+          LinkedList<Integer> children_left = new LinkedList<Integer>();
+          DefaultMutableTreeNode root = null;
+          for (int i = 0; i < count; i++)
+          {
+               DefaultMutableTreeNode node = new DefaultMutableTreeNode(readString());
+               int number_of_children = buffer.getInt();
+               if (root == null)
+                    root = node;
+               else
+               {
+                    while (children_left.getLast() == 0)
+                    {
+                         path.removeLast();
+                         children_left.removeLast();
+                    }
+                    path.getLast().add(node);
+                    children_left.add(children_left.removeLast() - 1);
+               }
+               path.add(node);
+               children_left.add(number_of_children);
+          }
+
+          return new Taxonomy(new DefaultTreeModel(root));
+     }
+
+
+     /**
+      * Read model classifications written by writeClassifications.
+      *
+      * @return    The classifications. May be null.
+      */
+     private SegmentedClassification[] readClassifications()
+     {
+          int count = buffer.getInt();
+          if (count == -1)
+               return null;
+          SegmentedClassification[] classifications = new SegmentedClassification[count];
+          for (int i = 0; i < count; i++)
+          {
+               SegmentedClassification classification = new SegmentedClassification();
+               classification.identifier = readString();
+               classification.start = buffer.getDouble();
+               classification.stop = buffer.getDouble();
+               classification.role = readString();
+               classification.classifications = readStrings();
+               classification.misc_info_key = readStrings();
+               classification.misc_info_info = readStrings();
+               classification.sub_classifications = readClassifications();
+               classifications[i] = classification;
+          }
+          return classifications;
+     }
+
+
+     /**
+      * Read DataSets written by writeDataSets.
+      *
+      * @param parent   The DataSet that the DataSets are sub-sets of. Null if
+      *                 they are not sub-sets.
+      * @return         The DataSets. May be null.
+      */
+     private DataSet[] readDataSets(DataSet parent)
+     {
+          int count = buffer.getInt();
+          if (count == -1)
+               return null;
+          DataSet[] data_sets = new DataSet[count];
+          for (int set = 0; set < count; set++)
+          {
+               DataSet data_set = new DataSet();
+               data_set.identifier = readString();
+               data_set.start = buffer.getDouble();
+               data_set.stop = buffer.getDouble();
+               data_set.feature_names = readStrings();
+               int number_of_features = buffer.getInt();
+               if (number_of_features != -1)
+               {
+                    data_set.feature_values = new double[number_of_features][];
+                    for (int feat = 0; feat < number_of_features; feat++)
+                    {
+                         int number_of_values = buffer.getInt();
+                         if (number_of_values != -1)
+                              data_set.feature_values[feat] = readDoubles(number_of_values);
+                    }
+               }
+               data_set.parent = parent;
+               data_set.sub_sets = readDataSets(data_set);
+               data_sets[set] = data_set;
+          }
+          return data_sets;
+     }
+}
@@ -9,7 +9,9 @@
 package ace.datatypes;
 
 import java.io.*;
+import java.util.HashMap;
 import java.util.LinkedList;
+import ace.xmlparsers.ParseDataSetFileHandler;
 import ace.xmlparsers.XMLDocumentParser;
 import weka.core.Instance;
 
@@ -232,13 +234,19 @@ public class DataSet
           // Set up new_feature_values
           else
           {
+               // Index the stored features by name, keeping the first
+               // occurence of each name
+               HashMap<String, Integer> feature_indices = new HashMap<String, Integer>(feature_names.length * 2);
+               for (int feat = feature_names.length - 1; feat >= 0; feat--)
+                    feature_indices.put(feature_names[feat], feat);
+
                for (int def = 0; def < new_feature_values.length; def++)
                {
                     new_feature_values[def] = null;
 
-                    for (int feat = 0; feat < feature_names.length; feat++)
-                         if ( definitions[def].name.equals(feature_names[feat]) )
-                         {
+                    Integer feat = feature_indices.get(definitions[def].name);
+                    if (feat != null)
+                    {
                          if (!is_top_level && !definitions[def].is_sequential)
                               throw new Exception( "Feature " + feature_names[feat] + " is present in a sub-set of\n" +
                                    "a DataSet, but is marked as non-sequential in its definition." );
@@ -248,8 +256,7 @@ public class DataSet
                                    "according to its definition." );
 
                          new_feature_values[def] = feature_values[feat];
-                         feat = feature_values.length;
-                         }
+                    }
                }
           }
 
@@ -458,7 +465,8 @@ public class DataSet
      /**
       * Parses a feature_vector_file XML file and returns an array of
       * DataSet objects holding its contents. An exception is thrown
-      * if the file is invalid in some way.
+      * if the file is invalid in some way. Files in the ACE binary feature
+      * values format (see BinaryFeatureValuesWriter) are also accepted.
       *
       * @param	data_set_file_path	The path of the XML file to parse.
       * @return                         An array of DataSet objects holding the
@@ -470,10 +478,7 @@ public class DataSet
      throws Exception
      {
           // Parse the file
-          Object[] results = (Object[]) XMLDocumentParser.parseXMLDocument(data_set_file_path, "feature_vector_file");
-          DataSet[] parse_results = new DataSet[results.length];
-          for (int i = 0; i < parse_results.length; i++)
-               parse_results[i] = (DataSet) results[i];
+          DataSet[] parse_results = parseDataSetFileContents(data_set_file_path);
 
           // Return the results
           return parse_results;
@@ -483,7 +488,8 @@ public class DataSet
      /**
       * Parses a feature_vector_file XML file and returns an array of
       * DataSet objects holding its contents. An exception is thrown
-      * if the file is invalid in some way.
+      * if the file is invalid in some way. Files in the ACE binary feature
+      * values format (see BinaryFeatureValuesWriter) are also accepted.
       *
       * <p>Also processes each resulting DataSet in order to reconcile it
       * with the given definitions. See the orderAndCompactFeatures method
@@ -506,10 +512,7 @@ public class DataSet
           throws Exception
      {
           // Parse the file
-          Object[] results = (Object[]) XMLDocumentParser.parseXMLDocument(data_set_file_path, "feature_vector_file");
-          DataSet[] parse_results = new DataSet[results.length];
-          for (int i = 0; i < parse_results.length; i++)
-               parse_results[i] = (DataSet) results[i];
+          DataSet[] parse_results = parseDataSetFileContents(data_set_file_path);
 
           /* Commented August 7th 2009 when ACE was changed to automatically generate
           feature definitions.*/
@@ -525,7 +528,9 @@ public class DataSet
      /**
       * Parses a several feature_vector_file XML files and returns an array of
       * DataSet objects holding the combined contents of all of the files. An
-      * exception is thrown if the file is invalid in some way.
+      * exception is thrown if the file is invalid in some way. Files in the
+      * ACE binary feature values format (see BinaryFeatureValuesWriter) are
+      * also accepted.
       *
       * <p>Also processes each resulting DataSet in order to reconcile it
       * with the given definitions. See the orderAndCompactFeatures method
@@ -555,10 +560,7 @@ public class DataSet
           for (int file = 0; file < segmented_data_sets.length; file++)
           {
                // Parse a file
-               Object[] results = (Object[]) XMLDocumentParser.parseXMLDocument(data_set_file_paths[file], "feature_vector_file");
-               DataSet[] parse_results = new DataSet[results.length];
-               for (int i = 0; i < parse_results.length; i++)
-                    parse_results[i] = (DataSet) results[i];
+               DataSet[] parse_results = parseDataSetFileContents(data_set_file_paths[file]);
 
                /* Commented August 7th 2009 when ACE was changed to automatically generate
           feature definitions.*/
@@ -587,6 +589,56 @@ public class DataSet
      }
 
 
+     /**
+      * Parses a feature_vector_file XML file and passes each root-level
+      * DataSet that it holds to the given receiver as soon as it has been
+      * parsed, rather than returning them all at the end. DataSets are not
+      * kept once they have been passed on, so files holding more feature
+      * values than fit in memory can be processed. Files in the ACE binary
+      * feature values format (see BinaryFeatureValuesWriter) are also
+      * accepted. An exception is thrown if the file is invalid in some way.
+      *
+      * @param	data_set_file_path	The path of the file to parse.
+      * @param	receiver		The object to pass each DataSet to.
+      * @throws	Exception		Informative exception is thrown if an
+      *					invalid file or file path is specified.
+      *					Exceptions thrown by the receiver are
+      *					passed on.
+      */
+     public static void streamDataSetFile( String data_set_file_path,
+          DataSetReceiver receiver )
+          throws Exception
+     {
+          if (BinaryFeatureValuesReader.isBinaryFeatureValuesFile(data_set_file_path))
+               new BinaryFeatureValuesReader(data_set_file_path).getDataSets(receiver);
+          else
+               XMLDocumentParser.parseXMLDocument( data_set_file_path,
+                    "feature_vector_file",
+                    new ParseDataSetFileHandler(receiver) );
+     }
+
+
+     /**
+      * Parses several feature_vector_file XML files in turn and passes each
+      * root-level DataSet that they hold to the given receiver as soon as it
+      * has been parsed. See the streamDataSetFile method for details.
+      *
+      * @param	data_set_file_paths	The paths of the files to parse.
+      * @param	receiver		The object to pass each DataSet to.
+      * @throws	Exception		Informative exception is thrown if an
+      *					invalid file or file path is specified.
+      *					Exceptions thrown by the receiver are
+      *					passed on.
+      */
+     public static void streamDataSetFiles( String[] data_set_file_paths,
+          DataSetReceiver receiver )
+          throws Exception
+     {
+          for (int file = 0; file < data_set_file_paths.length; file++)
+               streamDataSetFile(data_set_file_paths[file], receiver);
+     }
+
+
      /**
       * Merges the different extracted features contained in multiple DataSet
       * objects that hold references to the same instances. This could be
@@ -907,4 +959,34 @@ public class DataSet
                throw new Exception("Unable to write file " + to_save_to.getName() + ".");
           }
      }
+
+
+     /* PRIVATE METHODS *******************************************************/
+
+
+     /**
+      * Parses a single file holding DataSets. This may be either a
+      * feature_vector_file XML file or a file in the ACE binary feature values
+      * format, which is loaded directly without any text parsing.
+      *
+      * @param	data_set_file_path	The path of the file to parse.
+      * @return                         An array of DataSet objects holding the
+      *                                 contents of the file.
+      * @throws	Exception		Informative exception is thrown if an
+      *					invalid file or file path is specified.
+      */
+     private static DataSet[] parseDataSetFileContents(String data_set_file_path)
+     throws Exception
+     {
+          // Load binary files directly
+          if (BinaryFeatureValuesReader.isBinaryFeatureValuesFile(data_set_file_path))
+               return new BinaryFeatureValuesReader(data_set_file_path).getDataSets();
+
+          // Parse XML files
+          Object[] results = (Object[]) XMLDocumentParser.parseXMLDocument(data_set_file_path, "feature_vector_file");
+          DataSet[] parse_results = new DataSet[results.length];
+          for (int i = 0; i < parse_results.length; i++)
+               parse_results[i] = (DataSet) results[i];
+          return parse_results;
+     }
 }
\ No newline at end of file
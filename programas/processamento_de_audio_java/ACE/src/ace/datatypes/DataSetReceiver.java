@@ -0,0 +1,37 @@
+/*
+ * DataSetReceiver.java
+ * Version 2.2
+ *
+ * Last modified on October 17, 2026.
+ * McGill University
+ */
+
+package ace.datatypes;
+
+/**
+ * Receives DataSets one at a time as they are parsed from a feature values
+ * file.
+ *
+ * <p>Passing a <i>DataSetReceiver</i> to <i>DataSet.streamDataSetFile</i> makes
+ * each root-level DataSet available as soon as it has been read, rather than
+ * only after the whole file has been read into an array. DataSets that the
+ * receiver does not keep can be garbage collected straight away, so files
+ * holding more feature values than fit in memory can still be processed,
+ * provided that each individual DataSet fits.
+ *
+ * @author agent
+ */
+public interface DataSetReceiver {
+
+    /**
+     * Called once for each root-level DataSet in a feature values file, in the
+     * order that they appear in the file. The DataSet is complete, including
+     * any sub-sets.
+     *
+     * @param data_set      The DataSet that was parsed.
+     * @throws Exception    An exception may be thrown if the DataSet cannot
+     *                      be processed, in which case parsing stops and the
+     *                      exception is passed on to the caller of the parse.
+     */
+    public void dataSetParsed(DataSet data_set) throws Exception;
+}
@@ -9,6 +9,8 @@
 package ace.datatypes;
 
 import java.io.*;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Vector;
 import ace.xmlparsers.XMLDocumentParser;
 import weka.core.Instances;
@@ -279,16 +281,27 @@ public class FeatureDefinition
       */
      public static String verifyFeatureNameUniqueness(FeatureDefinition[] definitions)
      {
+          // Count the number of times that each name occurs
+          HashMap<String, Integer> occurences = new HashMap<String, Integer>(definitions.length * 2);
+          for (int i = 0; i < definitions.length; i++)
+          {
+               Integer count = occurences.get(definitions[i].name);
+               occurences.put(definitions[i].name, (count == null) ? 1 : count + 1);
+          }
+
+          // Note each definition whose name occurs again later on
           boolean found_duplicate = false;
           Vector<String> duplicates = new Vector<String>();
-          for (int i = 0; i < definitions.length - 1; i++)
-               for (int j = i + 1; j < definitions.length; j++)
-                    if (definitions[i].name.equals(definitions[j].name))
-                    {
-               found_duplicate = true;
-               duplicates.add(definitions[i].name);
-               j = definitions.length;
-                    }
+          for (int i = 0; i < definitions.length; i++)
+          {
+               int later = occurences.get(definitions[i].name) - 1;
+               occurences.put(definitions[i].name, later);
+               if (later > 0)
+               {
+                    found_duplicate = true;
+                    duplicates.add(definitions[i].name);
+               }
+          }
           if (found_duplicate)
           {
                Object[] duplicated_names_obj = (Object[])duplicates.toArray();
@@ -374,4 +387,51 @@ public class FeatureDefinition
         }
         return generated;
      }
+
+
+     /**
+      * Automatically generates a FeatureDefinitions array based on the features specified
+      * in the given feature vector files, in the same way as the DataSet version of this
+      * method would for the DataSets parsed from these files. The files are parsed one
+      * DataSet at a time, and only the names of their features are kept, so files larger
+      * than the available memory can be processed.
+      *
+      * @param feature_vector_files  The paths of ACE XML feature vector files or of
+      *                              files in the ACE binary feature values format.
+      * @return                      The automatically generated FeatureDefinition array.
+      *                              Null if the files hold no features.
+      * @throws Exception            If an error occurs while parsing the files.
+      */
+     public static FeatureDefinition[] generateFeatureDefinitions(String[] feature_vector_files)
+             throws Exception
+     {
+        // Note the names of all features, in the order they are first encountered
+        final LinkedHashSet<String> features = new LinkedHashSet<String>();
+        DataSet.streamDataSetFiles(feature_vector_files, new DataSetReceiver()
+        {
+            public void dataSetParsed(DataSet data_set)
+            {
+                if (data_set.feature_names != null)
+                    for (int j = 0; j < data_set.feature_names.length; j++)
+                        features.add(data_set.feature_names[j]);
+                if (data_set.sub_sets != null)
+                    for (int k = 0; k < data_set.sub_sets.length; k++)
+                        if (data_set.sub_sets[k].feature_names != null)
+                            for (int l = 0; l < data_set.sub_sets[k].feature_names.length; l++)
+                                features.add(data_set.sub_sets[k].feature_names[l]);
+            }
+        });
+        if (features.isEmpty())
+            return null;
+
+        FeatureDefinition[] generated = new FeatureDefinition[features.size()];
+        int i = 0;
+        for (String feature : features)
+        {
+            // Assumes not sequential and dimension of 1
+            generated[i] = new FeatureDefinition(feature, "", false, 1);
+            i++;
+        }
+        return generated;
+     }
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+/*
+ * FoldResults.java
+ * Version 2.2
+ *
+ * Last modified on October 17, 2026.
+ * McGill University
+ */
+
+package ace.datatypes;
+
+import weka.core.Instances;
+
+/**
+ * Holds the results of training and testing a classifier on one fold of a
+ * cross validation.
+ *
+ * <p>Each fold of a cross validation will have one <i>FoldResults</i> object.
+ * Folds may be trained and tested in any order and on any thread by
+ * <i>CrossValidator</i>. The results of all folds are then combined in fold
+ * order, so that the statistics of a cross validation do not depend on the
+ * order in which its folds were finished.
+ *
+ * @author agent
+ */
+public class FoldResults {
+
+    /* FIELDS ****************************************************************/
+
+    /**
+     * The percentage of testing instances that were correctly classified.
+     */
+    public double success_rate;
+
+    /**
+     * The percentage of testing instances that were incorrectly classified.
+     */
+    public double error_rate;
+
+    /**
+     * The confusion matrix of this fold. First index is actual classification,
+     * second index is predicted classification.
+     */
+    public double[][] confusion_matrix;
+
+    /**
+     * The time (in milliseconds) that it took to train and test this fold.
+     */
+    public long time;
+
+    /**
+     * The TrainedModel holding the classifier that was trained on this fold.
+     * Only kept for the last fold of a cross validation, and null otherwise.
+     */
+    public TrainedModel trained;
+
+    /**
+     * The training, testing and classified testing instances of this fold.
+     * Only kept when a detailed report of individual classifications is needed,
+     * and null otherwise.
+     */
+    public Instances training;
+
+    public Instances testing;
+
+    public Instances classified;
+
+    /**
+     * The identifiers of the training instances (first index 0) and testing
+     * instances (first index 1) of this fold. Only kept along with the
+     * instances, and null otherwise.
+     */
+    public String[][] identifiers;
+}
@@ -10,7 +10,10 @@ package ace.datatypes;
 
 import java.io.*;
 import ace.xmlparsers.XMLDocumentParser;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.Map;
 import weka.core.Instance;
 
 
@@ -348,29 +351,23 @@ public class SegmentedClassification
       */
      public static String[] getLeafClasses(SegmentedClassification[] seg_classes)
      {
-          // Get a list of all leaf classes in the given seg_classes
-          LinkedList<String> classes_including_doubles = new LinkedList<String>();
+          // Get all leaf classes in the given seg_classes, keeping only the
+          // first occurence of each class
+          LinkedHashSet<String> classes = new LinkedHashSet<String>();
           for (int set = 0; set < seg_classes.length; set++)
           {
                if (seg_classes[set].classifications != null)
                     for (int cla = 0; cla < seg_classes[set].classifications.length; cla++)
-                         classes_including_doubles.add(seg_classes[set].classifications[cla]);
+                         classes.add(seg_classes[set].classifications[cla]);
 
                if (seg_classes[set].sub_classifications != null)
                     for (int sub = 0; sub < seg_classes[set].sub_classifications.length; sub++)
                          for (int cla = 0; cla < seg_classes[set].sub_classifications[sub].classifications.length; cla++)
-                              classes_including_doubles.add(seg_classes[set].sub_classifications[sub].classifications[cla]);
+                              classes.add(seg_classes[set].sub_classifications[sub].classifications[cla]);
           }
 
-          // Remove doubles of the same classes
-          Object[] obj = classes_including_doubles.toArray();
-          String[] unshortened = new String[obj.length];
-          for (int i = 0; i < unshortened.length; i++)
-               unshortened[i] = (String) obj[i];
-          String[] shortened = mckay.utilities.staticlibraries.StringMethods.removeDoubles(unshortened);
-
           // Return the results
-          return shortened;
+          return classes.toArray(new String[classes.size()]);
      }
 
 
@@ -385,16 +382,31 @@ public class SegmentedClassification
       */
      public static boolean verifyUniquenessOfIdentifiers(SegmentedClassification[] seg_classes)
      {
-          boolean unique = true;
-          for (int i = 0; i < seg_classes.length - 1; i++)
-               for (int j = i + 1; j < seg_classes.length; j++)
-                    if ( seg_classes[i].identifier.equals(seg_classes[j].identifier) )
-                    {
-               unique = false;
-               i = seg_classes.length;
-               j = seg_classes.length;
-                    }
-          return unique;
+          return getIdentifierIndex(seg_classes).size() == seg_classes.length;
+     }
+
+
+     /**
+      * Returns a map from the identifier of each of the given
+      * SegmentedClassifications to the SegmentedClassification itself. If
+      * several of them have the same identifier, only the first of these is
+      * kept, so the map will hold fewer entries than seg_classes.
+      *
+      * <p>Building this index once and passing it to the methods that look up
+      * the model classifications of DataSets avoids searching through all of
+      * the SegmentedClassifications for each DataSet.
+      *
+      * @param	seg_classes   The SegmentedClassifications to index.
+      * @return               The SegmentedClassifications keyed by identifier.
+      */
+     public static HashMap<String, SegmentedClassification> getIdentifierIndex(SegmentedClassification[] seg_classes)
+     {
+          HashMap<String, SegmentedClassification> index =
+               new HashMap<String, SegmentedClassification>(seg_classes.length * 2);
+          for (int i = 0; i < seg_classes.length; i++)
+               if (!index.containsKey(seg_classes[i].identifier))
+                    index.put(seg_classes[i].identifier, seg_classes[i]);
+          return index;
      }
 
 
@@ -426,22 +438,33 @@ public class SegmentedClassification
           SegmentedClassification[] set_classifications )
           throws Exception
      {
-          if (!SegmentedClassification.verifyUniquenessOfIdentifiers(set_classifications))
-               throw new Exception( "Given classifications contain multiple references\n" +
-                    "to instances with the same identifier." );
+          return getOverallLabelsOfDataSets(data_sets, getUniqueIdentifierIndex(set_classifications));
+     }
 
+
+     /**
+      * Returns the top-level label(s) of the given DataSets, as described for
+      * the getOverallLabelsOfDataSets method that takes an array of
+      * SegmentedClassifications. The model classifications are instead given
+      * as an index such as the one returned by the getIdentifierIndex method.
+      *
+      * @param	data_sets               The DataSets to find top-level labels
+      *                                 for.
+      * @param	classification_index    Model classifications keyed by
+      *                                 identifier.
+      * @return				The top-level labels for the data_sets
+      *                                 parameter.
+      */
+     public static String[][] getOverallLabelsOfDataSets( DataSet[] data_sets,
+          Map<String, SegmentedClassification> classification_index )
+     {
           String[][] data_set_overall_labels = new String[data_sets.length][];
           for (int set = 0; set < data_sets.length; set++)
           {
                data_set_overall_labels[set] = null;
-               for (int clas = 0; clas < set_classifications.length; clas++)
-               {
-                    if (data_sets[set].identifier.equals(set_classifications[clas].identifier))
-                    {
-                         data_set_overall_labels[set] = set_classifications[clas].classifications;
-                         clas = set_classifications.length;
-                    }
-               }
+               SegmentedClassification match = classification_index.get(data_sets[set].identifier);
+               if (match != null)
+                    data_set_overall_labels[set] = match.classifications;
           }
 
           return data_set_overall_labels;
@@ -479,94 +502,53 @@ public class SegmentedClassification
           SegmentedClassification[] set_classifications )
           throws Exception
      {
-          if (!SegmentedClassification.verifyUniquenessOfIdentifiers(set_classifications))
-               throw new Exception( "Given classifications contain multiple references\n" +
-                    "to instances with the same identifier." );
+          return getSubSectionLabelsOfDataSets(data_sets, getUniqueIdentifierIndex(set_classifications));
+     }
+
 
+     /**
+      * Returns the sub-section label(s) of the given DataSets, as described for
+      * the getSubSectionLabelsOfDataSets method that takes an array of
+      * SegmentedClassifications. The model classifications are instead given
+      * as an index such as the one returned by the getIdentifierIndex method.
+      *
+      * @param	data_sets               The DataSets to find sub-section labels
+      *                                 for.
+      * @param	classification_index    Model classifications keyed by
+      *                                 identifier.
+      * @return				The labels of all sub-sections.
+      */
+     public static String[][][] getSubSectionLabelsOfDataSets( DataSet[] data_sets,
+          Map<String, SegmentedClassification> classification_index )
+     {
           String[][][] labels = new String[data_sets.length][][];
           for (int set = 0; set < data_sets.length; set++)
           {
                labels[set] = null;
-               for (int clas = 0; clas < set_classifications.length; clas++)
+               // Find the SegmentedClassification that has the same
+               // identifier as the DataSet
+               SegmentedClassification match = classification_index.get(data_sets[set].identifier);
+               if (match != null)
                {
-                    // Find the DataSet and the SegmentedClassification that have
-                    // the same identifier
-                    if (data_sets[set].identifier.equals(set_classifications[clas].identifier))
-                    {
-                         // Refer to the sub-sections of both the DataSet and the
-                         // SegmentedClassification
-                         DataSet[] data_sub_set = data_sets[set].sub_sets;
-                         SegmentedClassification[] classification_sections = set_classifications[clas].sub_classifications;
+                    // Refer to the sub-sections of both the DataSet and the
+                    // SegmentedClassification
+                    DataSet[] data_sub_set = data_sets[set].sub_sets;
+                    SegmentedClassification[] classification_sections = match.sub_classifications;
 
-                         if (data_sub_set != null && classification_sections != null)
+                    if (data_sub_set != null && classification_sections != null)
+                    {
+                         // Find the ranges of influence for each sub-section of
+                         // the DataSet
+                         double[] data_low_bound = new double[data_sub_set.length];
+                         double[] data_high_bound = new double[data_sub_set.length];
+                         for (int sub = 0; sub < data_sub_set.length; sub++)
                          {
-                              // Prepare the label holder for this DataSet
-                              labels[set] = new String[data_sub_set.length][];
-
-                              // Find the ranges of influence for each sub-section of
-                              // the DataSet
-                              double[] data_low_bound = new double[data_sub_set.length];
-                              double[] data_high_bound = new double[data_sub_set.length];
-                              for (int sub = 0; sub < data_sub_set.length; sub++)
-                              {
-                                   data_low_bound[sub] = data_sub_set[sub].start;
-                                   data_high_bound[sub] = data_sub_set[sub].stop;
-                              }
-
-                              // Find the ranges of influence for each sub-section of
-                              // the SegmentedClassification
-                              double[] classifications_low_bound = new double[classification_sections.length];
-                              double[] classifications_high_bound = new double[classification_sections.length];
-                              for (int cl_sub = 0; cl_sub < classification_sections.length; cl_sub++)
-                              {
-                                   classifications_low_bound[cl_sub] = classification_sections[cl_sub].start;
-                                   classifications_high_bound[cl_sub] = classification_sections[cl_sub].stop;
-                              }
-
-                              // Go through each sub-section of the DataSet and find
-                              // the appropriate label(s) for it
-                              for (int sub = 0; sub < data_sub_set.length; sub++)
-                              {
-                                   labels[set][sub] = null;
-                                   double[] fraction_in = new double[classification_sections.length];
-                                   double data_set_length = data_high_bound[sub] - data_low_bound[sub];
-                                   for (int cl_sub = 0; cl_sub < classification_sections.length; cl_sub++)
-                                   {
-                                        // Case with no intersection
-                                        if ( data_high_bound[sub] < classifications_low_bound[cl_sub] ||
-                                             data_low_bound[sub] > classifications_high_bound[cl_sub] )
-                                             fraction_in[cl_sub] = 0;
-
-                                        // Case where data is fully within classification
-                                        else if ( data_low_bound[sub] >= classifications_low_bound[cl_sub] &&
-                                             data_high_bound[sub] <= classifications_high_bound[cl_sub] )
-                                             fraction_in[cl_sub] = 1.0;
-
-                                        // Case where classification is fully within data
-                                        else if ( data_low_bound[sub] <= classifications_low_bound[cl_sub] &&
-                                             data_high_bound[sub] >= classifications_high_bound[cl_sub] )
-                                             fraction_in[cl_sub] = (classifications_high_bound[cl_sub] - classifications_low_bound[cl_sub]) / data_set_length;
-
-                                        // Case where data is partially outside of the classification
-                                        // (to the left)
-                                        else if ( data_low_bound[sub] <= classifications_low_bound[cl_sub] &&
-                                             data_high_bound[sub] >= classifications_low_bound[cl_sub] &&
-                                             data_high_bound[sub] <= classifications_high_bound[cl_sub] )
-                                             fraction_in[cl_sub] = (data_high_bound[sub] - classifications_low_bound[cl_sub]) / data_set_length;
-
-                                        // Case where data is partially outside of the classification
-                                        // (to the right)
-                                        else if ( data_low_bound[sub] >= classifications_low_bound[cl_sub] &&
-                                             data_high_bound[sub] >= classifications_high_bound[cl_sub] &&
-                                             data_low_bound[sub] <= classifications_high_bound[cl_sub] )
-                                             fraction_in[cl_sub] = (classifications_high_bound[cl_sub] - data_low_bound[sub]) / data_set_length;
-
-                                        else fraction_in[cl_sub] = 0;
-                                   }
-                                   int best_cl_sub = mckay.utilities.staticlibraries.MathAndStatsMethods.getIndexOfLargest(fraction_in);
-                                   labels[set][sub] = classification_sections[best_cl_sub].classifications;
-                              }
+                              data_low_bound[sub] = data_sub_set[sub].start;
+                              data_high_bound[sub] = data_sub_set[sub].stop;
                          }
+
+                         // Find the label(s) of each sub-section of the DataSet
+                         labels[set] = getSubSectionLabels(data_low_bound, data_high_bound, classification_sections);
                     }
                }
           }
@@ -575,6 +557,89 @@ public class SegmentedClassification
      }
 
 
+     /**
+      * Returns the label(s) of each of a set of sub-sections of a DataSet,
+      * according to the given sub-sections of its SegmentedClassification.
+      * Each sub-section of the DataSet is given the label(s) of the
+      * sub-section of the SegmentedClassification that it overlaps the most.
+      * This is how each sub-section is labelled by the
+      * getSubSectionLabelsOfDataSets method.
+      *
+      * @param	data_low_bound          The start of each sub-section of the
+      *                                 DataSet.
+      * @param	data_high_bound         The end of each sub-section of the
+      *                                 DataSet.
+      * @param	classification_sections The sub-sections of the
+      *                                 SegmentedClassification.
+      * @return				The labels of each sub-section of the
+      *                                 DataSet. Entries are null if no
+      *                                 classifications are available for
+      *                                 the corresponding sub-section.
+      */
+     public static String[][] getSubSectionLabels( double[] data_low_bound,
+          double[] data_high_bound,
+          SegmentedClassification[] classification_sections )
+     {
+          String[][] labels = new String[data_low_bound.length][];
+
+          // Find the ranges of influence for each sub-section of
+          // the SegmentedClassification
+          double[] classifications_low_bound = new double[classification_sections.length];
+          double[] classifications_high_bound = new double[classification_sections.length];
+          for (int cl_sub = 0; cl_sub < classification_sections.length; cl_sub++)
+          {
+               classifications_low_bound[cl_sub] = classification_sections[cl_sub].start;
+               classifications_high_bound[cl_sub] = classification_sections[cl_sub].stop;
+          }
+
+          // Go through each sub-section of the DataSet and find
+          // the appropriate label(s) for it
+          for (int sub = 0; sub < data_low_bound.length; sub++)
+          {
+               labels[sub] = null;
+               double[] fraction_in = new double[classification_sections.length];
+               double data_set_length = data_high_bound[sub] - data_low_bound[sub];
+               for (int cl_sub = 0; cl_sub < classification_sections.length; cl_sub++)
+               {
+                    // Case with no intersection
+                    if ( data_high_bound[sub] < classifications_low_bound[cl_sub] ||
+                         data_low_bound[sub] > classifications_high_bound[cl_sub] )
+                         fraction_in[cl_sub] = 0;
+
+                    // Case where data is fully within classification
+                    else if ( data_low_bound[sub] >= classifications_low_bound[cl_sub] &&
+                         data_high_bound[sub] <= classifications_high_bound[cl_sub] )
+                         fraction_in[cl_sub] = 1.0;
+
+                    // Case where classification is fully within data
+                    else if ( data_low_bound[sub] <= classifications_low_bound[cl_sub] &&
+                         data_high_bound[sub] >= classifications_high_bound[cl_sub] )
+                         fraction_in[cl_sub] = (classifications_high_bound[cl_sub] - classifications_low_bound[cl_sub]) / data_set_length;
+
+                    // Case where data is partially outside of the classification
+                    // (to the left)
+                    else if ( data_low_bound[sub] <= classifications_low_bound[cl_sub] &&
+                         data_high_bound[sub] >= classifications_low_bound[cl_sub] &&
+                         data_high_bound[sub] <= classifications_high_bound[cl_sub] )
+                         fraction_in[cl_sub] = (data_high_bound[sub] - classifications_low_bound[cl_sub]) / data_set_length;
+
+                    // Case where data is partially outside of the classification
+                    // (to the right)
+                    else if ( data_low_bound[sub] >= classifications_low_bound[cl_sub] &&
+                         data_high_bound[sub] >= classifications_high_bound[cl_sub] &&
+                         data_low_bound[sub] <= classifications_high_bound[cl_sub] )
+                         fraction_in[cl_sub] = (classifications_high_bound[cl_sub] - data_low_bound[sub]) / data_set_length;
+
+                    else fraction_in[cl_sub] = 0;
+               }
+               int best_cl_sub = mckay.utilities.staticlibraries.MathAndStatsMethods.getIndexOfLargest(fraction_in);
+               labels[sub] = classification_sections[best_cl_sub].classifications;
+          }
+
+          return labels;
+     }
+
+
 
 
      /**
@@ -828,4 +893,29 @@ public class SegmentedClassification
                  return classes[i];
          return null;
      }
+
+
+     /* PRIVATE METHODS *******************************************************/
+
+
+     /**
+      * Returns the index of the given SegmentedClassifications returned by
+      * the getIdentifierIndex method, after verifying that none of them have
+      * the same identifier.
+      *
+      * @param	seg_classes   The SegmentedClassifications to index.
+      * @return               The SegmentedClassifications keyed by identifier.
+      * @throws	Exception     An exception is thrown if the given
+      *                       SegmentedClassification contain multiple
+      *                       data sets with the same identifier.
+      */
+     private static HashMap<String, SegmentedClassification> getUniqueIdentifierIndex(SegmentedClassification[] seg_classes)
+          throws Exception
+     {
+          HashMap<String, SegmentedClassification> index = getIdentifierIndex(seg_classes);
+          if (index.size() != seg_classes.length)
+               throw new Exception( "Given classifications contain multiple references\n" +
+                    "to instances with the same identifier." );
+          return index;
+     }
 }
\ No newline at end of file
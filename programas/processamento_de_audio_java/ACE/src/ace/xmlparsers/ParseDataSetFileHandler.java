@@ -2,15 +2,19 @@
  * ParseDataSetFileHandler.java
  * Version 2.2.1
  *
- * Last modified on July 26, 2010.
+ * Last modified on October 17, 2026.
  * McGill University
  */
 
 package ace.xmlparsers;
 
 import org.xml.sax.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedList;
 import ace.datatypes.DataSet;
+import ace.datatypes.DataSetReceiver;
 
 
 /**
@@ -24,6 +28,16 @@ import ace.datatypes.DataSet;
  * the contents of the files elements are stored in the parsed_file_contents
  * field.
  *
+ * <p>Alternatively, a DataSetReceiver may be given to the constructor. Each
+ * root-level DataSet is then passed to it as soon as its end tag is reached
+ * and is not stored, so that files larger than the available memory can be
+ * parsed. The parsed_file_contents field is left empty in this case.
+ *
+ * <p>Feature values are parsed directly from the characters passed in by the
+ * XMLReader into a reused primitive array, without creating a String for
+ * each value. Feature names are shared between all DataSets with features of
+ * the same name.
+ *
  * @author Cory McKay (ACE 1.x) and Jessica Thompson (ACE 2.x)
  */
 public class ParseDataSetFileHandler
@@ -39,11 +53,19 @@ public class ParseDataSetFileHandler
 
 
      /**
-      * Stores all of the root level data sets in the file.
+      * Stores all of the root level data sets in the file. Null if they are
+      * passed to receiver instead.
       */
      private LinkedList<DataSet>	root_datasets;
 
 
+     /**
+      * Receives each root level data set as it is parsed. Null if they are
+      * stored in root_datasets instead.
+      */
+     private DataSetReceiver		receiver;
+
+
      /**
       * The root-level DataSet currently being processed.
       */
@@ -64,22 +86,37 @@ public class ParseDataSetFileHandler
 
 
      /**
-      * The names of the features in a given DataSet.
+      * The names of the features in a given DataSet. Null if no features
+      * have been encountered yet in the DataSet.
       */
-     private LinkedList<String>		feature_name_list;
+     private ArrayList<String>		feature_name_list;
 
 
      /**
       * The sets of values for each feature in a DataSet. In the same order
       * as the feature_name_list field.
       */
-     private LinkedList<double[]>	feature_values_list;
+     private ArrayList<double[]>	feature_values_list;
+
+
+     /**
+      * The value(s) for the feature currently being processed. Only the first
+      * number_of_values entries are used. Reused for every feature and grown
+      * as needed.
+      */
+     private	double[]		feature_individual_values;
+
+
+     /**
+      * The number of values parsed so far for the current feature.
+      */
+     private	int			number_of_values;
 
 
      /**
-      * The value(s) for a particular feature.
+      * One copy of each feature name encountered so far, keyed by itself.
       */
-     private	LinkedList<String>	feature_indidual_values_list;
+     private	HashMap<String, String>	feature_names;
 
 
      /**
@@ -87,11 +124,76 @@ public class ParseDataSetFileHandler
       */
      private	int			count;
 
-	 
-	 /**
-      * The element text parsed from the current XML element so far.
-     */
-     private StringBuffer				element_text_so_far;
+
+     /**
+      * The element text parsed from the current XML element so far. Only
+      * the first element_text_length characters are used. Reused for every
+      * element and grown as needed.
+      */
+     private char[]				element_text_so_far;
+
+
+     /**
+      * The number of characters in element_text_so_far.
+      */
+     private int				element_text_length;
+
+
+     /**
+      * The largest power of ten that is exactly representable as a double.
+      * Also the largest power of ten by which a significand of at most
+      * MAXIMUM_EXACT_DIGITS digits can be multiplied or divided with only a
+      * single rounding.
+      */
+     private static final int		MAXIMUM_EXACT_POWER = 22;
+
+
+     /**
+      * The largest number of significant decimal digits that can always be
+      * held exactly in a double.
+      */
+     private static final int		MAXIMUM_EXACT_DIGITS = 15;
+
+
+     /**
+      * The powers of ten from 10^0 to 10^MAXIMUM_EXACT_POWER.
+      */
+     private static final double[]	POWERS_OF_TEN = new double[MAXIMUM_EXACT_POWER + 1];
+     static
+     {
+          POWERS_OF_TEN[0] = 1.0;
+          for (int i = 1; i < POWERS_OF_TEN.length; i++)
+               POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0;
+     }
+
+
+     /* CONSTRUCTORS **********************************************************/
+
+
+     /**
+      * Prepare a handler that stores the parsed DataSets in the
+      * parsed_file_contents field.
+      */
+     public ParseDataSetFileHandler()
+     {
+          this(null);
+     }
+
+
+     /**
+      * Prepare a handler that passes each root-level DataSet to the given
+      * receiver as soon as it is parsed.
+      *
+      * @param	receiver	The object to pass the DataSets to. If this is
+      *				null, the DataSets are stored in the
+      *				parsed_file_contents field instead.
+      */
+     public ParseDataSetFileHandler(DataSetReceiver receiver)
+     {
+          this.receiver = receiver;
+          element_text_so_far = new char[64];
+          feature_individual_values = new double[16];
+     }
 
 
      /* PUBLIC METHODS ********************************************************/
@@ -104,13 +206,14 @@ public class ParseDataSetFileHandler
       */
      public void startDocument()
      {
-          root_datasets = new LinkedList<DataSet>();
+          root_datasets = (receiver == null) ? new LinkedList<DataSet>() : null;
           current_root_dataset = null;
           subset_datasets = null;
           current_subset_dataset = null;
           feature_name_list = null;
           feature_values_list = null;
-          feature_indidual_values_list = null;
+          number_of_values = 0;
+          feature_names = new HashMap<String, String>();
           count = 0;
      }
 
@@ -127,8 +230,8 @@ public class ParseDataSetFileHandler
      public void startElement(String namespace, String name, String qName, Attributes atts)
      throws SAXException
      {
-          // Reset the string buffer
-          element_text_so_far = new StringBuffer();
+          // Reset the text buffer
+          element_text_length = 0;
 
          // Make sure is correct file type
           if (count == 0)
@@ -139,19 +242,20 @@ public class ParseDataSetFileHandler
           // Identify the type of tag
           if (name.equals("feature"))
           {
-               // Prepare the linked lists to store feature values
+               // Prepare the lists to store feature values
                if (feature_name_list == null)
                {
-                    feature_name_list = new LinkedList<String>();
-                    feature_values_list = new LinkedList<double[]>();
+                    feature_name_list = new ArrayList<String>();
+                    feature_values_list = new ArrayList<double[]>();
                }
-               feature_indidual_values_list = new LinkedList<String>();
+               number_of_values = 0;
           }
 		  else if (name.equals("data_set"))
           {
                // Create a new Dataset and add it to root_datasets.
                current_root_dataset = new DataSet();
-               root_datasets.add(current_root_dataset);
+               if (root_datasets != null)
+                    root_datasets.add(current_root_dataset);
           }
           else if (name.equals("section"))
           {
@@ -179,76 +283,68 @@ public class ParseDataSetFileHandler
       */
      public void characters(char[] ch, int start, int length)
      {
-          // The text stored in the element
-          String text = new String(ch, start, length);
-
-          // Store the text
-          element_text_so_far.append(text);
+          // Store the text, growing the buffer if needed
+          if (element_text_length + length > element_text_so_far.length)
+               element_text_so_far = Arrays.copyOf( element_text_so_far,
+                    Math.max(2 * element_text_so_far.length, element_text_length + length) );
+          System.arraycopy(ch, start, element_text_so_far, element_text_length, length);
+          element_text_length += length;
      }
 
 
      /**
       * This method is called when the end tag of an XML element is encountered.
       *
-      * @param	name	Name of the element that is encountered.
+      * @param	name		Name of the element that is encountered.
+      * @throws	SAXException	Exception thrown if the receiver cannot
+      *				process a DataSet.
       */
      public void endElement(String namespace, String name, String qName)
+     throws SAXException
      {
-          // Store element text
-          String parsed_text = element_text_so_far.toString();
-
           // Parse the data
 		  if (name.equals("v"))
-               feature_indidual_values_list.add(parsed_text);
+          {
+               // Store the value, growing the buffer if needed
+               if (number_of_values == feature_individual_values.length)
+                    feature_individual_values = Arrays.copyOf(feature_individual_values, 2 * number_of_values);
+               feature_individual_values[number_of_values] = parseDouble(element_text_so_far, 0, element_text_length);
+               number_of_values++;
+          }
           else if (name.equals("name"))
-               feature_name_list.add(parsed_text);
+               feature_name_list.add(getFeatureName(new String(element_text_so_far, 0, element_text_length)));
 		  else if (name.equals("data_set_id"))
-               current_root_dataset.identifier = parsed_text;
+               current_root_dataset.identifier = new String(element_text_so_far, 0, element_text_length);
           else if (name.equals("feature"))
           {
-               // Convert the feature_indidual_values_list into doubles
-               // and store it in feature_values_list
-               Object[] fvs_obj = (Object[]) feature_indidual_values_list.toArray();
-               double[] fvs_double = new double[fvs_obj.length];
-               for (int i = 0; i < fvs_double.length; i++)
-                    fvs_double[i] = Double.parseDouble( (String) fvs_obj[i] );
-
-               // Reset variables
-               feature_values_list.add(fvs_double);
-               feature_indidual_values_list = null;
+               // Store a copy of the values of the feature in feature_values_list
+               feature_values_list.add(Arrays.copyOf(feature_individual_values, number_of_values));
+               number_of_values = 0;
           }
 		  else if (name.equals("data_set"))
           {
                // Store feature_name_list and feature_values_list in
                // current_root_dataset
-               if (feature_name_list != null)
-               {
-                    Object[] fnl_obj = (Object[]) feature_name_list.toArray();
-                    String[] fnl_string = new String[fnl_obj.length];
-                    for (int i = 0; i < fnl_string.length; i++)
-                         fnl_string[i] = (String) fnl_obj[i];
-                    current_root_dataset.feature_names = fnl_string;
-
-                    Object[] fvl_obj = (Object[]) feature_values_list.toArray();
-                    double[][] fvl_doub = new double[fvl_obj.length][];
-                    for (int i = 0; i < fvl_doub.length; i++)
-                         fvl_doub[i] = (double[]) fvl_obj[i];
-                    current_root_dataset.feature_values = fvl_doub;
-               }
+               storeFeatures(current_root_dataset);
 
                // Store the sub-sets of the data set (null if none)
                if (subset_datasets != null)
+                    current_root_dataset.sub_sets = subset_datasets.toArray(new DataSet[subset_datasets.size()]);
+
+               // Pass on the finished data set if it is not being stored
+               if (receiver != null)
                {
-                    Object[] dsl_obj = (Object[]) subset_datasets.toArray();
-                    DataSet[] dsl_ds = new DataSet[dsl_obj.length];
-                    for (int i = 0; i < dsl_ds.length; i++)
-                         dsl_ds[i] = (DataSet) dsl_obj[i];
-                    current_root_dataset.sub_sets = dsl_ds;
+                    try
+                    {
+                         receiver.dataSetParsed(current_root_dataset);
+                    }
+                    catch (Exception e)
+                    {
+                         throw new SAXException(e);
+                    }
                }
 
                // Reset variables
-               feature_name_list = null;
-               feature_values_list = null;
                subset_datasets = null;
                current_root_dataset = null;
           }
@@ -256,24 +352,9 @@ public class ParseDataSetFileHandler
           {
                // Store feature_name_list and feature_values_list in
                // current_subset_dataset
-               if (feature_name_list != null)
-               {
-                    Object[] fnl_obj = (Object[]) feature_name_list.toArray();
-                    String[] fnl_string = new String[fnl_obj.length];
-                    for (int i = 0; i < fnl_string.length; i++)
-                         fnl_string[i] = (String) fnl_obj[i];
-                    current_subset_dataset.feature_names = fnl_string;
-
-                    Object[] fvl_obj = (Object[]) feature_values_list.toArray();
-                    double[][] fvl_doub = new double[fvl_obj.length][];
-                    for (int i = 0; i < fvl_doub.length; i++)
-                         fvl_doub[i] = (double[]) fvl_obj[i];
-                    current_subset_dataset.feature_values = fvl_doub;
-               }
+               storeFeatures(current_subset_dataset);
 
                // Reset variables
-               feature_name_list = null;
-               feature_values_list = null;
                current_subset_dataset = null;
           }
      }
@@ -286,6 +367,150 @@ public class ParseDataSetFileHandler
      public void endDocument()
      {
           // Put contents of tree into parsed_file_contents
-          parsed_file_contents = root_datasets.toArray();
+          if (root_datasets != null)
+               parsed_file_contents = root_datasets.toArray();
+          else
+               parsed_file_contents = new Object[0];
+     }
+
+
+     /**
+      * Returns the double represented by the given characters. The result is
+      * identical to that of Double.parseDouble. Plain decimal numbers with at
+      * most MAXIMUM_EXACT_DIGITS significant digits and a small enough
+      * exponent, which include almost all feature values written by ACE,
+      * jAudio and jSymbolic, are converted without creating a String.
+      *
+      * @param	ch		The characters holding the number.
+      * @param	start		The index of the first character.
+      * @param	length		The number of characters.
+      * @return			The number.
+      * @throws	NumberFormatException	Exception thrown if the characters
+      *					do not represent a number.
+      */
+     public static double parseDouble(char[] ch, int start, int length)
+     {
+          // Skip surrounding white space, as Double.parseDouble does
+          int end = start + length;
+          while (start < end && ch[start] <= ' ')
+               start++;
+          while (end > start && ch[end - 1] <= ' ')
+               end--;
+
+          // Find the sign
+          int i = start;
+          boolean negative = false;
+          if (i < end && (ch[i] == '-' || ch[i] == '+'))
+          {
+               negative = ch[i] == '-';
+               i++;
+          }
+
+          // Find the significant digits and the position of the decimal point
+          long significand = 0;
+          int significant_digits = 0;
+          int digits = 0;
+          int exponent = 0;
+          boolean point = false;
+          for (; i < end; i++)
+          {
+               char c = ch[i];
+               if (c >= '0' && c <= '9')
+               {
+                    digits++;
+                    if (significant_digits > 0 || c != '0')
+                    {
+                         significant_digits++;
+                         if (significant_digits <= MAXIMUM_EXACT_DIGITS)
+                              significand = 10 * significand + (c - '0');
+                    }
+                    if (point)
+                         exponent--;
+               }
+               else if (c == '.' && !point)
+                    point = true;
+               else
+                    break;
+          }
+
+          // Find the exponent, if any
+          if (digits > 0 && i < end && (ch[i] == 'e' || ch[i] == 'E'))
+          {
+               i++;
+               boolean negative_exponent = false;
+               if (i < end && (ch[i] == '-' || ch[i] == '+'))
+               {
+                    negative_exponent = ch[i] == '-';
+                    i++;
+               }
+               int exponent_digits = 0;
+               int written_exponent = 0;
+               for (; i < end && ch[i] >= '0' && ch[i] <= '9'; i++)
+               {
+                    exponent_digits++;
+                    if (written_exponent < 10000)
+                         written_exponent = 10 * written_exponent + (ch[i] - '0');
+               }
+               if (exponent_digits == 0)
+                    i = -1;
+               exponent += negative_exponent ? -written_exponent : written_exponent;
+          }
+
+          // A significand and a power of ten that are both exact doubles give a
+          // correctly rounded result when multiplied or divided. Anything else
+          // is left to Double.parseDouble.
+          if (i == end && digits > 0 && significant_digits <= MAXIMUM_EXACT_DIGITS &&
+               exponent >= -MAXIMUM_EXACT_POWER && exponent <= MAXIMUM_EXACT_POWER)
+          {
+               double value = (double) significand;
+               if (exponent < 0)
+                    value /= POWERS_OF_TEN[-exponent];
+               else
+                    value *= POWERS_OF_TEN[exponent];
+               return negative ? -value : value;
+          }
+          return Double.parseDouble(new String(ch, start, end - start));
+     }
+
+
+     /* PRIVATE METHODS *******************************************************/
+
+
+     /**
+      * Stores the features parsed since the last time that this method was
+      * called in the given DataSet, and prepares to parse the features of
+      * another DataSet. Nothing is stored if no features have been parsed.
+      *
+      * @param	data_set	The DataSet to store the features in.
+      */
+     private void storeFeatures(DataSet data_set)
+     {
+          if (feature_name_list != null)
+          {
+               data_set.feature_names = feature_name_list.toArray(new String[feature_name_list.size()]);
+               data_set.feature_values = feature_values_list.toArray(new double[feature_values_list.size()][]);
+          }
+          feature_name_list = null;
+          feature_values_list = null;
+     }
+
+
+     /**
+      * Returns the stored copy of the given feature name, so that all DataSets
+      * share one String for each feature name rather than each holding its
+      * own.
+      *
+      * @param	name	The name of a feature.
+      * @return		An equal String that may be stored.
+      */
+     private String getFeatureName(String name)
+     {
+          String stored = feature_names.get(name);
+          if (stored == null)
+          {
+               feature_names.put(name, name);
+               stored = name;
+          }
+          return stored;
      }
 }
\ No newline at end of file
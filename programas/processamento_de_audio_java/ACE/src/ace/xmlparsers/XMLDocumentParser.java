@@ -59,20 +59,6 @@ public class XMLDocumentParser
      public static Object parseXMLDocument(String file_path, String document_type)
      throws Exception
      {
-          // Verify that the file referred to in file_path exists and is not a
-          // directory
-
-          File test_file = new File(file_path);
-          if (!test_file.exists())
-               throw new Exception("The specified path " + file_path + " does not refer to an existing file.");
-          if (test_file.isDirectory())
-               throw new Exception("The specified path " + file_path + " refers to a directory, not to a file.");
-
-          // Prepare the XML parser with the validation feature on and the error
-          // handler set to throw exceptions on all warnings and errors
-          XMLReader reader = new SAXParser();
-          reader.setFeature("http://xml.org/sax/features/validation", true);
-          reader.setErrorHandler(new mckay.utilities.xml.ParsingXMLErrorHandler());
           mckay.utilities.xml.ParseFileHandler handler;
 
           // Choose the correct type handler based on the type of XML file
@@ -90,6 +76,51 @@ public class XMLDocumentParser
           // Throw an exception if an unknown type of XML file is specified
           else throw new Exception(new String("Invalid type of XML file specified. The XML file type " + document_type + " is not known."));
 
+          // Parse the file and return its contents
+          return parseXMLDocument(file_path, document_type, handler);
+     }
+
+
+     /**
+      * Loads, validates and parses an XML file in the same way as the
+      * parseXMLDocument method above, but with the given handler rather than
+      * one chosen by file type. This allows handlers to be configured before
+      * parsing, such as a ParseDataSetFileHandler that passes each DataSet to
+      * a DataSetReceiver as soon as it is parsed.
+      *
+      * <p>If the handler throws a SAXException wrapping another exception,
+      * the wrapped exception is thrown unchanged.
+      *
+      * @param	file_path	The path of an XML file that will be parsed.
+      * @param	document_type	The type of XML file. Defined by the name
+      *				of the first element in the file. Only used in
+      *				error messages.
+      * @param	handler		The handler to parse the file with.
+      * @return			The parsed_file_contents field of the handler
+      *				after parsing.
+      * @throws	Exception	Informative exceptions are thrown if an
+      *				invalid file path is specified.
+      */
+     public static Object parseXMLDocument( String file_path,
+          String document_type,
+          mckay.utilities.xml.ParseFileHandler handler )
+     throws Exception
+     {
+          // Verify that the file referred to in file_path exists and is not a
+          // directory
+
+          File test_file = new File(file_path);
+          if (!test_file.exists())
+               throw new Exception("The specified path " + file_path + " does not refer to an existing file.");
+          if (test_file.isDirectory())
+               throw new Exception("The specified path " + file_path + " refers to a directory, not to a file.");
+
+          // Prepare the XML parser with the validation feature on and the error
+          // handler set to throw exceptions on all warnings and errors
+          XMLReader reader = new SAXParser();
+          reader.setFeature("http://xml.org/sax/features/validation", true);
+          reader.setErrorHandler(new mckay.utilities.xml.ParsingXMLErrorHandler());
+
           // Parse the file so that the contents are available in the
           // parsed_file_contents field of the handler
           reader.setContentHandler(handler);
@@ -102,6 +133,8 @@ public class XMLDocumentParser
           }
           catch (SAXException e) // throw an exception if the file is not an XML file of the correct type
           {
+               if (e.getException() != null) // pass on exceptions thrown by whatever the handler passes data to
+                    throw e.getException();
                throw new Exception("The " + file_path + " file must be of type " + document_type + "." + e.getMessage());
           }
           catch (Exception e) // throw an exception if the file is not formatted properly
@@ -280,24 +280,29 @@ public class MIDIMethods
           
           // Prepare the original tracks of MIDI data
           Track[] original_tracks = original_sequence.getTracks();
-
-          //Add an immutable end of track message to each track so we know
-          //where the true end of track is with respect to the original sequence.
-          //This is a natural solution to passing meta messages through subsequent windows
-          for(Track track : original_tracks) {
-              MidiMessage endOfTrack = new MetaMessage(0x2F, new byte[]{}, 0);
-              track.add(new MidiEvent(endOfTrack, original_sequence.getTickLength()));
-          }
+          long original_tick_length = original_sequence.getTickLength();
                
           int current_sequence_index = 0;
           for(int track_index = 0; track_index < original_tracks.length; track_index++) 
           {
               Track originalTrack = original_tracks[track_index];
               MIDISpecialEvents specialEvents = new MIDISpecialEvents();
-              for(int event_index = 0; event_index < originalTrack.size(); event_index++)
+
+              //Treat the end of track event of each track as if it occurred at the end of the
+              //original sequence so we know where the true end of track is with respect to the
+              //original sequence. This is a natural solution to passing meta messages through
+              //subsequent windows. The original track itself is not changed.
+              int number_of_events = originalTrack.size();
+              if(number_of_events > 0 && isEndOfTrack(originalTrack.get(number_of_events - 1).getMessage())) {
+                  number_of_events--;
+              }
+              MidiMessage endOfTrack = new MetaMessage(0x2F, new byte[]{}, 0);
+              MidiEvent endOfTrackEvent = new MidiEvent(endOfTrack, original_tick_length);
+
+              for(int event_index = 0; event_index <= number_of_events; event_index++)
               {
                   //Get all required data needed for window
-                  MidiEvent thisEvent = originalTrack.get(event_index);
+                  MidiEvent thisEvent = (event_index < number_of_events) ? originalTrack.get(event_index) : endOfTrackEvent;
                   int startTick = (int)thisEvent.getTick();
                   int sequence_index = getSequenceIndex(startTick, window_start_ticks, window_end_ticks);
                   Track thisTrack = windowed_tracks[sequence_index][track_index];
@@ -555,10 +560,21 @@ public class MIDIMethods
          }
      }
      
+     /**
+      * Checks whether the given midi message is an end of track meta message.
+      * @param message the midi message to be checked
+      * @return true if message is an end of track meta message, else false
+      */
+     private static boolean isEndOfTrack(MidiMessage message) {
+         return message instanceof MetaMessage &&
+                 ((MetaMessage) message).getType() == 0x2F;
+     }
+
      /**
       * Returns a deep copy of the given midi event with a new starting tick.
       * Deep copy in this case is a newly instantiated object with the same
-      * midi message but a new starting tick.
+      * midi message but a new starting tick. The midi message itself is shared
+      * with the original event rather than copied, since it is never modified.
       * @param originalEvent event with old tick
       * @param new_tick new tick to be added to deep copy of event
       * @return Deep copy of originalEvent with new_tick
@@ -691,7 +707,25 @@ public class MIDIMethods
              return lastIndex;
          }
          
-         //Check all ticks to find last proper window
+         //Find the last window starting at or before this tick with a binary search,
+         //since windows are ordered by start tick. This is the last proper window
+         //as long as it has not already ended by this tick.
+         int low = 0;
+         int high = lastIndex;
+         while(low < high) {
+             int middle = (low + high + 1) >>> 1;
+             if(window_start_ticks[middle] <= intTick) {
+                 low = middle;
+             }
+             else {
+                 high = middle - 1;
+             }
+         }
+         if(window_start_ticks[low] <= intTick && window_end_ticks[low] >= intTick) {
+             return low;
+         }
+
+         //Otherwise check all ticks to find last proper window
          //This allows for natural copying of midi events to previous windows
          boolean found_index = false;
          int last_index_found = 0;
@@ -284,6 +284,44 @@ public class MIDIMethodsTest {
         compareEventByteArrayTest(test_sequence_overlap,windowed_sequences_overlap);
     }
 
+    /**
+     * Test that breakSequenceIntoWindows does not change the original sequence,
+     * even when its tracks end before the end of the sequence.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testBreakSequenceIntoWindowsDoesNotChangeOriginal()
+            throws Exception
+    {
+        Sequence sequence = new Sequence(Sequence.PPQ, 256);
+        Track longTrack = sequence.createTrack();
+        longTrack.add(MidiBuildEvent.createNoteOnEvent(35, 0, 0));
+        longTrack.add(MidiBuildEvent.createNoteOffEvent(35, 1024, 0));
+        Track shortTrack = sequence.createTrack();
+        shortTrack.add(MidiBuildEvent.createNoteOnEvent(40, 0, 1));
+        shortTrack.add(MidiBuildEvent.createNoteOffEvent(40, 300, 1));
+
+        double window_duration = 0.5;
+        double window_overlap_offset = 0.25;
+        double[] seconds_per_tick = MIDIMethods.getSecondsPerTick(sequence);
+        List<int[]> startEndTickArrays = MIDIMethods.getStartEndTickArrays(sequence,
+                                                                           window_duration,
+                                                                           window_overlap_offset,
+                                                                           seconds_per_tick);
+        Sequence[] windows = MIDIMethods.breakSequenceIntoWindows(sequence,
+                                                                window_duration,
+                                                                window_overlap_offset,
+                                                                startEndTickArrays.get(0),
+                                                                startEndTickArrays.get(1));
+        assertTrue(windows.length > 1);
+
+        assertEquals(3, longTrack.size());
+        assertEquals(1024, longTrack.ticks());
+        assertEquals(3, shortTrack.size());
+        assertEquals(300, shortTrack.ticks());
+        assertEquals(1024, sequence.getTickLength());
+    }
+
     private void compareEventByteArrayTest(Sequence[] actualSequences, Sequence[] expectedSequences) {
         for (int s = 0; s < actualSequences.length; s++)
         {
@@ -0,0 +1,311 @@
+/*
+ * @(#)BenchmarkRunner.java	1.0	October 17, 2026.
+ *
+ * McGill Univarsity
+ */
+
+package jAudioFeatureExtractor.benchmarks;
+
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Date;
+import java.util.regex.Pattern;
+
+
+/**
+ * Measures the average time and the memory allocated per call of benchmark
+ * operations, in the manner of JMH. Each benchmark is run for a number of
+ * warmup iterations, whose results are discarded, and then for a number of
+ * measurement iterations of fixed duration. Within an iteration, the
+ * operation is called in batches whose size is chosen during warmup so that
+ * the cost of reading the clock is negligible. The result of every call is
+ * kept in a volatile field so that the JIT compiler cannot remove the work.
+ *
+ * <p>The memory allocated by the benchmarking thread is read from the JVM's
+ * per-thread allocation counter, which is what the JMH gc profiler reports
+ * as gc.alloc.rate.norm. It is reported as NaN on JVMs without this counter.
+ *
+ * <p>The options follow those of JMH:
+ * <ul>
+ * <li>-wi &lt;count&gt;: warmup iterations (3 by default)
+ * <li>-i &lt;count&gt;: measurement iterations (5 by default)
+ * <li>-r &lt;ms&gt;: duration of each iteration (200 ms by default)
+ * <li>-o &lt;file&gt;: file to write the results to as well as the console
+ * <li>-features &lt;file&gt;: the jAudio feature list (features.xml by
+ * default)
+ * <li>any other argument: a regular expression, only benchmarks whose names
+ * contain a match are run
+ * </ul>
+ *
+ * @author	agent
+ */
+public class BenchmarkRunner
+{
+	/* FIELDS ******************************************************************/
+
+
+	// Holds the result of the last call of the operation being measured.
+	private static volatile Object	sink;
+
+	// The number of warmup and measurement iterations, and the duration of
+	// each in nanoseconds.
+	private int						warmup_iterations = 3;
+	private int						measurement_iterations = 5;
+	private long					iteration_time = 200000000L;
+
+	// Benchmarks whose names do not contain a match are skipped. Null if all
+	// benchmarks are run.
+	private Pattern					filter;
+
+	// Where results are written in addition to the console. Null if they are
+	// only written to the console.
+	private PrintStream				results_file;
+
+	// Reads the memory allocated by the current thread. Null if the JVM does
+	// not provide this.
+	private com.sun.management.ThreadMXBean	allocation_counter;
+
+
+	/* CONSTRUCTOR *************************************************************/
+
+
+	/**
+	 * Prepare to run benchmarks with default settings.
+	 */
+	public BenchmarkRunner()
+	{
+		ThreadMXBean thread_bean = ManagementFactory.getThreadMXBean();
+		if (thread_bean instanceof com.sun.management.ThreadMXBean)
+		{
+			allocation_counter = (com.sun.management.ThreadMXBean) thread_bean;
+			if (allocation_counter.isThreadAllocatedMemorySupported())
+				allocation_counter.setThreadAllocatedMemoryEnabled(true);
+			else
+				allocation_counter = null;
+		}
+	}
+
+
+	/* INTERNAL CLASSES ********************************************************/
+
+
+	/**
+	 * An operation to be benchmarked.
+	 */
+	public static abstract class Operation
+	{
+		/**
+		 * Perform the operation once.
+		 *
+		 * @return				The result of the operation, which is kept so
+		 *						that the work is not optimised away.
+		 * @throws	Exception	Throws an exception if the operation fails.
+		 */
+		public abstract Object run() throws Exception;
+	}
+
+
+	/* PUBLIC METHODS **********************************************************/
+
+
+	/**
+	 * Run the jAudio benchmarks.
+	 *
+	 * @param	args		The options described in the class comment.
+	 * @throws	Exception	Throws an exception if an option is invalid or if a
+	 *						benchmark cannot be prepared.
+	 */
+	public static void main(String[] args)
+		throws Exception
+	{
+		BenchmarkRunner runner = new BenchmarkRunner();
+		String feature_list = "features.xml";
+		for (int i = 0; i < args.length; i++)
+		{
+			if (args[i].equals("-wi"))
+				runner.warmup_iterations = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-i"))
+				runner.measurement_iterations = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-r"))
+				runner.iteration_time = Long.parseLong(args[++i]) * 1000000L;
+			else if (args[i].equals("-o"))
+				runner.results_file = new PrintStream(new FileOutputStream(args[++i]));
+			else if (args[i].equals("-features"))
+				feature_list = args[++i];
+			else
+				runner.filter = Pattern.compile(args[i]);
+		}
+
+		runner.report( "# jAudio benchmarks, " + new Date() + "\n" +
+		               "# JVM: " + System.getProperty("java.vm.name") + " " + System.getProperty("java.version") + "\n" +
+		               "# OS: " + System.getProperty("os.name") + " " + System.getProperty("os.arch") +
+		               ", " + Runtime.getRuntime().availableProcessors() + " processor(s)\n" +
+		               "# Warmup: " + runner.warmup_iterations + " iterations, measurement: " +
+		               runner.measurement_iterations + " iterations of " + (runner.iteration_time / 1000000L) + " ms\n" +
+		               String.format("%-72s %14s %12s %14s", "# Benchmark", "ns/op", "error", "B/op") );
+		new JAudioBenchmarks(runner, feature_list).runAll();
+		if (runner.results_file != null)
+			runner.results_file.close();
+	}
+
+
+	/**
+	 * Returns whether the named benchmark is to be run.
+	 *
+	 * @param	name	The name of the benchmark.
+	 * @return			Whether it matches the filter.
+	 */
+	public boolean isSelected(String name)
+	{
+		return filter == null || filter.matcher(name).find();
+	}
+
+
+	/**
+	 * Measure the given operation and report the result, if its name matches
+	 * the filter.
+	 *
+	 * @param	name		The name of the benchmark, including its
+	 *						parameters.
+	 * @param	operation	The operation to measure.
+	 */
+	public void measure(String name, Operation operation)
+	{
+		if (!isSelected(name))
+			return;
+		try
+		{
+			// Find a batch size that makes each batch take at least 100
+			// microseconds, and warm up
+			int batch_size = 1;
+			long start = System.nanoTime();
+			runBatch(operation, batch_size);
+			while (System.nanoTime() - start < 100000L && batch_size < (1 << 20))
+			{
+				batch_size *= 2;
+				start = System.nanoTime();
+				runBatch(operation, batch_size);
+			}
+			for (int i = 0; i < warmup_iterations; i++)
+				runIteration(operation, batch_size);
+
+			// Measure
+			double[] times = new double[measurement_iterations];
+			double[] allocations = new double[measurement_iterations];
+			for (int i = 0; i < measurement_iterations; i++)
+			{
+				double[] result = runIteration(operation, batch_size);
+				times[i] = result[0];
+				allocations[i] = result[1];
+			}
+
+			report(String.format( "%-72s %14.1f %12.1f %14.1f",
+			                      name,
+			                      mean(times),
+			                      standardError(times),
+			                      mean(allocations) ));
+		}
+		catch (Exception e)
+		{
+			report(String.format("%-72s skipped: %s", name, e));
+		}
+	}
+
+
+	/**
+	 * Write a line to the console and the results file.
+	 *
+	 * @param	line	The line to write.
+	 */
+	public void report(String line)
+	{
+		System.out.println(line);
+		if (results_file != null)
+			results_file.println(line);
+	}
+
+
+	/* PRIVATE METHODS *********************************************************/
+
+
+	/**
+	 * Call the given operation the given number of times.
+	 *
+	 * @param	operation	The operation.
+	 * @param	batch_size	The number of calls.
+	 * @throws	Exception	Throws the exception thrown by the operation.
+	 */
+	private static void runBatch(Operation operation, int batch_size)
+		throws Exception
+	{
+		for (int i = 0; i < batch_size; i++)
+			sink = operation.run();
+	}
+
+
+	/**
+	 * Call the given operation in batches for the duration of an iteration.
+	 *
+	 * @param	operation	The operation.
+	 * @param	batch_size	The number of calls between readings of the clock.
+	 * @return				The average time per call in nanoseconds and the
+	 *						average number of bytes allocated per call.
+	 * @throws	Exception	Throws the exception thrown by the operation.
+	 */
+	private double[] runIteration(Operation operation, int batch_size)
+		throws Exception
+	{
+		long thread = Thread.currentThread().getId();
+		long allocated_before = (allocation_counter == null) ? 0 : allocation_counter.getThreadAllocatedBytes(thread);
+		long calls = 0;
+		long start = System.nanoTime();
+		long end = start + iteration_time;
+		long now;
+		do
+		{
+			runBatch(operation, batch_size);
+			calls += batch_size;
+			now = System.nanoTime();
+		}
+		while (now < end);
+		long allocated_after = (allocation_counter == null) ? 0 : allocation_counter.getThreadAllocatedBytes(thread);
+
+		double allocated = (allocation_counter == null) ? Double.NaN : (double) (allocated_after - allocated_before) / calls;
+		return new double[] { (double) (now - start) / calls, allocated };
+	}
+
+
+	/**
+	 * Returns the mean of the given values.
+	 *
+	 * @param	values	The values.
+	 * @return			Their mean.
+	 */
+	private static double mean(double[] values)
+	{
+		double sum = 0.0;
+		for (int i = 0; i < values.length; i++)
+			sum += values[i];
+		return sum / values.length;
+	}
+
+
+	/**
+	 * Returns the standard error of the mean of the given values.
+	 *
+	 * @param	values	The values.
+	 * @return			The standard error, or 0 if there is only one value.
+	 */
+	private static double standardError(double[] values)
+	{
+		if (values.length < 2)
+			return 0.0;
+		double mean = mean(values);
+		double sum = 0.0;
+		for (int i = 0; i < values.length; i++)
+			sum += (values[i] - mean) * (values[i] - mean);
+		return Math.sqrt(sum / (values.length - 1)) / Math.sqrt(values.length);
+	}
+}
@@ -0,0 +1,450 @@
+/*
+ * @(#)JAudioBenchmarks.java	1.0	October 17, 2026.
+ *
+ * McGill Univarsity
+ */
+
+package jAudioFeatureExtractor.benchmarks;
+
+import jAudioFeatureExtractor.Cancel;
+import jAudioFeatureExtractor.DataModel;
+import jAudioFeatureExtractor.Aggregators.Aggregator;
+import jAudioFeatureExtractor.Aggregators.AggregatorContainer;
+import jAudioFeatureExtractor.Aggregators.AreaMoments;
+import jAudioFeatureExtractor.Aggregators.Mean;
+import jAudioFeatureExtractor.Aggregators.MultipleFeatureHistogram;
+import jAudioFeatureExtractor.Aggregators.StandardDeviation;
+import jAudioFeatureExtractor.AudioFeatures.FeatureExtractor;
+import jAudioFeatureExtractor.AudioFeatures.MetaFeatureFactory;
+import jAudioFeatureExtractor.jAudioTools.FFT;
+import jAudioFeatureExtractor.jAudioTools.FFTPlan;
+import jAudioFeatureExtractor.jAudioTools.FeatureProcessor;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+
+/**
+ * The jAudio benchmarks. These measure, on sine, noise and chirp signals:
+ * <ul>
+ * <li>the extractFeature method of every feature in the feature list that is
+ * not a metafeature, at several window sizes
+ * <li>the FFT class and FFTPlan.transformReal at several sizes
+ * <li>FeatureProcessor.extractFeatures end to end, from decoding a
+ * recording to saving its values, in memory and streaming
+ * <li>each aggregator in the feature list, with aggregate and window by
+ * window, over the values of a recording
+ * </ul>
+ *
+ * <p>The dependencies of each feature are extracted from the same window
+ * before the feature is measured. Features that depend on earlier windows
+ * are given the values of the same window in their place, which does not
+ * change the work that they do.
+ *
+ * @author	agent
+ */
+public class JAudioBenchmarks
+{
+	/* FIELDS ******************************************************************/
+
+
+	// The sampling rate of all signals.
+	private static final double		SAMPLING_RATE = 16000.0;
+
+	// The window sizes that features are extracted from.
+	private static final int[]		WINDOW_SIZES = { 256, 512, 1024, 2048 };
+
+	// The sizes of the FFTs.
+	private static final int[]		FFT_SIZES = { 256, 512, 1024, 2048, 4096, 8192 };
+
+	// The window sizes of the recordings that are processed end to end.
+	private static final int[]		PROCESSOR_WINDOW_SIZES = { 512, 2048 };
+
+	// The length in seconds of the recordings that are processed end to end.
+	private static final int		RECORDING_SECONDS = 10;
+
+	// The features whose values are aggregated by the aggregator benchmarks.
+	private static final String[]	AGGREGATED_FEATURES = { "Spectral Centroid",
+	                                                        "Spectral Rolloff Point",
+	                                                        "Spectral Flux",
+	                                                        "Compactness",
+	                                                        "Root Mean Square",
+	                                                        "Zero Crossings",
+	                                                        "MFCC",
+	                                                        "LPC",
+	                                                        "Method of Moments" };
+
+	// Measures and reports each benchmark.
+	private BenchmarkRunner			runner;
+
+	// Holds the features and aggregators of the feature list.
+	private DataModel				model;
+
+
+	/* CONSTRUCTOR *************************************************************/
+
+
+	/**
+	 * Prepare to run the benchmarks on the features and aggregators of the
+	 * given feature list.
+	 *
+	 * @param	runner			Measures and reports each benchmark.
+	 * @param	feature_list	The path of the jAudio feature list.
+	 */
+	public JAudioBenchmarks(BenchmarkRunner runner, String feature_list)
+	{
+		this.runner = runner;
+		model = new DataModel(feature_list, null);
+	}
+
+
+	/* PUBLIC METHODS **********************************************************/
+
+
+	/**
+	 * Run every benchmark that the runner selects.
+	 *
+	 * @throws	Exception	Throws an exception if a benchmark cannot be
+	 *						prepared.
+	 */
+	public void runAll()
+		throws Exception
+	{
+		benchmarkFeatureExtractors();
+		benchmarkFFT();
+		benchmarkFeatureProcessor();
+		benchmarkAggregators();
+	}
+
+
+	/* PRIVATE METHODS *********************************************************/
+
+
+	/**
+	 * Measure the extractFeature method of each feature that is not a
+	 * metafeature, for each signal and window size.
+	 *
+	 * @throws	Exception	Throws an exception if a signal cannot be
+	 *						generated.
+	 */
+	private void benchmarkFeatureExtractors()
+		throws Exception
+	{
+		for (int feat = 0; feat < model.features.length; feat++)
+		{
+			final FeatureExtractor extractor = model.features[feat];
+			if (extractor instanceof MetaFeatureFactory)
+				continue;
+			for (int sig = 0; sig < SyntheticSignals.SIGNAL_TYPES.length; sig++)
+			{
+				String type = SyntheticSignals.SIGNAL_TYPES[sig];
+				double[] signal = SyntheticSignals.getSignal(type, (int) SAMPLING_RATE, SAMPLING_RATE);
+				for (int size = 0; size < WINDOW_SIZES.length; size++)
+				{
+					String name = "extractFeature/" + extractor.getFeatureDefinition().name + "/" + type + "/" + WINDOW_SIZES[size];
+					if (!runner.isSelected(name))
+						continue;
+
+					// Take the window from the middle of the signal
+					int start = (signal.length - WINDOW_SIZES[size]) / 2;
+					final double[] window = Arrays.copyOfRange(signal, start, start + WINDOW_SIZES[size]);
+					final double[][] dependencies;
+					try
+					{
+						dependencies = getDependencyValues(extractor, window, new HashMap<String, double[]>());
+					}
+					catch (Exception e)
+					{
+						runner.report(String.format("%-72s skipped: %s", name, e));
+						continue;
+					}
+
+					runner.measure(name, new BenchmarkRunner.Operation()
+					{
+						public Object run() throws Exception
+						{
+							return extractor.extractFeature(window, SAMPLING_RATE, dependencies);
+						}
+					});
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Measure a forward transform and magnitude spectrum with the FFT class,
+	 * and a forward real transform with an FFTPlan, for each size.
+	 *
+	 * @throws	Exception	Throws an exception if a plan cannot be created.
+	 */
+	private void benchmarkFFT()
+		throws Exception
+	{
+		for (int size = 0; size < FFT_SIZES.length; size++)
+		{
+			final double[] samples = SyntheticSignals.getNoise(FFT_SIZES[size], 1L);
+			runner.measure("FFT/" + FFT_SIZES[size], new BenchmarkRunner.Operation()
+			{
+				public Object run() throws Exception
+				{
+					return new FFT(samples, null, false, true).getMagnitudeSpectrum();
+				}
+			});
+
+			final FFTPlan plan = FFTPlan.getPlan(FFT_SIZES[size]);
+			final double[] real = new double[FFT_SIZES[size]];
+			final double[] imaginary = new double[FFT_SIZES[size]];
+			runner.measure("FFTPlan.transformReal/" + FFT_SIZES[size], new BenchmarkRunner.Operation()
+			{
+				public Object run() throws Exception
+				{
+					plan.transformReal(samples, true, false, real, imaginary);
+					return real;
+				}
+			});
+		}
+	}
+
+
+	/**
+	 * Measure the extraction, aggregation and saving of the default features
+	 * of a recording of each signal, in memory and streaming.
+	 *
+	 * @throws	Exception	Throws an exception if a recording cannot be
+	 *						written.
+	 */
+	private void benchmarkFeatureProcessor()
+		throws Exception
+	{
+		for (int sig = 0; sig < SyntheticSignals.SIGNAL_TYPES.length; sig++)
+		{
+			String type = SyntheticSignals.SIGNAL_TYPES[sig];
+			File recording = null;
+			for (int mode = 0; mode < 2; mode++)
+			{
+				boolean streaming = (mode == 1);
+				for (int size = 0; size < PROCESSOR_WINDOW_SIZES.length; size++)
+				{
+					String name = "FeatureProcessor.extractFeatures/" + (streaming ? "streaming" : "in-memory") + "/" + type + "/" + PROCESSOR_WINDOW_SIZES[size];
+					if (!runner.isSelected(name))
+						continue;
+					if (recording == null)
+						recording = writeRecording(SyntheticSignals.getSignal(type, RECORDING_SECONDS * (int) SAMPLING_RATE, SAMPLING_RATE));
+
+					AggregatorContainer container = new AggregatorContainer();
+					container.add(new Aggregator[] { new Mean(), new StandardDeviation() });
+					final FeatureProcessor processor = new FeatureProcessor( PROCESSOR_WINDOW_SIZES[size],
+					                                                         0.0,
+					                                                         SAMPLING_RATE,
+					                                                         false,
+					                                                         model.features,
+					                                                         model.defaults,
+					                                                         true,
+					                                                         true,
+					                                                         new DiscardingOutputStream(),
+					                                                         new DiscardingOutputStream(),
+					                                                         0,
+					                                                         new Cancel(),
+					                                                         container );
+					processor.setStreaming(streaming);
+					final File file = recording;
+					runner.measure(name, new BenchmarkRunner.Operation()
+					{
+						public Object run() throws Exception
+						{
+							processor.extractFeatures(file, null);
+							return processor;
+						}
+					});
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Measure each aggregator of the feature list over the values of
+	 * AGGREGATED_FEATURES for every window of a chirp, with aggregate and
+	 * window by window.
+	 *
+	 * @throws	Exception	Throws an exception if the feature values cannot be
+	 *						extracted.
+	 */
+	private void benchmarkAggregators()
+		throws Exception
+	{
+		// Find the features to aggregate
+		LinkedList<FeatureExtractor> feature_list = new LinkedList<FeatureExtractor>();
+		for (int i = 0; i < AGGREGATED_FEATURES.length; i++)
+			for (int feat = 0; feat < model.features.length; feat++)
+				if (model.features[feat].getFeatureDefinition().name.equals(AGGREGATED_FEATURES[i]))
+					feature_list.add(model.features[feat]);
+		FeatureExtractor[] features = feature_list.toArray(new FeatureExtractor[feature_list.size()]);
+
+		// Extract their values from each window of a chirp
+		int window_size = 512;
+		double[] signal = SyntheticSignals.getSignal("chirp", RECORDING_SECONDS * (int) SAMPLING_RATE, SAMPLING_RATE);
+		final double[][][] values = new double[signal.length / window_size][features.length][];
+		for (int win = 0; win < values.length; win++)
+		{
+			double[] window = Arrays.copyOfRange(signal, win * window_size, (win + 1) * window_size);
+			HashMap<String, double[]> extracted = new HashMap<String, double[]>();
+			for (int feat = 0; feat < features.length; feat++)
+				values[win][feat] = getFeatureValues(features[feat].getFeatureDefinition().name, window, extracted);
+		}
+
+		Iterator<Aggregator> templates = model.aggregatorMap.values().iterator();
+		while (templates.hasNext())
+		{
+			Aggregator aggregator = (Aggregator) templates.next().clone();
+			String aggregator_name = aggregator.getAggregatorDefinition().name;
+			if (aggregator instanceof AreaMoments)
+				aggregator.setParameters(new String[] { "MFCC" }, new String[] {});
+			else if (aggregator instanceof MultipleFeatureHistogram)
+				aggregator.setParameters(new String[] { "Spectral Centroid", "Root Mean Square" }, new String[] { "4" });
+
+			final AggregatorContainer container = new AggregatorContainer();
+			container.add(new Aggregator[] { aggregator });
+			container.add(features);
+			runner.measure("Aggregator.aggregate/" + aggregator_name, new BenchmarkRunner.Operation()
+			{
+				public Object run() throws Exception
+				{
+					container.aggregate(values);
+					return container.getResults();
+				}
+			});
+			runner.measure("Aggregator.aggregateWindow/" + aggregator_name, new BenchmarkRunner.Operation()
+			{
+				public Object run() throws Exception
+				{
+					container.startAggregation();
+					for (int win = 0; win < values.length; win++)
+						container.aggregateWindow(values[win]);
+					container.finishAggregation();
+					return container.getResults();
+				}
+			});
+		}
+	}
+
+
+	/**
+	 * Returns the values of the dependencies of the given feature, extracted
+	 * from the given window.
+	 *
+	 * @param	extractor	The feature.
+	 * @param	window		The samples of the window.
+	 * @param	extracted	The values extracted from the window so far, keyed
+	 *						by feature name. Filled with the values of the
+	 *						dependencies.
+	 * @return				The values of each dependency, in the order of
+	 *						getDepenedencies, or null if there are none.
+	 * @throws	Exception	Throws an exception if a dependency cannot be found
+	 *						or extracted.
+	 */
+	private double[][] getDependencyValues( FeatureExtractor extractor,
+	                                        double[] window,
+	                                        HashMap<String, double[]> extracted )
+		throws Exception
+	{
+		String[] dependencies = extractor.getDepenedencies();
+		if (dependencies == null)
+			return null;
+		double[][] values = new double[dependencies.length][];
+		for (int dep = 0; dep < dependencies.length; dep++)
+			values[dep] = getFeatureValues(dependencies[dep], window, extracted);
+		return values;
+	}
+
+
+	/**
+	 * Returns the values of the named feature, extracted from the given
+	 * window along with its dependencies.
+	 *
+	 * @param	name		The name of the feature.
+	 * @param	window		The samples of the window.
+	 * @param	extracted	The values extracted from the window so far, keyed
+	 *						by feature name.
+	 * @return				The values of the feature.
+	 * @throws	Exception	Throws an exception if the feature cannot be found
+	 *						or extracted.
+	 */
+	private double[] getFeatureValues( String name,
+	                                   double[] window,
+	                                   HashMap<String, double[]> extracted )
+		throws Exception
+	{
+		if (extracted.containsKey(name))
+			return extracted.get(name);
+		for (int feat = 0; feat < model.features.length; feat++)
+		{
+			FeatureExtractor extractor = model.features[feat];
+			if (extractor.getFeatureDefinition().name.equals(name))
+			{
+				double[] values = extractor.extractFeature( window,
+				                                            SAMPLING_RATE,
+				                                            getDependencyValues(extractor, window, extracted) );
+				extracted.put(name, values);
+				return values;
+			}
+		}
+		throw new Exception("No feature named " + name + " is in the feature list.");
+	}
+
+
+	/**
+	 * Write the given samples to a temporary 16 bit mono WAV file, which is
+	 * deleted when the JVM exits.
+	 *
+	 * @param	samples		The samples, between -1 and +1.
+	 * @return				The file.
+	 * @throws	Exception	Throws an exception if the file cannot be written.
+	 */
+	private static File writeRecording(double[] samples)
+		throws Exception
+	{
+		byte[] bytes = new byte[2 * samples.length];
+		for (int i = 0; i < samples.length; i++)
+		{
+			short value = (short) Math.round(samples[i] * 32767.0);
+			bytes[2 * i] = (byte) (value >> 8);
+			bytes[2 * i + 1] = (byte) value;
+		}
+		AudioFormat format = new AudioFormat((float) SAMPLING_RATE, 16, 1, true, true);
+		AudioInputStream stream = new AudioInputStream(new ByteArrayInputStream(bytes), format, samples.length);
+		File file = File.createTempFile("jAudioBenchmark", ".wav");
+		file.deleteOnExit();
+		AudioSystem.write(stream, AudioFileFormat.Type.WAVE, file);
+		return file;
+	}
+
+
+	/* INTERNAL CLASSES ********************************************************/
+
+
+	/**
+	 * Discards everything written to it, so that saving feature values is
+	 * measured without the cost of writing to a disk.
+	 */
+	private static class DiscardingOutputStream extends OutputStream
+	{
+		public void write(int b)
+		{
+		}
+
+		public void write(byte[] b, int off, int len)
+		{
+		}
+	}
+}
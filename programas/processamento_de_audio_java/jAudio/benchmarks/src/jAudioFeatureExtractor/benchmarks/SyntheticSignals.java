@@ -0,0 +1,115 @@
+/*
+ * @(#)SyntheticSignals.java	1.0	October 17, 2026.
+ *
+ * McGill Univarsity
+ */
+
+package jAudioFeatureExtractor.benchmarks;
+
+import java.util.Random;
+
+
+/**
+ * Generates the synthetic signals that the benchmarks extract features from.
+ * All signals have a peak amplitude of at most 0.8 and are generated from
+ * fixed seeds, so every run of the benchmarks processes the same samples.
+ *
+ * @author	agent
+ */
+public class SyntheticSignals
+{
+	/* FIELDS ******************************************************************/
+
+
+	/**
+	 * The names of the signals that getSignal generates.
+	 */
+	public static final String[]	SIGNAL_TYPES = { "sine", "noise", "chirp" };
+
+
+	/* PUBLIC METHODS **********************************************************/
+
+
+	/**
+	 * Returns a signal of the given type.
+	 *
+	 * @param	type			One of SIGNAL_TYPES.
+	 * @param	length			The number of samples.
+	 * @param	sampling_rate	The sampling rate in Hz.
+	 * @return					The samples.
+	 * @throws	Exception		Throws an exception if the type is unknown.
+	 */
+	public static double[] getSignal(String type, int length, double sampling_rate)
+		throws Exception
+	{
+		if (type.equals("sine"))
+			return getSine(length, sampling_rate, 440.0);
+		else if (type.equals("noise"))
+			return getNoise(length, 1L);
+		else if (type.equals("chirp"))
+			return getChirp(length, sampling_rate, 50.0, sampling_rate / 2.0);
+		throw new Exception("Unknown signal type " + type + ".");
+	}
+
+
+	/**
+	 * Returns a sine wave of the given frequency.
+	 *
+	 * @param	length			The number of samples.
+	 * @param	sampling_rate	The sampling rate in Hz.
+	 * @param	frequency		The frequency in Hz.
+	 * @return					The samples.
+	 */
+	public static double[] getSine(int length, double sampling_rate, double frequency)
+	{
+		double[] samples = new double[length];
+		for (int i = 0; i < length; i++)
+			samples[i] = 0.8 * Math.sin(2.0 * Math.PI * frequency * i / sampling_rate);
+		return samples;
+	}
+
+
+	/**
+	 * Returns uniformly distributed white noise.
+	 *
+	 * @param	length	The number of samples.
+	 * @param	seed	The seed of the random number generator.
+	 * @return			The samples.
+	 */
+	public static double[] getNoise(int length, long seed)
+	{
+		Random random = new Random(seed);
+		double[] samples = new double[length];
+		for (int i = 0; i < length; i++)
+			samples[i] = 0.8 * (2.0 * random.nextDouble() - 1.0);
+		return samples;
+	}
+
+
+	/**
+	 * Returns a linear chirp that sweeps from one frequency to another over
+	 * the length of the signal.
+	 *
+	 * @param	length				The number of samples.
+	 * @param	sampling_rate		The sampling rate in Hz.
+	 * @param	start_frequency		The frequency of the first sample in Hz.
+	 * @param	end_frequency		The frequency of the last sample in Hz.
+	 * @return						The samples.
+	 */
+	public static double[] getChirp( int length,
+	                                 double sampling_rate,
+	                                 double start_frequency,
+	                                 double end_frequency )
+	{
+		double duration = length / sampling_rate;
+		double sweep_rate = (end_frequency - start_frequency) / duration;
+		double[] samples = new double[length];
+		for (int i = 0; i < length; i++)
+		{
+			double time = i / sampling_rate;
+			double phase = 2.0 * Math.PI * (start_frequency * time + 0.5 * sweep_rate * time * time);
+			samples[i] = 0.8 * Math.sin(phase);
+		}
+		return samples;
+	}
+}
@@ -3,12 +3,14 @@ package jAudio;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 
 import jAudioFeatureExtractor.CommandLineThread;
 import jAudioFeatureExtractor.DataModel;
 import jAudioFeatureExtractor.ACE.DataTypes.Batch;
+import jAudioFeatureExtractor.ACE.DataTypes.BinaryFeatureValuesWriter;
 import jAudioFeatureExtractor.ACE.XMLParsers.XMLDocumentParser;
 import jAudioFeatureExtractor.DataTypes.RecordingInfo;
 
@@ -16,9 +18,15 @@ public class JAudioCommandLine {
 
 	private static final String usage = "USAGE: "
 			+ System.getProperty("line.separator")
-			+ "JAudio -s <settings.xml> <destination xml file> <audiofiles>+"
+			+ "JAudio [-t <threads>] [-w <threads>] [-stream] -s <settings.xml> <destination xml file> <audiofiles>+"
 			+ System.getProperty("line.separator")
-			+ "JAudio -b <batchfile.xml>";
+			+ "JAudio [-t <threads>] [-w <threads>] [-stream] -b <batchfile.xml>"
+			+ System.getProperty("line.separator")
+			+ "where -t sets how many recordings are processed at the same time,"
+			+ System.getProperty("line.separator")
+			+ "-w sets how many threads process the windows of each recording"
+			+ System.getProperty("line.separator")
+			+ "and -stream decodes recordings a window at a time instead of loading them whole";
 
 	/**
 	 * Execute from the command line.
@@ -26,6 +34,37 @@ public class JAudioCommandLine {
 	 * @param args	Command line arguments.
 	 */
 	public static void execute(String[] args) {
+		int threads = 1;
+		int windowThreads = 1;
+		boolean streaming = false;
+		while (args[0].equals("-t") || args[0].equals("-w")
+				|| args[0].equals("-stream")) {
+			if (args[0].equals("-stream")) {
+				if (args.length < 2) {
+					System.out.println(usage);
+					System.exit(1);
+				}
+				streaming = true;
+				args = Arrays.copyOfRange(args, 1, args.length);
+				continue;
+			}
+			int value;
+			try {
+				value = Integer.parseInt(args[1]);
+			} catch (Exception e) {
+				value = 0;
+			}
+			if ((value < 1) || (args.length < 3)) {
+				System.out.println(usage);
+				System.exit(1);
+			}
+			if (args[0].equals("-t")) {
+				threads = value;
+			} else {
+				windowThreads = value;
+			}
+			args = Arrays.copyOfRange(args, 2, args.length);
+		}
 		if (args[0].equals("-b")) {
 			File batch = new File(args[1]);
 			if (!batch.exists()) {
@@ -46,6 +85,9 @@ public class JAudioCommandLine {
 				for (int i = 0; i < o.length; ++i) {
 					Batch b = (Batch) o[i];
 					DataModel dm = new DataModel("features.xml",null);
+					dm.numberOfRecordingThreads = threads;
+					dm.numberOfThreads = windowThreads;
+					dm.streaming = streaming;
 					try {
 						dm.featureKey = new FileOutputStream(new File(b.getDestinationFK()));
 						dm.featureValue = new FileOutputStream(new File(b.getDestinationFV()));
@@ -93,7 +135,7 @@ public class JAudioCommandLine {
 				}
 			}
 			try {
-				executeSettings(args);
+				executeSettings(args, threads, windowThreads, streaming);
 			} catch (Exception e) {
 				e.printStackTrace();
 			}
@@ -104,6 +146,22 @@ public class JAudioCommandLine {
 	}
 
 	public static void executeSettings(String[] args) throws Exception{
+		executeSettings(args, 1, 1, false);
+	}
+
+	/**
+	 * Extract features from the recordings given on the command line with
+	 * the settings in the given settings file.
+	 *
+	 * @param args	Command line arguments, starting with -s.
+	 * @param threads	The number of recordings to process at the same time.
+	 * @param windowThreads	The number of threads to process the windows of
+	 *			each recording with.
+	 * @param streaming	Whether to decode recordings a window at a time.
+	 * @throws Exception	An exception is thrown if a problem occurs.
+	 */
+	public static void executeSettings(String[] args, int threads,
+			int windowThreads, boolean streaming) throws Exception{
 		Object[] data = null;
 		try {
 			data = (Object[]) XMLDocumentParser.parseXMLDocument(args[1],
@@ -136,6 +194,9 @@ public class JAudioCommandLine {
 			System.exit(4);
 		}
 		DataModel dm = new DataModel("features.xml",null);
+		dm.numberOfRecordingThreads = threads;
+		dm.numberOfThreads = windowThreads;
+		dm.streaming = streaming;
 		samplingRate = ((Double) data[2]).doubleValue();
 		normalise = ((Boolean) data[3]).booleanValue();
 		saveWindows = ((Boolean) data[4]).booleanValue();
@@ -143,6 +204,8 @@ public class JAudioCommandLine {
 		String outputName = ((String) data[6]);
 		if (outputName.equals("ACE")) {
 			outputType = 0;
+		} else if (outputName.equals("BINARY")) {
+			outputType = 2;
 		} else {
 			outputType = 1;
 		}
@@ -152,6 +215,10 @@ public class JAudioCommandLine {
 		if (outputType == 0) {
 			destinationFK = new FileOutputStream(new File(args[2] + "FK.xml"));
 			destinationFV = new FileOutputStream(new File(args[2] + "FV.xml"));
+		} else if (outputType == 2) {
+			// Feature definitions are saved in the feature values file
+			destinationFV = new FileOutputStream(new File(args[2] + "FV"
+					+ BinaryFeatureValuesWriter.FILE_EXTENSION));
 		} else {
 			destinationFK = new FileOutputStream(new File("definitions.arff"));
 			destinationFV = new FileOutputStream(new File(args[2] + ".arff"));
@@ -268,6 +268,8 @@ public class Batch implements Serializable {
 				"</overallStats>").append(sep);
 		if (outputType == 0) {
 			ret.append("\t\t\t<outputType>ACE</outputType>").append(sep);
+		} else if (outputType == 2) {
+			ret.append("\t\t\t<outputType>BINARY</outputType>").append(sep);
 		} else {
 			ret.append("\t\t\t<outputType>ARFF</outputType>").append(sep);
 		}
@@ -0,0 +1,344 @@
+/*
+ * @(#)BinaryFeatureValuesWriter.java	1.0	October 17, 2026.
+ *
+ * McGill Univarsity
+ */
+
+package jAudioFeatureExtractor.ACE.DataTypes;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+
+/**
+ * Objects of this class save feature values in the ACE binary feature values
+ * format, a compact alternative to ACE XML feature values files that ACE can
+ * memory-map rather than parse. The file holds the feature definitions, so no
+ * separate feature definitions file is needed, and feature values are stored
+ * with full double precision.
+ * <p>
+ * This class writes exactly the same format as ace.datatypes.BinaryFeatureValuesWriter
+ * in ACE, where the layout is documented in detail. It is duplicated here
+ * because jAudio does not depend on ACE. In short, a header holding the
+ * feature definitions is followed by one fixed-size row for the overall values
+ * of each instance and for each of its sub-sections (windows), each with one
+ * double column per feature dimension, then by the instance identifiers and a
+ * footer locating them.
+ *
+ * @author agent
+ */
+public class BinaryFeatureValuesWriter {
+	/* FIELDS ***************************************************************** */
+
+	/**
+	 * The number that begins and ends each file in this format ("ACEB" in
+	 * ASCII).
+	 */
+	public static final int MAGIC_NUMBER = 0x41434542;
+
+	/**
+	 * The version of the format written by this class.
+	 */
+	public static final int FORMAT_VERSION = 1;
+
+	/**
+	 * The extension given to files in this format.
+	 */
+	public static final String FILE_EXTENSION = ".acebin";
+
+	// Used to write the file.
+	private DataOutputStream output;
+
+	// The number of bytes written to the file so far.
+	private long bytes_written;
+
+	// The definitions of the features that are saved, in the order of their
+	// columns. Null if the header has not been written yet.
+	private FeatureDefinition[] feature_definitions;
+
+	// The index of each feature in feature_definitions, keyed by feature name.
+	private HashMap<String, Integer> feature_indices;
+
+	// The index of the first column of each feature in feature_definitions.
+	private int[] first_columns;
+
+	// The total number of columns in each row.
+	private int number_of_columns;
+
+	// Used to assemble each row before it is written. Has the size of a row.
+	private ByteBuffer row_buffer;
+
+	// The identifiers of the instances written so far.
+	private LinkedList<String> identifiers;
+
+	// The number of rows written so far.
+	private long number_of_rows;
+
+	/* CONSTRUCTOR ************************************************************ */
+
+	/**
+	 * Prepare to write a file in the ACE binary feature values format to the
+	 * given stream. Nothing is written until the header is written.
+	 *
+	 * @param destination
+	 *            The stream to write to. It is closed by the close method.
+	 */
+	public BinaryFeatureValuesWriter(OutputStream destination) {
+		output = new DataOutputStream(new BufferedOutputStream(destination));
+		bytes_written = 0;
+		feature_definitions = null;
+		identifiers = new LinkedList<String>();
+		number_of_rows = 0;
+	}
+
+	/* PUBLIC METHODS ********************************************************* */
+
+	/**
+	 * Returns whether the header has been written.
+	 *
+	 * @return Whether writeHeader has been called.
+	 */
+	public boolean isHeaderWritten() {
+		return feature_definitions != null;
+	}
+
+	/**
+	 * Write the header of the file, consisting of the definitions of the
+	 * features that will be saved. Must be called before any instances are
+	 * written.
+	 *
+	 * @param definitions
+	 *            The definitions of the features that will be saved. The
+	 *            dimensions of each determine how many values can be saved
+	 *            for it.
+	 * @throws Exception
+	 *             Throws an informative exception if the header has already
+	 *             been written, if two features have the same name or if the
+	 *             stream cannot be written to.
+	 */
+	public void writeHeader(FeatureDefinition[] definitions) throws Exception {
+		if (feature_definitions != null)
+			throw new Exception(
+					"The header of the binary feature values file has already been written.");
+
+		// Find the columns of each feature
+		feature_indices = new HashMap<String, Integer>();
+		first_columns = new int[definitions.length];
+		number_of_columns = 0;
+		for (int feat = 0; feat < definitions.length; feat++) {
+			if (feature_indices.put(definitions[feat].name, feat) != null)
+				throw new Exception("More than one feature is named "
+						+ definitions[feat].name + ".");
+			first_columns[feat] = number_of_columns;
+			number_of_columns += definitions[feat].dimensions;
+		}
+		row_buffer = ByteBuffer.allocate(24
+				+ (int) getPaddedSize(4 * definitions.length) + 8
+				* number_of_columns);
+
+		// Write the header
+		output.writeInt(MAGIC_NUMBER);
+		output.writeInt(FORMAT_VERSION);
+		output.writeInt(definitions.length);
+		bytes_written += 12;
+		for (int feat = 0; feat < definitions.length; feat++) {
+			writeString(definitions[feat].name);
+			writeString(definitions[feat].description);
+			output.writeBoolean(definitions[feat].is_sequential);
+			output.writeInt(definitions[feat].dimensions);
+			bytes_written += 5;
+		}
+		writePadding();
+
+		feature_definitions = definitions;
+	}
+
+	/**
+	 * Start a new instance and write its overall feature values. Any
+	 * sub-sections of the instance must be written after this, and before the
+	 * next instance is started.
+	 *
+	 * @param identifier
+	 *            The identifier of the instance. Often a file path.
+	 * @param feature_names
+	 *            The names of the features in each corresponding (by first
+	 *            indice) entry of feature_values. May be null if there are no
+	 *            feature values.
+	 * @param feature_values
+	 *            The overall feature values of the instance. The first indice
+	 *            identifies the feature and the second identifies the feature
+	 *            value. Features may be null if they are missing, and the
+	 *            whole array may be null if there are no overall values.
+	 * @throws Exception
+	 *             Throws an informative exception if the header has not been
+	 *             written, if the values do not match the feature definitions
+	 *             or if the stream cannot be written to.
+	 */
+	public void writeInstance(String identifier, String[] feature_names,
+			double[][] feature_values) throws Exception {
+		if (feature_definitions == null)
+			throw new Exception(
+					"The header of the binary feature values file must be written before any instances.");
+		identifiers.add(identifier);
+		writeRow(-1, Double.NaN, Double.NaN, feature_names, feature_values);
+	}
+
+	/**
+	 * Write the feature values of a window of the instance most recently
+	 * started with writeInstance.
+	 *
+	 * @param section
+	 *            The index of the window within its instance.
+	 * @param start
+	 *            The start time of the window in seconds.
+	 * @param stop
+	 *            The end time of the window in seconds.
+	 * @param feature_names
+	 *            The names of the features in each corresponding (by first
+	 *            indice) entry of feature_values.
+	 * @param feature_values
+	 *            The feature values of the window. The first indice
+	 *            identifies the feature and the second identifies the feature
+	 *            value. Features may be null if they are missing.
+	 * @throws Exception
+	 *             Throws an informative exception if no instance has been
+	 *             started, if the values do not match the feature definitions
+	 *             or if the stream cannot be written to.
+	 */
+	public void writeSubSection(int section, double start, double stop,
+			String[] feature_names, double[][] feature_values)
+			throws Exception {
+		if (identifiers.isEmpty())
+			throw new Exception(
+					"An instance must be written before any of its sub-sections.");
+		writeRow(section, start, stop, feature_names, feature_values);
+	}
+
+	/**
+	 * Write the identifiers of the instances and the footer, and close the
+	 * stream. A header with no feature definitions is written first if no
+	 * header has been written.
+	 *
+	 * @throws Exception
+	 *             Throws an exception if the stream cannot be written to or
+	 *             closed.
+	 */
+	public void close() throws Exception {
+		if (feature_definitions == null)
+			writeHeader(new FeatureDefinition[0]);
+
+		long identifiers_position = bytes_written;
+		output.writeInt(identifiers.size());
+		bytes_written += 4;
+		for (String identifier : identifiers)
+			writeString(identifier);
+
+		output.writeLong(identifiers_position);
+		output.writeLong(number_of_rows);
+		output.writeInt(MAGIC_NUMBER);
+		output.close();
+	}
+
+	/* PRIVATE METHODS ******************************************************** */
+
+	/**
+	 * Write a row of feature values.
+	 *
+	 * @param section
+	 *            The index of the window, or -1 for the overall values of an
+	 *            instance.
+	 * @param start
+	 *            The start of the window, or NaN.
+	 * @param stop
+	 *            The end of the window, or NaN.
+	 * @param feature_names
+	 *            The names of the features in feature_values.
+	 * @param feature_values
+	 *            The values to write.
+	 * @throws Exception
+	 *             Throws an informative exception if the values do not match
+	 *             the feature definitions or cannot be written.
+	 */
+	private void writeRow(int section, double start, double stop,
+			String[] feature_names, double[][] feature_values)
+			throws Exception {
+		// Find the columns of the values to write
+		int[] value_counts = new int[feature_definitions.length];
+		double[] row_values = new double[number_of_columns];
+		Arrays.fill(row_values, Double.NaN);
+		if (feature_values != null)
+			for (int feat = 0; feat < feature_values.length; feat++)
+				if (feature_values[feat] != null) {
+					Integer index = feature_indices.get(feature_names[feat]);
+					if (index == null)
+						throw new Exception("The " + feature_names[feat]
+								+ " feature does not have a feature definition in the binary feature values file.");
+					if (feature_values[feat].length > feature_definitions[index].dimensions)
+						throw new Exception("The " + feature_names[feat]
+								+ " feature has " + feature_values[feat].length
+								+ " values, but its feature definition only allows "
+								+ feature_definitions[index].dimensions + ".");
+					value_counts[index] = feature_values[feat].length;
+					System.arraycopy(feature_values[feat], 0, row_values,
+							first_columns[index], feature_values[feat].length);
+				}
+
+		// Assemble and write the row
+		row_buffer.clear();
+		row_buffer.putInt(identifiers.size() - 1);
+		row_buffer.putInt(section);
+		row_buffer.putDouble(start);
+		row_buffer.putDouble(stop);
+		for (int feat = 0; feat < value_counts.length; feat++)
+			row_buffer.putInt(value_counts[feat]);
+		row_buffer.position(row_buffer.capacity() - 8 * number_of_columns);
+		for (int col = 0; col < row_values.length; col++)
+			row_buffer.putDouble(row_values[col]);
+		output.write(row_buffer.array());
+		bytes_written += row_buffer.capacity();
+		number_of_rows++;
+	}
+
+	/**
+	 * Write a string as an int byte count followed by its UTF-8 bytes.
+	 *
+	 * @param to_write
+	 *            The string to write. Null is written as an empty string.
+	 * @throws IOException
+	 *             Throws an exception if the stream cannot be written to.
+	 */
+	private void writeString(String to_write) throws IOException {
+		byte[] bytes = to_write == null ? new byte[0] : to_write
+				.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+		bytes_written += 4 + bytes.length;
+	}
+
+	/**
+	 * Write zeros until the number of bytes written is a multiple of 8.
+	 *
+	 * @throws IOException
+	 *             Throws an exception if the stream cannot be written to.
+	 */
+	private void writePadding() throws IOException {
+		while (bytes_written != getPaddedSize(bytes_written)) {
+			output.writeByte(0);
+			bytes_written++;
+		}
+	}
+
+	/**
+	 * Round the given number of bytes up to a multiple of 8.
+	 *
+	 * @param size
+	 *            A number of bytes.
+	 * @return The padded number of bytes.
+	 */
+	private static long getPaddedSize(long size) {
+		return (size + 7) / 8 * 8;
+	}
+}
@@ -175,6 +175,8 @@ public class ParseBatchJobHandler extends ParseFileHandler {
 			case OUTPUT_TYPE:
 				if (data.equals("ACE")) {
 					outputType = 0;
+				} else if (data.equals("BINARY")) {
+					outputType = 2;
 				} else {
 					outputType = 1;
 				}
@@ -4,6 +4,7 @@
 package jAudioFeatureExtractor.Aggregators;
 
 import java.io.DataOutputStream;
+import java.util.LinkedList;
 
 import jAudioFeatureExtractor.ACE.DataTypes.AggregatorDefinition;
 import jAudioFeatureExtractor.ACE.DataTypes.FeatureDefinition;
@@ -31,6 +32,12 @@ public abstract class Aggregator {
 
 	FeatureDefinition definition;
 
+	/**
+	 * The windows passed to aggregateWindow since startAggregation was called,
+	 * kept by aggregators that cannot aggregate one window at a time.
+	 */
+	private LinkedList<double[][]> windows;
+
 	/**
 	 * Convenience variable containing the end of line characters for this
 	 * system.
@@ -82,6 +89,16 @@ public abstract class Aggregator {
 		return metadata;
 	}
 
+	/**
+	 * Returns the values calculated by the most recent call to aggregate or
+	 * finishAggregation.
+	 *
+	 * @return the aggregated values, or null if neither has been called.
+	 */
+	public double[] getResult() {
+		return result;
+	}
+
 	/**
 	 * Specifies which Features are to be extracted and the index of these
 	 * features in the values array that will passed into the aggregate function
@@ -113,6 +130,59 @@ public abstract class Aggregator {
 
 	}
 
+	/**
+	 * Whether this aggregator updates its statistics as each window is passed
+	 * to aggregateWindow, without keeping the values of the windows. Online
+	 * aggregators use memory that does not grow with the length of the
+	 * recording. Other aggregators keep every window until
+	 * finishAggregation is called, and then call aggregate.
+	 *
+	 * @return whether this aggregator aggregates one window at a time.
+	 */
+	public boolean isOnline() {
+		return false;
+	}
+
+	/**
+	 * Prepares to aggregate the windows of a recording one at a time. This
+	 * should be followed by a call to aggregateWindow for each window, in
+	 * order, and then a call to finishAggregation.
+	 *
+	 * @throws Exception Throws an exception if a problem occurs.
+	 */
+	public void startAggregation() throws Exception {
+		windows = new LinkedList<double[][]>();
+	}
+
+	/**
+	 * Adds the values of the next window to the aggregation started by
+	 * startAggregation. Aggregators that are not online keep the given array,
+	 * so its contents must not be changed afterwards unless isOnline returns
+	 * true.
+	 *
+	 * @param window_values
+	 *            the extracted features of the window. Indecis are feature,
+	 *            and then feature value, as in the values passed to
+	 *            aggregate.
+	 * @throws Exception Throws an exception if a problem occurs.
+	 */
+	public void aggregateWindow(double[][] window_values) throws Exception {
+		windows.add(window_values);
+	}
+
+	/**
+	 * Calculates the aggregated values of the windows passed to
+	 * aggregateWindow since startAggregation was called. The result is then
+	 * available in the same way as after a call to aggregate.
+	 *
+	 * @throws Exception Throws an exception if a problem occurs.
+	 */
+	public void finishAggregation() throws Exception {
+		double[][][] values = windows.toArray(new double[windows.size()][][]);
+		windows = null;
+		aggregate(values);
+	}
+
 	/**
 	 * Output the feature definition entry (for an ACE feature definition file)
 	 * for this particular instantiation of the aggreagtor.
@@ -77,6 +77,76 @@ public class AggregatorContainer {
 		}
 	}
 
+	/**
+	 * Whether every aggregator aggregates one window at a time, so that the
+	 * values of each window can be discarded once aggregateWindow returns.
+	 *
+	 * @return whether all aggregators are online.
+	 */
+	public boolean isOnline() {
+		for (int i = 0; i < aggregatorList.size(); ++i) {
+			if (!aggregatorList.get(i).isOnline()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Prepares every aggregator to aggregate the windows of a recording one at
+	 * a time. This is an alternative to aggregate that does not need the
+	 * values of every window at once.
+	 *
+	 * @throws Exception Throws an exception if a problem occurs.
+	 */
+	public void startAggregation() throws Exception {
+		for (int i = 0; i < aggregatorList.size(); ++i) {
+			aggregatorList.get(i).startAggregation();
+		}
+	}
+
+	/**
+	 * Passes the values of the next window of the recording to every
+	 * aggregator.
+	 *
+	 * @param window_values
+	 *            the extracted features of the window. Indecis are feature,
+	 *            and then feature value.
+	 * @throws Exception Throws an exception if a problem occurs.
+	 */
+	public void aggregateWindow(double[][] window_values) throws Exception {
+		for (int i = 0; i < aggregatorList.size(); ++i) {
+			aggregatorList.get(i).aggregateWindow(window_values);
+		}
+	}
+
+	/**
+	 * Calculates the aggregated values of the windows passed to
+	 * aggregateWindow since startAggregation was called.
+	 *
+	 * @throws Exception Throws an exception if a problem occurs.
+	 */
+	public void finishAggregation() throws Exception {
+		for (int i = 0; i < aggregatorList.size(); ++i) {
+			aggregatorList.get(i).finishAggregation();
+		}
+	}
+
+	/**
+	 * Returns the values calculated by the most recent call to aggregate or
+	 * finishAggregation, in the same order as the definitions returned by
+	 * getFeatureDefinitions.
+	 *
+	 * @return the aggregated values of each aggregator.
+	 */
+	public double[][] getResults() {
+		double[][] ret = new double[aggregatorList.size()][];
+		for (int i = 0; i < aggregatorList.size(); ++i) {
+			ret[i] = aggregatorList.get(i).getResult();
+		}
+		return ret;
+	}
+
 	/**
 	 *
 	 * @param output	The stream to write output to.
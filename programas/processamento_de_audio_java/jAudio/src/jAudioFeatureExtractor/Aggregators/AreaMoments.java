@@ -7,6 +7,16 @@ import jAudioFeatureExtractor.ACE.DataTypes.AggregatorDefinition;
 import jAudioFeatureExtractor.ACE.DataTypes.FeatureDefinition;
 
 /**
+ * Calculates 2D statistical moments of the given features, treating the
+ * values of each window as a column of an image whose rows are the
+ * dimensions of the features.
+ * <p>
+ * When aggregating one window at a time, the sums of the values weighted by
+ * powers of their window and dimension indices are accumulated, and the
+ * moments are calculated from these sums once the last window has been
+ * aggregated, so the values of each window need not be kept. The result may
+ * differ from that of aggregate in the last few bits.
+ *
  * @author mcennis
  *
  */
@@ -15,6 +25,16 @@ public class AreaMoments extends Aggregator {
 	String[] featureNames = null;
 	int[] featureNameIndecis = null;
 
+	// The index of the next window to be aggregated, and whether each feature
+	// has had a value in any window so far, since startAggregation was called.
+	// Windows are only included once every feature has had a value.
+	int windowIndex;
+	boolean[] featureSeen;
+
+	// The sum of the values, and of the values multiplied by their dimension
+	// index j and window index i: v*j, v*i, v*j*j, v*i*j and v*i*i*i.
+	double sum, sumJ, sumI, sumJ2, sumIJ, sumI3;
+
 	public AreaMoments(){
 		metadata = new AggregatorDefinition("Area Moments","Calculates the first 10 2D statistical moments for the given features",false,null);
 	}
@@ -64,6 +84,76 @@ public class AreaMoments extends Aggregator {
 		}
 	}
 
+	@Override
+	public boolean isOnline() {
+		return true;
+	}
+
+	@Override
+	public void startAggregation() {
+		windowIndex = 0;
+		featureSeen = new boolean[featureNameIndecis.length];
+		sum = sumJ = sumI = sumJ2 = sumIJ = sumI3 = 0.0;
+	}
+
+	@Override
+	public void aggregateWindow(double[][] window_values) {
+		double i = windowIndex++;
+		boolean allSeen = true;
+		for (int f = 0; f < featureNameIndecis.length; ++f) {
+			if (window_values[featureNameIndecis[f]] != null) {
+				featureSeen[f] = true;
+			}
+			allSeen &= featureSeen[f];
+		}
+		if (!allSeen) {
+			return;
+		}
+		int j = 0;
+		for (int f = 0; f < featureNameIndecis.length; ++f) {
+			double[] value = window_values[featureNameIndecis[f]];
+			if (value == null) {
+				continue;
+			}
+			for (int d = 0; d < value.length; ++d, ++j) {
+				double v = value[d];
+				sum += v;
+				sumJ += v * j;
+				sumI += v * i;
+				sumJ2 += v * j * j;
+				sumIJ += v * i * j;
+				sumI3 += v * i * i * i;
+			}
+		}
+	}
+
+	@Override
+	public void finishAggregation() {
+		// The moments are those calculated by aggregate, including its use of
+		// the same sums for x2 and y2 and for x3 and y3
+		result = new double[10];
+		result[0] = sum;
+		if (sum != 0.0) {
+			double x = sumJ / sum;
+			double y = sumI / sum;
+			double x2 = sumJ2 / sum;
+			double xy = sumIJ / sum;
+			double y2 = x2;
+			double x3 = sumI3 / sum;
+			double y3 = x3;
+			result[1] = x;
+			result[2] = y;
+			result[3] = x2 - x * x;
+			result[4] = xy - x * y;
+			result[5] = y2 - y * y;
+			result[6] = 2 * Math.pow(x, 3.0) - 3 * x * x2 + x3;
+			result[7] = 2 * x * xy - y * x2 + x2 * y;
+			result[8] = 2 * y * xy - x * y2 + y2 * x;
+			result[9] = 2 * Math.pow(y, 3.0) - 3 * y * y2 + y3;
+		}
+		featureSeen = null;
+	}
+
 	@Override
 	public Object clone() {
 		AreaMoments ret = new AreaMoments();
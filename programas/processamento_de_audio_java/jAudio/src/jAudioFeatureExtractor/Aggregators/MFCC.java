@@ -8,10 +8,10 @@ import jAudioFeatureExtractor.ACE.DataTypes.FeatureDefinition;
 import jAudioFeatureExtractor.AudioFeatures.FeatureExtractor;
 import jAudioFeatureExtractor.GeneralTools.Statistics;
 import jAudioFeatureExtractor.GeneralTools.StringMethods;
+import jAudioFeatureExtractor.jAudioTools.MFCCPlan;
 
 import java.io.DataOutputStream;
 
-import jAudio.org.oc.ocvolume.dsp.featureExtraction;
 import jAudio.org.oc.ocvolume.dsp.fft;
 
 /**
@@ -20,8 +20,6 @@ import jAudio.org.oc.ocvolume.dsp.fft;
  */
 public class MFCC extends Aggregator {
 
-	featureExtraction fe = new featureExtraction();
-
 	int index = -1;
 
 	public MFCC() {
@@ -30,7 +28,6 @@ public class MFCC extends Aggregator {
 
 	@Override
 	public void aggregate(double[][][] values) {
-		fe.numCepstra = 4;
 		int valuesOffset = 0;
 		while((valuesOffset<values.length)&&(values[valuesOffset][index]==null)){
 			valuesOffset++;
@@ -49,6 +46,7 @@ public class MFCC extends Aggregator {
 			int size = Statistics.ensureIsPowerOfN(values.length-valuesOffset,2);
 			double[] fftArray = new double[size];
 			java.util.Arrays.fill(fftArray,0.0);
+			MFCCPlan plan = MFCCPlan.getPlan(16000, size, 4);
 			for(int i=0;i<values[values.length-1][index].length;++i){
 				// build the next fft array
 				java.util.Arrays.fill(fftArray,0.0);
@@ -68,12 +66,7 @@ public class MFCC extends Aggregator {
 		            magSpectrum[j] = Math.pow(fft.real[j] * fft.real[j] + fft.imag[j] * fft.imag[j], 0.5);
 		        }
 
-				int[] cbin = fe.fftBinIndices(16000,
-						magSpectrum.length);
-				double[] fbank = fe.melFilter(magSpectrum,
-						cbin);
-				double[] f = fe.nonLinearTransformation(fbank);
-				double[] cepc = fe.cepCoefficients(f);
+				double[] cepc = plan.getCoefficients(magSpectrum);
 				for(int j=0;j<cepc.length;++j){
 					result[i*4+j] = cepc[j];
 				}
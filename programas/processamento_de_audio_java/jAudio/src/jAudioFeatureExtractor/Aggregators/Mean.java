@@ -9,6 +9,7 @@ import jAudioFeatureExtractor.AudioFeatures.FeatureExtractor;
 import jAudioFeatureExtractor.GeneralTools.StringMethods;
 
 import java.io.DataOutputStream;
+import java.util.Arrays;
 import java.util.Vector;
 
 /**
@@ -18,6 +19,9 @@ import java.util.Vector;
  * the feature has a variable number of dimensions, the dimensionality of the
  * result is the largest number of dimensions present and the mean for each
  * dimension is calculated over all values defined for that dimension.
+ * <p>
+ * The mean can also be calculated one window at a time, giving exactly the
+ * same result without keeping the values of each window.
  *
  * @author Daniel McEnnis
  */
@@ -25,6 +29,14 @@ public class Mean extends Aggregator {
 
 	int feature;
 
+	// The number of windows, and the sum and number of the values of each
+	// dimension, aggregated since startAggregation was called.
+	int windowCount;
+
+	double[] sums;
+
+	int[] counts;
+
 	public Mean(){
 		metadata = new AggregatorDefinition("Mean","This is the overall average over all windows.",true,null);
 	}
@@ -121,5 +133,56 @@ public class Mean extends Aggregator {
 		}
 	}
 
+	@Override
+	public boolean isOnline() {
+		return true;
+	}
+
+	@Override
+	public void startAggregation() {
+		windowCount = 0;
+		sums = new double[0];
+		counts = new int[0];
+	}
+
+	@Override
+	public void aggregateWindow(double[][] window_values) {
+		windowCount++;
+		double[] value = window_values[feature];
+		if (value == null) {
+			return;
+		}
+		if (value.length > sums.length) {
+			sums = Arrays.copyOf(sums, value.length);
+			counts = Arrays.copyOf(counts, value.length);
+		}
+		for (int i = 0; i < value.length; ++i) {
+			sums[i] += value[i];
+			counts[i]++;
+		}
+	}
+
+	@Override
+	public void finishAggregation() {
+		if (windowCount == 0) {
+			result = new double[] { Double.NaN };
+			definition.dimensions = 1;
+		} else if (sums.length == 0) {
+			result = new double[] { 0.0 };
+			definition.dimensions = 1;
+		} else {
+			result = new double[sums.length];
+			definition.dimensions = sums.length;
+			for (int i = 0; i < sums.length; ++i) {
+				if (counts[i] == 0) {
+					result[i] = 0.0;
+				} else {
+					result[i] = sums[i] / ((double) counts[i]);
+				}
+			}
+		}
+		sums = null;
+		counts = null;
+	}
 
 }
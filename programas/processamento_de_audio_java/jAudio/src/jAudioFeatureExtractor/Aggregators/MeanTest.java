@@ -142,4 +142,25 @@ public class MeanTest extends TestCase {
 		assertEquals(7.0,test.result[1],0.001);
 	}
 
+	public void testAggregateWindowByWindow() throws Exception{
+		featureIndex = new int[]{2};
+		test.setSource(feature1);
+		test.init(featureIndex);
+
+		values = new double[10][3][];
+		for(int i=2;i<10;++i){
+			values[i][2] = new double[]{i,2*i};
+		}
+
+		test.startAggregation();
+		for(int i=0;i<10;++i){
+			test.aggregateWindow(values[i]);
+		}
+		test.finishAggregation();
+		assertTrue(test.isOnline());
+		assertEquals(2,test.result.length);
+		assertEquals(5.5,test.result[0],0.001);
+		assertEquals(11.0,test.result[1],0.001);
+	}
+
 }
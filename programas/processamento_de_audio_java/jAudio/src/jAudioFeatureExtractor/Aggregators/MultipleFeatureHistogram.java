@@ -9,8 +9,22 @@ import jAudioFeatureExtractor.AudioFeatures.FeatureExtractor;
 import jAudioFeatureExtractor.GeneralTools.StringMethods;
 
 import java.io.DataOutputStream;
+import java.util.LinkedList;
 
 /**
+ * Calculates a histogram of the combinations of bins that the values of the
+ * given features fall into in each window. The range of each dimension of
+ * the features is divided into binsPerDimension equal bins.
+ * <p>
+ * Since the bins depend on the smallest and largest value of each dimension,
+ * aggregating one window at a time starts with a pre-pass: the first
+ * estimationWindows windows are kept and the bins are estimated from their
+ * values. The bins are then fixed, and the kept windows and all later
+ * windows are counted without being kept. Later values outside the estimated
+ * range are counted in the first or last bin. Recordings with no more windows
+ * than the pre-pass have exactly the same histogram as that calculated by
+ * aggregate.
+ *
  * @author Daniel McEnnis
  *
  */
@@ -22,6 +36,29 @@ public class MultipleFeatureHistogram extends Aggregator {
 
 	int binsPerDimension;
 
+	// The number of windows that the bins are estimated from when aggregating
+	// one window at a time.
+	int estimationWindows = 100;
+
+	// The windows kept until the bins are estimated. Only the values of the
+	// aggregated features are copied. Null once the bins are fixed.
+	LinkedList<double[][]> prePass;
+
+	// Whether each feature has had a value in any window so far. Windows are
+	// only counted once every feature has had a value.
+	boolean[] featureSeen;
+
+	// The feature and dimension of each dimension of the histogram, and the
+	// upper edges of all but the last bin of each.
+	int[][] featureList;
+
+	double[][] binEdges;
+
+	// The number of windows in each bin combination, and in total.
+	double[] histogram;
+
+	int windowsCounted;
+
 	public MultipleFeatureHistogram() {
 		metadata = new AggregatorDefinition("Multiple Feature Histogram",
 				"a histogram of categories of input", false,
@@ -117,9 +154,87 @@ public class MultipleFeatureHistogram extends Aggregator {
 
 	}
 
+	/**
+	 * Sets the number of windows that the bins are estimated from when
+	 * aggregating one window at a time. 100 by default.
+	 *
+	 * @param windows
+	 *            the number of windows in the pre-pass.
+	 */
+	public void setEstimationWindows(int windows) {
+		estimationWindows = windows;
+	}
+
+	@Override
+	public boolean isOnline() {
+		return true;
+	}
+
+	@Override
+	public void startAggregation() {
+		prePass = new LinkedList<double[][]>();
+		featureSeen = new boolean[indecis.length];
+		featureList = null;
+		binEdges = null;
+		histogram = null;
+		windowsCounted = 0;
+	}
+
+	@Override
+	public void aggregateWindow(double[][] window_values) throws Exception {
+		boolean allSeen = true;
+		for (int i = 0; i < indecis.length; ++i) {
+			if (window_values[indecis[i]] != null) {
+				featureSeen[i] = true;
+			}
+			allSeen &= featureSeen[i];
+		}
+		if (prePass == null) {
+			countWindow(window_values);
+		} else {
+			// keep a copy, since the caller may reuse the arrays
+			double[][] copy = new double[window_values.length][];
+			for (int i = 0; i < indecis.length; ++i) {
+				if (window_values[indecis[i]] != null) {
+					copy[indecis[i]] = window_values[indecis[i]].clone();
+				}
+			}
+			prePass.add(copy);
+			if (allSeen && (prePass.size() >= estimationWindows)) {
+				fixBins();
+			}
+		}
+	}
+
+	@Override
+	public void finishAggregation() throws Exception {
+		if (prePass != null) {
+			boolean allSeen = true;
+			for (int i = 0; i < featureSeen.length; ++i) {
+				allSeen &= featureSeen[i];
+			}
+			if (!allSeen) {
+				// no window had values for every feature
+				prePass = null;
+				definition.dimensions = 1;
+				result = new double[] { 0.0 };
+				return;
+			}
+			fixBins();
+		}
+
+		// Normalize the histogram
+		result = histogram;
+		for (int i = 0; i < result.length; ++i) {
+			result[i] /= windowsCounted;
+		}
+		histogram = null;
+	}
+
 	@Override
 	public Object clone() {
 		MultipleFeatureHistogram ret = new MultipleFeatureHistogram();
+		ret.estimationWindows = estimationWindows;
 		if (base != null) {
 			try {
 				ret.setParameters(base, new String[] { Integer
@@ -206,6 +321,85 @@ public class MultipleFeatureHistogram extends Aggregator {
 		return ret;
 	}
 
+	/**
+	 * Estimates the bins of every dimension from the windows of the pre-pass,
+	 * in the same way as assignToBins, and then counts these windows.
+	 *
+	 * @throws Exception
+	 *             if the histogram would have more than 1048576 dimensions.
+	 */
+	void fixBins() throws Exception {
+		double[][][] values = prePass.toArray(new double[prePass.size()][][]);
+		prePass = null;
+
+		featureList = super.collapseFeatures(values, indecis);
+		definition.dimensions = (int) Math.pow(binsPerDimension,
+				featureList.length);
+		if (definition.dimensions > 1048576) {
+			throw new Exception("Number of dimensions for " + definition.name
+					+ " exceeds 1048576 - " + definition.dimensions);
+		}
+		histogram = new double[definition.dimensions];
+
+		binEdges = new double[featureList.length][binsPerDimension - 1];
+		for (int d = 0; d < featureList.length; ++d) {
+			int feature = featureList[d][0];
+			int dimension = featureList[d][1];
+			double max = Double.MIN_VALUE;
+			double min = Double.MAX_VALUE;
+			for (int i = 0; i < values.length; ++i) {
+				if ((values[i][feature] != null)
+						&& (values[i][feature][dimension] > max)) {
+					max = values[i][feature][dimension];
+				}
+				if ((values[i][feature] != null)
+						&& (values[i][feature][dimension] < min)) {
+					min = values[i][feature][dimension];
+				}
+			}
+			double separator = (max - min) / ((double) binsPerDimension);
+			double edge = min;
+			for (int j = 0; j < binEdges[d].length; ++j) {
+				edge += separator;
+				binEdges[d][j] = edge;
+			}
+		}
+
+		int offset = super.calculateOffset(values, indecis);
+		for (int i = offset; i < values.length; ++i) {
+			countWindow(values[i]);
+		}
+	}
+
+	/**
+	 * Adds a window to the histogram once the bins are fixed. Windows that
+	 * lack a value for any of the features are not counted.
+	 *
+	 * @param window_values
+	 *            the extracted features of the window.
+	 */
+	void countWindow(double[][] window_values) {
+		int index = 0;
+		int factor = 1;
+		for (int d = 0; d < featureList.length; ++d) {
+			double[] value = window_values[featureList[d][0]];
+			if ((value == null) || (value.length <= featureList[d][1])) {
+				return;
+			}
+			int bin = binsPerDimension - 1;
+			for (int j = 0; j < binEdges[d].length; ++j) {
+				if (value[featureList[d][1]] < binEdges[d][j]) {
+					bin = j;
+					break;
+				}
+			}
+			index += bin * factor;
+			factor *= binsPerDimension;
+		}
+		histogram[index] += 1.0;
+		windowsCounted++;
+	}
+
 	double[] combineBins(Integer[][] bins, int offset) {
 		int numDimensions = (int) Math.pow(binsPerDimension, bins.length);
 		double[] ret = new double[numDimensions];
@@ -9,8 +9,17 @@ import jAudioFeatureExtractor.AudioFeatures.FeatureExtractor;
 import jAudioFeatureExtractor.GeneralTools.StringMethods;
 
 import java.io.DataOutputStream;
+import java.util.Arrays;
 
 /**
+ * Calculates the sample standard deviation of each dimension of a feature
+ * accross all windows where it is defined.
+ * <p>
+ * When aggregating one window at a time, the mean and the sum of squared
+ * differences from the mean of each dimension are updated with Welford's
+ * method, so the values of each window need not be kept. The result may
+ * differ from that of aggregate in the last few bits.
+ *
  * @author mcennis
  *
  */
@@ -18,6 +27,18 @@ public class StandardDeviation extends Aggregator {
 
 	int feature = -1;
 
+	// The number of values, their running mean and the running sum of their
+	// squared differences from the mean for each dimension, and the number of
+	// dimensions of the most recent window (-1 if it had no value), since
+	// startAggregation was called.
+	int[] counts;
+
+	double[] means;
+
+	double[] squaredDifferences;
+
+	int lastDimensions;
+
 	public StandardDeviation(){
 		metadata = new AggregatorDefinition("Standard Deviation","Standard Deviation of the window-by-window data",true,null);
 	}
@@ -59,6 +80,64 @@ public class StandardDeviation extends Aggregator {
 		}
 	}
 
+	@Override
+	public boolean isOnline() {
+		return true;
+	}
+
+	@Override
+	public void startAggregation() {
+		counts = new int[0];
+		means = new double[0];
+		squaredDifferences = new double[0];
+		lastDimensions = -1;
+	}
+
+	@Override
+	public void aggregateWindow(double[][] window_values) {
+		double[] value = window_values[feature];
+		if (value == null) {
+			lastDimensions = -1;
+			return;
+		}
+		lastDimensions = value.length;
+		if (value.length > counts.length) {
+			counts = Arrays.copyOf(counts, value.length);
+			means = Arrays.copyOf(means, value.length);
+			squaredDifferences = Arrays.copyOf(squaredDifferences,
+					value.length);
+		}
+		for (int i = 0; i < value.length; ++i) {
+			counts[i]++;
+			double delta = value[i] - means[i];
+			means[i] += delta / ((double) counts[i]);
+			squaredDifferences[i] += delta * (value[i] - means[i]);
+		}
+	}
+
+	@Override
+	public void finishAggregation() {
+		// As in aggregate, the number of dimensions is that of the last window
+		if (lastDimensions < 0) {
+			definition.dimensions = 1;
+			result = new double[] { 0.0 };
+		} else {
+			definition.dimensions = lastDimensions;
+			result = new double[lastDimensions];
+			for (int i = 0; i < lastDimensions; ++i) {
+				if (counts[i] < 2) {
+					result[i] = 0.0;
+				} else {
+					result[i] = Math.sqrt(squaredDifferences[i]
+							/ (((double) counts[i]) - 1.0));
+				}
+			}
+		}
+		counts = null;
+		means = null;
+		squaredDifferences = null;
+	}
+
 	@Override
 	public Object clone() {
 		return new StandardDeviation();
@@ -3,6 +3,7 @@
  */
 package jAudioFeatureExtractor.Aggregators;
 
+import jAudioFeatureExtractor.AudioFeatures.RMS;
 import junit.framework.TestCase;
 
 /**
@@ -22,4 +23,28 @@ public class StandardDeviationTest extends TestCase {
 		super.setUp();
 	}
 
+	public void testAggregateWindowByWindow() throws Exception {
+		StandardDeviation test = new StandardDeviation();
+		test.setSource(new RMS());
+		test.init(new int[] { 1 });
+
+		double[][][] values = new double[10][2][];
+		for (int i = 1; i < 10; ++i) {
+			values[i][1] = new double[] { i, i * i };
+		}
+		test.aggregate(values);
+		double[] expected = test.getResult();
+
+		test.startAggregation();
+		for (int i = 0; i < 10; ++i) {
+			test.aggregateWindow(values[i]);
+		}
+		test.finishAggregation();
+		assertTrue(test.isOnline());
+		assertEquals(2, test.getResult().length);
+		assertEquals(2.7386, test.getResult()[0], 0.0001);
+		assertEquals(expected[0], test.getResult()[0], 1e-12);
+		assertEquals(expected[1], test.getResult()[1], 1e-10);
+	}
+
 }
@@ -7,6 +7,7 @@
 package jAudioFeatureExtractor.AudioFeatures;
 
 import jAudioFeatureExtractor.ACE.DataTypes.FeatureDefinition;
+import jAudioFeatureExtractor.jAudioTools.SpectralContext;
 
 
 /**
@@ -79,6 +80,31 @@ public class FFTBinFrequencies
 	                                double sampling_rate,
 	                                double[][] other_feature_values )
 		throws Exception
+	{
+		return extractFeature(samples, sampling_rate, other_feature_values, null, null);
+	}
+
+
+	/**
+	 * Extracts this feature as the three argument version does, but puts the
+	 * bin labels in the given array if it has the right length.
+	 *
+	 * @param samples				The samples to extract the feature from.
+	 * @param sampling_rate			The sampling rate that the samples are
+	 *								encoded with.
+	 * @param other_feature_values	Ignored.
+	 * @param spectral_context		Ignored.
+	 * @param output				An array to put the values in. May be null.
+	 * @return						The extracted feature value(s).
+	 * @throws Exception			Throws an informative exception if
+	 *								the feature cannot be calculated.
+	 */
+	public double[] extractFeature( double[] samples,
+	                                double sampling_rate,
+	                                double[][] other_feature_values,
+	                                SpectralContext spectral_context,
+	                                double[] output )
+		throws Exception
 	{
 		// Find the size that an FFT window would be. This is the size
 		// of the given samples, or the next highes power of 2 if it
@@ -92,7 +118,9 @@ public class FFTBinFrequencies
 
 		// Find the number of bins in the power or magnitude spectrum
 		int number_unfolded_bins = fft_size / 2;
-		double[] labels = new double[number_unfolded_bins];
+		double[] labels = output;
+		if (labels == null || labels.length != number_unfolded_bins)
+			labels = new double[number_unfolded_bins];
 		for (int bin = 0; bin < labels.length; bin++)
 			labels[bin] = (bin * bin_width) + offset;
 
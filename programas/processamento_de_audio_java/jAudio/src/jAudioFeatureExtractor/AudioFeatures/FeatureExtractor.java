@@ -8,6 +8,7 @@ package jAudioFeatureExtractor.AudioFeatures;
 
 import jAudioFeatureExtractor.DataModel;
 import jAudioFeatureExtractor.ACE.DataTypes.FeatureDefinition;
+import jAudioFeatureExtractor.jAudioTools.SpectralContext;
 
 /**
  * The prototype for feature extractors. Each class that extends this class will
@@ -122,6 +123,74 @@ public abstract class FeatureExtractor {
 			double sampling_rate, double[][] other_feature_values)
 			throws Exception;
 
+	/**
+	 * Extracts this feature from a window of audio whose spectrum is provided
+	 * by the given spectral context. FeatureProcessor calls this method
+	 * rather than the three argument version, with a single spectral context
+	 * shared by all of the features extracted from a window, so that the
+	 * window is only Fourier transformed once.
+	 * <p>
+	 * Features that need the spectrum of the window should override this
+	 * method to read it from spectral_context. By default, the three argument
+	 * version is called and spectral_context is ignored.
+	 *
+	 * @param samples
+	 *            The samples to extract the feature from.
+	 * @param sampling_rate
+	 *            The sampling rate that the samples are encoded with.
+	 * @param other_feature_values
+	 *            The values of other features that are needed to calculate this
+	 *            value, as for the three argument version.
+	 * @param spectral_context
+	 *            The spectrum of samples.
+	 * @return The extracted feature value(s).
+	 * @throws Exception
+	 *             Throws an informative exception if the feature cannot be
+	 *             calculated.
+	 */
+	public double[] extractFeature(double[] samples, double sampling_rate,
+			double[][] other_feature_values, SpectralContext spectral_context)
+			throws Exception {
+		return extractFeature(samples, sampling_rate, other_feature_values);
+	}
+
+	/**
+	 * Extracts this feature as the four argument version does, but may put the
+	 * values in the given array rather than allocating a new one.
+	 * FeatureProcessor calls this method for features whose values are only
+	 * needed while the window they come from is processed, passing the array
+	 * returned for the previous window, so that no new array is needed for
+	 * each window.
+	 * <p>
+	 * Features that can calculate their values in place should override this
+	 * method. By default, the four argument version is called and output is
+	 * ignored.
+	 *
+	 * @param samples
+	 *            The samples to extract the feature from.
+	 * @param sampling_rate
+	 *            The sampling rate that the samples are encoded with.
+	 * @param other_feature_values
+	 *            The values of other features that are needed to calculate this
+	 *            value, as for the three argument version.
+	 * @param spectral_context
+	 *            The spectrum of samples.
+	 * @param output
+	 *            An array that the values may be put in. May be null, or of
+	 *            the wrong length, in which case it must not be used.
+	 * @return The extracted feature value(s). This is either output or a new
+	 *         array.
+	 * @throws Exception
+	 *             Throws an informative exception if the feature cannot be
+	 *             calculated.
+	 */
+	public double[] extractFeature(double[] samples, double sampling_rate,
+			double[][] other_feature_values, SpectralContext spectral_context,
+			double[] output) throws Exception {
+		return extractFeature(samples, sampling_rate, other_feature_values,
+				spectral_context);
+	}
+
 	/**
 	 * Function permitting an unintelligent outside function (ie. EditFeatures
 	 * frame) to get the default values used to populate the table's entries.
@@ -3,6 +3,7 @@ package jAudioFeatureExtractor.AudioFeatures;
 import jAudio.org.oc.ocvolume.dsp.featureExtraction;
 
 import jAudioFeatureExtractor.ACE.DataTypes.FeatureDefinition;
+import jAudioFeatureExtractor.jAudioTools.MFCCPlan;
 
 /**
  * Utilizes the MFCC code from the OrangeCow Volume project.
@@ -16,6 +17,12 @@ public class MFCC extends FeatureExtractor {
 
 	featureExtraction fe;
 
+	/**
+	 * The filterbank and cosine transform of the last spectrum length and
+	 * sampling rate that coefficients were calculated for.
+	 */
+	private volatile MFCCPlan plan;
+
 	/**
 	 * Construct a MFCC object, setting definition, dependencies, and offsets.
 	 */
@@ -53,13 +60,14 @@ public class MFCC extends FeatureExtractor {
 	public double[] extractFeature(double[] samples, double sampling_rate,
 			double[][] other_feature_values) throws Exception {
 
-		int[] cbin = fe.fftBinIndices(sampling_rate,
-				other_feature_values[0].length);
-		double[] fbank = fe.melFilter(other_feature_values[0],
-				cbin);
-		double[] f = fe.nonLinearTransformation(fbank);
-		double[] cepc = fe.cepCoefficients(f);
-		return cepc;
+		int length = other_feature_values[0].length;
+		MFCCPlan current = plan;
+		if ((current == null)
+				|| !current.matches(sampling_rate, length, fe.numCepstra)) {
+			current = MFCCPlan.getPlan(sampling_rate, length, fe.numCepstra);
+			plan = current;
+		}
+		return current.getCoefficients(other_feature_values[0]);
 	}
 
 	/**
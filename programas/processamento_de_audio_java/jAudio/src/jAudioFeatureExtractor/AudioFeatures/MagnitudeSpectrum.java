@@ -7,7 +7,7 @@
 package jAudioFeatureExtractor.AudioFeatures;
 
 import jAudioFeatureExtractor.ACE.DataTypes.FeatureDefinition;
-import jAudioFeatureExtractor.jAudioTools.FFT;
+import jAudioFeatureExtractor.jAudioTools.SpectralContext;
 
 
 /**
@@ -85,8 +85,61 @@ public class MagnitudeSpectrum
 	                                double[][] other_feature_values )
 		throws Exception
 	{
-		FFT fft = new FFT(samples, null, false, true);
-		return fft.getMagnitudeSpectrum();
+		return extractFeature( samples,
+		                       sampling_rate,
+		                       other_feature_values,
+		                       new SpectralContext(samples) );
+	}
+
+
+	/**
+	 * Extracts this feature from the given samples, reading the magnitude
+	 * spectrum from the given spectral context rather than performing a
+	 * separate FFT.
+	 *
+	 * @param samples				The samples to extract the feature from.
+	 * @param sampling_rate			The sampling rate that the samples are
+	 *								encoded with.
+	 * @param other_feature_values	The values of other features that are
+	 *								needed to calculate this value.
+	 * @param spectral_context		The spectrum of samples.
+	 * @return						The extracted feature value(s).
+	 * @throws Exception			Throws an informative exception if
+	 *								the feature cannot be calculated.
+	 */
+	public double[] extractFeature( double[] samples,
+	                                double sampling_rate,
+	                                double[][] other_feature_values,
+	                                SpectralContext spectral_context )
+		throws Exception
+	{
+		return spectral_context.getMagnitudeSpectrum();
+	}
+
+
+	/**
+	 * Extracts this feature as the four argument version does, but calculates
+	 * the magnitude spectrum into the given array if it has the right length.
+	 *
+	 * @param samples				The samples to extract the feature from.
+	 * @param sampling_rate			The sampling rate that the samples are
+	 *								encoded with.
+	 * @param other_feature_values	The values of other features that are
+	 *								needed to calculate this value.
+	 * @param spectral_context		The spectrum of samples.
+	 * @param output				An array to put the values in. May be null.
+	 * @return						The extracted feature value(s).
+	 * @throws Exception			Throws an informative exception if
+	 *								the feature cannot be calculated.
+	 */
+	public double[] extractFeature( double[] samples,
+	                                double sampling_rate,
+	                                double[][] other_feature_values,
+	                                SpectralContext spectral_context,
+	                                double[] output )
+		throws Exception
+	{
+		return spectral_context.getMagnitudeSpectrum(output);
 	}
 
 	/**
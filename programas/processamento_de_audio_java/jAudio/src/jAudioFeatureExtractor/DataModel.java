@@ -14,6 +14,7 @@ import jAudioFeatureExtractor.DataTypes.RecordingInfo;
 import jAudioFeatureExtractor.jAudioTools.AudioMethodsPlayback;
 //import jAudioFeatureExtractor.jAudioTools.AudioSamples;
 import jAudioFeatureExtractor.jAudioTools.FeatureProcessor;
+import jAudioFeatureExtractor.jAudioTools.ParallelBatchExecutor;
 
 /**
  * All components that are not tightly tied to GUI. Used by console interface as
@@ -83,6 +84,27 @@ public class DataModel {
 
 	public OutputStream featureValue = null;
 
+	/**
+	 * whether recordings are decoded a window at a time during extraction
+	 * rather than being loaded into memory whole (see
+	 * FeatureProcessor.setStreaming). Set with -stream on the command line.
+	 */
+	public boolean streaming = false;
+
+	/**
+	 * number of threads to extract features from the windows of each
+	 * recording with (see FeatureProcessor.setNumberOfThreads). Set with -w
+	 * on the command line. Recordings extracted at the same time (see
+	 * numberOfRecordingThreads) use one thread each.
+	 */
+	public int numberOfThreads = 1;
+
+	/**
+	 * number of recordings to extract features from at the same time (see
+	 * ParallelBatchExecutor)
+	 */
+	public int numberOfRecordingThreads = 1;
+
 	/**
 	 * Initializes each of the arrays with all available features. Place to add
 	 * new features.
@@ -295,16 +317,31 @@ public class DataModel {
 				this.defaults, save_features_for_each_window,
 				save_overall_recording_features, featureValue, featureKey,
 				outputType, cancel_, container);
-
-		// Extract features from recordings one by one and save them in XML
-		// files
-//		AudioSamples recording_content;
-		for (int i = 0; i < recordings.length; i++) {
-			File load_file = new File(recordings[i].file_path);
-			if (updater != null) {
-				updater.announceUpdate(i, 0);
+		processor.setStreaming(streaming);
+		processor.setNumberOfThreads(numberOfThreads);
+
+		// Extract features from several recordings at once if requested,
+		// saving them in the order of the recordings
+		if (numberOfRecordingThreads > 1 && recordings.length > 1) {
+			File[] load_files = new File[recordings.length];
+			for (int i = 0; i < recordings.length; i++) {
+				load_files[i] = new File(recordings[i].file_path);
+			}
+			ParallelBatchExecutor executor = new ParallelBatchExecutor(
+					processor, cancel_, numberOfRecordingThreads,
+					2 * numberOfRecordingThreads);
+			executor.extractFeatures(load_files, updater);
+		} else {
+			// Extract features from recordings one by one and save them in
+			// XML files
+//			AudioSamples recording_content;
+			for (int i = 0; i < recordings.length; i++) {
+				File load_file = new File(recordings[i].file_path);
+				if (updater != null) {
+					updater.announceUpdate(i, 0);
+				}
+				processor.extractFeatures(load_file, updater);
 			}
-			processor.extractFeatures(load_file, updater);
 		}
 
 		// Finalize saved XML files
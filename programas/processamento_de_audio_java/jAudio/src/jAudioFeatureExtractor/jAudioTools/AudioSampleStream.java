@@ -0,0 +1,353 @@
+/*
+ * @(#)AudioSampleStream.java	1.0	October 17, 2026.
+ *
+ * McGill Univarsity
+ */
+
+package jAudioFeatureExtractor.jAudioTools;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+
+
+/**
+ * Reads the samples of an <code>AudioInputStream</code> a block at a time,
+ * mixed down into one channel, so that a recording can be processed without
+ * ever holding all of its samples in memory.
+ *
+ * <p>Sample values are exactly those that AudioSamples would hold for the
+ * same stream: each sample is converted in the same way as by
+ * AudioMethods.extractSampleValues and channels are averaged in the same way
+ * as by DSPMethods.getSamplesMixedDownIntoOneChannel. Samples may optionally
+ * be divided by a normalisation divisor, such as the peak amplitude found by
+ * findPeakAmplitude during an earlier pass over the same recording.
+ *
+ * <p>Samples may also be converted to another sampling rate by a Resampler
+ * (see setResampler). Each block of bytes is then converted, mixed down,
+ * resampled and normalised in a single pass.
+ *
+ * @author	agent
+ */
+public class AudioSampleStream
+{
+	/* FIELDS ******************************************************************/
+
+
+	// The stream that samples are read from.
+	private AudioInputStream	audio_input_stream;
+
+	// The number of channels and bytes per sample of the stream.
+	private int					number_of_channels;
+	private int					bytes_per_sample;
+
+	// The value that raw sample values are divided by to fall between -1
+	// and +1.
+	private double				max_sample_value;
+
+	// The value that mixed down samples are divided by. 1.0 means that no
+	// normalisation is performed.
+	private double				normalisation_divisor;
+
+	// Holds bytes read from the stream. Any bytes of an incomplete frame are
+	// kept at the beginning until the rest of the frame is read.
+	private byte[]				byte_buffer;
+
+	// The number of bytes of an incomplete frame at the beginning of
+	// byte_buffer.
+	private int					partial_frame_bytes;
+
+	// Whether the end of the stream has been reached.
+	private boolean				end_of_stream;
+
+	// Converts the mixed down samples to another sampling rate. Null if the
+	// samples are not resampled.
+	private Resampler			resampler;
+
+	// Holds mixed down samples before they are resampled.
+	private double[]			unresampled;
+
+	// The resampled samples that have not been read yet. They start at
+	// resampled_offset of the resampler's output.
+	private int					resampled_offset;
+	private int					resampled_count;
+
+	// Whether the resampler has been flushed.
+	private boolean				resampler_flushed;
+
+
+	/* CONSTRUCTOR *************************************************************/
+
+
+	/**
+	 * Prepare to read samples from the given stream, which must already have
+	 * been converted to a supported format (see
+	 * AudioMethods.getConvertedAudioStream).
+	 *
+	 * @param	audio_input_stream	The stream to read. It is closed by the
+	 *								close method.
+	 * @throws	Exception			Throws an informative exception if the
+	 *								stream's format is not 8 or 16 bit signed
+	 *								big-endian PCM.
+	 */
+	public AudioSampleStream(AudioInputStream audio_input_stream)
+		throws Exception
+	{
+		AudioFormat format = audio_input_stream.getFormat();
+		int bit_depth = format.getSampleSizeInBits();
+		if ( (bit_depth != 16 && bit_depth != 8 )||
+		     !format.isBigEndian() ||
+		     format.getEncoding() != AudioFormat.Encoding.PCM_SIGNED )
+			throw new Exception( "Only 8 or 16 bit signed PCM samples with a big-endian\n" +
+			                     "byte order can be analyzed currently." );
+
+		this.audio_input_stream = audio_input_stream;
+		number_of_channels = format.getChannels();
+		bytes_per_sample = bit_depth / 8;
+		max_sample_value = AudioMethods.findMaximumSampleValue(bit_depth) + 2.0;
+		normalisation_divisor = 1.0;
+		byte_buffer = new byte[4096 * number_of_channels * bytes_per_sample];
+		partial_frame_bytes = 0;
+		end_of_stream = false;
+	}
+
+
+	/* PUBLIC METHODS **********************************************************/
+
+
+	/**
+	 * Set the value that all samples read from now on are divided by.
+	 *
+	 * @param	normalisation_divisor	The divisor. 1.0 means that samples are
+	 *									not normalised.
+	 */
+	public void setNormalisationDivisor(double normalisation_divisor)
+	{
+		this.normalisation_divisor = normalisation_divisor;
+	}
+
+
+	/**
+	 * Set the resampler that all samples read from now on are converted to
+	 * another sampling rate with. It should not have been given any samples
+	 * yet, and should expect samples at the sampling rate of the stream.
+	 *
+	 * @param	resampler	The resampler. Null if samples are to be read at
+	 *						the sampling rate of the stream.
+	 */
+	public void setResampler(Resampler resampler)
+	{
+		this.resampler = resampler;
+		if (resampler != null && unresampled == null)
+			unresampled = new double[4096];
+		resampled_offset = 0;
+		resampled_count = 0;
+		resampler_flushed = false;
+	}
+
+
+	/**
+	 * Returns the sampling rate of the stream, before any resampling.
+	 *
+	 * @return	The sampling rate in Hz.
+	 */
+	public float getSamplingRate()
+	{
+		return audio_input_stream.getFormat().getSampleRate();
+	}
+
+
+	/**
+	 * Returns the number of samples in the stream, as reported by the
+	 * <code>AudioInputStream</code>, after any resampling.
+	 *
+	 * @return	The number of samples, or AudioSystem.NOT_SPECIFIED if this is
+	 *			not known.
+	 */
+	public long getFrameLength()
+	{
+		long frame_length = audio_input_stream.getFrameLength();
+		if (resampler != null && frame_length > 0)
+			return resampler.getOutputLength(frame_length);
+		return frame_length;
+	}
+
+
+	/**
+	 * Read mixed down samples into the given array, resampled if a resampler
+	 * has been set. Fewer samples than were requested are only read if the
+	 * end of the stream is reached.
+	 *
+	 * @param	buffer		The array to read samples into.
+	 * @param	offset		The indice of buffer to put the first sample in.
+	 * @param	length		The number of samples to read.
+	 * @return				The number of samples read. 0 if the end of the
+	 *						stream has been reached.
+	 * @throws	Exception	Throws an exception if the stream cannot be read.
+	 */
+	public int read(double[] buffer, int offset, int length)
+		throws Exception
+	{
+		if (resampler == null)
+			return readMixedDown(buffer, offset, length, normalisation_divisor);
+
+		int samples_read = 0;
+		while (samples_read < length)
+		{
+			// Resample more samples once those resampled so far are read
+			if (resampled_count == 0)
+			{
+				if (resampler_flushed)
+					break;
+				int mixed_down = readMixedDown(unresampled, 0, unresampled.length, 1.0);
+				if (mixed_down > 0)
+					resampled_count = resampler.process(unresampled, 0, mixed_down);
+				else
+				{
+					resampled_count = resampler.flush();
+					resampler_flushed = true;
+				}
+				resampled_offset = 0;
+				continue;
+			}
+
+			// Copy and normalise the resampled samples
+			int copied = Math.min(resampled_count, length - samples_read);
+			double[] resampled = resampler.getOutput();
+			for (int samp = 0; samp < copied; samp++)
+			{
+				double sample = resampled[resampled_offset + samp];
+				if (normalisation_divisor != 1.0)
+					sample /= normalisation_divisor;
+				buffer[offset + samples_read + samp] = sample;
+			}
+			resampled_offset += copied;
+			resampled_count -= copied;
+			samples_read += copied;
+		}
+		return samples_read;
+	}
+
+
+	/**
+	 * Read the rest of the stream and return the highest absolute value of
+	 * the mixed down samples in it. This is the divisor that
+	 * DSPMethods.normalizeSamples would use.
+	 *
+	 * @return				The peak amplitude of the samples.
+	 * @throws	Exception	Throws an exception if the stream cannot be read.
+	 */
+	public double findPeakAmplitude()
+		throws Exception
+	{
+		double[] buffer = new double[4096];
+		double peak_amplitude = 0.0;
+		int samples_read = read(buffer, 0, buffer.length);
+		while (samples_read > 0)
+		{
+			for (int samp = 0; samp < samples_read; samp++)
+				if (Math.abs(buffer[samp]) > peak_amplitude)
+					peak_amplitude = Math.abs(buffer[samp]);
+			samples_read = read(buffer, 0, buffer.length);
+		}
+		return peak_amplitude;
+	}
+
+
+	/**
+	 * Close the underlying stream.
+	 *
+	 * @throws	Exception	Throws an exception if the stream cannot be closed.
+	 */
+	public void close()
+		throws Exception
+	{
+		audio_input_stream.close();
+	}
+
+
+	/* PRIVATE METHODS *********************************************************/
+
+
+	/**
+	 * Read mixed down samples at the sampling rate of the stream into the
+	 * given array. Fewer samples than were requested are only read if the end
+	 * of the stream is reached.
+	 *
+	 * @param	buffer		The array to read samples into.
+	 * @param	offset		The indice of buffer to put the first sample in.
+	 * @param	length		The number of samples to read.
+	 * @param	divisor		The value that samples are divided by.
+	 * @return				The number of samples read. 0 if the end of the
+	 *						stream has been reached.
+	 * @throws	Exception	Throws an exception if the stream cannot be read.
+	 */
+	private int readMixedDown(double[] buffer, int offset, int length, double divisor)
+		throws Exception
+	{
+		int frame_size = number_of_channels * bytes_per_sample;
+		int samples_read = 0;
+		while (samples_read < length && !end_of_stream)
+		{
+			// Read as many bytes as are needed, up to the size of the buffer
+			int bytes_wanted = Math.min( byte_buffer.length,
+			                             (length - samples_read) * frame_size );
+			int bytes_read = audio_input_stream.read( byte_buffer,
+			                                          partial_frame_bytes,
+			                                          bytes_wanted - partial_frame_bytes );
+			if (bytes_read < 0)
+			{
+				end_of_stream = true;
+				break;
+			}
+			int bytes_available = partial_frame_bytes + bytes_read;
+
+			// Convert each complete frame
+			int number_frames = bytes_available / frame_size;
+			int position = 0;
+			for (int frame = 0; frame < number_frames; frame++)
+			{
+				double sample;
+				if (number_of_channels == 1)
+				{
+					sample = getSampleValue(position);
+					position += bytes_per_sample;
+				}
+				else
+				{
+					double total_so_far = 0.0;
+					for (int chan = 0; chan < number_of_channels; chan++)
+					{
+						total_so_far += getSampleValue(position);
+						position += bytes_per_sample;
+					}
+					sample = total_so_far / (double) number_of_channels;
+				}
+				if (divisor != 1.0)
+					sample /= divisor;
+				buffer[offset + samples_read] = sample;
+				samples_read++;
+			}
+
+			// Keep the bytes of any incomplete frame
+			partial_frame_bytes = bytes_available - position;
+			System.arraycopy(byte_buffer, position, byte_buffer, 0, partial_frame_bytes);
+		}
+		return samples_read;
+	}
+
+
+	/**
+	 * Returns the value of the single channel sample starting at the given
+	 * position in byte_buffer, between -1 and +1.
+	 *
+	 * @param	position	The indice of the first byte of the sample.
+	 * @return				The sample value.
+	 */
+	private double getSampleValue(int position)
+	{
+		if (bytes_per_sample == 1)
+			return (double) byte_buffer[position] / max_sample_value;
+		short value = (short) ((byte_buffer[position] << 8) | (byte_buffer[position + 1] & 0xFF));
+		return (double) value / max_sample_value;
+	}
+}
@@ -18,6 +18,13 @@ package jAudioFeatureExtractor.jAudioTools;
  * also be accessed (along with appropriate frequency bin labels for the magnitude
  * and power spectra).
  *
+ * <p>The transform itself is performed by the shared FFTPlan of the appropriate
+ * size, which holds precalculated twiddle factors and window coefficients. Its
+ * complex transform gives bit for bit the results that this class calculated
+ * before it used plans. Callers that perform many transforms of the same size may
+ * use an FFTPlan directly, with their own arrays, to avoid allocating new arrays
+ * for each one, and may use its faster real to complex transform.
+ *
  * @author	Cory McKay
  */
 public class FFT
@@ -78,121 +85,24 @@ public class FFT
 			                     "At least three are needed." );
 
 		// Verify that the input size has a number of samples that is a
-		// power of 2. If not, then increase the size of the array using
-		// zero-padding. Also creates a zero filled imaginary component
-		// of the input if none was specified.
+		// power of 2. If not, then the input is zero-padded to that size.
 		int valid_size = jAudioFeatureExtractor.GeneralTools.Statistics.ensureIsPowerOfN(real_input.length, 2);
-		if (valid_size != real_input.length)
-		{
-			double[] temp = new double[valid_size];
-			for (int i = 0; i < real_input.length; i++)
-				temp[i] = real_input[i];
-			for (int i = real_input.length; i < valid_size; i++)
-				temp[i] = 0.0;
-			real_input = temp;
-
-			if (imaginary_input == null)
-			{
-				imaginary_input = new double[valid_size];
-				for (int i = 0; i < imaginary_input.length; i++)
-					imaginary_input[i] = 0.0;
-			}
-			else
-			{
-				temp = new double[valid_size];
-				for (int i = 0; i < imaginary_input.length; i++)
-					temp[i] = imaginary_input[i];
-				for (int i = imaginary_input.length; i < valid_size; i++)
-					temp[i] = 0.0;
-				imaginary_input = temp;
-			}
-		}
-		else if (imaginary_input == null)
-		{
-			imaginary_input = new double[valid_size];
-			for (int i = 0; i < imaginary_input.length; i++)
-				imaginary_input[i] = 0.0;
-		}
+		FFTPlan plan = FFTPlan.getPlan(valid_size);
 
-		// Instantiate the arrays to hold the output and copy the input
-		// to them, since the algorithm used here is self-processing
+		// Instantiate the arrays to hold the output. Values beyond the end
+		// of the input are left as zero.
 		real_output = new double[valid_size];
-		System.arraycopy(real_input, 0, real_output, 0, valid_size);
 		imaginary_output = new double[valid_size];
-		System.arraycopy(imaginary_input, 0, imaginary_output, 0, valid_size);
+		System.arraycopy(real_input, 0, real_output, 0, real_input.length);
+		if (imaginary_input != null)
+			System.arraycopy(imaginary_input, 0, imaginary_output, 0, imaginary_input.length);
 
 		// Apply a Hanning window to the real values if this option is
 		// selected
 		if (use_hanning_window)
-		{
-			for (int i = 0; i < real_output.length; i++)
-			{
-				double hanning = 0.5 - 0.5 * Math.cos(2 * Math.PI * i / valid_size);
-				real_output[i] *= hanning;
-			}
-		}
+			plan.applyHanningWindow(real_output);
 
-		// Determine whether this is a forward or inverse transform
-		int forward_transform = 1;
-		if (inverse_transform)
-			forward_transform = -1;
-
-		// Reorder the input data into reverse binary order
-		double scale = 1.0;
-		int j = 0;
-		for (int i = 0; i < valid_size; ++i)
-		{
-			if (j >= i)
-			{
-				double tempr = real_output[j] * scale;
-				double tempi = imaginary_output[j] * scale;
-				real_output[j] = real_output[i] * scale;
-				imaginary_output[j] = imaginary_output[i] * scale;
-				real_output[i] = tempr;
-				imaginary_output[i] = tempi;
-			}
-			int m = valid_size / 2;
-			while (m >= 1 && j >= m)
-			{
-				j -= m;
-				m /= 2;
-			}
-			j += m;
-		}
-
-		// Perform the spectral recombination stage by stage
-		int stage = 0;
-		int max_spectra_for_stage;
-		int step_size;
-		for( max_spectra_for_stage = 1, step_size = 2 * max_spectra_for_stage;
-		     max_spectra_for_stage < valid_size;
-			 max_spectra_for_stage = step_size, step_size = 2 * max_spectra_for_stage)
-		{
-			double delta_angle = forward_transform * Math.PI / max_spectra_for_stage;
-
-			// Loop once for each individual spectra
-			for (int spectra_count = 0; spectra_count < max_spectra_for_stage; ++spectra_count)
-			{
-				double angle = spectra_count * delta_angle;
-				double real_correction = Math.cos(angle);
-				double imag_correction = Math.sin(angle);
-
-				int right = 0;
-				for (int left = spectra_count; left < valid_size; left += step_size)
-				{
-					right = left + max_spectra_for_stage;
-					double temp_real = real_correction * real_output[right] -
-					                   imag_correction * imaginary_output[right];
-					double temp_imag = real_correction * imaginary_output[right] +
-					                   imag_correction * real_output[right];
-					real_output[right] = real_output[left] - temp_real;
-					imaginary_output[right] = imaginary_output[left] - temp_imag;
-					real_output[left] += temp_real;
-					imaginary_output[left] += temp_imag;
-				}
-			}
-			max_spectra_for_stage = step_size;
-		}
+		plan.transform(real_output, imaginary_output, inverse_transform);
 
 		// Set the angle and magnitude to null originally
 		output_angle = null;
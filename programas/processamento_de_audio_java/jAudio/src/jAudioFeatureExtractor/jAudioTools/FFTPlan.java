@@ -0,0 +1,345 @@
+/*
+ * @(#)FFTPlan.java	1.0	October 17, 2026.
+ *
+ * McGill Univarsity
+ */
+
+package jAudioFeatureExtractor.jAudioTools;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * A reusable plan for Fast Fourier Transforms of a single size. The plan holds
+ * the tables that every transform of its size needs: the bit reversal
+ * permutation, the twiddle factors (the sines and cosines used by each
+ * butterfly) and the Hanning window coefficients. These are calculated once
+ * when the plan is created, rather than during every transform. The twiddle
+ * factors of each stage are calculated with exactly the same expressions as
+ * the FFT class used to calculate them in its butterfly loop, so complex
+ * transforms give bit for bit the same results as before.
+ *
+ * <p>Transforms are performed in place on arrays supplied by the caller, so a
+ * caller that reuses its arrays allocates nothing per transform. Both complex
+ * to complex transforms and real to complex transforms are available. The
+ * real to complex transform packs the real input into a complex signal of
+ * half the size, transforms that, and then separates the result, which takes
+ * roughly half the time of a complex transform of the same size. Since its
+ * arithmetic is different, its results differ from those of a complex
+ * transform of the same signal by rounding errors, of the order of 1e-15
+ * times the largest magnitude in the spectrum.
+ *
+ * <p>Transforms follow the same conventions as the FFT class: the forward
+ * transform uses positive exponents, and neither direction is scaled. Plans
+ * are obtained through getPlan, which shares plans between all callers.
+ * Plans are immutable, and may be used by many threads at once.
+ *
+ * @author	agent
+ */
+public class FFTPlan
+{
+	/* FIELDS ******************************************************************/
+
+
+	// The plans created so far, keyed by their size.
+	private static final ConcurrentHashMap<Integer, FFTPlan> plans = new ConcurrentHashMap<Integer, FFTPlan>();
+
+	// The number of samples transformed by this plan. A power of 2.
+	private final int			size;
+
+	// The index that each index is swapped with when the input is put in
+	// bit reversed order.
+	private final int[]			bit_reversal;
+
+	// The cosine and sine of k * (pi / m) for each k less than m, used by
+	// the stage of the complex transform that combines spectra of size m.
+	// The factors of that stage start at index m - 1.
+	private final double[]		stage_cosines;
+	private final double[]		stage_sines;
+
+	// The cosine and sine of 2 * pi * k / size for each k less than half of
+	// size, used to separate the result of a real transform.
+	private final double[]		cosines;
+	private final double[]		sines;
+
+	// The Hanning window coefficient for each sample.
+	private final double[]		hanning_window;
+
+	// The plan for complex transforms of half this size, used by real
+	// transforms. Null until first needed.
+	private volatile FFTPlan	half_size_plan;
+
+
+	/* CONSTRUCTOR *************************************************************/
+
+
+	/**
+	 * Calculate the tables for transforms of the given size.
+	 *
+	 * @param	size	The number of samples to transform. A power of 2.
+	 */
+	private FFTPlan(int size)
+	{
+		this.size = size;
+
+		// Find the index that each index is swapped with in bit reversed
+		// order
+		bit_reversal = new int[size];
+		int j = 0;
+		for (int i = 0; i < size; i++)
+		{
+			bit_reversal[i] = j;
+			int m = size / 2;
+			while (m >= 1 && j >= m)
+			{
+				j -= m;
+				m /= 2;
+			}
+			j += m;
+		}
+
+		// Calculate the twiddle factors of each stage, as the butterfly loop
+		// of the FFT class did
+		stage_cosines = new double[Math.max(0, size - 1)];
+		stage_sines = new double[stage_cosines.length];
+		for (int m = 1; m < size; m *= 2)
+		{
+			double delta_angle = Math.PI / m;
+			for (int k = 0; k < m; k++)
+			{
+				double angle = k * delta_angle;
+				stage_cosines[m - 1 + k] = Math.cos(angle);
+				stage_sines[m - 1 + k] = Math.sin(angle);
+			}
+		}
+
+		// Calculate the twiddle factors of real transforms
+		cosines = new double[size / 2];
+		sines = new double[size / 2];
+		for (int k = 0; k < cosines.length; k++)
+		{
+			double angle = 2.0 * Math.PI * k / size;
+			cosines[k] = Math.cos(angle);
+			sines[k] = Math.sin(angle);
+		}
+
+		// Calculate the Hanning window
+		hanning_window = new double[size];
+		for (int i = 0; i < size; i++)
+			hanning_window[i] = 0.5 - 0.5 * Math.cos(2 * Math.PI * i / size);
+
+		half_size_plan = null;
+	}
+
+
+	/* PUBLIC METHODS **********************************************************/
+
+
+	/**
+	 * Returns the plan for transforms of the given size, creating it if no
+	 * plan of that size has been requested before.
+	 *
+	 * @param	size		The number of samples to transform.
+	 * @return				The plan.
+	 * @throws	Exception	Throws an exception if size is not a power of 2.
+	 */
+	public static FFTPlan getPlan(int size)
+		throws Exception
+	{
+		if (size < 1 || (size & (size - 1)) != 0)
+			throw new Exception("FFT size " + size + " is not a power of 2.");
+		FFTPlan plan = plans.get(size);
+		if (plan == null)
+		{
+			plan = new FFTPlan(size);
+			FFTPlan existing = plans.putIfAbsent(size, plan);
+			if (existing != null)
+				plan = existing;
+		}
+		return plan;
+	}
+
+
+	/**
+	 * Returns the number of samples transformed by this plan.
+	 *
+	 * @return	The size of this plan.
+	 */
+	public int getSize()
+	{
+		return size;
+	}
+
+
+	/**
+	 * Multiply the first getSize() values of the given array by a Hanning
+	 * window.
+	 *
+	 * @param	samples	The samples to window. Changed by this method.
+	 */
+	public void applyHanningWindow(double[] samples)
+	{
+		for (int i = 0; i < size; i++)
+			samples[i] *= hanning_window[i];
+	}
+
+
+	/**
+	 * Perform a complex to complex transform in place on the first getSize()
+	 * values of the given arrays. The result is identical to that of the FFT
+	 * class before it used plans.
+	 *
+	 * @param	real				The real part of the signal to transform.
+	 *								Replaced with the real part of the result.
+	 * @param	imaginary			The imaginary part of the signal to
+	 *								transform. Replaced with the imaginary part
+	 *								of the result.
+	 * @param	inverse_transform	Whether to perform an inverse transform
+	 *								rather than a forward transform.
+	 */
+	public void transform( double[] real,
+	                       double[] imaginary,
+	                       boolean inverse_transform )
+	{
+		// Reorder the input data into reverse binary order
+		for (int i = 0; i < size; i++)
+		{
+			int j = bit_reversal[i];
+			if (j > i)
+			{
+				double temp_real = real[j];
+				double temp_imag = imaginary[j];
+				real[j] = real[i];
+				imaginary[j] = imaginary[i];
+				real[i] = temp_real;
+				imaginary[i] = temp_imag;
+			}
+		}
+
+		// Perform the spectral recombination stage by stage. An inverse
+		// transform negates the angles, which negates their sines exactly.
+		double sine_sign = inverse_transform ? -1.0 : 1.0;
+		for (int max_spectra_for_stage = 1; max_spectra_for_stage < size; max_spectra_for_stage *= 2)
+		{
+			int step_size = 2 * max_spectra_for_stage;
+			int table_offset = max_spectra_for_stage - 1;
+
+			// Loop once for each individual spectra
+			for (int spectra_count = 0; spectra_count < max_spectra_for_stage; spectra_count++)
+			{
+				double real_correction = stage_cosines[table_offset + spectra_count];
+				double imag_correction = sine_sign * stage_sines[table_offset + spectra_count];
+
+				for (int left = spectra_count; left < size; left += step_size)
+				{
+					int right = left + max_spectra_for_stage;
+					double temp_real = real_correction * real[right] -
+					                   imag_correction * imaginary[right];
+					double temp_imag = real_correction * imaginary[right] +
+					                   imag_correction * real[right];
+					real[right] = real[left] - temp_real;
+					imaginary[right] = imaginary[left] - temp_imag;
+					real[left] += temp_real;
+					imaginary[left] += temp_imag;
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Perform a transform of an entirely real signal, putting the full
+	 * complex result in the given arrays. This gives the same result as
+	 * the transform method with a zero imaginary part, to within rounding
+	 * errors, in roughly half the time.
+	 *
+	 * @param	samples				The real signal to transform. Only the
+	 *								first getSize() values are used, and
+	 *								they are not changed.
+	 * @param	use_hanning_window	Whether to apply a Hanning window to the
+	 *								samples before transforming them.
+	 * @param	inverse_transform	Whether to perform an inverse transform
+	 *								rather than a forward transform.
+	 * @param	real_output			Filled with the real part of the result.
+	 *								Must hold at least getSize() values. May
+	 *								be the same array as samples.
+	 * @param	imaginary_output	Filled with the imaginary part of the
+	 *								result. Must hold at least getSize()
+	 *								values.
+	 * @throws	Exception			Throws an exception if this plan has a size
+	 *								of less than 2.
+	 */
+	public void transformReal( double[] samples,
+	                           boolean use_hanning_window,
+	                           boolean inverse_transform,
+	                           double[] real_output,
+	                           double[] imaginary_output )
+		throws Exception
+	{
+		if (size < 2)
+			throw new Exception("Real FFTs need at least 2 samples.");
+		int half_size = size / 2;
+		FFTPlan half_plan = half_size_plan;
+		if (half_plan == null)
+			half_size_plan = half_plan = getPlan(half_size);
+
+		// Pack the even samples into the real part and the odd samples into
+		// the imaginary part of a signal of half the size. The samples are
+		// read in increasing order, so samples may be real_output.
+		for (int k = 0; k < half_size; k++)
+		{
+			double even = samples[2 * k];
+			double odd = samples[2 * k + 1];
+			if (use_hanning_window)
+			{
+				even *= hanning_window[2 * k];
+				odd *= hanning_window[2 * k + 1];
+			}
+			real_output[k] = even;
+			imaginary_output[k] = odd;
+		}
+
+		// Transform the packed signal
+		half_plan.transform(real_output, imaginary_output, inverse_transform);
+
+		// Separate the transforms of the even and odd samples and combine
+		// them. Bins k and half_size - k are found together, since each needs
+		// the packed transform at both.
+		double sine_sign = inverse_transform ? -1.0 : 1.0;
+		double first_even = real_output[0];
+		double first_odd = imaginary_output[0];
+		for (int k = 1; k <= half_size / 2; k++)
+		{
+			int j = half_size - k;
+			double a_real = real_output[k];
+			double a_imag = imaginary_output[k];
+			double b_real = real_output[j];
+			double b_imag = imaginary_output[j];
+
+			double even_real = 0.5 * (a_real + b_real);
+			double even_imag = 0.5 * (a_imag - b_imag);
+			double odd_real = 0.5 * (a_imag + b_imag);
+			double odd_imag = 0.5 * (b_real - a_real);
+			double twiddle_real = cosines[k];
+			double twiddle_imag = sine_sign * sines[k];
+			double product_real = twiddle_real * odd_real - twiddle_imag * odd_imag;
+			double product_imag = twiddle_real * odd_imag + twiddle_imag * odd_real;
+
+			real_output[k] = even_real + product_real;
+			imaginary_output[k] = even_imag + product_imag;
+			real_output[j] = even_real - product_real;
+			imaginary_output[j] = product_imag - even_imag;
+		}
+		real_output[0] = first_even + first_odd;
+		imaginary_output[0] = 0.0;
+		real_output[half_size] = first_even - first_odd;
+		imaginary_output[half_size] = 0.0;
+
+		// The upper half of the spectrum mirrors the lower half
+		for (int k = 1; k < half_size; k++)
+		{
+			real_output[size - k] = real_output[k];
+			imaginary_output[size - k] = -imaginary_output[k];
+		}
+	}
+}
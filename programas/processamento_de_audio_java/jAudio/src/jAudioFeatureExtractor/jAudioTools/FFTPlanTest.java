@@ -0,0 +1,180 @@
+/**
+ *
+ */
+package jAudioFeatureExtractor.jAudioTools;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the transforms of FFTPlan, and of the FFT class that uses it, against
+ * the transform that the FFT class performed before it used plans, for every
+ * input size from 3 to 4000.
+ *
+ * @author agent
+ *
+ */
+public class FFTPlanTest extends TestCase {
+
+	static final int MIN_SIZE = 3;
+
+	static final int MAX_SIZE = 4000;
+
+	Random random;
+
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(FFTPlanTest.class);
+	}
+
+	/*
+	 * @see TestCase#setUp()
+	 */
+	protected void setUp() throws Exception {
+		super.setUp();
+		random = new Random(0);
+	}
+
+	public void testFFTOfRealSignal() throws Exception {
+		for (int size = MIN_SIZE; size <= MAX_SIZE; size++) {
+			double[] real = randomSignal(size);
+			for (int option = 0; option < 4; option++) {
+				boolean inverse = (option & 1) != 0;
+				boolean hanning = (option & 2) != 0;
+				double[][] expected = referenceFFT(real, null, inverse, hanning);
+				FFT fft = new FFT(real, null, inverse, hanning);
+				assertIdentical(size, expected[0], fft.getRealValues());
+				assertIdentical(size, expected[1], fft.getImaginaryValues());
+			}
+		}
+	}
+
+	public void testFFTOfComplexSignal() throws Exception {
+		for (int size = MIN_SIZE; size <= MAX_SIZE; size++) {
+			double[] real = randomSignal(size);
+			double[] imaginary = randomSignal(size);
+			for (int option = 0; option < 4; option++) {
+				boolean inverse = (option & 1) != 0;
+				boolean hanning = (option & 2) != 0;
+				double[][] expected = referenceFFT(real, imaginary, inverse, hanning);
+				FFT fft = new FFT(real, imaginary, inverse, hanning);
+				assertIdentical(size, expected[0], fft.getRealValues());
+				assertIdentical(size, expected[1], fft.getImaginaryValues());
+			}
+		}
+	}
+
+	public void testTransformReal() throws Exception {
+		for (int size = MIN_SIZE; size <= MAX_SIZE; size++) {
+			double[] samples = randomSignal(size);
+			int valid_size = jAudioFeatureExtractor.GeneralTools.Statistics.ensureIsPowerOfN(size, 2);
+			double[] padded = new double[valid_size];
+			System.arraycopy(samples, 0, padded, 0, size);
+			FFTPlan plan = FFTPlan.getPlan(valid_size);
+			for (int option = 0; option < 4; option++) {
+				boolean inverse = (option & 1) != 0;
+				boolean hanning = (option & 2) != 0;
+				double[][] expected = referenceFFT(samples, null, inverse, hanning);
+				double[] real = new double[valid_size];
+				double[] imaginary = new double[valid_size];
+				plan.transformReal(padded, hanning, inverse, real, imaginary);
+
+				// The real transform only differs by rounding errors
+				double largest = 0.0;
+				for (int i = 0; i < valid_size; i++)
+					largest = Math.max(largest, Math.hypot(expected[0][i], expected[1][i]));
+				double tolerance = 1E-14 * largest;
+				for (int i = 0; i < valid_size; i++) {
+					if (Math.abs(expected[0][i] - real[i]) > tolerance)
+						assertEquals("Size " + size + ", bin " + i, expected[0][i], real[i], tolerance);
+					if (Math.abs(expected[1][i] - imaginary[i]) > tolerance)
+						assertEquals("Size " + size + ", bin " + i, expected[1][i], imaginary[i], tolerance);
+				}
+			}
+		}
+	}
+
+	public void testSharedPlans() throws Exception {
+		assertSame(FFTPlan.getPlan(1024), FFTPlan.getPlan(1024));
+		assertEquals(1024, FFTPlan.getPlan(1024).getSize());
+	}
+
+	private double[] randomSignal(int size) {
+		double[] signal = new double[size];
+		for (int i = 0; i < size; i++)
+			signal[i] = 2.0 * random.nextDouble() - 1.0;
+		return signal;
+	}
+
+	private void assertIdentical(int size, double[] expected, double[] actual) {
+		assertEquals("Size " + size, expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++)
+			if (Double.doubleToLongBits(expected[i]) != Double.doubleToLongBits(actual[i]))
+				assertEquals("Size " + size + ", bin " + i, expected[i], actual[i], 0.0);
+	}
+
+	/**
+	 * The transform performed by the FFT class before it used plans.
+	 */
+	private double[][] referenceFFT(double[] real_input, double[] imaginary_input,
+			boolean inverse_transform, boolean use_hanning_window) {
+		int valid_size = jAudioFeatureExtractor.GeneralTools.Statistics.ensureIsPowerOfN(real_input.length, 2);
+		double[] real_output = new double[valid_size];
+		double[] imaginary_output = new double[valid_size];
+		System.arraycopy(real_input, 0, real_output, 0, real_input.length);
+		if (imaginary_input != null)
+			System.arraycopy(imaginary_input, 0, imaginary_output, 0, imaginary_input.length);
+
+		if (use_hanning_window) {
+			for (int i = 0; i < real_output.length; i++) {
+				double hanning = 0.5 - 0.5 * Math.cos(2 * Math.PI * i / valid_size);
+				real_output[i] *= hanning;
+			}
+		}
+
+		int forward_transform = 1;
+		if (inverse_transform)
+			forward_transform = -1;
+
+		int j = 0;
+		for (int i = 0; i < valid_size; ++i) {
+			if (j >= i) {
+				double tempr = real_output[j];
+				double tempi = imaginary_output[j];
+				real_output[j] = real_output[i];
+				imaginary_output[j] = imaginary_output[i];
+				real_output[i] = tempr;
+				imaginary_output[i] = tempi;
+			}
+			int m = valid_size / 2;
+			while (m >= 1 && j >= m) {
+				j -= m;
+				m /= 2;
+			}
+			j += m;
+		}
+
+		for (int max_spectra_for_stage = 1; max_spectra_for_stage < valid_size; max_spectra_for_stage *= 2) {
+			int step_size = 2 * max_spectra_for_stage;
+			double delta_angle = forward_transform * Math.PI / max_spectra_for_stage;
+			for (int spectra_count = 0; spectra_count < max_spectra_for_stage; ++spectra_count) {
+				double angle = spectra_count * delta_angle;
+				double real_correction = Math.cos(angle);
+				double imag_correction = Math.sin(angle);
+				for (int left = spectra_count; left < valid_size; left += step_size) {
+					int right = left + max_spectra_for_stage;
+					double temp_real = real_correction * real_output[right] -
+							imag_correction * imaginary_output[right];
+					double temp_imag = real_correction * imaginary_output[right] +
+							imag_correction * real_output[right];
+					real_output[right] = real_output[left] - temp_real;
+					imaginary_output[right] = imaginary_output[left] - temp_imag;
+					real_output[left] += temp_real;
+					imaginary_output[left] += temp_imag;
+				}
+			}
+		}
+		return new double[][] { real_output, imaginary_output };
+	}
+
+}
@@ -9,6 +9,7 @@ package jAudioFeatureExtractor.jAudioTools;
 import jAudioFeatureExtractor.Cancel;
 import jAudioFeatureExtractor.ExplicitCancel;
 import jAudioFeatureExtractor.Updater;
+import jAudioFeatureExtractor.ACE.DataTypes.BinaryFeatureValuesWriter;
 import jAudioFeatureExtractor.ACE.DataTypes.FeatureDefinition;
 import jAudioFeatureExtractor.Aggregators.Aggregator;
 import jAudioFeatureExtractor.Aggregators.AggregatorContainer;
@@ -20,7 +21,13 @@ import jAudioFeatureExtractor.Aggregators.StandardDeviation;
 import jAudioFeatureExtractor.AudioFeatures.*;
 import javax.sound.sampled.*;
 import java.io.*;
+import java.util.Arrays;
 import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class is used to pre-process and extract features from audio recordings.
@@ -96,9 +103,13 @@ public class FeatureProcessor {
 	// definitions_writer yet.
 	private boolean definitions_written;
 
-	// Indicates what the type of the output format is
+	// Indicates what the type of the output format is: 0 for ACE XML, 1 for
+	// ARFF and 2 for the ACE binary feature values format.
 	private int outputType;
 
+	// Used to write the feature values when outputType is 2. Null otherwise.
+	private BinaryFeatureValuesWriter binary_values_writer;
+
 	// Since Overall features are not recorded until after the header is
 	// written, the main body needs to know if it needs to write the header or
 	// not.
@@ -112,6 +123,36 @@ public class FeatureProcessor {
 
 	private AggregatorContainer aggregator;
 
+	// Whether recordings are decoded and processed a window at a time rather
+	// than being loaded into memory in their entirety first.
+	private boolean streaming = false;
+
+	// Whether the windows of the recording most recently extracted by this
+	// processor have already been aggregated (see getFeaturesStreaming), so
+	// that saveRecordingFeatures must not aggregate them again.
+	private boolean windows_aggregated = false;
+
+	// The largest number of windows back that any feature reads the values of
+	// another feature from.
+	private int max_dependency_offset;
+
+	// Whether each feature can be extracted from a window using only values
+	// of the same window, directly and through all of its dependencies. The
+	// indice corresponds to that of feature_extractors.
+	private boolean[] is_window_local;
+
+	// Whether the values of each feature are only needed while the window
+	// they are extracted from is processed, because the feature is not saved
+	// and is only read by window-local features from the same window. The
+	// values of such features are calculated into arrays reused from one
+	// window to the next, and are discarded once the window is processed. The
+	// indice corresponds to that of feature_extractors.
+	private boolean[] is_scratch;
+
+	// The number of threads to extract features from the windows of a
+	// recording with.
+	private int number_of_threads = 1;
+
 	/* CONSTRUCTOR ************************************************************ */
 
 	/**
@@ -148,7 +189,10 @@ public class FeatureProcessor {
 	 * @param feature_definitions_save_path
 	 *            The path of the feature_key_file file to save feature
 	 *            definitions to.
-	 * @param outputType		The output type.
+	 * @param outputType		The output type: 0 for ACE XML, 1 for ARFF or 2
+	 *						for the ACE binary feature values format, which
+	 *						holds the feature definitions and so does not use
+	 *						feature_definitions_save_path.
 	 * @param cancel			The Cancel object.
 	 * @param container			The AggregatorContainer.
 	 * @throws Exception
@@ -192,11 +236,11 @@ public class FeatureProcessor {
 				one_selected = true;
 		if (!one_selected)
 			throw new Exception("No features have been set to be saved.");
-		if ((outputType == 0) || (outputType == 1)) {
+		if ((outputType == 0) || (outputType == 1) || (outputType == 2)) {
 			this.outputType = outputType;
 		} else {
 			throw new Exception(
-					"INTERNAL ERROR - only ARFF and ACE output files are supported");
+					"INTERNAL ERROR - only ARFF, ACE and binary output files are supported");
 		}
 
 		// Prepare the files for writing
@@ -250,11 +294,112 @@ public class FeatureProcessor {
 			writeValuesXMLHeader();
 		} else if (outputType == 1) {
 			writeValuesARFFHeader();
+		} else if (outputType == 2) {
+			binary_values_writer = new BinaryFeatureValuesWriter(
+					feature_values_save_path);
 		}
 	}
 
+	/**
+	 * Creates a processor with the same configuration as the given one, but
+	 * with its own copy of each feature extractor and nowhere to save feature
+	 * values. See createRecordingProcessor.
+	 *
+	 * @param original
+	 *            The processor to copy.
+	 * @throws Exception
+	 *             Throws an exception if a feature extractor cannot be
+	 *             copied.
+	 */
+	private FeatureProcessor(FeatureProcessor original) throws Exception {
+		window_size = original.window_size;
+		window_overlap_offset = original.window_overlap_offset;
+		sampling_rate = original.sampling_rate;
+		normalise = original.normalise;
+		feature_extractors = new FeatureExtractor[original.feature_extractors.length];
+		for (int feat = 0; feat < feature_extractors.length; feat++)
+			feature_extractors[feat] = copyFeatureExtractor(original.feature_extractors[feat]);
+		feature_extractor_dependencies = original.feature_extractor_dependencies;
+		max_feature_offsets = original.max_feature_offsets;
+		features_to_save = original.features_to_save;
+		save_features_for_each_window = original.save_features_for_each_window;
+		save_overall_recording_features = original.save_overall_recording_features;
+		outputType = original.outputType;
+		cancel = original.cancel;
+		streaming = original.streaming;
+		max_dependency_offset = original.max_dependency_offset;
+		is_window_local = original.is_window_local;
+		is_scratch = original.is_scratch;
+		number_of_threads = 1;
+	}
+
 	/* PUBLIC METHODS ********************************************************* */
 
+	/**
+	 * Set whether recordings are to be decoded and processed a window at a
+	 * time rather than being loaded into memory in their entirety before
+	 * features are extracted from them. When streaming, the samples held in
+	 * memory are bounded by the window size rather than by the length of the
+	 * recording, and the values of features that are not saved are discarded
+	 * once no later window depends on them. If the features of each window
+	 * are not saved either, each window is passed to the aggregators as soon
+	 * as it has been extracted and then discarded, so the feature values held
+	 * in memory are also bounded (unless an aggregator is not online, see
+	 * Aggregator.isOnline). Recordings extracted by a processor returned by
+	 * createRecordingProcessor keep the values of every window, since they
+	 * are aggregated by the processor that saves them. The extracted feature
+	 * values are identical either way, except that overall standard
+	 * deviations aggregated a window at a time may differ in the last few
+	 * bits (see StandardDeviation). Recordings are decoded twice when
+	 * streaming with normalisation, since the peak amplitude must be found
+	 * before any samples can be normalised.
+	 *
+	 * @param streaming
+	 *            Whether to stream recordings. False by default.
+	 */
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+
+	/**
+	 * Set the number of threads that features are to be extracted from the
+	 * windows of each recording with. With more than one thread, the windows
+	 * of a recording are divided among the threads of a fork-join pool, and
+	 * each thread extracts all of the features that depend only on the
+	 * window itself. Features that depend on the values of earlier windows,
+	 * such as Derivative, are then extracted on the calling thread, window by
+	 * window in order. The extracted values are identical to those extracted
+	 * with a single thread. Streaming extraction (see setStreaming) always
+	 * uses a single thread.
+	 *
+	 * @param number_of_threads
+	 *            The number of threads. 1 (the default) or less means that
+	 *            windows are processed one after another on the calling
+	 *            thread.
+	 */
+	public void setNumberOfThreads(int number_of_threads) {
+		this.number_of_threads = number_of_threads;
+	}
+
+	/**
+	 * Returns a processor with the same configuration as this one that can
+	 * extract features from recordings on another thread while this one is
+	 * in use. The returned processor has its own copy of every feature
+	 * extractor, with the same settings, so that extractors that keep state
+	 * between windows are not shared between threads. It does not save
+	 * anything: its extractRecordingFeatures method should be used, and the
+	 * values it returns passed to the saveRecordingFeatures method of this
+	 * processor. Recordings are extracted with a single thread each.
+	 *
+	 * @return The new processor.
+	 * @throws Exception
+	 *             Throws an exception if a feature extractor cannot be
+	 *             copied.
+	 */
+	public FeatureProcessor createRecordingProcessor() throws Exception {
+		return new FeatureProcessor(this);
+	}
+
 	/**
 	 * Extract the features from the provided audio file. This includes
 	 * pre-processing involving sample rate conversion, windowing and, possibly,
@@ -269,34 +414,102 @@ public class FeatureProcessor {
 	 */
 	public void extractFeatures(File recording_file, Updater updater)
 			throws Exception {
-		// Pre-process the recording and extract the samples from the audio
+		int[][] window_start_indices = new int[1][];
+		double[][][] window_feature_values = extractRecordingFeatures(
+				recording_file, updater, window_start_indices);
+		saveRecordingFeatures(recording_file, window_feature_values,
+				window_start_indices[0]);
+	}
+
+	/**
+	 * Extract the features of each window of the provided audio file, without
+	 * saving them. This includes pre-processing involving sample rate
+	 * conversion, windowing and, possibly, normalisation. The feature
+	 * extractors are replaced with fresh copies first, so the values
+	 * extracted from a recording do not depend on which recordings were
+	 * extracted before it.
+	 *
+	 * @param recording_file
+	 *            The audio file to extract features from.
+	 * @param updater
+	 *            The updater. May be null.
+	 * @param window_start_indices
+	 *            Should be an empty int[1][] when it is passed to this method.
+	 *            Its first indice is filled with the indices of the samples at
+	 *            which each window starts.
+	 * @return The extracted feature values. The first indice identifies the
+	 *         window, the second identifies the feature and the third
+	 *         identifies the feature value.
+	 * @throws Exception
+	 *             Throws an exception if a problem occurs.
+	 */
+	public double[][][] extractRecordingFeatures(File recording_file,
+			Updater updater, int[][] window_start_indices) throws Exception {
 		this.updater = updater;
-		double[] samples = preProcessRecording(recording_file);
-		if(cancel.isCancel()){
-			throw new ExplicitCancel("Killed after loading data");
-		}
-		// Calculate the window start indices
-		LinkedList<Integer> window_start_indices_list = new LinkedList<Integer>();
-		int this_start = 0;
-		while (this_start < samples.length) {
-			window_start_indices_list.add(new Integer(this_start));
-			this_start += window_size - window_overlap_offset;
-		}
-		Integer[] window_start_indices_I = window_start_indices_list
-				.toArray(new Integer[1]);
-		int[] window_start_indices = new int[window_start_indices_I.length];
 
-		// if were using a progress bar, set its max update
-		if (updater != null) {
-			updater.setFileLength(window_start_indices.length);
-		}
+		// Start each recording with fresh copies of the feature extractors,
+		// so that extractors that keep state between windows (such as Area
+		// Method of Moments) do not carry it over from the last recording
+		for (int feat = 0; feat < feature_extractors.length; feat++)
+			feature_extractors[feat] = copyFeatureExtractor(feature_extractors[feat]);
+		double[][][] window_feature_values;
+		if (streaming) {
+			// Decode the recording and extract the feature values from it a
+			// window at a time
+			window_feature_values = getFeaturesStreaming(recording_file,
+					window_start_indices);
+		} else {
+			// Pre-process the recording and extract the samples from the audio
+			double[] samples = preProcessRecording(recording_file);
+			if(cancel.isCancel()){
+				throw new ExplicitCancel("Killed after loading data");
+			}
+			// Calculate the window start indices
+			LinkedList<Integer> window_start_indices_list = new LinkedList<Integer>();
+			int this_start = 0;
+			while (this_start < samples.length) {
+				window_start_indices_list.add(new Integer(this_start));
+				this_start += window_size - window_overlap_offset;
+			}
+			Integer[] window_start_indices_I = window_start_indices_list
+					.toArray(new Integer[1]);
+			window_start_indices[0] = new int[window_start_indices_I.length];
+
+			// if were using a progress bar, set its max update
+			if (updater != null) {
+				updater.setFileLength(window_start_indices[0].length);
+			}
+
+			for (int i = 0; i < window_start_indices[0].length; i++)
+				window_start_indices[0][i] = window_start_indices_I[i].intValue();
 
-		for (int i = 0; i < window_start_indices.length; i++)
-			window_start_indices[i] = window_start_indices_I[i].intValue();
+			// Extract the feature values from the samples
+			window_feature_values = getFeatures(samples,
+					window_start_indices[0]);
+		}
+		return window_feature_values;
+	}
 
-		// Extract the feature values from the samples
-		double[][][] window_feature_values = getFeatures(samples,
-				window_start_indices);
+	/**
+	 * Aggregates and saves the given feature values of the provided audio
+	 * file, as extracted by extractRecordingFeatures. The feature values are
+	 * saved to the feature_vector_file XML file referred to by the
+	 * values_writer field, and the definitions of the features that are
+	 * saved are saved to the feature_key_file XML file referred to by the
+	 * definitions_writer field if this has not already been done.
+	 *
+	 * @param recording_file
+	 *            The audio file that the features were extracted from.
+	 * @param window_feature_values
+	 *            The feature values of each window of the file.
+	 * @param window_start_indices
+	 *            The indices of the samples at which each window starts.
+	 * @throws Exception
+	 *             Throws an exception if a problem occurs.
+	 */
+	public void saveRecordingFeatures(File recording_file,
+			double[][][] window_feature_values, int[] window_start_indices)
+			throws Exception {
 
 		// Find the feature averages and standard deviations if appropriate
 //		AggregatorContainer aggContainer = new AggregatorContainer();
@@ -304,7 +517,11 @@ public class FeatureProcessor {
 		// FeatureDefinition[1][];
 		// overall_feature_definitions[0] = null;
 		// double[][] overall_feature_values = null;
-		if (save_overall_recording_features) {
+		if (windows_aggregated) {
+			// Already aggregated window by window as the recording was
+			// extracted
+			windows_aggregated = false;
+		} else if (save_overall_recording_features) {
 //			Aggregator[] aggList = new Aggregator[10];
 //			aggList[0] = new Mean();
 //			aggList[1] = new StandardDeviation();
@@ -344,6 +561,10 @@ public class FeatureProcessor {
 			saveARFFFeatureVectorsForARecording(window_feature_values,
 					window_start_indices, recording_file.getPath(),
 					aggregator);
+		} else if (outputType == 2) {
+			saveBinaryFeatureVectorsForARecording(window_feature_values,
+					window_start_indices, recording_file.getPath(),
+					aggregator);
 		}
 
 		// Save the feature definitions
@@ -366,7 +587,11 @@ public class FeatureProcessor {
 		if (outputType == 0) {
 			values_writer.writeBytes("</feature_vector_file>");
 		}
-		values_writer.close();
+		if (outputType == 2) {
+			binary_values_writer.close();
+		} else {
+			values_writer.close();
+		}
 	}
 
 	/* PRIVATE METHODS ******************************************************** */
@@ -533,7 +758,27 @@ public class FeatureProcessor {
 		// Daniel McEnnis 5-07-05 added feature offset of dependancies to
 		// max_offset
 		max_feature_offsets = new int[feature_extractors.length];
+		max_dependency_offset = 0;
+		is_window_local = new boolean[feature_extractors.length];
+		is_scratch = new boolean[feature_extractors.length];
 		for (int i = 0; i < max_feature_offsets.length; i++) {
+			// Dependencies always come before the features that need them
+			is_window_local[i] = true;
+			if (feature_extractor_dependencies[i] != null)
+				for (int k = 0; k < feature_extractor_dependencies[i].length; k++)
+					if (feature_extractors[i].getDepenedencyOffsets()[k] != 0
+							|| !is_window_local[feature_extractor_dependencies[i][k]])
+						is_window_local[i] = false;
+			is_scratch[i] = is_window_local[i] && !features_to_save[i];
+
+			// Dependencies read from other windows, or by features that are
+			// not extracted with them, must be kept
+			if (feature_extractor_dependencies[i] != null)
+				for (int k = 0; k < feature_extractor_dependencies[i].length; k++)
+					if (feature_extractors[i].getDepenedencyOffsets()[k] != 0
+							|| !is_window_local[i])
+						is_scratch[feature_extractor_dependencies[i][k]] = false;
+
 			if (feature_extractors[i].getDepenedencyOffsets() == null)
 				max_feature_offsets[i] = 0;
 			else {
@@ -543,6 +788,8 @@ public class FeatureProcessor {
 						.abs(these_offsets[0]
 								+ max_feature_offsets[feature_extractor_dependencies[i][0]]);
 				for (int k = 0; k < these_offsets.length; k++) {
+					max_dependency_offset = Math.max(max_dependency_offset,
+							Math.abs(these_offsets[k]));
 					int val = Math.abs(these_offsets[k])
 							+ max_feature_offsets[feature_extractor_dependencies[i][k]];
 					if (val > max_feature_offsets[i]) {
@@ -553,12 +800,35 @@ public class FeatureProcessor {
 		}
 	}
 
+	/**
+	 * Returns a copy of the given feature extractor with the same value of
+	 * every editable attribute. Copies made by clone alone do not always keep
+	 * the attributes of the original.
+	 *
+	 * @param original
+	 *            The feature extractor to copy.
+	 * @return The copy.
+	 * @throws Exception
+	 *             Throws an exception if an attribute cannot be copied.
+	 */
+	private static FeatureExtractor copyFeatureExtractor(
+			FeatureExtractor original) throws Exception {
+		FeatureExtractor copy = (FeatureExtractor) original.clone();
+		copy.setParent(null);
+		String[] attributes = original.getFeatureDefinition().attributes;
+		for (int i = 0; i < attributes.length; i++)
+			copy.setElement(i, original.getElement(i));
+		return copy;
+	}
+
 	/**
 	 * Returns the samples stored in the given audio file.
 	 * <p>
 	 * The samples are re-encoded using the sampling rate in the sampling_rate
 	 * field. All channels are projected into one channel. Samples are
-	 * normalised if the normalise field is true.
+	 * normalised if the normalise field is true. The recording is decoded,
+	 * mixed down and resampled in a single pass, during which the peak
+	 * amplitude used for normalisation is found.
 	 *
 	 * @param recording_file
 	 *            The audio file to extract samples from.
@@ -569,6 +839,78 @@ public class FeatureProcessor {
 	 *             reading or pre- processing.
 	 */
 	private double[] preProcessRecording(File recording_file) throws Exception {
+		AudioSampleStream stream = getSampleStream(recording_file);
+
+		// Read all channels compressed into one, finding the peak amplitude.
+		// One more sample than the length of the stream is allowed for so
+		// that its end is found without growing the array.
+		long number_of_samples = stream.getFrameLength();
+		int capacity = 65536;
+		if ((number_of_samples > 0) && (number_of_samples < Integer.MAX_VALUE))
+			capacity = (int) number_of_samples + 1;
+		double[] samples = new double[capacity];
+		int samples_read = 0;
+		double peak_amplitude = 0.0;
+		while (true) {
+			if (samples_read == samples.length)
+				samples = Arrays.copyOf(samples, 2 * samples.length);
+			int block = stream.read(samples, samples_read, samples.length
+					- samples_read);
+			if (block == 0)
+				break;
+			for (int samp = samples_read; samp < samples_read + block; samp++)
+				if (Math.abs(samples[samp]) > peak_amplitude)
+					peak_amplitude = Math.abs(samples[samp]);
+			samples_read += block;
+		}
+		stream.close();
+		samples = Arrays.copyOf(samples, samples_read);
+
+		// Normalise samples if this option has been requested
+		if (normalise && peak_amplitude != 0.0)
+			for (int samp = 0; samp < samples.length; samp++)
+				samples[samp] /= peak_amplitude;
+
+		return samples;
+	}
+
+	/**
+	 * Opens the given audio file and returns a stream of its samples mixed
+	 * down into one channel at the sampling rate in the sampling_rate field.
+	 * If the file has another sampling rate, the samples are converted with a
+	 * Resampler as they are read.
+	 *
+	 * @param recording_file
+	 *            The audio file to open.
+	 * @return The samples of the file.
+	 * @throws Exception
+	 *             An exception is thrown if the file cannot be read or
+	 *             converted.
+	 */
+	private AudioSampleStream getSampleStream(File recording_file)
+			throws Exception {
+		AudioSampleStream stream = new AudioSampleStream(AudioMethods
+				.getConvertedAudioStream(getRecordingStream(recording_file)));
+		if (stream.getSamplingRate() != (float) sampling_rate)
+			stream.setResampler(new Resampler(stream.getSamplingRate(),
+					sampling_rate));
+		return stream;
+	}
+
+	/**
+	 * Opens the given audio file and returns a stream of its audio re-encoded
+	 * as signed big-endian PCM with a bit depth of 8 or 16 bits, at its
+	 * original sampling rate.
+	 *
+	 * @param recording_file
+	 *            The audio file to open.
+	 * @return The re-encoded audio.
+	 * @throws Exception
+	 *             An exception is thrown if the file cannot be read or
+	 *             converted.
+	 */
+	private AudioInputStream getRecordingStream(File recording_file)
+			throws Exception {
 		// Get the original audio and its format
 		AudioInputStream original_stream = AudioSystem
 				.getAudioInputStream(recording_file);
@@ -582,45 +924,24 @@ public class FeatureProcessor {
 		// If the audio is not PCM signed big endian, then convert it to PCM
 		// signed
 		// This is particularly necessary when dealing with MP3s
-		AudioInputStream second_stream = original_stream;
+		// Also, convert to an appropriate bit depth if necessary.
+		// The sampling rate is left unchanged, since AudioSystem cannot
+		// convert between many pairs of sampling rates. It is converted by a
+		// Resampler once the channels have been mixed down.
+		AudioInputStream new_stream = original_stream;
 		if (original_format.getEncoding() != AudioFormat.Encoding.PCM_SIGNED
-				|| original_format.isBigEndian() == false) {
+				|| original_format.isBigEndian() == false
+				|| bit_depth != original_format.getSampleSizeInBits()) {
 			AudioFormat new_format = new AudioFormat(
 					AudioFormat.Encoding.PCM_SIGNED, original_format
 							.getSampleRate(), bit_depth, original_format
 							.getChannels(), original_format.getChannels()
 							* (bit_depth / 8), original_format.getSampleRate(),
 					true);
-			second_stream = AudioSystem.getAudioInputStream(new_format,
-					original_stream);
-		}
-
-		// Convert to the set sampling rate, if it is not already at this
-		// sampling rate.
-		// Also, convert to an appropriate bit depth if necessary.
-		AudioInputStream new_stream = second_stream;
-		if (original_format.getSampleRate() != (float) sampling_rate
-				|| bit_depth != original_format.getSampleSizeInBits()) {
-			AudioFormat new_format = new AudioFormat(
-					AudioFormat.Encoding.PCM_SIGNED, (float) sampling_rate,
-					bit_depth, original_format.getChannels(), original_format
-							.getChannels()
-							* (bit_depth / 8), original_format.getSampleRate(),
-					true);
 			new_stream = AudioSystem.getAudioInputStream(new_format,
-					second_stream);
+					original_stream);
 		}
-
-		// Extract data from the AudioInputStream
-		AudioSamples audio_data = new AudioSamples(new_stream, recording_file
-				.getPath(), false);
-
-		// Normalise samples if this option has been requested
-		if (normalise)
-			audio_data.normalizeMixedDownSamples();
-
-		// Return all channels compressed into one
-		return audio_data.getSamplesMixedDown();
+		return new_stream;
 	}
 
 	/**
@@ -643,6 +964,10 @@ public class FeatureProcessor {
 	 */
 	private double[][][] getFeatures(double[] samples,
 			int[] window_start_indices) throws Exception {
+		// Divide the windows among threads if this has been requested
+		if (number_of_threads > 1 && window_start_indices.length > 1)
+			return getFeaturesInParallel(samples, window_start_indices);
+
 		// The extracted feature values for this recording. The first indice
 		// identifies the window, the second identifies the feature and the
 		// third identifies the feature value.
@@ -659,6 +984,7 @@ public class FeatureProcessor {
 		// The last window is zero-padded at the end if it falls off the edge of
 		// the
 		// provided samples.
+		WindowBuffers buffers = new WindowBuffers();
 		for (int win = 0; win < window_start_indices.length; win++) {
 			// Do we need to update the progress bar or not
 			if ((updater != null) && (win % updateThreshold == 0)) {
@@ -669,51 +995,388 @@ public class FeatureProcessor {
 			}
 
 			// Find the samples in this window and zero-pad if necessary
-			double[] window = new double[window_size];
-			int start_sample = window_start_indices[win];
-			int end_sample = start_sample + window_size - 1;
-			if (end_sample < samples.length)
-				for (int samp = start_sample; samp <= end_sample; samp++)
+			double[] window = getWindow(samples, window_start_indices[win],
+					buffers.window);
+
+			// Extract the features from the window
+			extractWindowFeatures(window, win, results, null, buffers);
+		}
+
+		// Return the results
+		return results;
+	}
+
+	/**
+	 * Does the same as getFeatures, but divides the windows among the number
+	 * of threads in the number_of_threads field. Features in is_window_local
+	 * are extracted from ranges of windows in parallel, and then all other
+	 * features are extracted on the calling thread, one window at a time in
+	 * order, so that each feature sees exactly the same values of earlier
+	 * windows as it would sequentially.
+	 *
+	 * @param samples
+	 *            The samples to extract features from.
+	 * @param window_start_indices
+	 *            The indices of samples that correspond to where each window
+	 *            should start.
+	 * @return The extracted feature values, as for getFeatures.
+	 * @throws Exception
+	 *             Throws an exception if a problem occurs.
+	 */
+	private double[][][] getFeaturesInParallel(final double[] samples,
+			final int[] window_start_indices) throws Exception {
+		final double[][][] results = new double[window_start_indices.length][feature_extractors.length][];
+
+		// Calculate how frequently to make updates to the updater
+		final int updateThreshold = Math.max(1,
+				window_start_indices.length / 100);
+		final AtomicInteger windows_done = new AtomicInteger();
+
+		// Divide the windows into a few ranges per thread, so that threads
+		// that finish early can take ranges that the others have not started
+		int windows_per_range = Math.max(1, window_start_indices.length
+				/ (8 * number_of_threads));
+		LinkedList<Callable<Object>> ranges = new LinkedList<Callable<Object>>();
+		for (int first = 0; first < window_start_indices.length; first += windows_per_range) {
+			final int range_start = first;
+			final int range_end = Math.min(first + windows_per_range,
+					window_start_indices.length);
+			ranges.add(new Callable<Object>() {
+				public Object call() throws Exception {
+					WindowBuffers buffers = new WindowBuffers();
+					for (int win = range_start; win < range_end; win++) {
+						if (cancel.isCancel())
+							throw new ExplicitCancel(
+									"Killed while processing features");
+						extractWindowFeatures(getWindow(samples,
+								window_start_indices[win], buffers.window),
+								win, results, is_window_local, buffers);
+						int done = windows_done.incrementAndGet();
+						if ((updater != null) && (done % updateThreshold == 0))
+							synchronized (updater) {
+								updater.announceUpdate(done);
+							}
+					}
+					return null;
+				}
+			});
+		}
+
+		// Extract the features that only need their own window in parallel
+		ForkJoinPool pool = new ForkJoinPool(number_of_threads);
+		try {
+			for (Future<Object> range : pool.invokeAll(ranges))
+				range.get();
+		} catch (ExecutionException e) {
+			// Rethrow exceptions thrown by features and cancellations
+			if (e.getCause() instanceof Exception)
+				throw (Exception) e.getCause();
+			throw e;
+		} finally {
+			pool.shutdownNow();
+		}
+
+		// Extract the features that need values of earlier windows in order
+		boolean[] is_window_dependent = new boolean[feature_extractors.length];
+		boolean any_window_dependent = false;
+		for (int feat = 0; feat < feature_extractors.length; feat++) {
+			is_window_dependent[feat] = !is_window_local[feat];
+			any_window_dependent |= is_window_dependent[feat];
+		}
+		if (any_window_dependent) {
+			WindowBuffers buffers = new WindowBuffers();
+			for (int win = 0; win < window_start_indices.length; win++)
+				extractWindowFeatures(getWindow(samples,
+						window_start_indices[win], buffers.window), win,
+						results, is_window_dependent, buffers);
+		}
+
+		return results;
+	}
+
+	/**
+	 * Returns the samples of the window starting at the given sample. The
+	 * window is zero-padded at the end if it falls off the edge of the
+	 * samples.
+	 *
+	 * @param samples
+	 *            The samples of the whole recording.
+	 * @param start_sample
+	 *            The indice of the first sample of the window.
+	 * @param window
+	 *            An array of window_size samples to put the window in.
+	 * @return The samples of the window, in the window array.
+	 */
+	private double[] getWindow(double[] samples, int start_sample,
+			double[] window) {
+		int end_sample = start_sample + window_size - 1;
+		if (end_sample < samples.length)
+			for (int samp = start_sample; samp <= end_sample; samp++)
+				window[samp - start_sample] = samples[samp];
+		else
+			for (int samp = start_sample; samp <= end_sample; samp++) {
+				if (samp < samples.length)
 					window[samp - start_sample] = samples[samp];
-			else
-				for (int samp = start_sample; samp <= end_sample; samp++) {
-					if (samp < samples.length)
-						window[samp - start_sample] = samples[samp];
-					else
-						window[samp - start_sample] = 0.0;
+				else
+					window[samp - start_sample] = 0.0;
+			}
+		return window;
+	}
+
+	/**
+	 * Decodes the given audio file a window at a time and extracts features
+	 * from each window as soon as its samples have been read. Only the samples
+	 * of the current window are held in memory, with the samples that it
+	 * shares with the next window kept when that window is read. The windows
+	 * and the extracted feature values are the same as those of getFeatures.
+	 * <p>
+	 * The values of features that are not to be saved are discarded once they
+	 * are more windows back than any feature reads dependencies from. If the
+	 * features of each window are not to be saved, each window is instead
+	 * passed to the aggregator as soon as it has been extracted, and only the
+	 * windows that later windows may still need are kept.
+	 *
+	 * @param recording_file
+	 *            The audio file to extract features from.
+	 * @param window_start_indices
+	 *            Should be an empty int[1][] when it is passed to this method.
+	 *            Its first indice is filled with the indices of the samples at
+	 *            which each window starts.
+	 * @return The extracted feature values for this recording, as for
+	 *         getFeatures. The values of features that are not saved are
+	 *         null for all but the last windows. Only the last windows are
+	 *         returned if the windows were aggregated as they were
+	 *         extracted, with window_start_indices filled to match.
+	 * @throws Exception
+	 *             Throws an exception if a problem occurs.
+	 */
+	private double[][][] getFeaturesStreaming(File recording_file,
+			int[][] window_start_indices) throws Exception {
+		// Find the peak amplitude first if normalising, since every sample
+		// must be divided by it
+		double peak_amplitude = 0.0;
+		if (normalise) {
+			AudioSampleStream peak_stream = getSampleStream(recording_file);
+			peak_amplitude = peak_stream.findPeakAmplitude();
+			peak_stream.close();
+		}
+		AudioSampleStream stream = getSampleStream(recording_file);
+		if (peak_amplitude != 0.0)
+			stream.setNormalisationDivisor(peak_amplitude);
+
+		// The number of samples between the starts of consecutive windows
+		int hop_size = window_size - window_overlap_offset;
+
+		// Estimate the number of windows for the progress bar, if the length
+		// of the stream is known
+		int updateThreshold = 1;
+		long number_of_frames = stream.getFrameLength();
+		if (number_of_frames > 0) {
+			int estimated_windows = (int) ((number_of_frames + hop_size - 1) / hop_size);
+			if (updater != null)
+				updater.setFileLength(estimated_windows);
+			if (estimated_windows > 100)
+				updateThreshold = estimated_windows / 100;
+		}
+
+		// The samples from the start of the current window onwards, of which
+		// there are buffered_count
+		double[] buffered = new double[window_size];
+		int buffered_count = stream.read(buffered, 0, window_size);
+		if (buffered_count == 0) {
+			stream.close();
+			throw new Exception(recording_file.getPath()
+					+ " does not contain any samples.");
+		}
+
+		// Aggregate each window as soon as it has been extracted if the
+		// features of each window are not saved, keeping only as many windows
+		// as the features with the longest history need
+		boolean aggregate_windows = !save_features_for_each_window
+				&& (aggregator != null);
+		int history = max_dependency_offset;
+		for (int feat = 0; feat < feature_extractors.length; feat++)
+			history = Math.max(history, max_feature_offsets[feat]);
+		if (aggregate_windows) {
+			aggregator.add(feature_extractors, features_to_save);
+			aggregator.startAggregation();
+		}
+
+		// Extract features from each window until the window would start past
+		// the last sample. Arrays are grown as windows are found, unless the
+		// windows are being aggregated, in which case the oldest window is
+		// dropped instead. stored is the indice in results of the current
+		// window, which is only behind win once every feature has all of the
+		// earlier windows that it needs.
+		double[][][] results = new double[aggregate_windows ? history + 1 : 64][][];
+		int[] starts = new int[results.length];
+		int win = 0;
+		int stored = 0;
+		WindowBuffers buffers = new WindowBuffers();
+		while (buffered_count > 0) {
+			// Do we need to update the progress bar or not
+			if ((updater != null) && (win % updateThreshold == 0)) {
+				updater.announceUpdate(win);
+				if(cancel.isCancel()){
+					stream.close();
+					throw new ExplicitCancel("Killed while processing features");
+				}
+			}
+			if (stored == results.length) {
+				if (aggregate_windows) {
+					System.arraycopy(results, 1, results, 0, stored - 1);
+					System.arraycopy(starts, 1, starts, 0, stored - 1);
+					stored--;
+					results[stored] = null;
+				} else {
+					results = Arrays.copyOf(results, 2 * stored);
+					starts = Arrays.copyOf(starts, 2 * stored);
 				}
+			}
 
-			// Extract the features one by one
-			for (int feat = 0; feat < feature_extractors.length; feat++) {
-				// Only extract this feature if enough previous information
-				// is available to extract this feature
-				if (win >= max_feature_offsets[feat]) {
-					// Find the correct feature
-					FeatureExtractor feature = feature_extractors[feat];
-
-					// Find previously extracted feature values that this
-					// feature
-					// needs
-					double[][] other_feature_values = null;
-					if (feature_extractor_dependencies[feat] != null) {
-						other_feature_values = new double[feature_extractor_dependencies[feat].length][];
-						for (int i = 0; i < feature_extractor_dependencies[feat].length; i++) {
-							int feature_indice = feature_extractor_dependencies[feat][i];
-							int offset = feature.getDepenedencyOffsets()[i];
-							other_feature_values[i] = results[win + offset][feature_indice];
-						}
+			// Copy the samples of this window, zero-padding the last window
+			double[] window = buffers.window;
+			System.arraycopy(buffered, 0, window, 0, buffered_count);
+			Arrays.fill(window, buffered_count, window_size, 0.0);
+			starts[stored] = win * hop_size;
+			extractWindowFeatures(window, stored, results, null, buffers);
+			if (aggregate_windows)
+				aggregator.aggregateWindow(results[stored]);
+
+			// Discard values of unsaved features that no later window needs
+			int expired = stored - max_dependency_offset;
+			if (expired >= 0)
+				for (int feat = 0; feat < feature_extractors.length; feat++)
+					if (!features_to_save[feat])
+						results[expired][feat] = null;
+			win++;
+			stored++;
+
+			// Keep the samples shared with the next window and read the rest
+			int kept = Math.max(0, buffered_count - hop_size);
+			if (kept > 0)
+				System.arraycopy(buffered, hop_size, buffered, 0, kept);
+			buffered_count = kept
+					+ stream.read(buffered, kept, window_size - kept);
+		}
+		stream.close();
+		if (aggregate_windows) {
+			aggregator.finishAggregation();
+			windows_aggregated = true;
+		}
+
+		window_start_indices[0] = Arrays.copyOf(starts, stored);
+		return Arrays.copyOf(results, stored);
+	}
+
+	/**
+	 * Extracts each feature from a single window and stores the values in the
+	 * given results.
+	 *
+	 * @param window
+	 *            The samples of the window.
+	 * @param win
+	 *            The indice of the window in the recording.
+	 * @param results
+	 *            The feature values extracted so far, as returned by
+	 *            getFeatures. The values of this window are stored in
+	 *            results[win], and the values of earlier windows that
+	 *            features depend on are read from it.
+	 * @param features_to_extract
+	 *            Which features to extract, with indices corresponding to
+	 *            feature_extractors. All features are extracted if this is
+	 *            null.
+	 * @param buffers
+	 *            The buffers of the calling thread.
+	 * @throws Exception
+	 *             Throws an exception if a feature cannot be extracted.
+	 */
+	private void extractWindowFeatures(double[] window, int win,
+			double[][][] results, boolean[] features_to_extract,
+			WindowBuffers buffers) throws Exception {
+		if (results[win] == null)
+			results[win] = new double[feature_extractors.length][];
+
+		// The spectrum of this window, shared by all of its features so
+		// that the window is transformed at most once
+		SpectralContext spectral_context = buffers.spectral_context;
+		spectral_context.setSamples(window);
+
+		// Extract the features one by one
+		for (int feat = 0; feat < feature_extractors.length; feat++) {
+			if (features_to_extract != null && !features_to_extract[feat])
+				continue;
+
+			// Only extract this feature if enough previous information
+			// is available to extract this feature
+			if (win >= max_feature_offsets[feat]) {
+				// Find the correct feature
+				FeatureExtractor feature = feature_extractors[feat];
+
+				// Find previously extracted feature values that this
+				// feature
+				// needs
+				double[][] other_feature_values = buffers.other_feature_values[feat];
+				if (feature_extractor_dependencies[feat] != null) {
+					for (int i = 0; i < feature_extractor_dependencies[feat].length; i++) {
+						int feature_indice = feature_extractor_dependencies[feat][i];
+						int offset = feature.getDepenedencyOffsets()[i];
+						other_feature_values[i] = results[win + offset][feature_indice];
 					}
+				}
 
-					// Store the extracted feature values
-					results[win][feat] = feature.extractFeature(window,
-							sampling_rate, other_feature_values);
+				// Store the extracted feature values, reusing the array of
+				// the previous window if they are only needed for this one
+				if (is_scratch[feat]) {
+					buffers.feature_values[feat] = feature.extractFeature(
+							window, sampling_rate, other_feature_values,
+							spectral_context, buffers.feature_values[feat]);
+					results[win][feat] = buffers.feature_values[feat];
 				} else
-					results[win][feat] = null;
-			}
+					results[win][feat] = feature.extractFeature(window,
+							sampling_rate, other_feature_values,
+							spectral_context);
+			} else
+				results[win][feat] = null;
 		}
 
-		// Return the results
-		return results;
+		// Discard the values that were only needed for this window, since
+		// their arrays will be reused for the next one
+		for (int feat = 0; feat < feature_extractors.length; feat++)
+			if (is_scratch[feat])
+				results[win][feat] = null;
+	}
+
+	/**
+	 * The arrays that a thread reuses from one window to the next when
+	 * extracting features, so that as few arrays as possible are allocated
+	 * for each window.
+	 */
+	private class WindowBuffers {
+		// The samples of the current window.
+		double[] window;
+
+		// The spectrum of the current window.
+		SpectralContext spectral_context;
+
+		// The arrays passed to each feature extractor to hold the values of
+		// its dependencies. The first indice corresponds to that of
+		// feature_extractors. Null for features without dependencies.
+		double[][][] other_feature_values;
+
+		// The values of each feature in is_scratch for the most recent
+		// window, whose arrays are reused for the next window.
+		double[][] feature_values;
+
+		WindowBuffers() {
+			window = new double[window_size];
+			spectral_context = new SpectralContext();
+			other_feature_values = new double[feature_extractors.length][][];
+			for (int feat = 0; feat < feature_extractors.length; feat++)
+				if (feature_extractor_dependencies[feat] != null)
+					other_feature_values[feat] = new double[feature_extractor_dependencies[feat].length][];
+			feature_values = new double[feature_extractors.length][];
+		}
 	}
 
 	/**
@@ -1034,6 +1697,100 @@ public class FeatureProcessor {
 		values_writer.writeBytes("\t</data_set>\n\n");
 	}
 
+	/**
+	 * Writes the given feature values extracted from a recording to the ACE
+	 * binary feature values file referred to by the binary_values_writer
+	 * field, with full precision. Writes both the individual window features
+	 * and the overall recording features to disk. The feature definitions are
+	 * written to the same file before the values of the first recording.
+	 *
+	 * @param feature_values
+	 *            The extracted feature values for this recording. The first
+	 *            indice identifies the window, the second identifies the
+	 *            feature and the third identifies the feature value. The third
+	 *            dimension will be null if the given feature could not be
+	 *            extracted for the given window.
+	 * @param window_start_indices
+	 *            The indices of samples that correspond to where each window
+	 *            should start.
+	 * @param identifier
+	 *            A string to use for identifying this recording. Often a file
+	 *            path.
+	 * @param aggContainer
+	 *            The aggregators holding the overall recording features.
+	 * @throws Exception
+	 *             Throws an exception if cannot write.
+	 */
+	private void saveBinaryFeatureVectorsForARecording(
+			double[][][] feature_values, int[] window_start_indices,
+			String identifier, AggregatorContainer aggContainer)
+			throws Exception {
+		String[] window_feature_names = new String[feature_extractors.length];
+		for (int feat = 0; feat < feature_extractors.length; feat++)
+			window_feature_names[feat] = feature_extractors[feat]
+					.getFeatureDefinition().name;
+		FeatureDefinition[] overall_definitions = new FeatureDefinition[0];
+		double[][] overall_values = null;
+		String[] overall_feature_names = new String[0];
+		if (save_overall_recording_features) {
+			overall_definitions = aggContainer.getFeatureDefinitions();
+			overall_values = aggContainer.getResults();
+			overall_feature_names = new String[overall_definitions.length];
+			for (int feat = 0; feat < overall_definitions.length; feat++)
+				overall_feature_names[feat] = overall_definitions[feat].name;
+		}
+
+		// Write the window and then the overall feature definitions, with the
+		// dimensions of the values of this recording. Every saved feature is
+		// defined, even if it could not be extracted from any window of this
+		// recording, since it may be extracted from later recordings.
+		if (!binary_values_writer.isHeaderWritten()) {
+			LinkedList<FeatureDefinition> definitions = new LinkedList<FeatureDefinition>();
+			if (save_features_for_each_window)
+				for (int feat = 0; feat < feature_extractors.length; feat++)
+					if (features_to_save[feat]) {
+						FeatureDefinition def = feature_extractors[feat]
+								.getFeatureDefinition();
+						int dimensions = def.dimensions;
+						for (int win = 0; win < feature_values.length; win++)
+							if (feature_values[win][feat] != null)
+								dimensions = Math.max(dimensions,
+										feature_values[win][feat].length);
+						definitions.add(new FeatureDefinition(def.name,
+								def.description, def.is_sequential, dimensions));
+					}
+			for (int feat = 0; feat < overall_definitions.length; feat++) {
+				FeatureDefinition def = overall_definitions[feat];
+				int dimensions = def.dimensions;
+				if (overall_values[feat] != null)
+					dimensions = Math.max(dimensions,
+							overall_values[feat].length);
+				definitions.add(new FeatureDefinition(def.name,
+						def.description, def.is_sequential, dimensions));
+			}
+			binary_values_writer.writeHeader(definitions
+					.toArray(new FeatureDefinition[definitions.size()]));
+		}
+
+		// Write the overall features and then those of each window
+		binary_values_writer.writeInstance(identifier, overall_feature_names,
+				overall_values);
+		if (save_features_for_each_window)
+			for (int win = 0; win < feature_values.length; win++) {
+				double start_time = ((double) window_start_indices[win])
+						/ sampling_rate;
+				double end_time = ((double) (window_start_indices[win]
+						+ window_size - 1))
+						/ sampling_rate;
+				double[][] saved_values = new double[feature_values[win].length][];
+				for (int feat = 0; feat < feature_values[win].length; feat++)
+					if (features_to_save[feat])
+						saved_values[feat] = feature_values[win][feat];
+				binary_values_writer.writeSubSection(win, start_time,
+						end_time, window_feature_names, saved_values);
+			}
+	}
+
 	/**
 	 * Writes feature definitions to the XML file referred to by the
 	 * definitions_writer field. Writes both overall and individual feature
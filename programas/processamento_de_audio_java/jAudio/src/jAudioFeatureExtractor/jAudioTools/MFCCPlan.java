@@ -0,0 +1,262 @@
+/*
+ * @(#)MFCCPlan.java	1.0	October 17, 2026.
+ *
+ * McGill Univarsity
+ */
+
+package jAudioFeatureExtractor.jAudioTools;
+
+import jAudio.org.oc.ocvolume.dsp.featureExtraction;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * A reusable plan for calculating Mel Frequency Cepstral Coefficients from
+ * magnitude spectra of a single length and sampling rate. The plan holds the
+ * mel filterbank, as a sparse matrix of the bins and weights of each filter,
+ * and the discrete cosine transform, as a dense matrix. These are calculated
+ * once when the plan is created, rather than for every window, so
+ * calculating the coefficients of a spectrum only involves applying the
+ * filterbank, taking logarithms and applying the cosine transform.
+ *
+ * <p>The coefficients are exactly those calculated by the fftBinIndices,
+ * melFilter, nonLinearTransformation and cepCoefficients methods of the
+ * OrangeCow featureExtraction class, which the plan is built from. This
+ * includes the filter weights of melFilter, which are calculated with
+ * integer division.
+ *
+ * <p>Plans are obtained through getPlan, which shares plans between all
+ * callers. Plans are immutable, and may be used by many threads at once.
+ *
+ * @author	agent
+ */
+public class MFCCPlan
+{
+	/* FIELDS ******************************************************************/
+
+
+	// The plans created so far, keyed by their sampling rate, spectrum
+	// length and number of coefficients.
+	private static final ConcurrentHashMap<String, MFCCPlan> plans = new ConcurrentHashMap<String, MFCCPlan>();
+
+	// The value that melFilter and nonLinearTransformation floor the
+	// logarithms of the filter outputs at.
+	private static final double	LOG_FLOOR = -50;
+
+	// The sampling rate of the audio that the spectra come from.
+	private final double		sampling_rate;
+
+	// The number of bins in each spectrum.
+	private final int			spectrum_length;
+
+	// The number of coefficients calculated.
+	private final int			number_of_cepstra;
+
+	// The bins and weights of the rising and falling halves of each mel
+	// filter. Only bins with non-zero weights are included. The first indice
+	// identifies the filter.
+	private final int[][]		rising_bins;
+	private final double[][]	rising_weights;
+	private final int[][]		falling_bins;
+	private final double[][]	falling_weights;
+
+	// The cosine transform. The first indice identifies the coefficient and
+	// the second identifies the filter.
+	private final double[][]	cosine_table;
+
+
+	/* CONSTRUCTOR *************************************************************/
+
+
+	/**
+	 * Calculate the filterbank and cosine transform for the given spectra.
+	 *
+	 * @param	sampling_rate		The sampling rate of the audio.
+	 * @param	spectrum_length		The number of bins in each spectrum.
+	 * @param	number_of_cepstra	The number of coefficients to calculate.
+	 */
+	private MFCCPlan(double sampling_rate, int spectrum_length, int number_of_cepstra)
+	{
+		this.sampling_rate = sampling_rate;
+		this.spectrum_length = spectrum_length;
+		this.number_of_cepstra = number_of_cepstra;
+
+		// Find the edges of the filters
+		featureExtraction fe = new featureExtraction();
+		int[] cbin = fe.fftBinIndices(sampling_rate, spectrum_length);
+		int number_of_filters = cbin.length - 2;
+
+		// Find the weight of each bin of each filter, as melFilter does
+		rising_bins = new int[number_of_filters][];
+		rising_weights = new double[number_of_filters][];
+		falling_bins = new int[number_of_filters][];
+		falling_weights = new double[number_of_filters][];
+		for (int k = 1; k <= number_of_filters; k++)
+		{
+			int[] rising = new int[cbin[k] - cbin[k - 1] + 1];
+			for (int i = cbin[k - 1]; i <= cbin[k]; i++)
+				rising[i - cbin[k - 1]] = (i - cbin[k - 1] + 1) / (cbin[k] - cbin[k - 1] + 1);
+			int[] falling = new int[Math.max(0, cbin[k + 1] - cbin[k])];
+			for (int i = cbin[k] + 1; i <= cbin[k + 1]; i++)
+				falling[i - cbin[k] - 1] = 1 - ((i - cbin[k]) / (cbin[k + 1] - cbin[k] + 1));
+
+			rising_bins[k - 1] = getNonZeroBins(rising, cbin[k - 1]);
+			rising_weights[k - 1] = getNonZeroWeights(rising);
+			falling_bins[k - 1] = getNonZeroBins(falling, cbin[k] + 1);
+			falling_weights[k - 1] = getNonZeroWeights(falling);
+		}
+
+		// Calculate the cosine transform, as cepCoefficients does
+		cosine_table = new double[number_of_cepstra][number_of_filters];
+		for (int i = 0; i < number_of_cepstra; i++)
+			for (int j = 1; j <= number_of_filters; j++)
+				cosine_table[i][j - 1] = Math.cos(Math.PI * i / number_of_filters * (j - 0.5));
+	}
+
+
+	/* PUBLIC METHODS **********************************************************/
+
+
+	/**
+	 * Returns the plan for the given spectra, creating it if no such plan has
+	 * been requested before.
+	 *
+	 * @param	sampling_rate		The sampling rate of the audio that the
+	 *								spectra come from.
+	 * @param	spectrum_length		The number of bins in each spectrum. This
+	 *								is the frame size given to fftBinIndices.
+	 * @param	number_of_cepstra	The number of coefficients to calculate.
+	 * @return						The plan.
+	 */
+	public static MFCCPlan getPlan(double sampling_rate, int spectrum_length, int number_of_cepstra)
+	{
+		String key = sampling_rate + " " + spectrum_length + " " + number_of_cepstra;
+		MFCCPlan plan = plans.get(key);
+		if (plan == null)
+		{
+			plan = new MFCCPlan(sampling_rate, spectrum_length, number_of_cepstra);
+			MFCCPlan existing = plans.putIfAbsent(key, plan);
+			if (existing != null)
+				plan = existing;
+		}
+		return plan;
+	}
+
+
+	/**
+	 * Returns whether this plan is for the given spectra.
+	 *
+	 * @param	sampling_rate		The sampling rate of the audio.
+	 * @param	spectrum_length		The number of bins in each spectrum.
+	 * @param	number_of_cepstra	The number of coefficients to calculate.
+	 * @return						Whether getPlan would return this plan.
+	 */
+	public boolean matches(double sampling_rate, int spectrum_length, int number_of_cepstra)
+	{
+		return this.sampling_rate == sampling_rate &&
+		       this.spectrum_length == spectrum_length &&
+		       this.number_of_cepstra == number_of_cepstra;
+	}
+
+
+	/**
+	 * Returns the number of mel filters in the filterbank.
+	 *
+	 * @return	The number of filters.
+	 */
+	public int getNumberOfFilters()
+	{
+		return cosine_table.length == 0 ? rising_bins.length : cosine_table[0].length;
+	}
+
+
+	/**
+	 * Calculate the Mel Frequency Cepstral Coefficients of the given magnitude
+	 * spectrum.
+	 *
+	 * @param	spectrum	The magnitude spectrum. Must have the length that
+	 *						this plan was created for.
+	 * @return				The coefficients.
+	 */
+	public double[] getCoefficients(double[] spectrum)
+	{
+		// Apply the filterbank and take the logarithm of each filter's output
+		int number_of_filters = rising_bins.length;
+		double[] log_filter_outputs = new double[number_of_filters];
+		for (int k = 0; k < number_of_filters; k++)
+		{
+			double rising_sum = 0;
+			int[] bins = rising_bins[k];
+			double[] weights = rising_weights[k];
+			for (int i = 0; i < bins.length; i++)
+				rising_sum += weights[i] * spectrum[bins[i]];
+
+			double falling_sum = 0;
+			bins = falling_bins[k];
+			weights = falling_weights[k];
+			for (int i = 0; i < bins.length; i++)
+				falling_sum += weights[i] * spectrum[bins[i]];
+
+			log_filter_outputs[k] = Math.log(rising_sum + falling_sum);
+			if (log_filter_outputs[k] < LOG_FLOOR)
+				log_filter_outputs[k] = LOG_FLOOR;
+		}
+
+		// Apply the cosine transform
+		double[] coefficients = new double[number_of_cepstra];
+		for (int i = 0; i < number_of_cepstra; i++)
+		{
+			double[] cosines = cosine_table[i];
+			for (int j = 0; j < number_of_filters; j++)
+				coefficients[i] += log_filter_outputs[j] * cosines[j];
+		}
+		return coefficients;
+	}
+
+
+	/* PRIVATE METHODS *********************************************************/
+
+
+	/**
+	 * Returns the bins of the given filter weights that are not zero.
+	 *
+	 * @param	weights		The weight of each bin of part of a filter.
+	 * @param	first_bin	The bin of the first weight.
+	 * @return				The bins whose weights are not zero, in order.
+	 */
+	private static int[] getNonZeroBins(int[] weights, int first_bin)
+	{
+		int count = 0;
+		for (int i = 0; i < weights.length; i++)
+			if (weights[i] != 0)
+				count++;
+		int[] bins = new int[count];
+		count = 0;
+		for (int i = 0; i < weights.length; i++)
+			if (weights[i] != 0)
+				bins[count++] = first_bin + i;
+		return bins;
+	}
+
+
+	/**
+	 * Returns the weights of the given filter weights that are not zero.
+	 *
+	 * @param	weights	The weight of each bin of part of a filter.
+	 * @return			The weights that are not zero, in order.
+	 */
+	private static double[] getNonZeroWeights(int[] weights)
+	{
+		int count = 0;
+		for (int i = 0; i < weights.length; i++)
+			if (weights[i] != 0)
+				count++;
+		double[] non_zero = new double[count];
+		count = 0;
+		for (int i = 0; i < weights.length; i++)
+			if (weights[i] != 0)
+				non_zero[count++] = weights[i];
+		return non_zero;
+	}
+}
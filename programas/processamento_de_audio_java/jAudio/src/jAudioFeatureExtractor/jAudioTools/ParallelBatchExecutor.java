@@ -0,0 +1,219 @@
+/*
+ * @(#)ParallelBatchExecutor.java	1.0	October 17, 2026.
+ *
+ * McGill Univarsity
+ */
+
+package jAudioFeatureExtractor.jAudioTools;
+
+import jAudioFeatureExtractor.Cancel;
+import jAudioFeatureExtractor.ExplicitCancel;
+import jAudioFeatureExtractor.Updater;
+
+import java.io.File;
+import java.util.LinkedList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Extracts features from many recordings at once, without any GUI. Each
+ * recording is given to one of a fixed number of threads, which extracts the
+ * features of every window of the recording with its own copy of the feature
+ * extractors (see FeatureProcessor.createRecordingProcessor), since some
+ * extractors keep state between windows. The feature values are then
+ * aggregated and saved by the FeatureProcessor that the executor was created
+ * with, on the calling thread and in the order that the recordings were
+ * given, so the saved ACE XML, ARFF or binary files list the recordings in
+ * the same order as if they had been extracted one after another.
+ *
+ * <p>At most a fixed number of recordings are queued or being extracted at
+ * any time, and no more recordings are started until the oldest of these has
+ * been saved. This bounds the number of recordings whose samples and feature
+ * values are held in memory at once, however many recordings there are.
+ *
+ * <p>Every recording starts with fresh copies of the feature extractors,
+ * whether it is extracted by this class or by FeatureProcessor.extractFeatures,
+ * so the saved values are identical to those extracted one recording after
+ * another.
+ *
+ * @author	agent
+ */
+public class ParallelBatchExecutor
+{
+	/* FIELDS ******************************************************************/
+
+
+	// The processor that saves the feature values of every recording, and
+	// that the processors of each recording are copied from.
+	private FeatureProcessor	processor;
+
+	// Allows an external entity to halt execution.
+	private Cancel				cancel;
+
+	// The number of recordings extracted at the same time.
+	private int					number_of_threads;
+
+	// The largest number of recordings that are queued, being extracted, or
+	// waiting to be saved at any time.
+	private int					max_pending_recordings;
+
+
+	/* CONSTRUCTOR *************************************************************/
+
+
+	/**
+	 * Prepare to extract features with the given processor.
+	 *
+	 * @param	processor				The processor to save feature values
+	 *									with. Its settings, feature extractors
+	 *									and aggregators are used for every
+	 *									recording.
+	 * @param	cancel					Checked before each recording is
+	 *									started and saved. Execution stops with
+	 *									an ExplicitCancel if it is set.
+	 * @param	number_of_threads		The number of recordings to extract
+	 *									features from at the same time.
+	 * @param	max_pending_recordings	The largest number of recordings to
+	 *									have started but not yet saved. Raised
+	 *									to number_of_threads if it is smaller.
+	 * @throws	Exception				Throws an exception if
+	 *									number_of_threads is less than 1.
+	 */
+	public ParallelBatchExecutor( FeatureProcessor processor,
+	                              Cancel cancel,
+	                              int number_of_threads,
+	                              int max_pending_recordings )
+		throws Exception
+	{
+		if (number_of_threads < 1)
+			throw new Exception( "The number of threads is " + number_of_threads + ".\n" +
+			                     "This value must be 1 or above." );
+		this.processor = processor;
+		this.cancel = cancel;
+		this.number_of_threads = number_of_threads;
+		this.max_pending_recordings = Math.max(number_of_threads, max_pending_recordings);
+	}
+
+
+	/* PUBLIC METHODS **********************************************************/
+
+
+	/**
+	 * Extract the features from the given audio files and save them with the
+	 * processor, in the order that the files are given. The processor's
+	 * finalize method is not called.
+	 *
+	 * @param	recording_files	The audio files to extract features from.
+	 * @param	updater			Told each time that a recording has been saved.
+	 *							May be null.
+	 * @throws	Exception		Throws an exception if features cannot be
+	 *							extracted from or saved for a recording. No
+	 *							further recordings are saved once this happens.
+	 */
+	public void extractFeatures(File[] recording_files, Updater updater)
+		throws Exception
+	{
+		// The recordings that have been started but not saved, in order
+		LinkedList<Future<double[][][]>> pending_values = new LinkedList<Future<double[][][]>>();
+		LinkedList<int[][]> pending_start_indices = new LinkedList<int[][]>();
+
+		ThreadPoolExecutor pool = new ThreadPoolExecutor( number_of_threads,
+		                                                  number_of_threads,
+		                                                  0L,
+		                                                  TimeUnit.MILLISECONDS,
+		                                                  new ArrayBlockingQueue<Runnable>(max_pending_recordings) );
+		try
+		{
+			int next_to_save = 0;
+			for (int rec = 0; rec < recording_files.length; rec++)
+			{
+				// Wait for the oldest recording to be saved if too many are
+				// pending
+				if (pending_values.size() >= max_pending_recordings)
+				{
+					saveNextRecording( recording_files[next_to_save],
+					                   pending_values.removeFirst(),
+					                   pending_start_indices.removeFirst() );
+					next_to_save++;
+					if (updater != null)
+						updater.announceUpdate(next_to_save, 0);
+				}
+
+				// Start extracting this recording with its own extractors
+				final File recording_file = recording_files[rec];
+				final FeatureProcessor recording_processor = processor.createRecordingProcessor();
+				final int[][] window_start_indices = new int[1][];
+				pending_start_indices.add(window_start_indices);
+				pending_values.add(pool.submit(new Callable<double[][][]>()
+				{
+					public double[][][] call() throws Exception
+					{
+						if (cancel.isCancel())
+							throw new ExplicitCancel("Killed while processing features");
+						return recording_processor.extractRecordingFeatures(recording_file, null, window_start_indices);
+					}
+				}));
+			}
+
+			// Save the recordings that are still pending
+			while (!pending_values.isEmpty())
+			{
+				saveNextRecording( recording_files[next_to_save],
+				                   pending_values.removeFirst(),
+				                   pending_start_indices.removeFirst() );
+				next_to_save++;
+				if (updater != null)
+					updater.announceUpdate(next_to_save, 0);
+			}
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+	}
+
+
+	/* PRIVATE METHODS *********************************************************/
+
+
+	/**
+	 * Wait for the given recording to be extracted, and then save its
+	 * feature values with the processor.
+	 *
+	 * @param	recording_file			The audio file of the recording.
+	 * @param	window_feature_values	The result of the recording's
+	 *									extraction.
+	 * @param	window_start_indices	Filled with the start of each window
+	 *									of the recording by its extraction.
+	 * @throws	Exception				Throws the exception thrown by the
+	 *									extraction if it failed, or an
+	 *									exception if the values cannot be
+	 *									saved.
+	 */
+	private void saveNextRecording( File recording_file,
+	                                Future<double[][][]> window_feature_values,
+	                                int[][] window_start_indices )
+		throws Exception
+	{
+		double[][][] values;
+		try
+		{
+			values = window_feature_values.get();
+		}
+		catch (ExecutionException e)
+		{
+			// Rethrow exceptions thrown by features and cancellations
+			if (e.getCause() instanceof Exception)
+				throw (Exception) e.getCause();
+			throw e;
+		}
+		if (cancel.isCancel())
+			throw new ExplicitCancel("Killed while saving features");
+		processor.saveRecordingFeatures(recording_file, values, window_start_indices[0]);
+	}
+}
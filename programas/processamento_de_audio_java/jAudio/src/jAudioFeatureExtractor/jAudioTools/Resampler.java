@@ -0,0 +1,371 @@
+/*
+ * @(#)Resampler.java	1.0	October 17, 2026.
+ *
+ * McGill Univarsity
+ */
+
+package jAudioFeatureExtractor.jAudioTools;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Converts mixed down samples from one sampling rate to another with a
+ * polyphase windowed sinc filter. The ratio between the two rates is reduced
+ * to a fraction L/M of whole numbers, and each output sample is calculated
+ * from the input samples around it with one of L phases of a Kaiser windowed
+ * low-pass filter. The filter removes frequencies above the lower of the two
+ * Nyquist frequencies, so that downsampling does not cause aliasing.
+ *
+ * <p>The filter tables of each ratio are calculated once and shared by all
+ * resamplers with that ratio, such as those for 44.1 kHz to 22.05 kHz or
+ * 48 kHz to 16 kHz. Ratios that need more than MAXIMUM_PHASES phases use
+ * the nearest earlier of MAXIMUM_PHASES evenly spaced phases.
+ *
+ * <p>Samples may be resampled a block at a time with process and flush,
+ * which keep only as many input samples as the filter needs, or all at once
+ * with resample. Output sample k corresponds to the time of input sample
+ * k * M / L, and there are as many output samples as there are output
+ * sampling periods in the input. Input samples before the first and after
+ * the last are taken to be zero.
+ *
+ * @author	agent
+ */
+public class Resampler
+{
+	/* FIELDS ******************************************************************/
+
+
+	// The filter tables calculated so far, keyed by the reduced ratio.
+	private static final ConcurrentHashMap<String, double[][]> filter_tables = new ConcurrentHashMap<String, double[][]>();
+
+	// The largest number of phases in a filter table.
+	private static final int	MAXIMUM_PHASES = 4096;
+
+	// The number of zero crossings of the sinc function on each side of the
+	// filter, at the lower of the two sampling rates.
+	private static final int	ZERO_CROSSINGS = 16;
+
+	// The fraction of the lower Nyquist frequency that the filter passes.
+	private static final double	ROLLOFF = 0.95;
+
+	// The shape parameter of the Kaiser window.
+	private static final double	KAISER_BETA = 8.0;
+
+	// The reduced ratio of the output to the input sampling rate.
+	private final long			interpolation;
+	private final long			decimation;
+
+	// The filter coefficients of each phase. The first indice identifies the
+	// phase and the second the input sample, from half_length - 1 samples
+	// before the output sample to half_length samples after it.
+	private final double[][]	filter_table;
+
+	// Half the number of input samples that each output sample is calculated
+	// from.
+	private final int			half_length;
+
+	// The input samples that later output samples still need. The first is
+	// input sample buffer_start, and buffered samples are held.
+	private double[]			input_buffer;
+	private long				buffer_start;
+	private int					buffered;
+
+	// The number of input samples given to process so far.
+	private long				input_count;
+
+	// The indice of the next output sample to be calculated.
+	private long				next_output;
+
+	// Holds the output samples calculated by the last call to process or
+	// flush.
+	private double[]			output_buffer;
+
+
+	/* CONSTRUCTOR *************************************************************/
+
+
+	/**
+	 * Prepare to resample audio between the given sampling rates. The rates
+	 * are rounded to whole numbers of Hz.
+	 *
+	 * @param	input_sampling_rate		The sampling rate of the samples given
+	 *									to the resampler.
+	 * @param	output_sampling_rate	The sampling rate to convert them to.
+	 * @throws	Exception				Throws an informative exception if
+	 *									either rate is not positive.
+	 */
+	public Resampler(double input_sampling_rate, double output_sampling_rate)
+		throws Exception
+	{
+		long input_rate = Math.round(input_sampling_rate);
+		long output_rate = Math.round(output_sampling_rate);
+		if (input_rate <= 0 || output_rate <= 0)
+			throw new Exception( "Cannot resample audio from a sampling rate of " + input_sampling_rate + " Hz\n" +
+			                     "to a sampling rate of " + output_sampling_rate + " Hz." );
+
+		// Reduce the ratio
+		long divisor = greatestCommonDivisor(input_rate, output_rate);
+		interpolation = output_rate / divisor;
+		decimation = input_rate / divisor;
+
+		// Find or calculate the filter table
+		String key = interpolation + "/" + decimation;
+		double[][] table = filter_tables.get(key);
+		if (table == null)
+		{
+			table = calculateFilterTable(interpolation, decimation);
+			double[][] existing = filter_tables.putIfAbsent(key, table);
+			if (existing != null)
+				table = existing;
+		}
+		filter_table = table;
+		half_length = table[0].length / 2;
+
+		input_buffer = new double[4096 + 2 * half_length];
+		buffer_start = 0;
+		buffered = 0;
+		input_count = 0;
+		next_output = 0;
+		output_buffer = new double[4096];
+	}
+
+
+	/* PUBLIC METHODS **********************************************************/
+
+
+	/**
+	 * Returns the number of output samples that resampling the given number
+	 * of input samples results in.
+	 *
+	 * @param	input_length	The number of input samples.
+	 * @return					The number of output samples.
+	 */
+	public long getOutputLength(long input_length)
+	{
+		return (input_length * interpolation + decimation - 1) / decimation;
+	}
+
+
+	/**
+	 * Add the given input samples and calculate every output sample that can
+	 * be calculated from the input samples given so far. The output samples
+	 * are placed at the start of the array returned by getOutput.
+	 *
+	 * @param	input	The array holding the input samples.
+	 * @param	offset	The indice of the first input sample in input.
+	 * @param	length	The number of input samples.
+	 * @return			The number of output samples calculated.
+	 */
+	public int process(double[] input, int offset, int length)
+	{
+		// Discard the input samples that no later output sample needs
+		long needed = (next_output * decimation) / interpolation - half_length + 1;
+		int discarded = (int) Math.min(buffered, Math.max(0, needed - buffer_start));
+		if (discarded > 0)
+		{
+			System.arraycopy(input_buffer, discarded, input_buffer, 0, buffered - discarded);
+			buffered -= discarded;
+			buffer_start += discarded;
+		}
+
+		// Add the new input samples
+		if (buffered + length > input_buffer.length)
+		{
+			double[] larger = new double[Math.max(2 * input_buffer.length, buffered + length)];
+			System.arraycopy(input_buffer, 0, larger, 0, buffered);
+			input_buffer = larger;
+		}
+		System.arraycopy(input, offset, input_buffer, buffered, length);
+		buffered += length;
+		input_count += length;
+
+		return calculateOutput(false);
+	}
+
+
+	/**
+	 * Calculate the remaining output samples, taking every input sample after
+	 * those given so far to be zero. The output samples are placed at the
+	 * start of the array returned by getOutput. No more samples should be
+	 * processed afterwards.
+	 *
+	 * @return	The number of output samples calculated.
+	 */
+	public int flush()
+	{
+		return calculateOutput(true);
+	}
+
+
+	/**
+	 * Returns the array holding the output samples calculated by the last
+	 * call to process or flush. Its contents are replaced by the next call to
+	 * either.
+	 *
+	 * @return	The output samples, starting at indice 0.
+	 */
+	public double[] getOutput()
+	{
+		return output_buffer;
+	}
+
+
+	/**
+	 * Resample the given samples in their entirety. This resampler should
+	 * not have been given any samples before.
+	 *
+	 * @param	samples	The samples to resample.
+	 * @return			The resampled samples.
+	 */
+	public double[] resample(double[] samples)
+	{
+		double[] resampled = new double[(int) getOutputLength(samples.length)];
+		int count = process(samples, 0, samples.length);
+		System.arraycopy(output_buffer, 0, resampled, 0, count);
+		int remaining = flush();
+		System.arraycopy(output_buffer, 0, resampled, count, remaining);
+		return resampled;
+	}
+
+
+	/* PRIVATE METHODS *********************************************************/
+
+
+	/**
+	 * Calculate output samples into output_buffer, starting at next_output.
+	 *
+	 * @param	at_end	Whether no more input samples will be given, so that
+	 *					all remaining output samples should be calculated.
+	 *					Otherwise, only output samples whose input samples
+	 *					have all been given are calculated.
+	 * @return			The number of output samples calculated.
+	 */
+	private int calculateOutput(boolean at_end)
+	{
+		int phases = filter_table.length;
+		int taps = filter_table[0].length;
+		int produced = 0;
+		while (true)
+		{
+			long position = next_output * decimation;
+			long centre = position / interpolation;
+			if (at_end)
+			{
+				if (position >= input_count * interpolation)
+					break;
+			}
+			else if (centre + half_length >= input_count)
+				break;
+
+			// Apply the phase of the filter that falls between the input
+			// samples, skipping input samples that do not exist
+			double[] coefficients = filter_table[(int) ((position % interpolation) * phases / interpolation)];
+			long first = centre - half_length + 1;
+			int start_tap = (int) Math.max(0, buffer_start - first);
+			int end_tap = (int) Math.min(taps, input_count - first);
+			int input_index = (int) (first - buffer_start);
+			double sample = 0.0;
+			for (int tap = start_tap; tap < end_tap; tap++)
+				sample += coefficients[tap] * input_buffer[input_index + tap];
+
+			if (produced == output_buffer.length)
+			{
+				double[] larger = new double[2 * output_buffer.length];
+				System.arraycopy(output_buffer, 0, larger, 0, produced);
+				output_buffer = larger;
+			}
+			output_buffer[produced] = sample;
+			produced++;
+			next_output++;
+		}
+		return produced;
+	}
+
+
+	/**
+	 * Calculate the coefficients of each phase of the filter for the given
+	 * ratio. The coefficients of each phase are scaled so that they sum to
+	 * one, so that every phase has a gain of one at 0 Hz.
+	 *
+	 * @param	interpolation	The numerator of the reduced ratio.
+	 * @param	decimation		The denominator of the reduced ratio.
+	 * @return					The filter table. The first indice identifies
+	 *							the phase and the second the input sample.
+	 */
+	private static double[][] calculateFilterTable(long interpolation, long decimation)
+	{
+		// The filter is widened when downsampling to lower its cut-off
+		double scale = Math.min(1.0, (double) interpolation / (double) decimation);
+		double cutoff = 0.5 * scale * ROLLOFF;
+		int half_length = (int) Math.ceil(ZERO_CROSSINGS / scale);
+		int phases = (int) Math.min(interpolation, MAXIMUM_PHASES);
+
+		double[][] table = new double[phases][2 * half_length];
+		double window_divisor = besselI0(KAISER_BETA);
+		for (int phase = 0; phase < phases; phase++)
+		{
+			double fraction = (double) phase / (double) phases;
+			double sum = 0.0;
+			for (int tap = 0; tap < table[phase].length; tap++)
+			{
+				// The distance in input samples from the output sample
+				double distance = fraction - (tap - half_length + 1);
+				double relative = distance / half_length;
+				double coefficient = 0.0;
+				if (Math.abs(relative) < 1.0)
+				{
+					double argument = 2.0 * cutoff * distance;
+					double sinc = (argument == 0.0) ? 1.0 : Math.sin(Math.PI * argument) / (Math.PI * argument);
+					double window = besselI0(KAISER_BETA * Math.sqrt(1.0 - relative * relative)) / window_divisor;
+					coefficient = 2.0 * cutoff * sinc * window;
+				}
+				table[phase][tap] = coefficient;
+				sum += coefficient;
+			}
+			for (int tap = 0; tap < table[phase].length; tap++)
+				table[phase][tap] /= sum;
+		}
+		return table;
+	}
+
+
+	/**
+	 * Returns the zeroth order modified Bessel function of the first kind of
+	 * the given value, as used by the Kaiser window.
+	 *
+	 * @param	x	The value.
+	 * @return		I0(x).
+	 */
+	private static double besselI0(double x)
+	{
+		double sum = 1.0;
+		double term = 1.0;
+		double half_x = x / 2.0;
+		for (int k = 1; term > sum * 1E-16; k++)
+		{
+			term *= (half_x / k) * (half_x / k);
+			sum += term;
+		}
+		return sum;
+	}
+
+
+	/**
+	 * Returns the greatest common divisor of the given positive numbers.
+	 *
+	 * @param	a	The first number.
+	 * @param	b	The second number.
+	 * @return		The greatest common divisor.
+	 */
+	private static long greatestCommonDivisor(long a, long b)
+	{
+		while (b != 0)
+		{
+			long remainder = a % b;
+			a = b;
+			b = remainder;
+		}
+		return a;
+	}
+}
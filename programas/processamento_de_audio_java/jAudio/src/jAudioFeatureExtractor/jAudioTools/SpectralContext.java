@@ -0,0 +1,321 @@
+/*
+ * @(#)SpectralContext.java	1.0	October 17, 2026.
+ *
+ * McGill Univarsity
+ */
+
+package jAudioFeatureExtractor.jAudioTools;
+
+import java.util.Arrays;
+
+/**
+ * The spectrum of a single window of audio, shared by all of the features
+ * extracted from that window. FeatureProcessor creates one of these for each
+ * window and passes it to every feature extractor, so that however many
+ * features need the spectrum of a window, the window is only Hanning windowed
+ * and Fourier transformed once.
+ *
+ * <p>The FFT is only performed the first time that one of the spectral values
+ * is requested, so windows from which no spectral features are extracted are
+ * never transformed. The FFT is a forward transform with a Hanning window, as
+ * used by the MagnitudeSpectrum and PowerSpectrum features.
+ *
+ * <p>A spectral context may be reused for one window after another by calling
+ * setSamples, in which case the arrays that hold the results of the FFT are
+ * reused too, and no arrays are allocated for the FFT of each window. The
+ * magnitude and power spectra can also be calculated into arrays supplied by
+ * the caller.
+ *
+ * <p>The arrays returned by this class are shared, and must not be modified.
+ *
+ * @author	agent
+ */
+public class SpectralContext
+{
+	/* FIELDS ******************************************************************/
+
+
+	// The samples of the window.
+	private double[]	samples;
+
+	// The plan used to transform the samples. Null until it is first needed.
+	private FFTPlan		plan;
+
+	// The real and imaginary results of the Hanning windowed FFT of the
+	// samples, which are zero-padded to the size of the plan. Reused from
+	// one window to the next.
+	private double[]	real_values;
+	private double[]	imaginary_values;
+
+	// Whether real_values and imaginary_values hold the FFT of the samples.
+	private boolean		transformed;
+
+	// The magnitude spectrum, power spectrum and phase angles of the
+	// samples. Null until they are first requested.
+	private double[]	magnitude_spectrum;
+	private double[]	power_spectrum;
+	private double[]	phase_angles;
+
+
+	/* CONSTRUCTOR *************************************************************/
+
+
+	/**
+	 * Prepare to provide the spectrum of the given window. The FFT is not
+	 * performed until the spectrum is requested.
+	 *
+	 * @param	samples	The samples of the window. These must not be changed
+	 *					while this object is in use.
+	 */
+	public SpectralContext(double[] samples)
+	{
+		plan = null;
+		real_values = null;
+		imaginary_values = null;
+		setSamples(samples);
+	}
+
+
+	/**
+	 * Prepare to provide the spectra of windows that are given later with the
+	 * setSamples method.
+	 */
+	public SpectralContext()
+	{
+		this(null);
+	}
+
+
+	/* PUBLIC METHODS **********************************************************/
+
+
+	/**
+	 * Prepare to provide the spectrum of a new window, discarding the spectrum
+	 * of the previous window. Arrays returned by getRealValues and
+	 * getImaginaryValues before this is called are overwritten when the new
+	 * window is transformed.
+	 *
+	 * @param	samples	The samples of the window. These must not be changed
+	 *					while they are in use.
+	 */
+	public void setSamples(double[] samples)
+	{
+		this.samples = samples;
+		transformed = false;
+		magnitude_spectrum = null;
+		power_spectrum = null;
+		phase_angles = null;
+	}
+
+
+	/**
+	 * Returns the samples of the window.
+	 *
+	 * @return	The samples.
+	 */
+	public double[] getSamples()
+	{
+		return samples;
+	}
+
+
+	/**
+	 * Returns whether the FFT of the window has been performed.
+	 *
+	 * @return	Whether any spectral values have been requested.
+	 */
+	public boolean isTransformed()
+	{
+		return transformed;
+	}
+
+
+	/**
+	 * Returns the magnitude spectrum of the window, as calculated by
+	 * FFT.getMagnitudeSpectrum.
+	 *
+	 * @return				The magnitude of each frequency bin.
+	 * @throws	Exception	Throws an exception if the window has less than
+	 *						three samples.
+	 */
+	public double[] getMagnitudeSpectrum()
+		throws Exception
+	{
+		if (magnitude_spectrum == null)
+			magnitude_spectrum = getMagnitudeSpectrum(null);
+		return magnitude_spectrum;
+	}
+
+
+	/**
+	 * Calculates the magnitude spectrum of the window into the given array,
+	 * as for getMagnitudeSpectrum. The array is not kept by this object.
+	 *
+	 * @param	output		The array to fill. A new array is allocated if this
+	 *						is null or has the wrong length.
+	 * @return				The magnitude of each frequency bin. output, unless
+	 *						a new array had to be allocated.
+	 * @throws	Exception	Throws an exception if the window has less than
+	 *						three samples.
+	 */
+	public double[] getMagnitudeSpectrum(double[] output)
+		throws Exception
+	{
+		transform();
+		int number_unfolded_bins = imaginary_values.length / 2;
+		if (output == null || output.length != number_unfolded_bins)
+			output = new double[number_unfolded_bins];
+		for (int i = 0; i < output.length; i++)
+			output[i] = ( Math.sqrt(real_values[i] * real_values[i] + imaginary_values[i] * imaginary_values[i]) ) / real_values.length;
+		return output;
+	}
+
+
+	/**
+	 * Returns the power spectrum of the window, as calculated by
+	 * FFT.getPowerSpectrum.
+	 *
+	 * @return				The power of each frequency bin.
+	 * @throws	Exception	Throws an exception if the window has less than
+	 *						three samples.
+	 */
+	public double[] getPowerSpectrum()
+		throws Exception
+	{
+		if (power_spectrum == null)
+			power_spectrum = getPowerSpectrum(null);
+		return power_spectrum;
+	}
+
+
+	/**
+	 * Calculates the power spectrum of the window into the given array, as
+	 * for getPowerSpectrum. The array is not kept by this object.
+	 *
+	 * @param	output		The array to fill. A new array is allocated if this
+	 *						is null or has the wrong length.
+	 * @return				The power of each frequency bin. output, unless a
+	 *						new array had to be allocated.
+	 * @throws	Exception	Throws an exception if the window has less than
+	 *						three samples.
+	 */
+	public double[] getPowerSpectrum(double[] output)
+		throws Exception
+	{
+		transform();
+		int number_unfolded_bins = imaginary_values.length / 2;
+		if (output == null || output.length != number_unfolded_bins)
+			output = new double[number_unfolded_bins];
+		for (int i = 0; i < output.length; i++)
+			output[i] = (real_values[i] * real_values[i] + imaginary_values[i] * imaginary_values[i]) / real_values.length;
+		return output;
+	}
+
+
+	/**
+	 * Returns the phase angle of each frequency bin of the window, as
+	 * calculated by FFT.getPhaseAngles.
+	 *
+	 * @return				The phase angle for each frequency bin in degrees.
+	 * @throws	Exception	Throws an exception if the window has less than
+	 *						three samples.
+	 */
+	public double[] getPhaseAngles()
+		throws Exception
+	{
+		if (phase_angles == null)
+		{
+			transform();
+			int number_unfolded_bins = imaginary_values.length / 2;
+			phase_angles = new double[number_unfolded_bins];
+			for (int i = 0; i < phase_angles.length; i++)
+			{
+				if (imaginary_values[i] == 0.0 && real_values[i] == 0.0)
+					phase_angles[i] = 0.0;
+				else
+					phase_angles[i] = Math.atan(imaginary_values[i] / real_values[i]) * 180.0 / Math.PI;
+
+				if (real_values[i] < 0.0 && imaginary_values[i] == 0.0)
+					phase_angles[i] = 180.0;
+				else if (real_values[i] < 0.0 && imaginary_values[i] == -0.0)
+					phase_angles[i] = -180.0;
+				else if (real_values[i] < 0.0 && imaginary_values[i] > 0.0)
+					phase_angles[i] += 180.0;
+				else if (real_values[i] < 0.0 && imaginary_values[i] < 0.0)
+					phase_angles[i] += -180.0;
+			}
+		}
+		return phase_angles;
+	}
+
+
+	/**
+	 * Returns the real values calculated by the FFT of the window. The array
+	 * is overwritten when the next window is transformed.
+	 *
+	 * @return				The real values.
+	 * @throws	Exception	Throws an exception if the window has less than
+	 *						three samples.
+	 */
+	public double[] getRealValues()
+		throws Exception
+	{
+		transform();
+		return real_values;
+	}
+
+
+	/**
+	 * Returns the imaginary values calculated by the FFT of the window. The
+	 * array is overwritten when the next window is transformed.
+	 *
+	 * @return				The imaginary values.
+	 * @throws	Exception	Throws an exception if the window has less than
+	 *						three samples.
+	 */
+	public double[] getImaginaryValues()
+		throws Exception
+	{
+		transform();
+		return imaginary_values;
+	}
+
+
+	/* PRIVATE METHODS *********************************************************/
+
+
+	/**
+	 * Performs the Hanning windowed FFT of the samples into real_values and
+	 * imaginary_values, if this has not already been done for the current
+	 * window. The plan's real transform is used, which takes roughly half the
+	 * time of the complex transform used by the FFT class, and whose results
+	 * differ from those of the FFT class only by rounding errors.
+	 *
+	 * @throws	Exception	Throws an exception if the window has less than
+	 *						three samples.
+	 */
+	private void transform()
+		throws Exception
+	{
+		if (transformed)
+			return;
+		if (samples.length < 3)
+			throw new Exception( "Only " + samples.length + " samples provided.\n" +
+			                     "At least three are needed." );
+
+		// Zero-pad the samples to a power of 2, reusing the arrays of the
+		// previous window if they are the right size
+		int valid_size = jAudioFeatureExtractor.GeneralTools.Statistics.ensureIsPowerOfN(samples.length, 2);
+		if (plan == null || plan.getSize() != valid_size)
+		{
+			plan = FFTPlan.getPlan(valid_size);
+			real_values = new double[valid_size];
+			imaginary_values = new double[valid_size];
+		}
+		System.arraycopy(samples, 0, real_values, 0, samples.length);
+		Arrays.fill(real_values, samples.length, valid_size, 0.0);
+
+		plan.transformReal(real_values, true, false, real_values, imaginary_values);
+		transformed = true;
+	}
+}
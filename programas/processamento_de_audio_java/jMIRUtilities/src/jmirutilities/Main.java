@@ -68,6 +68,17 @@ public class Main
 			convertACEXMLtoARFF(args[1], args[2]);
 		}
 
+		// Convert an ACE XML Feature Values file to the ACE binary feature values format
+		else if (args[0].equals("-convertFeatureValuesToBinary"))
+		{
+			if (args.length != 4)
+			{
+				System.err.println("ERROR: The -convertFeatureValuesToBinary option must be followed by three parameters, the first specifying path of the ACE XML Feature Values file to convert, the second specifying an ACE XML Feature Definitions file associted with it and the third specifying the path of the new binary feature values file to save to.");
+				System.exit(-1);
+			}
+			convertACEXMLtoBinary(args[1], args[2], args[3]);
+		}
+
 		// Perform fingerprinting
 		else if (args[0].equals("-batchAudioIdentify"))
 		{
@@ -271,36 +282,96 @@ public class Main
 	private static void convertACEXMLtoARFF( String ace_xml_input_file_path,
 			String weka_arff_output_file_path )
 	{
-		// Stores parsed contents of the ACE XML file
-		ace.datatypes.DataBoard feature_values = null;
-
-		// Parse the ACE XML file
+		// Parse the ACE XML file one instance at a time, converting and saving
+		// each instance to Weka ARFF as it is parsed, and output the instance
+		// identifiers to standard out
 		try
 		{
 			String[] input_files = new String[1];
 			input_files[0] = ace_xml_input_file_path;
-			feature_values = new ace.datatypes.DataBoard(null, null, input_files, null);
+			File output_file = new File(weka_arff_output_file_path);
+			String relation_name = "Converted_from_ACE_XML";
+			String[] instance_identififiers = ace.datatypes.DataBoard.convertToARFF(input_files, null, relation_name, output_file, true, true);
+
+			if (instance_identififiers != null)
+				for (int i = 0; i < instance_identififiers.length; i++)
+					System.out.println(instance_identififiers[i]);
+		}
+		catch (FileNotFoundException e)
+		{
+			System.err.println("ERROR: Could not succesfully save the Weka ARFF file to the path:" + weka_arff_output_file_path + ". Perhaps you do not have write permission to this path?");
+			System.exit(-1);
 		}
 		catch (Exception e)
 		{
 			System.err.println("ERROR: Could not succesfully parse the file specified at that path: " + ace_xml_input_file_path + ". Perhaps this file does not exist, or is not a valid ACE XML Feature Values file?");
 			System.exit(-1);
 		}
+	}
 
-		// Convert and save to Weka ARFF and output the instance identifiers to standard out
+
+	/**
+	 * Parse the specified <i>ace_xml_feature_values_file_path</i> ACE XML
+	 * Feature Value file and its associated
+	 * <i>ace_xml_feature_definitions_file_path</i> ACE XML Feature Definitions
+	 * file, and save them together in a new file in the ACE binary feature
+	 * values format at the path specified by <i>binary_output_file_path</i>.
+	 * Note that any existing file at the output path is overwritten. ACE can
+	 * memory-map the new file rather than parsing it, and the feature
+	 * definitions stored in it mean that no Feature Definitions file is needed
+	 * alongside it.
+	 *
+	 * @param ace_xml_feature_values_file_path		The path of the input ACE XML file
+	 *												containing feature values that is
+	 *												to be parsed and converted.
+	 * @param ace_xml_feature_definitions_file_path	The path of the input ACE XML file
+	 *												holding feature definitions corresponding
+	 *												to the feature values.
+	 * @param binary_output_file_path				The path of the new binary feature
+	 *												values file to save to.
+	 */
+	private static void convertACEXMLtoBinary( String ace_xml_feature_values_file_path,
+			String ace_xml_feature_definitions_file_path,
+			String binary_output_file_path )
+	{
+		// Parse the ACE XML Feature Definitions file
+		FeatureDefinition[] feature_definitions = null;
 		try
 		{
-			File output_file = new File(weka_arff_output_file_path);
-			String relation_name = "Converted_from_ACE_XML";
-			String[] instance_identififiers = feature_values.saveToARFF(relation_name, output_file, true, true);
+			feature_definitions = FeatureDefinition.parseFeatureDefinitionsFile(ace_xml_feature_definitions_file_path);
+		}
+		catch (Exception e)
+		{
+			System.err.println("ERROR: Could not succesfully parse the files specified at the paths: " + ace_xml_feature_values_file_path + " and " + ace_xml_feature_definitions_file_path + ". Perhaps these files do not exist, or are not valid ACE XML Feature Values and Feature Definitions files?");
+			System.exit(-1);
+		}
 
-			if (instance_identififiers != null)
-				for (int i = 0; i < instance_identififiers.length; i++)
-					System.out.println(instance_identififiers[i]);
+		// Parse the ACE XML Feature Values file one instance at a time, saving
+		// each instance to the binary file as soon as it is parsed
+		BinaryFeatureValuesWriter writer = null;
+		try
+		{
+			writer = new BinaryFeatureValuesWriter(new FileOutputStream(binary_output_file_path));
+			writer.writeHeader(feature_definitions);
+			final BinaryFeatureValuesWriter instance_writer = writer;
+			DataSet.streamDataSetFile(ace_xml_feature_values_file_path, new DataSetReceiver()
+			{
+				public void dataSetParsed(DataSet data_set) throws Exception
+				{
+					instance_writer.writeDataSets(new DataSet[] {data_set});
+				}
+			});
+			writer.close();
 		}
 		catch (Exception e)
 		{
-			System.err.println("ERROR: Could not succesfully save the Weka ARFF file to the path:" + weka_arff_output_file_path + ". Perhaps you do not have write permission to this path?");
+			if (writer != null)
+			{
+				try {writer.close();}
+				catch (Exception f) {}
+				new File(binary_output_file_path).delete();
+			}
+			System.err.println("ERROR: Could not succesfully convert the file at the path " + ace_xml_feature_values_file_path + " to a binary feature values file at the path " + binary_output_file_path + ". " + e.getMessage());
 			System.exit(-1);
 		}
 	}
@@ -751,13 +822,20 @@ public class Main
 		for (int i = 0; i < file_names.length; i++)
 			file_names[i] = files[i].getAbsolutePath();
 
-		// Construct a list of all valid Feature Vector files found
+		// Construct a list of all valid Feature Vector files found. The parsed
+		// DataSets are discarded as they are parsed, as only validity matters here.
 		Vector<String> valid_so_far = new Vector<String>();
+		DataSetReceiver discard = new DataSetReceiver()
+		{
+			public void dataSetParsed(DataSet data_set) {}
+		};
 		for (int i = 0; i < file_names.length; i++)
 		{
 			try
 			{
-				Object[] results = (Object[]) ace.xmlparsers.XMLDocumentParser.parseXMLDocument(file_names[i], "feature_vector_file");
+				ace.xmlparsers.XMLDocumentParser.parseXMLDocument( file_names[i],
+						"feature_vector_file",
+						new ace.xmlparsers.ParseDataSetFileHandler(discard) );
 				valid_so_far.add(file_names[i]);
 			}
 			catch (Exception e) {};
@@ -1235,6 +1313,7 @@ public class Main
 		System.out.println("\nFILE CONVERSTION OPTIONS:");
 		System.out.println("-convertFeatureValuesToCSV: Convert an ACE XML Feature Values file (and its associated Feature Definitions file) into a CSV file listing both instance identifiers and feature values. The -convertFeatureValuesToCSV option must be followed by two parameters, the first specifying path of the ACE XML Feature Values file to convert and the second specifying an ACE XML Feature Definitions file associted with it. The CSV file is given the same name as the Feature Values file, but with a CSV extention.");
 		System.out.println("-convertFeatureValuesToARFF: Convert an ACE XML Feature Values file into a Weka ARFF file. Note that any existing file at the output path is overwritten. The instance identifiers stored in the ACE XML file are printed to standard out, as these cannot be stored in a meaningful way in Weka ARFF files. Also, the Weka relation name is defaulted to \"Converted_from_ACE_XML\". This option must be followed by two parameters, the first specifying path of the ACE XML Feature Values file to convert, and the second specifying the path of the new Weka ARFF file to save to.");
+		System.out.println("-convertFeatureValuesToBinary: Convert an ACE XML Feature Values file (and its associated Feature Definitions file) into a single file in the ACE binary feature values format, which holds both the feature definitions and the unrounded feature values, and which ACE can load far more quickly than ACE XML. Note that any existing file at the output path is overwritten. This option must be followed by three parameters, the first specifying path of the ACE XML Feature Values file to convert, the second specifying an ACE XML Feature Definitions file associted with it and the third specifying the path of the new binary feature values file to save to. Binary feature values files may also be given in place of ACE XML Feature Values files to the -convertFeatureValuesToARFF, -mergeFeatures, -modifyInstanceIdentifiers and -splitInstancesByFeatureType options.");
 		System.out.println("\nLABELLING OPTIONS:");
 		System.out.println("-batchAudioIdentify: Identify all MP3 files in a specified directory and its sub-directories based on audio fingerprinting, and save the results in a tab-delimitted text file (specifying file path, title and artist for one file per line). This option must be followed by three parameters, the first specifying the audio root directory, the second specifying the output file path and the thrid specifying an Echo Nest API Key (to enable access to Echo Nest fingerprinting web services.");
 		System.out.println("-fileLabelInstances: Run a GUI for generating an ACE XML Classifications File to contain model labels where instances are identified based on file paths batch selected by the user, and assigned class names are batch entered by the user.");
@@ -57,6 +57,32 @@ public enum CommandLineSwitchEnum
 	 */
 	CSV(SwitchCommandEnum.COMMAND_LINE, "-csv"),
 	
+	/**
+	 * A command line switch for specifying the number of files to extract features from at the same time.
+	 */
+	THREADS(SwitchCommandEnum.COMMAND_LINE, "-threads"),
+	
+	/**
+	 * A command line switch for specifying a directory in which to cache extracted feature values.
+	 */
+	CACHE(SwitchCommandEnum.COMMAND_LINE, "-cache"),
+	
+	/**
+	 * A command line switch for extracting all features again rather than reading them from the cache,
+	 * while still storing them in it.
+	 */
+	BYPASS_CACHE(SwitchCommandEnum.COMMAND_LINE, "-bypasscache"),
+	
+	/**
+	 * A command line switch for deleting all cached feature values before extraction.
+	 */
+	CLEAR_CACHE(SwitchCommandEnum.COMMAND_LINE, "-clearcache"),
+	
+	/**
+	 * A command line switch for also saving extracted feature values as an ACE binary feature values file.
+	 */
+	BINARY(SwitchCommandEnum.COMMAND_LINE, "-binary"),
+	
 	/**
 	 * A command line switch for running the GUI using data parsed from a specified configuration file.
 	 */
@@ -594,4 +620,4 @@ public enum CommandLineSwitchEnum
 		 */
 		public abstract void runProcessing(String[] args);
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
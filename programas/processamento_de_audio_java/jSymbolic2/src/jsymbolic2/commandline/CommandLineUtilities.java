@@ -1,9 +1,14 @@
 package jsymbolic2.commandline;
 
+import java.io.File;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import jsymbolic2.configuration.ConfigurationOptionState;
+import jsymbolic2.featureutils.FeatureExtractorAccess;
 import jsymbolic2.processing.FeatureExtractionJobProcessor;
+import jsymbolic2.processing.FeatureValueCache;
 import jsymbolic2.processing.UserFeedbackGenerator;
 
 /**
@@ -32,17 +37,80 @@ public final class CommandLineUtilities
 		// To hold feature extraction settings
 		boolean convert_to_arff = true;
 		boolean convert_to_csv = true;
+		boolean save_binary = false;
+		int number_of_threads = ConfigurationOptionState.DEFAULT_NUMBER_OF_THREADS;
+		String cache_directory_path = null;
+		boolean bypass_cache = false;
+		boolean clear_cache = false;
 		PrintStream status_print_stream = System.out;
 		PrintStream error_print_stream = System.err;
 
 		// Define search patterns for parsing command line arguments
 		final String window_size_pattern = "\\d*.?\\d*";
 		final String window_offset_pattern = "0?.\\d*";
+		final String threads_pattern = "[1-9]\\d*";
 		
 		// Define flags
 		final String arff_flag = "-arff";
 		final String csv_flag = "-csv";
 		final String window_flag = "-window";
+		final String threads_flag = "-threads";
+		final String cache_flag = "-cache";
+		final String bypass_cache_flag = "-bypasscache";
+		final String clear_cache_flag = "-clearcache";
+		final String binary_flag = "-binary";
+		
+		// Find out how many threads to extract features with, whether and how to use a feature value cache,
+		// and whether to also save an ACE binary feature values file. Remove these flags and their values, if
+		// present, from args before the remaining arguments are parsed.
+		List<String> args_without_threads = new ArrayList<>();
+		for (int i = 0; i < args.length; i++)
+		{
+			if (args[i].equalsIgnoreCase(threads_flag))
+			{
+				if (i + 1 >= args.length || !args[i + 1].matches(threads_pattern))
+					UserFeedbackGenerator.indicateIncorrectCommandLineArgumentsAndEndExecution(System.err, args);
+				number_of_threads = Integer.parseInt(args[i + 1]);
+				i++;
+			}
+			else if (args[i].equalsIgnoreCase(cache_flag))
+			{
+				if (i + 1 >= args.length)
+					UserFeedbackGenerator.indicateIncorrectCommandLineArgumentsAndEndExecution(System.err, args);
+				cache_directory_path = args[i + 1];
+				i++;
+			}
+			else if (args[i].equalsIgnoreCase(bypass_cache_flag))
+				bypass_cache = true;
+			else if (args[i].equalsIgnoreCase(clear_cache_flag))
+				clear_cache = true;
+			else if (args[i].equalsIgnoreCase(binary_flag))
+				save_binary = true;
+			else args_without_threads.add(args[i]);
+		}
+		String[] all_args = args;
+		args = args_without_threads.toArray(new String[0]);
+		if (cache_directory_path == null && (bypass_cache || clear_cache))
+			UserFeedbackGenerator.indicateIncorrectCommandLineArgumentsAndEndExecution(System.err, all_args);
+		
+		// Prepare the feature value cache, if one is to be used
+		FeatureValueCache feature_value_cache = null;
+		if (cache_directory_path != null)
+		{
+			try
+			{
+				feature_value_cache = new FeatureValueCache( new File(cache_directory_path),
+				                                             FeatureValueCache.DEFAULT_MAXIMUM_SIZE_IN_BYTES,
+				                                             !bypass_cache );
+				if (clear_cache)
+					feature_value_cache.clear();
+			}
+			catch (Exception e)
+			{
+				UserFeedbackGenerator.printExceptionErrorMessage(error_print_stream, e);
+				System.exit(-1);
+			}
+		}
 		
 		// Find out if CSV and/or ARFF files should be generated. Create reduced_args to hold the command line
 		// arguments with CSV or ARFF flags, if any, removed.
@@ -80,18 +148,22 @@ public final class CommandLineUtilities
 			double window_size = 0.0;
 			double window_overlap = 0.0;
 			
-			FeatureExtractionJobProcessor.extractAndSaveDefaultFeatures( input_file_path,
-			                                                             ace_xml_feature_values_file_path,
-			                                                             ace_xml_feature_definitions_file_path,
-			                                                             save_features_for_each_window,
-			                                                             save_overall_recording_features,
-			                                                             window_size,
-			                                                             window_overlap,
-			                                                             convert_to_arff,
-			                                                             convert_to_csv,
-			                                                             status_print_stream,
-			                                                             error_print_stream,
-						                                                 false );
+			FeatureExtractionJobProcessor.extractAndSaveSpecificFeatures( Arrays.asList(new File(input_file_path)),
+			                                                              ace_xml_feature_values_file_path,
+			                                                              ace_xml_feature_definitions_file_path,
+			                                                              FeatureExtractorAccess.getDefaultFeaturesToSave(),
+			                                                              save_features_for_each_window,
+			                                                              save_overall_recording_features,
+			                                                              window_size,
+			                                                              window_overlap,
+			                                                              convert_to_arff,
+			                                                              convert_to_csv,
+			                                                              save_binary,
+			                                                              number_of_threads,
+			                                                              feature_value_cache,
+			                                                              status_print_stream,
+			                                                              error_print_stream,
+			                                                              false );
 		}
 		else
 		{
@@ -108,23 +180,27 @@ public final class CommandLineUtilities
 				double window_size = Double.parseDouble(reduced_args[4]);
 				double window_overlap = Double.parseDouble(reduced_args[5]);
 				
-				FeatureExtractionJobProcessor.extractAndSaveDefaultFeatures( input_file_path,
-				                                                             ace_xml_feature_values_file_path,
-				                                                             ace_xml_feature_definitions_file_path,
-				                                                             save_features_for_each_window,
-				                                                             save_overall_recording_features,
-				                                                             window_size,
-				                                                             window_overlap,
-				                                                             convert_to_arff,
-				                                                             convert_to_csv,
-				                                                             status_print_stream,
-				                                                             error_print_stream,
-						                                                     false );
+				FeatureExtractionJobProcessor.extractAndSaveSpecificFeatures( Arrays.asList(new File(input_file_path)),
+				                                                              ace_xml_feature_values_file_path,
+				                                                              ace_xml_feature_definitions_file_path,
+				                                                              FeatureExtractorAccess.getDefaultFeaturesToSave(),
+				                                                              save_features_for_each_window,
+				                                                              save_overall_recording_features,
+				                                                              window_size,
+				                                                              window_overlap,
+				                                                              convert_to_arff,
+				                                                              convert_to_csv,
+				                                                              save_binary,
+				                                                              number_of_threads,
+				                                                              feature_value_cache,
+				                                                              status_print_stream,
+				                                                              error_print_stream,
+				                                                              false );
 			} 
 			
 			// Indicate invalid choice of command line arguments
 			else
-				UserFeedbackGenerator.indicateIncorrectCommandLineArgumentsAndEndExecution(System.err, args);
+				UserFeedbackGenerator.indicateIncorrectCommandLineArgumentsAndEndExecution(System.err, all_args);
 		}
 	}
 
@@ -141,8 +217,14 @@ public final class CommandLineUtilities
 				+ "1) No arguments (automaticallys run the GUI under default settings)\n"
 				+ "2) <SymbolicMusicFileOrDirectoryInputPath> <AceXmlFeatureValuesOutputPath> <AceXmlFeatureDefinitionsOutputPath>\n"
 				+ "\t-arff and/or -csv can be optionally be added before the above arguments.\n"
+				+ "\t-threads <NumberOfThreads> can optionally be added before the above arguments.\n"
+				+ "\t-cache <CacheDirectoryPath>, optionally with -bypasscache and/or -clearcache, can optionally be added before the above arguments.\n"
+				+ "\t-binary can optionally be added before the above arguments.\n"
 				+ "3) -window <SymbolicMusicFileInputPath> <AceXmlFeatureValuesOutputPath> <AceXmlFeatureDefinitionsOutputPath> <WindowLength> <WindowOverlapFraction>\n"
 				+ "\t-arff and/or -csv can be optionally be added before the above arguments.\n"
+				+ "\t-threads <NumberOfThreads> can optionally be added before the above arguments.\n"
+				+ "\t-cache <CacheDirectoryPath>, optionally with -bypasscache and/or -clearcache, can optionally be added before the above arguments.\n"
+				+ "\t-binary can optionally be added before the above arguments.\n"
 				+ "4) -configrun <ConfigurationFilePath>\n"
 				+ "5) -configrun <ConfigurationFilePath> <SymbolicMusicFileInputPath> <AceXmlFeatureValuesOutputPath> <AceXmlFeatureDefinitionsOutputPath>\n"
 				+ "6) -configgui <ConfigurationFilePath>\n"
@@ -157,8 +239,11 @@ public final class CommandLineUtilities
 				+ "* AceXmlFeatureDefinitionsOutputPath: The path of the ACE XML file to to which metadata descriptions of the extracted features will be saved.\n"
 				+ "* WindowLength: The duration in seconds of windows to be used during windowed feature extraction.\n"
 				+ "* WindowOverlapFraction: A value between 0 and 1 specifying the fractional overlap between consecutive windows.\n"
+				+ "* NumberOfThreads: The number of files to extract features from at the same time (1 by default). Feature values are always saved in input file order. May also be set with the number_of_threads option of a configuration file.\n"
+				+ "* CacheDirectoryPath: The path of a directory in which to cache extracted feature values (created if needed). Features already cached for a MIDI file with the same contents and window settings are not extracted again. -bypasscache extracts all features again but still updates the cache, and -clearcache empties the cache before extraction. The least recently used values are discarded when the cache exceeds 1 GB.\n"
+				+ "* -binary: Also save the extracted feature values, with full precision, in an ACE binary feature values file with the same name as AceXmlFeatureValuesOutputPath but an .acebin extension. ACE can load this file directly in place of the ACE XML files.\n"
 				+ "* ConfigurationFilePath: The path of a configuration file to load jSymbolic settings from.\n"
 				+ "* MidiOrMeiOrDirectoryPath: The path of a MIDI or MEI file to parse and report on. May alternatively be a directory holding one or more such files (sub-folders are searched recursively, and files must have qualifying MIDI or MEI extensions to be included). MEI files are converted to MIDI as part of this process.\n\n"
 				+ "NOTE: All specified file paths must either be absolute or relative to the directory holding jSymbolic2.jar.\n\n";
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
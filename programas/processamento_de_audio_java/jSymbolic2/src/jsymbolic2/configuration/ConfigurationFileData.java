@@ -134,6 +134,14 @@ public class ConfigurationFileData {
         return optionState.isConvert_to_csv();
     }
 
+    /**
+     *
+     * @return The number of threads to extract features with, as specified by the configuration file.
+     */
+    public int getNumberOfThreads() {
+        return optionState.getNumber_of_threads();
+    }
+
     /**
      *
      * @return The path that the feature value ACE XML file will be saved to.
@@ -12,6 +12,12 @@ public class ConfigurationOptionState {
     private boolean save_overall_recording_features;
     private boolean convert_to_arff;
     private boolean convert_to_csv;
+    private int number_of_threads;
+
+    /**
+     * The number of threads used for feature extraction when none is specified.
+     */
+    public static final int DEFAULT_NUMBER_OF_THREADS = 1;
 
     public ConfigurationOptionState(double window_size,
                                     double window_overlap,
@@ -19,6 +25,23 @@ public class ConfigurationOptionState {
                                     boolean save_overall_recording_features,
                                     boolean convert_to_arff,
                                     boolean convert_to_csv)
+    {
+        this(window_size,
+             window_overlap,
+             save_features_for_each_window,
+             save_overall_recording_features,
+             convert_to_arff,
+             convert_to_csv,
+             DEFAULT_NUMBER_OF_THREADS);
+    }
+
+    public ConfigurationOptionState(double window_size,
+                                    double window_overlap,
+                                    boolean save_features_for_each_window,
+                                    boolean save_overall_recording_features,
+                                    boolean convert_to_arff,
+                                    boolean convert_to_csv,
+                                    int number_of_threads)
     {
         this.window_size = window_size;
         this.window_overlap = window_overlap;
@@ -26,6 +49,11 @@ public class ConfigurationOptionState {
         this.save_overall_recording_features = save_overall_recording_features;
         this.convert_to_arff = convert_to_arff;
         this.convert_to_csv = convert_to_csv;
+        this.number_of_threads = number_of_threads;
+    }
+
+    public int getNumber_of_threads() {
+        return number_of_threads;
     }
 
     public boolean isConvert_to_csv() {
@@ -64,6 +92,7 @@ public class ConfigurationOptionState {
         if (save_features_for_each_window != that.save_features_for_each_window) return false;
         if (save_overall_recording_features != that.save_overall_recording_features) return false;
         if (convert_to_arff != that.convert_to_arff) return false;
+        if (number_of_threads != that.number_of_threads) return false;
         return convert_to_csv == that.convert_to_csv;
 
     }
@@ -80,6 +109,7 @@ public class ConfigurationOptionState {
         result = 31 * result + (save_overall_recording_features ? 1 : 0);
         result = 31 * result + (convert_to_arff ? 1 : 0);
         result = 31 * result + (convert_to_csv ? 1 : 0);
+        result = 31 * result + number_of_threads;
         return result;
     }
 }
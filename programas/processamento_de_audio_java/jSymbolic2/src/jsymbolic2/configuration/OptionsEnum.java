@@ -16,17 +16,25 @@ public enum OptionsEnum {
     save_features_for_each_window,
     save_overall_recording_features,
     convert_to_arff,
-    convert_to_csv;
+    convert_to_csv,
+    number_of_threads;
 
     /**
      * Set where all enum elements are stored for easy lookup.
      */
     private static final Set<String> layerChildHashNames = new HashSet<>();
 
+    /**
+     * Set of the names of options that may be omitted from a configuration file, in which case their
+     * default values are used.
+     */
+    private static final Set<String> optionalOptionNames = new HashSet<>();
+
     static {
         for (OptionsEnum value : EnumSet.allOf(OptionsEnum.class)) {
             layerChildHashNames.add(value.name());
         }
+        optionalOptionNames.add(number_of_threads.name());
     }
 
     /**
@@ -42,17 +50,31 @@ public enum OptionsEnum {
     /**
      *
      * @param values Compare all the enum names to the names given in the values.
-     * @return True if all the names are in fact in the input values list, otherwise false.
+     * @return True if all the names of required options are in fact in the input values list, otherwise false.
      */
     public static boolean allOptionsExist(List<String> values) {
         for(String s : layerChildHashNames) {
-            if (!values.contains(s)) {
+            if (!values.contains(s) && !optionalOptionNames.contains(s)) {
                 return false;
             }
         }
         return true;
     }
 
+    /**
+     * @return The number of options that must be specified in every configuration file.
+     */
+    public static int numberOfRequiredOptions() {
+        return layerChildHashNames.size() - optionalOptionNames.size();
+    }
+
+    /**
+     * @return True if this option may be omitted from a configuration file, otherwise false.
+     */
+    public boolean isOptional() {
+        return optionalOptionNames.contains(this.name());
+    }
+
     /**
      * Check to ensure that the value type  matches the string representation of the value passed in
      * and the corresponding enum type specified in the switch statement.
@@ -76,6 +98,9 @@ public enum OptionsEnum {
                 return isBoolean(value);
             case convert_to_csv:
                 return isBoolean(value);
+            case number_of_threads:
+                //At least one thread must be used
+                return value.matches("\\d+") && (Integer.parseInt(value) >= 1);
             default:
                 return false;
         }
@@ -89,8 +89,11 @@ public class ConfigurationFileValidatorTxtImpl extends ConfigurationFileValidato
         boolean convertToCsv = false;
         double windowSize = 0;
         double windowOverlap = 0;
+        int numberOfThreads = ConfigurationOptionState.DEFAULT_NUMBER_OF_THREADS;
 
-        if(nextHeaderIndex - currentHeaderIndex - 1 != OptionsEnum.values().length) {
+        int numberOfOptionLines = nextHeaderIndex - currentHeaderIndex - 1;
+        if(numberOfOptionLines < OptionsEnum.numberOfRequiredOptions() ||
+           numberOfOptionLines > OptionsEnum.values().length) {
             throw new Exception("Configuration file for jSymbolic " + configurationFile.getName() + " does not " +
                     "contain all possible options. It is required that all of " + Arrays.toString(ConfigFileHeaderEnum.values())
                     + " must be options under " + optionHeader + " in configuration file.");
@@ -127,13 +130,16 @@ public class ConfigurationFileValidatorTxtImpl extends ConfigurationFileValidato
                 case convert_to_csv:
                     convertToCsv = Boolean.parseBoolean(option.getOptionValue());
                     break;
+                case number_of_threads:
+                    numberOfThreads = Integer.parseInt(option.getOptionValue());
+                    break;
             }
             lineNumber++;
         }
 
         //Return option state if all options are in fact mentioned in config file
         if (OptionsEnum.allOptionsExist(optionsInConfig)) {
-            return new ConfigurationOptionState(windowSize,windowOverlap,saveWindow,saveOverall,convertToArff,convertToCsv);
+            return new ConfigurationOptionState(windowSize,windowOverlap,saveWindow,saveOverall,convertToArff,convertToCsv,numberOfThreads);
         } else {
             throw new Exception("Configuration file for jSymbolic " + configurationFile.getName() + " does not " +
                     "contain all possible options. It is required that all of " + Arrays.toString(ConfigFileHeaderEnum.values())
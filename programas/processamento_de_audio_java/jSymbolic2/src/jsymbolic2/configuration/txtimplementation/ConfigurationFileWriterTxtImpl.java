@@ -52,6 +52,14 @@ public class ConfigurationFileWriterTxtImpl extends ConfigurationFileWriter {
                 OptionsEnum.convert_to_csv.name() + ConfigurationFileDelimiterEnum.EQUAL + Boolean.toString(convertCsv);
         rawConfigFile.add(formattedCsv);
 
+        //Optional, so only written when it differs from the default
+        int numberOfThreads = optionState.getNumber_of_threads();
+        if (numberOfThreads != ConfigurationOptionState.DEFAULT_NUMBER_OF_THREADS) {
+            String formattedThreads =
+                    OptionsEnum.number_of_threads.name() + ConfigurationFileDelimiterEnum.EQUAL + Integer.toString(numberOfThreads);
+            rawConfigFile.add(formattedThreads);
+        }
+
         return rawConfigFile;
     }
 
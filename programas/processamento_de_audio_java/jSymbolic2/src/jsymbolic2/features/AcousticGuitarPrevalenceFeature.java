@@ -3,6 +3,7 @@ package jsymbolic2.features;
 import javax.sound.midi.*;
 import ace.datatypes.FeatureDefinition;
 import jsymbolic2.featureutils.MIDIFeatureExtractor;
+import jsymbolic2.processing.IntermediateRepresentationEnum;
 import jsymbolic2.processing.MIDIIntermediateRepresentations;
 
 /**
@@ -30,6 +31,9 @@ public class AcousticGuitarPrevalenceFeature
 		definition = new FeatureDefinition(name, description, is_sequential, dimensions);
 		dependencies = null;
 		offsets = null;
+		intermediate_representations = new IntermediateRepresentationEnum[] {
+			IntermediateRepresentationEnum.PITCHED_INSTRUMENTS,
+			IntermediateRepresentationEnum.NOTE_COUNTS };
 	}
 	
 
@@ -4,6 +4,7 @@ import java.util.LinkedList;
 import javax.sound.midi.*;
 import ace.datatypes.FeatureDefinition;
 import jsymbolic2.featureutils.MIDIFeatureExtractor;
+import jsymbolic2.processing.IntermediateRepresentationEnum;
 import jsymbolic2.processing.MIDIIntermediateRepresentations;
 
 /**
@@ -32,6 +33,8 @@ public class AverageLengthOfMelodicArcsFeature
 		definition = new FeatureDefinition(name, description, is_sequential, dimensions);
 		dependencies = null;
 		offsets = null;
+		intermediate_representations = new IntermediateRepresentationEnum[] {
+			IntermediateRepresentationEnum.MELODIC_INTERVALS };
 	}
 	
 
@@ -3,6 +3,7 @@ package jsymbolic2.features;
 import javax.sound.midi.Sequence;
 import ace.datatypes.FeatureDefinition;
 import jsymbolic2.featureutils.MIDIFeatureExtractor;
+import jsymbolic2.processing.IntermediateRepresentationEnum;
 import jsymbolic2.processing.MIDIIntermediateRepresentations;
 
 /**
@@ -31,6 +32,9 @@ public class AverageRestFractionAcrossVoicesFeature
 		definition = new FeatureDefinition(name, description, is_sequential, dimensions);
 		dependencies = null;
 		offsets = null;
+		intermediate_representations = new IntermediateRepresentationEnum[] {
+			IntermediateRepresentationEnum.SEQUENCE_DURATION,
+			IntermediateRepresentationEnum.CHANNEL_NOTE_ONS };
 	}
 	
 
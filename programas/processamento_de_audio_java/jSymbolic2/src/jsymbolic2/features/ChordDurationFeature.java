@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import ace.datatypes.FeatureDefinition;
 import jsymbolic2.featureutils.MIDIFeatureExtractor;
+import jsymbolic2.processing.IntermediateRepresentationEnum;
 import jsymbolic2.processing.MIDIIntermediateRepresentations;
 
 /**
@@ -35,6 +36,10 @@ public class ChordDurationFeature
 		definition = new FeatureDefinition(name, description, is_sequential, dimensions);
 		dependencies = null;
 		offsets = null;
+		intermediate_representations = new IntermediateRepresentationEnum[] {
+			IntermediateRepresentationEnum.TEMPO_AND_CHANNEL_VOLUME_MAPS,
+			IntermediateRepresentationEnum.RHYTHMIC_VALUES,
+			IntermediateRepresentationEnum.PITCHES_PRESENT_BY_TICK };
 	}
 	
 
@@ -2,6 +2,8 @@ package jsymbolic2.features;
 
 import jsymbolic2.featureutils.ChordTypeEnum;
 import jsymbolic2.featureutils.MIDIFeatureExtractor;
+import jsymbolic2.featureutils.PitchStrengthSegments;
+import jsymbolic2.processing.IntermediateRepresentationEnum;
 import jsymbolic2.processing.MIDIIntermediateRepresentations;
 import ace.datatypes.FeatureDefinition;
 import mckay.utilities.staticlibraries.MathAndStatsMethods;
@@ -51,6 +53,8 @@ public class ChordTypeHistogramFeature
 		definition = new FeatureDefinition(name, description, is_sequential, dimensions);
 		dependencies = null;
 		offsets = null;
+		intermediate_representations = new IntermediateRepresentationEnum[] {
+			IntermediateRepresentationEnum.PITCH_STRENGTH_SEGMENTS };
 	}
 
 	
@@ -86,26 +90,32 @@ public class ChordTypeHistogramFeature
 			// The total number of pitch classes
 			int number_pitch_classes = 12;
 			
-			// The combined MIDI velocity of all (non-Channel 10) notes sounding on a MIDI tick by tick basis
-			short[][] pitch_strength_by_tick_chart = sequence_info.pitch_strength_by_tick_chart;
+			// The combined MIDI velocity of all (non-Channel 10) notes sounding, segment by segment
+			PitchStrengthSegments pitch_strength_segments = sequence_info.pitch_strength_segments;
 
-			// Count the chord types tick by tick
-			for (int tick = 0; tick < pitch_strength_by_tick_chart.length; tick++)
+			// Count the chord types segment by segment, since the chord only changes between segments
+			for (int segment = 0; segment < pitch_strength_segments.getNumberOfSegments(); segment++)
 			{
-				// Find the combined MIDI velocity of all (non-Channel 10) pitch classes sounding at this tick
+				// Find the combined MIDI velocity of all (non-Channel 10) pitch classes sounding during this
+				// segment (the highest MIDI pitch is not counted)
+				short[] pitches = pitch_strength_segments.getPitches(segment);
+				short[] pitch_strengths = pitch_strength_segments.getPitchStrengths(segment);
 				int[] pitch_class_strengths_this_tick = new int[number_pitch_classes];
-				for (int pitch = 0; pitch < pitch_strength_by_tick_chart[tick].length - 1; pitch++)
+				for (int pitch_i = 0; pitch_i < pitches.length; pitch_i++)
 				{
-					int pitch_class = pitch % number_pitch_classes;
-					pitch_class_strengths_this_tick[pitch_class] += pitch_strength_by_tick_chart[tick][pitch];
+					if (pitches[pitch_i] < 127)
+					{
+						int pitch_class = pitches[pitch_i] % number_pitch_classes;
+						pitch_class_strengths_this_tick[pitch_class] += pitch_strengths[pitch_i];
+					}
 				}
 
 				// Find the type of chord
 				ChordTypeEnum chord_type = ChordTypeEnum.getChordType(pitch_class_strengths_this_tick);
 				
-				// Update the histogram to reflect the chord on this tick
+				// Update the histogram to reflect the chord on each tick of this segment
 				if (chord_type != null)
-					result[chord_type.getChordTypeCode()] += 1;
+					result[chord_type.getChordTypeCode()] += pitch_strength_segments.getDurationInTicks(segment);
 			}
 
 			// Normalize the histogram
@@ -136,4 +146,4 @@ public class ChordTypeHistogramFeature
 			return 0;
 		else return total_velocity / note_count;
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
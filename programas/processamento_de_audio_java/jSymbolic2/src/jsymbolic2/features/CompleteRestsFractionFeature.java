@@ -4,6 +4,8 @@ import java.util.stream.DoubleStream;
 import javax.sound.midi.Sequence;
 import ace.datatypes.FeatureDefinition;
 import jsymbolic2.featureutils.MIDIFeatureExtractor;
+import jsymbolic2.featureutils.PitchStrengthSegments;
+import jsymbolic2.processing.IntermediateRepresentationEnum;
 import jsymbolic2.processing.MIDIIntermediateRepresentations;
 
 /**
@@ -31,6 +33,10 @@ public class CompleteRestsFractionFeature
 		definition = new FeatureDefinition(name, description, is_sequential, dimensions);
 		dependencies = null;
 		offsets = null;
+		intermediate_representations = new IntermediateRepresentationEnum[] {
+			IntermediateRepresentationEnum.SEQUENCE_DURATION,
+			IntermediateRepresentationEnum.TEMPO_AND_CHANNEL_VOLUME_MAPS,
+			IntermediateRepresentationEnum.PITCH_STRENGTH_SEGMENTS };
 	}
 	
 
@@ -60,19 +66,22 @@ public class CompleteRestsFractionFeature
 		if (sequence_info != null)
 		{	
 			// Get information from sequence_info
-			short[][] pitch_strength_by_tick_chart = sequence_info.pitch_strength_by_tick_chart;
+			PitchStrengthSegments pitch_strength_segments = sequence_info.pitch_strength_segments;
 			double[] seconds_per_tick = sequence_info.duration_of_ticks_in_seconds;
 			
 			// The number of ticks to examine (the minus 1 is because Java doesn't count the last tick
-			int ticks_to_test = pitch_strength_by_tick_chart.length - 1;
+			int ticks_to_test = pitch_strength_segments.getDurationInTicks() - 1;
 			
-			// Find the durations of complete rests, tick by tick
+			// Find the durations of complete rests, tick by tick within each rest segment
 			double[] seconds_of_rest_per_tick = new double[ticks_to_test];
-			for (int tick = 0; tick < ticks_to_test; tick++)
+			for (int segment = 0; segment < pitch_strength_segments.getNumberOfSegments(); segment++)
 			{
-				short[] pitch_velocities = pitch_strength_by_tick_chart[tick];
-				if (mckay.utilities.staticlibraries.ArrayMethods.doesArrayContainOnlyThisValue(pitch_velocities, 0))
-					seconds_of_rest_per_tick[tick] = seconds_per_tick[tick];
+				if (pitch_strength_segments.isRest(segment))
+				{
+					int end_tick = Math.min(pitch_strength_segments.getEndTick(segment), ticks_to_test);
+					for (int tick = pitch_strength_segments.getStartTick(segment); tick < end_tick; tick++)
+						seconds_of_rest_per_tick[tick] = seconds_per_tick[tick];
+				}
 			}
 			
 			// Add up the durations of all the complete rests
@@ -90,4 +99,4 @@ public class CompleteRestsFractionFeature
 		result[0] = value;
 		return result;		
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -3,6 +3,7 @@ package jsymbolic2.features;
 import javax.sound.midi.*;
 import ace.datatypes.FeatureDefinition;
 import jsymbolic2.featureutils.MIDIFeatureExtractor;
+import jsymbolic2.processing.IntermediateRepresentationEnum;
 import jsymbolic2.processing.MIDIIntermediateRepresentations;
 
 /**
@@ -30,6 +31,7 @@ public class ComplexInitialMeterFeature
 		definition = new FeatureDefinition(name, description, is_sequential, dimensions);
 		dependencies = new String[] { "Initial Time Signature" };
 		offsets = null;
+		intermediate_representations = new IntermediateRepresentationEnum[0];
 	}
 	
 
@@ -3,6 +3,7 @@ package jsymbolic2.features;
 import javax.sound.midi.*;
 import ace.datatypes.FeatureDefinition;
 import jsymbolic2.featureutils.MIDIFeatureExtractor;
+import jsymbolic2.processing.IntermediateRepresentationEnum;
 import jsymbolic2.processing.MIDIIntermediateRepresentations;
 
 /**
@@ -31,6 +32,7 @@ public class DifferenceBetweenMostCommonRhythmicValuesFeature
 		definition = new FeatureDefinition(name, description, is_sequential, dimensions);
 		dependencies = new String[] { "Rhythmic Value Histogram" };
 		offsets = null;
+		intermediate_representations = new IntermediateRepresentationEnum[0];
 	}
 	
 
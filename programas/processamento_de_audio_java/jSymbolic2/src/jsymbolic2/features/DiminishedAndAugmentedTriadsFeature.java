@@ -4,6 +4,7 @@ import javax.sound.midi.Sequence;
 import ace.datatypes.FeatureDefinition;
 import jsymbolic2.featureutils.ChordTypeEnum;
 import jsymbolic2.featureutils.MIDIFeatureExtractor;
+import jsymbolic2.processing.IntermediateRepresentationEnum;
 import jsymbolic2.processing.MIDIIntermediateRepresentations;
 
 /**
@@ -32,6 +33,7 @@ public class DiminishedAndAugmentedTriadsFeature
 		definition = new FeatureDefinition(name, description, is_sequential, dimensions);
 		dependencies = new String[] { "Chord Type Histogram" };
 		offsets = null;
+		intermediate_representations = new IntermediateRepresentationEnum[0];
 	}
 	
 
@@ -8,6 +8,7 @@ import ace.datatypes.FeatureDefinition;
 import jsymbolic2.featureutils.CollectedNoteInfo;
 import jsymbolic2.featureutils.MIDIFeatureExtractor;
 import jsymbolic2.featureutils.NoteInfo;
+import jsymbolic2.processing.IntermediateRepresentationEnum;
 import jsymbolic2.processing.MIDIIntermediateRepresentations;
 
 /**
@@ -36,6 +37,9 @@ public class MelodicEmbellishmentsFeature
 		definition = new FeatureDefinition(name, description, is_sequential, dimensions);
 		dependencies = null;
 		offsets = null;
+		intermediate_representations = new IntermediateRepresentationEnum[] {
+			IntermediateRepresentationEnum.NOTE_COUNTS,
+			IntermediateRepresentationEnum.ALL_NOTES };
 	}
 	
 
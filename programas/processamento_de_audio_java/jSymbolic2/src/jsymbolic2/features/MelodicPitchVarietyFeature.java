@@ -8,6 +8,7 @@ import java.util.Arrays;
 import jsymbolic2.featureutils.CollectedNoteInfo;
 import jsymbolic2.featureutils.MIDIFeatureExtractor;
 import jsymbolic2.featureutils.NoteInfo;
+import jsymbolic2.processing.IntermediateRepresentationEnum;
 import jsymbolic2.processing.MIDIIntermediateRepresentations;
 
 /**
@@ -38,6 +39,8 @@ public class MelodicPitchVarietyFeature
 		definition = new FeatureDefinition(name, description, is_sequential, dimensions);
 		dependencies = null;
 		offsets = null;
+		intermediate_representations = new IntermediateRepresentationEnum[] {
+			IntermediateRepresentationEnum.ALL_NOTES };
 	}
 	
 
@@ -5,6 +5,7 @@ import javax.sound.midi.*;
 import ace.datatypes.FeatureDefinition;
 import mckay.utilities.staticlibraries.StringMethods;
 import jsymbolic2.featureutils.MIDIFeatureExtractor;
+import jsymbolic2.processing.IntermediateRepresentationEnum;
 import jsymbolic2.processing.MIDIIntermediateRepresentations;
 
 /**
@@ -32,6 +33,8 @@ public class MetricalDiversityFeature
 		definition = new FeatureDefinition(name, description, is_sequential, dimensions);
 		dependencies = null;
 		offsets = null;
+		intermediate_representations = new IntermediateRepresentationEnum[] {
+			IntermediateRepresentationEnum.OVERALL_METADATA };
 	}
 	
 
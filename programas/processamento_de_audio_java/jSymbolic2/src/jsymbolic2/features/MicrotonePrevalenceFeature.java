@@ -2,6 +2,7 @@ package jsymbolic2.features;
 
 import ace.datatypes.FeatureDefinition;
 import jsymbolic2.featureutils.MIDIFeatureExtractor;
+import jsymbolic2.processing.IntermediateRepresentationEnum;
 import jsymbolic2.processing.MIDIIntermediateRepresentations;
 import javax.sound.midi.Sequence;
 import java.util.LinkedList;
@@ -32,6 +33,9 @@ public class MicrotonePrevalenceFeature
 		definition = new FeatureDefinition(name, description, is_sequential, dimensions);
 		dependencies = null;
 		offsets = null;
+		intermediate_representations = new IntermediateRepresentationEnum[] {
+			IntermediateRepresentationEnum.NOTE_COUNTS,
+			IntermediateRepresentationEnum.PITCH_BENDS };
 	}
 	
 
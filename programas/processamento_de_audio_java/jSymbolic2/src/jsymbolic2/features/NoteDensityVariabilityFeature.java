@@ -5,6 +5,7 @@ import javax.sound.midi.Sequence;
 import ace.datatypes.FeatureDefinition;
 import mckay.utilities.sound.midi.MIDIMethods;
 import jsymbolic2.featureutils.MIDIFeatureExtractor;
+import jsymbolic2.processing.IntermediateRepresentationEnum;
 import jsymbolic2.processing.MIDIIntermediateRepresentations;
 
 /**
@@ -36,6 +37,7 @@ public class NoteDensityVariabilityFeature
 		definition = new FeatureDefinition(name, description, is_sequential, dimensions);
 		dependencies = null;
 		offsets = null;
+		intermediate_representations = new IntermediateRepresentationEnum[0];
 	}
 	
 
@@ -78,8 +80,9 @@ public class NoteDensityVariabilityFeature
 			for (int window = 0; window < windows.length; window++)
 			{
 				Sequence this_window = windows[window];
-				MIDIIntermediateRepresentations window_info = new MIDIIntermediateRepresentations(this_window);
-				note_density_of_each_window[window] = new NoteDensityFeature().extractFeature(this_window, window_info, null)[0];
+				MIDIFeatureExtractor window_feature = new NoteDensityFeature();
+				MIDIIntermediateRepresentations window_info = new MIDIIntermediateRepresentations(this_window, window_feature.getIntermediateRepresentations());
+				note_density_of_each_window[window] = window_feature.extractFeature(this_window, window_info, null)[0];
 			}
 
 			// Compute the standard deviation of the note densities
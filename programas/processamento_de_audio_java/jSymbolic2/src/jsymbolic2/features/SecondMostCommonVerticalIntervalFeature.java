@@ -2,6 +2,7 @@ package jsymbolic2.features;
 
 import ace.datatypes.FeatureDefinition;
 import jsymbolic2.featureutils.MIDIFeatureExtractor;
+import jsymbolic2.processing.IntermediateRepresentationEnum;
 import jsymbolic2.processing.MIDIIntermediateRepresentations;
 
 import javax.sound.midi.Sequence;
@@ -33,6 +34,7 @@ public class SecondMostCommonVerticalIntervalFeature
 		dependencies[0] = "Wrapped Vertical Interval Histogram";
 		dependencies[1] = "Most Common Vertical Interval";
 		offsets = null;
+		intermediate_representations = new IntermediateRepresentationEnum[0];
 	}
 	
 
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import javax.sound.midi.Sequence;
 import ace.datatypes.FeatureDefinition;
 import jsymbolic2.featureutils.MIDIFeatureExtractor;
+import jsymbolic2.processing.IntermediateRepresentationEnum;
 import jsymbolic2.processing.MIDIIntermediateRepresentations;
 
 /**
@@ -32,6 +33,10 @@ public class VariabilityAcrossVoicesOfCombinedRestsFeature extends MIDIFeatureEx
 		definition = new FeatureDefinition(name, description, is_sequential, dimensions);
 		dependencies = null;
 		offsets = null;
+		intermediate_representations = new IntermediateRepresentationEnum[] {
+			IntermediateRepresentationEnum.SEQUENCE_DURATION,
+			IntermediateRepresentationEnum.RHYTHMIC_VALUES,
+			IntermediateRepresentationEnum.CHANNEL_NOTE_ONS };
 	}
 	
 
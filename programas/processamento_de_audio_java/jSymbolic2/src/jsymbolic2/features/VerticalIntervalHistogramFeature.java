@@ -4,6 +4,8 @@ import javax.sound.midi.*;
 import ace.datatypes.FeatureDefinition;
 import mckay.utilities.staticlibraries.MathAndStatsMethods;
 import jsymbolic2.featureutils.MIDIFeatureExtractor;
+import jsymbolic2.featureutils.PitchStrengthSegments;
+import jsymbolic2.processing.IntermediateRepresentationEnum;
 import jsymbolic2.processing.MIDIIntermediateRepresentations;
 
 /**
@@ -38,6 +40,8 @@ public class VerticalIntervalHistogramFeature
 		definition = new FeatureDefinition(name, description, is_sequential, dimensions);
 		dependencies = null;
 		offsets = null;
+		intermediate_representations = new IntermediateRepresentationEnum[] {
+			IntermediateRepresentationEnum.PITCH_STRENGTH_SEGMENTS };
 	}
 
 	
@@ -71,27 +75,23 @@ public class VerticalIntervalHistogramFeature
 			vertical_interval_histogram = new double[128];
 			vertical_interval_histogram[0] = sequence_info.total_vertical_unison_velocity;
 
-			// Get the pitch_strength_by_tick_chart
-			short[][] pitch_strength_by_tick_chart = sequence_info.pitch_strength_by_tick_chart;
+			// Get the pitches sounding, segment by segment
+			PitchStrengthSegments pitch_strength_segments = sequence_info.pitch_strength_segments;
 
-			// Fill in vertical_interval_histogram for all intervals other than unisons, up to 127 semitones
-			for (int tick = 0; tick < pitch_strength_by_tick_chart.length; tick++)
+			// Fill in vertical_interval_histogram for all intervals other than unisons, up to 127 semitones.
+			// Each segment is weighted by the number of ticks it lasts.
+			for (int segment = 0; segment < pitch_strength_segments.getNumberOfSegments(); segment++)
 			{
-				for (int pitch = 0; pitch < pitch_strength_by_tick_chart[tick].length - 1; pitch++)
+				short[] pitches = pitch_strength_segments.getPitches(segment);
+				short[] pitch_velocities = pitch_strength_segments.getPitchStrengths(segment);
+				int segment_ticks = pitch_strength_segments.getDurationInTicks(segment);
+				for (int pitch_i = 0; pitch_i < pitches.length - 1; pitch_i++)
 				{
-					int pitch_velocity = pitch_strength_by_tick_chart[tick][pitch];
-					if (pitch_velocity != 0)
+					for (int other_pitch_i = pitch_i + 1; other_pitch_i < pitches.length; other_pitch_i++)
 					{
-						for (int other_pitch = pitch + 1; other_pitch < pitch_strength_by_tick_chart[tick].length; other_pitch++)
-						{
-							int other_pitch_velocity = pitch_strength_by_tick_chart[tick][other_pitch];
-							if (other_pitch_velocity != 0)
-							{
-								int interval = other_pitch - pitch;
-								int combined_interval_velocity = pitch_velocity + other_pitch_velocity;
-								vertical_interval_histogram[interval] += combined_interval_velocity;
-							}
-						}
+						int interval = pitches[other_pitch_i] - pitches[pitch_i];
+						int combined_interval_velocity = pitch_velocities[pitch_i] + pitch_velocities[other_pitch_i];
+						vertical_interval_histogram[interval] += (double) combined_interval_velocity * segment_ticks;
 					}
 				}
 			}
@@ -102,4 +102,4 @@ public class VerticalIntervalHistogramFeature
 		
 		return vertical_interval_histogram;
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -54,13 +54,26 @@ public class CollectedNoteInfo
 	 * @param tracks	All the MIDI tracks loaded from the MIDI sequence.
 	 */
 	public CollectedNoteInfo(Track[] tracks)
+	{
+		this(tracks, new NoteOffIndex(tracks));
+	}
+	
+	
+	/**
+	 * Instantiate a CollectedNoteInfo object holding all notes in the provided tracks, using an already
+	 * built index of the Note Off corresponding to each Note On in these tracks.
+	 * 
+	 * @param tracks			All the MIDI tracks loaded from the MIDI sequence.
+	 * @param note_off_index	The Note Off corresponding to each Note On in tracks.
+	 */
+	public CollectedNoteInfo(Track[] tracks, NoteOffIndex note_off_index)
 	{
 		// Initialize fields
 		note_list = new ArrayList<>();
 		start_tick_note_map = new HashMap<>();
 		
-		// Go through all tracks and all events in each track, looking for note ons and note offs, and adding
-		// each note to the class fields
+		// Go through all tracks and all events in each track, looking for note ons, and adding each note
+		// that has a corresponding note off to the class fields
 		for (int track_i = 0; track_i < tracks.length; track_i++)
 		{
 			Track this_track = tracks[track_i];
@@ -74,54 +87,17 @@ public class CollectedNoteInfo
 					{
 						if (start_message.getData2() != 0) // If not velocity 0
 						{
-							// Store the pitch and velocity of this note
-							int pitch = start_message.getData1();
-							int velocity = start_message.getData2();
-							
-							// Look ahead to find the corresponding Note Off for this Note On
-							int event_start_tick = (int) this_event.getTick();
-							for (int i = event_i + 1; i < this_track.size(); i++)
+							// Find the corresponding Note Off for this Note On
+							int event_end_tick = note_off_index.getNoteOffTick(track_i, event_i);
+							if (event_end_tick != -1)
 							{
-								if (this_track.get(i).getMessage() instanceof ShortMessage)
-								{
-									ShortMessage end_message = (ShortMessage) this_track.get(i).getMessage();
-									if (end_message.getChannel() == start_message.getChannel()) // Must be on same channel as Note On was
-									{
-										if (end_message.getCommand() == 0x80) // Note Off
-										{
-											if (end_message.getData1() == start_message.getData1()) // Must be same pitch as Note On
-											{
-												int event_end_tick = (int) this_track.get(i).getTick();
-												NoteInfo this_note = new NoteInfo( pitch,
-																				   velocity,
-																				   event_start_tick,
-																				   event_end_tick,
-																				   track_i,
-																				   end_message.getChannel() );
-												addNote(this_note);
-												i = this_track.size() + 1; // exit loop
-											}
-										}
-										if (end_message.getCommand() == 0x90) // Note On (with velocity 0 is equivalent to note off)
-										{
-											if (end_message.getData2() == 0) // Velocity 0
-											{
-												if (end_message.getData1() == start_message.getData1()) // same pitch
-												{
-													int event_end_tick = (int) this_track.get(i).getTick();
-													NoteInfo this_note = new NoteInfo( pitch,
-																					   velocity,
-																					   event_start_tick,
-																					   event_end_tick,
-																					   track_i,
-																					   end_message.getChannel());
-													addNote(this_note);
-													i = this_track.size() + 1; // exit loop
-												}
-											}
-										}
-									}
-								}
+								NoteInfo this_note = new NoteInfo( start_message.getData1(),
+																   start_message.getData2(),
+																   (int) this_event.getTick(),
+																   event_end_tick,
+																   track_i,
+																   start_message.getChannel() );
+								addNote(this_note);
 							}
 						}
 					}
@@ -250,4 +226,4 @@ public class CollectedNoteInfo
 		sorted_list.sort((s1, s2) -> ((Integer) s1.getStartTick()).compareTo(s2.getStartTick()));
 		return sorted_list;
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
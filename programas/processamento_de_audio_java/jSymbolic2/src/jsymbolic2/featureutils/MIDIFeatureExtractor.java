@@ -2,6 +2,7 @@ package jsymbolic2.featureutils;
 
 import javax.sound.midi.Sequence;
 import ace.datatypes.FeatureDefinition;
+import jsymbolic2.processing.IntermediateRepresentationEnum;
 import jsymbolic2.processing.MIDIIntermediateRepresentations;
 
 /**
@@ -49,6 +50,15 @@ public abstract class MIDIFeatureExtractor
 	 */
 	protected int[] offsets;
 
+	/**
+	 * The groups of intermediate representations (i.e. the public fields of the MIDIIntermediateRepresentations
+	 * passed to extractFeature) that a feature reads. Only these groups (and the groups that they are
+	 * calculated from) are guaranteed to have been calculated when extractFeature is called by
+	 * MIDIFeatureProcessor. Will be empty if a feature does not read any intermediate representations. If
+	 * this is null, then all intermediate representations are calculated before the feature is extracted.
+	 */
+	protected IntermediateRepresentationEnum[] intermediate_representations;
+
 	
 	/* PUBLIC METHODS ***************************************************************************************/
 	
@@ -108,6 +118,19 @@ public abstract class MIDIFeatureExtractor
 	}
 
 	
+	/**
+	 * Returns the groups of intermediate representations that this feature reads from the
+	 * MIDIIntermediateRepresentations passed to its extractFeature method. Will return null if this feature
+	 * does not specify which ones it reads, in which case all of them should be calculated.
+	 *
+	 * @return The groups of intermediate representations read by this particular feature.
+	 */
+	public IntermediateRepresentationEnum[] getIntermediateRepresentations()
+	{
+		return intermediate_representations;
+	}
+
+	
 	/**
 	 * The prototype method that classes extending this class will override in order to extract their
 	 * feature from a sequence of MIDI data.
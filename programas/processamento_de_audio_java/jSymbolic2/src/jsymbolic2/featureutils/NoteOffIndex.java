@@ -0,0 +1,106 @@
+package jsymbolic2.featureutils;
+
+import java.util.Arrays;
+import javax.sound.midi.MidiEvent;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.Track;
+
+/**
+ * An object of this class pairs every Note On in a set of MIDI tracks with its corresponding Note Off, so
+ * that the many processing steps that need to know when a note ends do not each need to scan forward
+ * through the track from every Note On. The pairing is performed in a single pass through each track,
+ * keeping, for each channel and pitch, the Note Ons that are still waiting for a Note Off. The time needed
+ * to build this index therefore grows linearly with the number of MIDI events.
+ *
+ * <p>A Note On (with a velocity other than 0) is paired with the first subsequent Note Off (or Note On with
+ * velocity 0) on the same track, channel and pitch. If a second Note On occurs on the same channel and pitch
+ * before this Note Off, then both Note Ons are paired with the same Note Off. Channel 10 notes are included.
+ *
+ * @author agent
+ */
+public class NoteOffIndex
+{
+	/* PRIVATE FIELDS ***************************************************************************************/
+
+
+	/**
+	 * The MIDI tick of the Note Off corresponding to each MIDI event. The first index indicates the track
+	 * and the second indicates the event index on that track. Entries are -1 for events that are not Note
+	 * Ons, and for Note Ons with no corresponding Note Off.
+	 */
+	private final int[][] note_off_ticks;
+
+
+	/* CONSTRUCTOR ******************************************************************************************/
+
+
+	/**
+	 * Instantiate a NoteOffIndex object pairing all Note Ons and Note Offs in the provided tracks.
+	 *
+	 * @param tracks	All the MIDI tracks loaded from the MIDI sequence.
+	 */
+	public NoteOffIndex(Track[] tracks)
+	{
+		note_off_ticks = new int[tracks.length][];
+
+		// The index of the most recent Note On still waiting for a Note Off, indexed by channel * 128 +
+		// pitch, or -1 if there is none
+		int[] last_pending_note_on = new int[16 * 128];
+
+		for (int track_i = 0; track_i < tracks.length; track_i++)
+		{
+			Track this_track = tracks[track_i];
+			note_off_ticks[track_i] = new int[this_track.size()];
+			Arrays.fill(note_off_ticks[track_i], -1);
+			Arrays.fill(last_pending_note_on, -1);
+
+			// The index of the Note On that was pending before each Note On was encountered on the same
+			// channel and pitch, or -1 if there was none. This links the pending Note Ons of each channel and
+			// pitch together, so that they can all be resolved when their Note Off is found.
+			int[] previous_pending_note_on = new int[this_track.size()];
+
+			for (int event_i = 0; event_i < this_track.size(); event_i++)
+			{
+				MidiEvent this_event = this_track.get(event_i);
+				if (this_event.getMessage() instanceof ShortMessage)
+				{
+					ShortMessage message = (ShortMessage) this_event.getMessage();
+					int command = message.getCommand();
+					if (command == 0x90 || command == 0x80)
+					{
+						int key = message.getChannel() * 128 + message.getData1();
+						if (command == 0x90 && message.getData2() != 0) // Note On
+						{
+							previous_pending_note_on[event_i] = last_pending_note_on[key];
+							last_pending_note_on[key] = event_i;
+						}
+						else // Note Off (or Note On with velocity 0)
+						{
+							int note_off_tick = (int) this_event.getTick();
+							for (int pending = last_pending_note_on[key]; pending != -1; pending = previous_pending_note_on[pending])
+								note_off_ticks[track_i][pending] = note_off_tick;
+							last_pending_note_on[key] = -1;
+						}
+					}
+				}
+			}
+		}
+	}
+
+
+	/* PUBLIC METHODS ***************************************************************************************/
+
+
+	/**
+	 * Find the MIDI tick on which the note started by the specified Note On ends.
+	 *
+	 * @param track_index	The index of the track on which the Note On is found.
+	 * @param event_index	The index of the Note On event on its track.
+	 * @return				The tick of the Note Off corresponding to the specified Note On, or -1 if the
+	 *						specified event is not a Note On or if its Note Off never occurs.
+	 */
+	public int getNoteOffTick(int track_index, int event_index)
+	{
+		return note_off_ticks[track_index][event_index];
+	}
+}
@@ -0,0 +1,299 @@
+package jsymbolic2.featureutils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.sound.midi.MidiEvent;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.Track;
+
+/**
+ * An object of this class holds a compact representation of which MIDI pitches are sounding (and with what
+ * combined velocity) over the course of a MIDI stream. Rather than storing a 128-entry row for every MIDI
+ * tick, the piece is divided into contiguous segments of ticks, where a new segment begins only when the set
+ * of sounding pitches or their combined velocities changes (i.e. at a note boundary). Each segment stores
+ * only the pitches actually sounding during it, so memory usage scales with the number of notes in the piece
+ * rather than with its length in ticks. Rests (ticks on which no pitched notes are sounding) are represented
+ * as segments holding no pitches. The segments together always cover every tick of the piece, in order.
+ *
+ * <p>NOTE: Channel 10 unpitched notes are NOT included. Notes with no corresponding Note Off are ignored.
+ *
+ * @author agent
+ */
+public class PitchStrengthSegments
+{
+	/* PRIVATE FIELDS ***************************************************************************************/
+
+
+	/**
+	 * The MIDI tick on which each segment begins. This array holds one more entry than there are segments,
+	 * and its last entry is the total number of MIDI ticks covered by this object (i.e. the tick at which
+	 * the last segment ends). A segment therefore covers all ticks from its own start tick up to, but not
+	 * including, the start tick of the next segment.
+	 */
+	private final int[] segment_start_ticks;
+
+	/**
+	 * The MIDI pitches sounding during each segment. The first index indicates the segment and the second
+	 * indicates the note index. Pitches are sorted from lowest to highest, and each pitch appears at most
+	 * once. Rest segments hold empty arrays.
+	 */
+	private final short[][] segment_pitches;
+
+	/**
+	 * The cumulative velocity of all notes sounding during each segment at each of the pitches specified in
+	 * the corresponding entry of segment_pitches.
+	 */
+	private final short[][] segment_pitch_strengths;
+
+	/**
+	 * Total combined velocity of all notes involved in a vertical unison, summed over every tick of the
+	 * entire piece.
+	 */
+	private final int total_vertical_unison_velocity;
+
+
+	/* CONSTRUCTOR ******************************************************************************************/
+
+
+	/**
+	 * Instantiate a PitchStrengthSegments object holding the pitched notes in the provided tracks.
+	 *
+	 * @param tracks				All the MIDI tracks loaded from the MIDI sequence.
+	 * @param note_off_index		The Note Off corresponding to each Note On in tracks.
+	 * @param duration_in_ticks		The total number of MIDI ticks to be covered by the segments.
+	 */
+	public PitchStrengthSegments(Track[] tracks, NoteOffIndex note_off_index, int duration_in_ticks)
+	{
+		// The start tick, end tick, pitch and velocity of every note found, in order of parsing
+		List<int[]> notes = new ArrayList<>();
+		for (int track_i = 0; track_i < tracks.length; track_i++)
+		{
+			Track this_track = tracks[track_i];
+			for (int event_i = 0; event_i < this_track.size(); event_i++)
+			{
+				MidiEvent this_event = this_track.get(event_i);
+				if (this_event.getMessage() instanceof ShortMessage)
+				{
+					ShortMessage message = (ShortMessage) this_event.getMessage();
+					if ( message.getChannel() != 10 - 1 && // is not on Channel 10
+						 message.getCommand() == 0x90 && // is a Note On message
+						 message.getData2() != 0 ) // does not have velocity 0
+					{
+						int start_tick = (int) this_event.getTick();
+						int end_tick = note_off_index.getNoteOffTick(track_i, event_i);
+						if (end_tick > start_tick)
+							notes.add(new int[] {start_tick, end_tick, message.getData1(), message.getData2()});
+					}
+				}
+			}
+		}
+
+		// Encode the start and end of each note as boundary events sorted by tick. The upper 32 bits hold
+		// the tick and the lower 32 bits hold the note index, shifted left by one and with the lowest bit
+		// set for note ends.
+		long[] boundaries = new long[notes.size() * 2];
+		for (int note_i = 0; note_i < notes.size(); note_i++)
+		{
+			int[] note = notes.get(note_i);
+			boundaries[2 * note_i] = ((long) note[0] << 32) | ((long) note_i << 1);
+			boundaries[2 * note_i + 1] = ((long) note[1] << 32) | ((long) note_i << 1) | 1L;
+		}
+		Arrays.sort(boundaries);
+
+		// Sweep through the boundaries, keeping track of the number of notes and combined velocity at each
+		// pitch, and close a segment whenever the state changes
+		int[] notes_sounding_by_pitch = new int[128];
+		int[] strength_by_pitch = new int[128];
+		List<Integer> start_ticks_list = new ArrayList<>();
+		List<short[]> pitches_list = new ArrayList<>();
+		List<short[]> strengths_list = new ArrayList<>();
+		int unison_velocity = 0;
+		int segment_start_tick = 0;
+		int boundary_i = 0;
+		while (segment_start_tick < duration_in_ticks)
+		{
+			// Find where the current state stops applying
+			int segment_end_tick = duration_in_ticks;
+			if (boundary_i < boundaries.length)
+				segment_end_tick = Math.min((int) (boundaries[boundary_i] >>> 32), duration_in_ticks);
+
+			// Store the current state as a segment (or extend the last one if nothing has changed)
+			if (segment_end_tick > segment_start_tick)
+			{
+				int number_sounding = 0;
+				for (int pitch = 0; pitch < 128; pitch++)
+					if ((short) strength_by_pitch[pitch] != 0)
+						number_sounding++;
+				short[] pitches = new short[number_sounding];
+				short[] strengths = new short[number_sounding];
+				int note_i = 0;
+				for (int pitch = 0; pitch < 128; pitch++)
+				{
+					if ((short) strength_by_pitch[pitch] != 0)
+					{
+						pitches[note_i] = (short) pitch;
+						strengths[note_i] = (short) strength_by_pitch[pitch];
+						note_i++;
+					}
+					if (notes_sounding_by_pitch[pitch] > 1)
+						unison_velocity += strength_by_pitch[pitch] * (segment_end_tick - segment_start_tick);
+				}
+
+				int last = pitches_list.size() - 1;
+				if ( last < 0 ||
+					 !Arrays.equals(pitches_list.get(last), pitches) ||
+					 !Arrays.equals(strengths_list.get(last), strengths) )
+				{
+					start_ticks_list.add(segment_start_tick);
+					pitches_list.add(pitches);
+					strengths_list.add(strengths);
+				}
+				segment_start_tick = segment_end_tick;
+			}
+
+			// Apply all boundaries found on this tick
+			while ( boundary_i < boundaries.length &&
+					(int) (boundaries[boundary_i] >>> 32) == segment_start_tick )
+			{
+				int note_i = (int) (boundaries[boundary_i] & 0xFFFFFFFFL) >>> 1;
+				boolean is_note_end = (boundaries[boundary_i] & 1L) != 0;
+				int[] note = notes.get(note_i);
+				if (is_note_end)
+				{
+					notes_sounding_by_pitch[note[2]]--;
+					strength_by_pitch[note[2]] -= note[3];
+				}
+				else
+				{
+					notes_sounding_by_pitch[note[2]]++;
+					strength_by_pitch[note[2]] += note[3];
+				}
+				boundary_i++;
+			}
+		}
+
+		// Fill the fields
+		segment_start_ticks = new int[start_ticks_list.size() + 1];
+		for (int i = 0; i < start_ticks_list.size(); i++)
+			segment_start_ticks[i] = start_ticks_list.get(i);
+		segment_start_ticks[start_ticks_list.size()] = Math.max(duration_in_ticks, 0);
+		segment_pitches = pitches_list.toArray(new short[pitches_list.size()][]);
+		segment_pitch_strengths = strengths_list.toArray(new short[strengths_list.size()][]);
+		total_vertical_unison_velocity = unison_velocity;
+	}
+
+
+	/* PUBLIC METHODS ***************************************************************************************/
+
+
+	/**
+	 * @return	The number of segments into which the piece is divided.
+	 */
+	public int getNumberOfSegments()
+	{
+		return segment_pitches.length;
+	}
+
+
+	/**
+	 * @return	The total number of MIDI ticks covered by all segments combined.
+	 */
+	public int getDurationInTicks()
+	{
+		return segment_start_ticks[segment_start_ticks.length - 1];
+	}
+
+
+	/**
+	 * @param segment	The index of the segment of interest.
+	 * @return			The first MIDI tick covered by the given segment.
+	 */
+	public int getStartTick(int segment)
+	{
+		return segment_start_ticks[segment];
+	}
+
+
+	/**
+	 * @param segment	The index of the segment of interest.
+	 * @return			The MIDI tick immediately after the last tick covered by the given segment.
+	 */
+	public int getEndTick(int segment)
+	{
+		return segment_start_ticks[segment + 1];
+	}
+
+
+	/**
+	 * @param segment	The index of the segment of interest.
+	 * @return			The number of MIDI ticks covered by the given segment.
+	 */
+	public int getDurationInTicks(int segment)
+	{
+		return segment_start_ticks[segment + 1] - segment_start_ticks[segment];
+	}
+
+
+	/**
+	 * @param segment	The index of the segment of interest.
+	 * @return			Whether no pitched notes are sounding during the given segment.
+	 */
+	public boolean isRest(int segment)
+	{
+		return segment_pitches[segment].length == 0;
+	}
+
+
+	/**
+	 * @param segment	The index of the segment of interest.
+	 * @return			The MIDI pitches sounding during the given segment, sorted from lowest to highest. The
+	 *					returned array is the one stored in this object, and must not be modified.
+	 */
+	public short[] getPitches(int segment)
+	{
+		return segment_pitches[segment];
+	}
+
+
+	/**
+	 * @param segment	The index of the segment of interest.
+	 * @return			The cumulative velocity of all notes sounding during the given segment at each of the
+	 *					pitches returned by getPitches for the same segment. The returned array is the one
+	 *					stored in this object, and must not be modified.
+	 */
+	public short[] getPitchStrengths(int segment)
+	{
+		return segment_pitch_strengths[segment];
+	}
+
+
+	/**
+	 * @return	Total combined velocity of all notes involved in a vertical unison, summed over the the entire
+	 *			piece.
+	 */
+	public int getTotalVerticalUnisonVelocity()
+	{
+		return total_vertical_unison_velocity;
+	}
+
+
+	/**
+	 * Expand the segments into a table indicating what pitches are sounding during each MIDI tick. The first
+	 * index indicates tick and the second indicates MIDI pitch (and is always set to size 128). Each entry
+	 * indicates the cumulative velocity of all notes sounding at that tick with that pitch. Note that this
+	 * table requires memory proportional to the duration of the piece in ticks, so it should only be used
+	 * for debugging and testing.
+	 *
+	 * @return	The expanded table.
+	 */
+	public short[][] getPitchStrengthByTickChart()
+	{
+		short[][] chart = new short[getDurationInTicks()][128];
+		for (int segment = 0; segment < getNumberOfSegments(); segment++)
+			for (int tick = getStartTick(segment); tick < getEndTick(segment); tick++)
+				for (int note_i = 0; note_i < segment_pitches[segment].length; note_i++)
+					chart[tick][segment_pitches[segment][note_i]] = segment_pitch_strengths[segment][note_i];
+		return chart;
+	}
+}
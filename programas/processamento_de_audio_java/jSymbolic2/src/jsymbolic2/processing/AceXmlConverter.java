@@ -1,6 +1,7 @@
 package jsymbolic2.processing;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.PrintStream;
 
 /**
@@ -53,29 +54,22 @@ public final class AceXmlConverter
 		     !ace_xml_feature_values_file_path.isEmpty() )
 		{
 			// Set output file paths. Make sure extensions are appropriate.
-			String output_arff_file_path;
-			String output_csv_file_path;
-			if (ace_xml_feature_values_file_path.endsWith(".xml"))
-			{
-				output_arff_file_path = ace_xml_feature_values_file_path.replaceAll(".xml", ".arff");
-				output_csv_file_path = ace_xml_feature_values_file_path.replaceAll(".xml", ".csv");
-			}
-			else
-			{
-				output_arff_file_path = ace_xml_feature_values_file_path + ".arff";
-				output_csv_file_path = ace_xml_feature_values_file_path + ".csv";
-			}
+			String output_arff_file_path = getArffFilePath(ace_xml_feature_values_file_path);
+			String output_csv_file_path = getCsvFilePath(ace_xml_feature_values_file_path);
 
-			// Parse the ACE XML file
-			ace.datatypes.DataBoard instance_data = null;
+			// Parse the ACE XML Feature Definitions file, if any. The feature values are not loaded all at
+			// once, but are instead parsed one instance at a time while each file is being saved, so that
+			// feature values files larger than the available memory can be converted.
+			String[] input_files = { ace_xml_feature_values_file_path };
+			ace.datatypes.FeatureDefinition[] feature_definitions = null;
 			try
 			{
-				String[] input_files = { ace_xml_feature_values_file_path };
-				instance_data = new ace.datatypes.DataBoard(null, ace_xml_feature_definitions_file_path, input_files, null);
+				if (ace_xml_feature_definitions_file_path != null && !ace_xml_feature_definitions_file_path.isEmpty())
+					feature_definitions = ace.datatypes.FeatureDefinition.parseFeatureDefinitionsFile(ace_xml_feature_definitions_file_path);
 			}
 			catch (Exception e)
 			{
-				throw new Exception("Could not succesfully parse the file specified at that path: " + ace_xml_feature_values_file_path + ". Perhaps this file does not exist, or is not a valid ACE XML Feature Values file?"); 
+				throw new Exception("Could not succesfully parse the file specified at that path: " + ace_xml_feature_definitions_file_path + ". Perhaps this file does not exist, or is not a valid ACE XML Feature Definitions file?"); 
 			}
 
 			// Convert feature values to Weka ARFF format and save the ARFF file
@@ -84,13 +78,17 @@ public final class AceXmlConverter
 				try
 				{
 					UserFeedbackGenerator.printGeneratingArffFile(status_print_stream, output_arff_file_path);
-					String relation_name = "Converted_from_ACE_XML";
-					instance_data.saveToARFF(relation_name, new File(output_arff_file_path), true, true);
+					String relation_name = WekaArffAndCsvWriter.ARFF_RELATION_NAME;
+					ace.datatypes.DataBoard.convertToARFF(input_files, feature_definitions, relation_name, new File(output_arff_file_path), true, true);
 				} 
-				catch (Exception e)
+				catch (FileNotFoundException e)
 				{
 					throw new Exception("Could not succesfully save the Weka ARFF file to the path:" + output_arff_file_path + ". Perhaps you do not have write permission?");
 				}
+				catch (Exception e)
+				{
+					throw new Exception("Could not succesfully parse the file specified at that path: " + ace_xml_feature_values_file_path + ". Perhaps this file does not exist, or is not a valid ACE XML Feature Values file?"); 
+				}
 			}
 
 			// Convert feature values to CSV format and save the CSV file
@@ -99,12 +97,16 @@ public final class AceXmlConverter
 				try
 				{
 					UserFeedbackGenerator.printGeneratingCsvFile(status_print_stream, output_csv_file_path);
-					instance_data.saveToCSV(new File(output_csv_file_path), true, true, true, true, true);
+					ace.datatypes.DataBoard.convertToCSV(input_files, feature_definitions, new File(output_csv_file_path), true, true, true, true);
 				}
-				catch (Exception e)
+				catch (FileNotFoundException e)
 				{
 					throw new Exception("Could not succesfully save the CSV file to the path:" + output_csv_file_path + ". Perhaps you do not have write permission?");
 				}
+				catch (Exception e)
+				{
+					throw new Exception("Could not succesfully parse the file specified at that path: " + ace_xml_feature_values_file_path + ". Perhaps this file does not exist, or is not a valid ACE XML Feature Values file?"); 
+				}
 			}
 
 			// Return the paths of the saved files
@@ -116,6 +118,49 @@ public final class AceXmlConverter
 		else return null;
 	}
 
+
+	/**
+	 * Find the path of the Weka ARFF file that the given ACE XML Feature Values file is converted to.
+	 *
+	 * @param ace_xml_feature_values_file_path	The path of an ACE XML Feature Values file.
+	 * @return									The same path, but with an .arff extension.
+	 */
+	public static String getArffFilePath(String ace_xml_feature_values_file_path)
+	{
+		if (ace_xml_feature_values_file_path.endsWith(".xml"))
+			return ace_xml_feature_values_file_path.replaceAll(".xml", ".arff");
+		else return ace_xml_feature_values_file_path + ".arff";
+	}
+
+
+	/**
+	 * Find the path of the CSV file that the given ACE XML Feature Values file is converted to.
+	 *
+	 * @param ace_xml_feature_values_file_path	The path of an ACE XML Feature Values file.
+	 * @return									The same path, but with a .csv extension.
+	 */
+	public static String getCsvFilePath(String ace_xml_feature_values_file_path)
+	{
+		if (ace_xml_feature_values_file_path.endsWith(".xml"))
+			return ace_xml_feature_values_file_path.replaceAll(".xml", ".csv");
+		else return ace_xml_feature_values_file_path + ".csv";
+	}
+
+
+	/**
+	 * Find the path of the ACE binary feature values file that corresponds to the given ACE XML Feature
+	 * Values file.
+	 *
+	 * @param ace_xml_feature_values_file_path	The path of an ACE XML Feature Values file.
+	 * @return									The same path, but with an .acebin extension.
+	 */
+	public static String getBinaryFilePath(String ace_xml_feature_values_file_path)
+	{
+		if (ace_xml_feature_values_file_path.endsWith(".xml"))
+			return ace_xml_feature_values_file_path.replaceAll(".xml", ace.datatypes.BinaryFeatureValuesWriter.FILE_EXTENSION);
+		else return ace_xml_feature_values_file_path + ace.datatypes.BinaryFeatureValuesWriter.FILE_EXTENSION;
+	}
+
 	
 	/* INTERNAL CLASS ***************************************************************************************/
 	
@@ -2,12 +2,18 @@ package jsymbolic2.processing;
 
 import java.io.File;
 import java.io.PrintStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.swing.JOptionPane;
-import ace.datatypes.DataBoard;
 import jsymbolic2.configuration.ConfigurationFileData;
+import jsymbolic2.configuration.ConfigurationOptionState;
 import jsymbolic2.featureutils.MIDIFeatureExtractor;
 import jsymbolic2.featureutils.FeatureExtractorAccess;
 import mckay.utilities.staticlibraries.FileMethods;
@@ -77,6 +83,95 @@ public final class FeatureExtractionJobProcessor
 	                                                           PrintStream status_print_stream,
 	                                                           PrintStream error_print_stream,
 	                                                           boolean gui_processing )
+	{
+		return extractAndSaveSpecificFeatures( paths_of_files_or_folders_to_parse,
+	                                           feature_values_save_path,
+	                                           feature_definitions_save_path,
+	                                           features_to_extract,
+										       save_features_for_each_window,
+	                                           save_overall_recording_features,
+	                                           window_size,
+	                                           window_overlap,
+										       save_arff_file,
+										       save_csv_file,
+										       false,
+	                                           ConfigurationOptionState.DEFAULT_NUMBER_OF_THREADS,
+	                                           null,
+	                                           status_print_stream,
+	                                           error_print_stream,
+											   gui_processing );
+	}
+	
+	
+	/**
+	 * Extracts features from all the files in the specified files_and_folders_to_parse list and saves them in
+	 * an ACE XML feature values file and (if specified in the passed arguments) as Weka ARFF and/or CSV
+	 * files. Qualifying files (i.e. MIDI or MEI) in directories specified in this list are also processed.
+	 * Also saves an ACE XML feature definitions file. Only the features specified in features_to_extract will
+	 * be extracted. Up to number_of_threads files are parsed and have their features extracted at the same
+	 * time, but feature values are always saved in the same order as the input files. Provides status updates
+	 * as processing continues. Any errors occurring during processing are reported on error_print_stream,
+	 * and are also collected for summarization at the end of processing. Processing continues even if errors
+	 * are encountered, with three exceptions: if the JVM runs out of memory, if an MEI-specific feature is
+	 * set to be extracted from a non-MEI file, or if MIDIFeatureProcessor cannot be initialized. In the
+	 * latter three cases, execution is terminated immediately.
+	 *
+	 * @param paths_of_files_or_folders_to_parse	A list of files and folders from which features should be 
+	 *												extracted.
+	 * @param feature_values_save_path				The path to save the extracted features to in the form of
+	 *												an ACE XML feature values file.
+	 * @param feature_definitions_save_path			The path to save the feature definitions of all features 
+	 *												to be extracted, as an ACE XML feature definitions file.
+	 * @param features_to_extract					An array indicating which features are to be saved. This
+	 *												array is ordered to match the array returned by the 
+	 *												FeatureExtractorAccess.findSpecifiedFeatures.
+	 * @param save_features_for_each_window			Whether or not features should be saved for individual
+	 *												windows arrived at by dividing up input files.
+	 * @param save_overall_recording_features		Whether or not features should be saved for overall 
+	 *												recordings as a whole (as opposed to windows).
+	 * @param window_size							The duration of each window, in seconds.
+	 * @param window_overlap						The fractional overlap between consecutive windows.
+	 * @param save_arff_file						Whether or not to save the feature values as a Weka ARFF 
+	 *												file.
+	 * @param save_csv_file							Whether or not to save the feature values as a CSV file.
+	 * @param save_binary_file						Whether or not to also save the feature values as an ACE
+	 *												binary feature values file, which holds unrounded values
+	 *												and can be memory-mapped by ACE rather than parsed.
+	 * @param number_of_threads						The number of files to extract features from at the same
+	 *												time. A value of 1 (or less) means that files are 
+	 *												processed one after another on the calling thread.
+	 * @param feature_value_cache					A cache to look up previously extracted feature values in
+	 *												and to store newly extracted ones in. Features already
+	 *												cached for a file are not extracted from it again. May be
+	 *												null, in which case all features are extracted.
+	 * @param status_print_stream					A stream to print processing progress to.
+	 * @param error_print_stream					A stream to print processing errors to as they happen, and
+	 *												at the end of processing.
+	 * @param gui_processing						True if this method is being called by a GUI, false 
+	 *												otherwise. If it is true, then error summaries will only
+	 *												be partially printed, and out of memory errors will result
+	 *												in an error window being displayed and a direct printing
+	 *												of the associated error message to standard error.
+	 * @return										A list of errors that may have occurred during processing.
+	 *												Will be empty if no errors occurred. Note that this often 
+	 *												simply duplicates what is written to error_print_stream.
+	 */
+	public static List<String> extractAndSaveSpecificFeatures( List<File> paths_of_files_or_folders_to_parse,
+	                                                           String feature_values_save_path,
+	                                                           String feature_definitions_save_path,
+	                                                           boolean[] features_to_extract,
+	                                                           boolean save_features_for_each_window,
+	                                                           boolean save_overall_recording_features,
+	                                                           double window_size,
+	                                                           double window_overlap,
+	                                                           boolean save_arff_file,
+	                                                           boolean save_csv_file,
+	                                                           boolean save_binary_file,
+	                                                           int number_of_threads,
+	                                                           FeatureValueCache feature_value_cache,
+	                                                           PrintStream status_print_stream,
+	                                                           PrintStream error_print_stream,
+	                                                           boolean gui_processing )
 	{
 		// Prepare the feature extractor
 		MIDIFeatureProcessor processor = null;
@@ -90,6 +185,11 @@ public final class FeatureExtractionJobProcessor
 					                              save_overall_recording_features,
 					                              feature_values_save_path,
 					                              feature_definitions_save_path );
+			processor.setFeatureValueCache(feature_value_cache);
+			processor.setWekaArffAndCsvFilePaths( save_arff_file ? AceXmlConverter.getArffFilePath(feature_values_save_path) : null,
+			                                      save_csv_file ? AceXmlConverter.getCsvFilePath(feature_values_save_path) : null );
+			if (save_binary_file)
+				processor.setBinaryFeatureValuesFilePath(AceXmlConverter.getBinaryFilePath(feature_values_save_path));
 		}
 		catch (Exception e)
 		{
@@ -106,18 +206,20 @@ public final class FeatureExtractionJobProcessor
 		                 processor,
 						 feature_values_save_path,
 						 feature_definitions_save_path,
+		                 number_of_threads,
 		                 status_print_stream,
 		                 error_print_stream,
 		                 error_log,
 		                 gui_processing );
 
-		// Convert the ACE XML feature values file to a Weka ARFF and/or a CSV file, if appropriate
-		saveWekaArffAndCsvFiles( feature_values_save_path,
-	                             feature_definitions_save_path,
-	                             save_arff_file,
-	                             save_csv_file,
-	                             status_print_stream,
-	                             error_print_stream );
+		// Indicate which Weka ARFF and/or CSV files were saved along with the ACE XML feature values file
+		printWekaArffAndCsvFilesSaved( processor,
+		                               feature_values_save_path,
+		                               save_arff_file,
+		                               save_csv_file,
+		                               status_print_stream );
+		if (processor.wasBinaryFeatureValuesFileSaved())
+			UserFeedbackGenerator.printGeneratingBinaryFeatureValuesFile(status_print_stream, AceXmlConverter.getBinaryFilePath(feature_values_save_path));
 		
 		// Indicate that processing is done
 		UserFeedbackGenerator.printExecutionFinished(status_print_stream);
@@ -387,6 +489,9 @@ public final class FeatureExtractionJobProcessor
 	                                           config_file_data.getWindowOverlap(),
 										       config_file_data.convertToArff(),
 										       config_file_data.convertToCsv(),
+										       false,
+	                                           config_file_data.getNumberOfThreads(),
+	                                           null,
 	                                           status_print_stream,
 	                                           error_print_stream,
 											   gui_processing );
@@ -413,6 +518,7 @@ public final class FeatureExtractionJobProcessor
 	 *										XML feature values file.
 	 * @param feature_definitions_save_path	The path to save the feature definitions of all features to be
 	 *										extracted, as an ACE XML feature definitions file.
+	 * @param number_of_threads				The number of files to extract features from at the same time.
 	 * @param status_print_stream			A stream to print processing progress to.
 	 * @param error_print_stream			A stream to print processing errors to as they happen, and at the
 	 *										end of processing.
@@ -429,6 +535,7 @@ public final class FeatureExtractionJobProcessor
 	                                     MIDIFeatureProcessor processor,
 										 String feature_values_save_path,
 										 String feature_definitions_save_path,
+	                                     int number_of_threads,
 	                                     PrintStream status_print_stream,
 	                                     PrintStream error_print_stream,
 	                                     List<String> error_log,
@@ -455,15 +562,26 @@ public final class FeatureExtractionJobProcessor
 		// Extract features from each file
 		UserFeedbackGenerator.printGeneratingAceXmlFeatureDefinitionsFile(status_print_stream, feature_definitions_save_path);
 		UserFeedbackGenerator.printFeatureExtractionStartingMessage(status_print_stream, files_to_parse.size());
-		for (int i = 0; i < files_to_parse.size(); i++)
-			extractFeatures( files_to_parse.get(i).getPath(),
-			                 processor,
-			                 i+1,
-			                 files_to_parse.size(),
-			                 status_print_stream,
-			                 error_print_stream,
-			                 error_log,
-			                 gui_processing );
+		if (number_of_threads <= 1 || files_to_parse.size() <= 1)
+		{
+			for (int i = 0; i < files_to_parse.size(); i++)
+				extractFeatures( files_to_parse.get(i).getPath(),
+				                 processor,
+				                 i+1,
+				                 files_to_parse.size(),
+				                 status_print_stream,
+				                 error_print_stream,
+				                 error_log,
+				                 gui_processing );
+		}
+		else
+			extractFeaturesInParallel( files_to_parse,
+			                           processor,
+			                           number_of_threads,
+			                           status_print_stream,
+			                           error_print_stream,
+			                           error_log,
+			                           gui_processing );
 
 		// Finalize the saving of the feature values ACE XML file
 		UserFeedbackGenerator.printGeneratingAceXmlFeatureValuesFile(status_print_stream, feature_values_save_path);
@@ -526,32 +644,246 @@ public final class FeatureExtractionJobProcessor
 		}
 		catch (OutOfMemoryError e) // Terminate execution if this happens
 		{
-			String error_message = "The Java Runtime ran out of memory while processing:\n" +
-			                       "     " + input_file_path + "\n" +
-			                       "Please rerun jSymbolic with more memory assigned to the Java runtime heap.\n\n";
-			UserFeedbackGenerator.printErrorMessage(error_print_stream, error_message);
-			if (gui_processing)
+			reportOutOfMemoryAndEndExecution(input_file_path, error_print_stream, gui_processing);
+		}
+		catch (Exception e)
+		{
+			reportExtractionException(input_file_path, e, error_print_stream, error_log);
+		}
+	}
+
+
+	/**
+	 * Extracts features from all of the given files using a pool of number_of_threads worker threads. Each
+	 * worker validates and parses its own file and extracts all features from it, but the extracted feature
+	 * values are saved by the calling thread, in the same order as files_to_parse, so that the output is the
+	 * same as if the files had been processed one after another. Only a bounded number of files are processed
+	 * ahead of the next file to be saved, so that memory use does not grow with the number of files. Errors
+	 * encountered while processing each file are reported on error_print_stream and added to error_log in
+	 * file order. Execution is terminated if the JVM runs out of memory.
+	 *
+	 * @param files_to_parse		The validated files to extract features from.
+	 * @param processor				The MIDIFeatureProcessor to extract features with.
+	 * @param number_of_threads		The number of files to extract features from at the same time.
+	 * @param status_print_stream	A stream to print processing progress to.
+	 * @param error_print_stream	A stream to print processing errors to.
+	 * @param error_log				A list of errors encountered so far. Errors are added to it if 
+	 *								encountered.
+	 * @param gui_processing		True if this method is being called by a GUI, false otherwise. If it is
+	 *								true, then out of memory errors will result in an error window being 
+	 *								displayed and a direct printing of the associated error message to 
+	 *								standard error.
+	 */
+	private static void extractFeaturesInParallel( List<File> files_to_parse,
+	                                               MIDIFeatureProcessor processor,
+	                                               int number_of_threads,
+	                                               PrintStream status_print_stream,
+	                                               PrintStream error_print_stream,
+	                                               List<String> error_log,
+	                                               boolean gui_processing )
+	{
+		int total_files_to_process = files_to_parse.size();
+		int max_files_in_progress = 2 * number_of_threads;
+		ExecutorService thread_pool = Executors.newFixedThreadPool(number_of_threads);
+		Deque<Future<FileExtractionResult>> files_in_progress = new ArrayDeque<>();
+		try
+		{
+			int next_file_to_save = 0;
+			for (int i = 0; i < total_files_to_process; i++)
 			{
-				System.err.println(error_message);
-				java.awt.Toolkit.getDefaultToolkit().beep();
-				JOptionPane.showMessageDialog( null,
-				                               error_message,
-				                               "Error",
-				                               JOptionPane.ERROR_MESSAGE );				
+				final File file = files_to_parse.get(i);
+				final int current_extraction_index = i + 1;
+				files_in_progress.add(thread_pool.submit( () -> extractFeatureValues( file,
+				                                                                      processor,
+				                                                                      current_extraction_index,
+				                                                                      total_files_to_process,
+				                                                                      status_print_stream ) ));
+				
+				// Save the oldest file once enough files are being processed ahead of it
+				if (files_in_progress.size() >= max_files_in_progress)
+				{
+					next_file_to_save++;
+					saveFeatureValues( files_in_progress.poll(),
+					                   files_to_parse.get(next_file_to_save - 1).getPath(),
+					                   processor,
+					                   next_file_to_save,
+					                   total_files_to_process,
+					                   status_print_stream,
+					                   error_print_stream,
+					                   error_log,
+					                   gui_processing );
+				}
 			}
-			System.exit(-1);
+			
+			// Save the files that are still being processed
+			while (!files_in_progress.isEmpty())
+			{
+				next_file_to_save++;
+				saveFeatureValues( files_in_progress.poll(),
+				                   files_to_parse.get(next_file_to_save - 1).getPath(),
+				                   processor,
+				                   next_file_to_save,
+				                   total_files_to_process,
+				                   status_print_stream,
+				                   error_print_stream,
+				                   error_log,
+				                   gui_processing );
+			}
+		}
+		finally
+		{
+			thread_pool.shutdownNow();
+		}
+	}
+
+
+	/**
+	 * Validates the given file and extracts its feature values, without saving them. Intended to be run on a
+	 * worker thread by extractFeaturesInParallel. Any exception that occurs is stored in the returned 
+	 * FileExtractionResult rather than thrown, as are any errors that parsing adds to the error log.
+	 *
+	 * @param input_file				The file to extract features from.
+	 * @param processor					The MIDIFeatureProcessor to extract features with.
+	 * @param current_extraction_index	Indicates the number of this particular input file in the overall
+	 *									extraction order.
+	 * @param total_files_to_process	The total number of input files that are being processed.
+	 * @param status_print_stream		A stream to print processing progress to.
+	 * @return							The extracted feature values or the exception that prevented their
+	 *									extraction, along with any errors logged during parsing.
+	 */
+	private static FileExtractionResult extractFeatureValues( File input_file,
+	                                                          MIDIFeatureProcessor processor,
+	                                                          int current_extraction_index,
+	                                                          int total_files_to_process,
+	                                                          PrintStream status_print_stream )
+	{
+		String input_file_path = input_file.getPath();
+		List<String> file_error_log = new ArrayList<>();
+		try
+		{
+			// Validate the input file
+			UserFeedbackGenerator.printFeatureExtractionFileTestProgressMessage(status_print_stream, input_file_path, current_extraction_index, total_files_to_process);
+			FileMethods.validateFile(input_file, true, false);
+
+			// Extract features from input_file, but leave saving them to the calling thread
+			UserFeedbackGenerator.printFeatureExtractionProgressMessage(status_print_stream, input_file_path, current_extraction_index, total_files_to_process);
+			return new FileExtractionResult(processor.extractFeatureValues(input_file, file_error_log), null, file_error_log);
 		}
 		catch (Exception e)
 		{
-			String error_message = "Problem extracting features from " + input_file_path + "."+
-			                       "\n\tDetailed error message: " + e + ": " + e.getMessage();
-			UserFeedbackGenerator.printErrorMessage(error_print_stream, error_message);
-			error_log.add(error_message);
-			e.printStackTrace(error_print_stream);
+			return new FileExtractionResult(null, e, file_error_log);
+		}
+	}
+
+
+	/**
+	 * Waits for the given file to finish having its features extracted and then saves its feature values,
+	 * or reports the problem that prevented their extraction. Errors logged while the file was being
+	 * processed are added to error_log. Execution is terminated if the JVM ran out of memory while processing
+	 * the file.
+	 *
+	 * @param file_in_progress			The pending result of extractFeatureValues for the file.
+	 * @param input_file_path			The path of the file being processed.
+	 * @param processor					The MIDIFeatureProcessor to save features with.
+	 * @param current_extraction_index	Indicates the number of this particular input file in the overall
+	 *									extraction order.
+	 * @param total_files_to_process	The total number of input files that are being processed.
+	 * @param status_print_stream		A stream to print processing progress to.
+	 * @param error_print_stream		A stream to print processing errors to.
+	 * @param error_log					A list of errors encountered so far. Errors are added to it if 
+	 *									encountered.
+	 * @param gui_processing			True if this method is being called by a GUI, false otherwise.
+	 */
+	private static void saveFeatureValues( Future<FileExtractionResult> file_in_progress,
+	                                       String input_file_path,
+	                                       MIDIFeatureProcessor processor,
+	                                       int current_extraction_index,
+	                                       int total_files_to_process,
+	                                       PrintStream status_print_stream,
+	                                       PrintStream error_print_stream,
+	                                       List<String> error_log,
+	                                       boolean gui_processing )
+	{
+		try
+		{
+			FileExtractionResult result;
+			try { result = file_in_progress.get(); }
+			catch (ExecutionException e)
+			{
+				if (e.getCause() instanceof OutOfMemoryError)
+					throw (OutOfMemoryError) e.getCause();
+				throw new Exception(e.getCause());
+			}
+
+			error_log.addAll(result.file_error_log);
+			if (result.exception != null)
+				throw result.exception;
+			processor.saveExtractedFeatureValues(result.feature_values);
+			UserFeedbackGenerator.printFeatureExtractionDoneAFileProgressMessage(status_print_stream, input_file_path, current_extraction_index, total_files_to_process);
+		}
+		catch (OutOfMemoryError e) // Terminate execution if this happens
+		{
+			reportOutOfMemoryAndEndExecution(input_file_path, error_print_stream, gui_processing);
+		}
+		catch (Exception e)
+		{
+			reportExtractionException(input_file_path, e, error_print_stream, error_log);
 		}
 	}
 
 
+	/**
+	 * Reports that the JVM ran out of memory while processing the given file, and terminates execution.
+	 *
+	 * @param input_file_path		The path of the file that was being processed.
+	 * @param error_print_stream	A stream to print processing errors to.
+	 * @param gui_processing		True if this method is being called by a GUI, false otherwise. If it is
+	 *								true, then an error window is displayed and the error message is also
+	 *								printed directly to standard error.
+	 */
+	private static void reportOutOfMemoryAndEndExecution( String input_file_path,
+	                                                      PrintStream error_print_stream,
+	                                                      boolean gui_processing )
+	{
+		String error_message = "The Java Runtime ran out of memory while processing:\n" +
+		                       "     " + input_file_path + "\n" +
+		                       "Please rerun jSymbolic with more memory assigned to the Java runtime heap.\n\n";
+		UserFeedbackGenerator.printErrorMessage(error_print_stream, error_message);
+		if (gui_processing)
+		{
+			System.err.println(error_message);
+			java.awt.Toolkit.getDefaultToolkit().beep();
+			JOptionPane.showMessageDialog( null,
+			                               error_message,
+			                               "Error",
+			                               JOptionPane.ERROR_MESSAGE );				
+		}
+		System.exit(-1);
+	}
+
+
+	/**
+	 * Reports a problem that prevented features from being extracted from the given file on
+	 * error_print_stream, and adds it to error_log.
+	 *
+	 * @param input_file_path		The path of the file that was being processed.
+	 * @param e						The exception that occurred.
+	 * @param error_print_stream	A stream to print processing errors to.
+	 * @param error_log				A list of errors encountered so far. The error is added to it.
+	 */
+	private static void reportExtractionException( String input_file_path,
+	                                               Exception e,
+	                                               PrintStream error_print_stream,
+	                                               List<String> error_log )
+	{
+		String error_message = "Problem extracting features from " + input_file_path + "."+
+		                       "\n\tDetailed error message: " + e + ": " + e.getMessage();
+		UserFeedbackGenerator.printErrorMessage(error_print_stream, error_message);
+		error_log.add(error_message);
+		e.printStackTrace(error_print_stream);
+	}
+
+
 	/**
 	 * Verify that no MEI-specific features are scheduled to be extracted from non-MEI files. If one or more
 	 * MEI-specific features are scheduled to be extracted and if one or more non-MEI files is on th elist of
@@ -620,66 +952,65 @@ public final class FeatureExtractionJobProcessor
 	
 	
 	/**
-	 * Convert the given ACE XML Feature Values file to a Weka ARFF and/or to a CSV file. Each file will have
-	 * the same file name as the ACE XML Feature Values file, but with an appropriately modified extension.
-	 * Does nothing if ace_xml_feature_values_file_path is null or empty, or if both save_ARFF and save_CSV
-	 * are false (null is returned in any of these cases).
+	 * Print messages indicating the Weka ARFF and/or CSV files that the given processor saved feature values
+	 * to as they were extracted. Each file has the same file name as the ACE XML Feature Values file, but
+	 * with an appropriately modified extension. Nothing is printed if no recordings had their features
+	 * saved, in which case the files are not created.
 	 *
-	 * <p>The ARFF file will have a relation name of Converted_from_ACE_XML.</p
-	 *
-	 * <p> The first row of the CSV file will list the feature names (multi-dimensional features will have a
-	 * feature index number appended to the end of their feature name). Each other row will consist of, first,
-	 * the instance identifier, followed by the value of each feature.</p>
-	 *
-	 * @param feature_values_save_path			The path of the ACE XML feature values file to convert.
-	 * @param feature_definitions_save_path		The path to save the ACE XML feature definitions file
-	 *											matching the feature_values_save_path file.
-	 * @param save_arff_file					Whether or not to save the feature values as a Weka ARFF file.
-	 * @param save_csv_file						Whether or not to save the feature values as a CSV file.
-	 * @param status_print_stream				A stream to print processing progress to.
-	 * @param error_print_stream				A stream to print processing errors to as they happen, and at 
-	 *											the end of processing.
+	 * @param processor					The MIDIFeatureProcessor that saved the feature values.
+	 * @param feature_values_save_path	The path of the ACE XML feature values file.
+	 * @param save_arff_file			Whether or not the feature values were to be saved as a Weka ARFF
+	 *									file.
+	 * @param save_csv_file				Whether or not the feature values were to be saved as a CSV file.
+	 * @param status_print_stream		A stream to print processing progress to.
 	 */
-	private static void saveWekaArffAndCsvFiles( String feature_values_save_path,
-	                                             String feature_definitions_save_path,
-	                                             boolean save_arff_file,
-	                                             boolean save_csv_file,
-	                                             PrintStream status_print_stream,
-	                                             PrintStream error_print_stream )
+	private static void printWekaArffAndCsvFilesSaved( MIDIFeatureProcessor processor,
+	                                                   String feature_values_save_path,
+	                                                   boolean save_arff_file,
+	                                                   boolean save_csv_file,
+	                                                   PrintStream status_print_stream )
 	{
-		if ( save_arff_file || save_csv_file )
+		if (processor.wereWekaArffOrCsvFilesSaved())
 		{
-			try
-			{
-				// Check to see if a valid ACE XML feature files was saved and holds extracted features for at
-				// least one instance.
-				int number_succesfully_extracted_files = 0;
-				try
-				{
-					String[] input_files = { feature_values_save_path };
-					DataBoard instance_data = new DataBoard(null, null, input_files, null);
-					number_succesfully_extracted_files = instance_data.getNumOverall();
-				}
-				catch (Exception e)
-				{
-					String warning = "Saving of Weka ARFF and/or CSV files was aborted. " + e.getMessage();
-					UserFeedbackGenerator.printWarningMessage(error_print_stream, warning);
-				}			
-
-				// Onlly try the onversion if features for at least one instance are available
-				if (number_succesfully_extracted_files > 0)
-				{
-					AceXmlConverter.saveAsArffOrCsvFiles( feature_values_save_path,
-														  feature_definitions_save_path,
-														  save_arff_file,
-														  save_csv_file,
-														  status_print_stream );
-				}
-			} 
-			catch (Exception e)
-			{
-				UserFeedbackGenerator.printExceptionErrorMessage(error_print_stream, e);
-			}
+			if (save_arff_file)
+				UserFeedbackGenerator.printGeneratingArffFile(status_print_stream, AceXmlConverter.getArffFilePath(feature_values_save_path));
+			if (save_csv_file)
+				UserFeedbackGenerator.printGeneratingCsvFile(status_print_stream, AceXmlConverter.getCsvFilePath(feature_values_save_path));
+		}
+	}
+	
+	
+	/* INTERNAL CLASSES *************************************************************************************/
+	
+	
+	/**
+	 * The outcome of extracting features from a single file on a worker thread: either the extracted feature
+	 * values or the exception that prevented their extraction, along with any errors logged while parsing.
+	 */
+	private static class FileExtractionResult
+	{
+		/**
+		 * The extracted feature values. Null if an exception occurred.
+		 */
+		private final MIDIFeatureProcessor.ExtractedFeatureValues feature_values;
+		
+		/**
+		 * The exception that prevented feature extraction. Null if extraction succeeded.
+		 */
+		private final Exception exception;
+		
+		/**
+		 * Errors logged while parsing the file.
+		 */
+		private final List<String> file_error_log;
+		
+		private FileExtractionResult( MIDIFeatureProcessor.ExtractedFeatureValues feature_values,
+		                              Exception exception,
+		                              List<String> file_error_log )
+		{
+			this.feature_values = feature_values;
+			this.exception = exception;
+			this.file_error_log = file_error_log;
 		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,535 @@
+package jsymbolic2.processing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import jsymbolic2.featureutils.MIDIFeatureExtractor;
+import ace.datatypes.FeatureDefinition;
+
+/**
+ * An object of this class stores extracted feature values on disk, so that they do not need to be extracted
+ * again when jSymbolic is run again on the same music. Values are stored in a cache directory, with one
+ * entry file for each combination of file content and window settings. Entries are keyed by a SHA-256 hash
+ * of the bytes of the music file rather than by its path, so renamed or copied files still find their
+ * values, and edited files do not find stale ones.
+ *
+ * <p>Each entry holds the start and end times of each window, and the per-window values of every feature
+ * that has been extracted from the file with its window settings so far. Features are identified by a key
+ * built from their class and definition (see getFeatureKey), so that values stop being used if a feature
+ * is renamed, redefined or replaced. CACHE_FORMAT_VERSION should be incremented whenever a change to the
+ * way any feature is calculated is made without a change to its definition, so that all old values are
+ * discarded.
+ *
+ * <p>The total size of the entry files is kept below a maximum. When it is exceeded, the least recently
+ * used entries are deleted. Entries are written to a temporary file first and then moved into place, so an
+ * entry is never seen half written. All methods may be called concurrently by multiple threads working on
+ * different files.
+ *
+ * <p>Only MIDI files are cached. MEI files are not, as their MEI-specific data is not stored.
+ *
+ * @author agent
+ */
+public class FeatureValueCache
+{
+	/* STATIC FINAL FIELDS **********************************************************************************/
+
+
+	/**
+	 * The maximum total size of the entry files in a cache directory when none is specified (1 GB).
+	 */
+	public static final long DEFAULT_MAXIMUM_SIZE_IN_BYTES = 1024L * 1024L * 1024L;
+
+	/**
+	 * The version of the entry file format and of the feature implementations. Entries with a different
+	 * version are ignored and overwritten.
+	 */
+	private static final int CACHE_FORMAT_VERSION = 1;
+
+	/**
+	 * The extension of entry files.
+	 */
+	private static final String ENTRY_FILE_EXTENSION = ".jsc";
+
+	/**
+	 * The extension of entry files that are still being written.
+	 */
+	private static final String TEMPORARY_FILE_EXTENSION = ".tmp";
+
+
+	/* FIELDS ***********************************************************************************************/
+
+
+	/**
+	 * The directory in which entry files are stored.
+	 */
+	private final File cache_directory;
+
+	/**
+	 * The maximum total size in bytes of the entry files in cache_directory.
+	 */
+	private final long maximum_size_in_bytes;
+
+	/**
+	 * Whether cached values are to be returned by getCachedValues. If this is false then values are only
+	 * stored, and all features are extracted again.
+	 */
+	private final boolean read_cached_values;
+
+	/**
+	 * The total size in bytes of the entry files in cache_directory, as last updated by this object.
+	 */
+	private long total_size_in_bytes;
+
+
+	/* CONSTRUCTOR ******************************************************************************************/
+
+
+	/**
+	 * Instantiate a FeatureValueCache storing its entries in the specified directory, which is created if it
+	 * does not already exist. Entries already in the directory are used, and least recently used entries
+	 * are deleted if they exceed maximum_size_in_bytes.
+	 *
+	 * @param cache_directory		The directory in which to store cached feature values.
+	 * @param maximum_size_in_bytes	The maximum total size in bytes of the entry files in cache_directory.
+	 * @param read_cached_values	Whether cached values are to be used. If this is false then all features
+	 *								are extracted again, but their values are still stored for later use.
+	 * @throws Exception			An informative exception is thrown if cache_directory cannot be created
+	 *								or is not a directory.
+	 */
+	public FeatureValueCache( File cache_directory,
+	                          long maximum_size_in_bytes,
+	                          boolean read_cached_values )
+		throws Exception
+	{
+		if (!cache_directory.exists() && !cache_directory.mkdirs())
+			throw new Exception("Could not create the feature value cache directory " + cache_directory + ".");
+		if (!cache_directory.isDirectory())
+			throw new Exception("The feature value cache path " + cache_directory + " is not a directory.");
+
+		this.cache_directory = cache_directory;
+		this.maximum_size_in_bytes = maximum_size_in_bytes;
+		this.read_cached_values = read_cached_values;
+
+		total_size_in_bytes = 0;
+		for (File entry_file : getEntryFiles())
+			total_size_in_bytes += entry_file.length();
+		evictLeastRecentlyUsedEntries();
+	}
+
+
+	/* PUBLIC STATIC METHODS ********************************************************************************/
+
+
+	/**
+	 * Find the key identifying the contents of the given file. Files with the same contents have the same
+	 * key, regardless of their paths.
+	 *
+	 * @param file			The file to find the key of.
+	 * @return				The hexadecimal SHA-256 hash of the contents of the file.
+	 * @throws IOException	Thrown if the file cannot be read.
+	 */
+	public static String getContentKey(File file)
+		throws IOException
+	{
+		MessageDigest digest;
+		try { digest = MessageDigest.getInstance("SHA-256"); }
+		catch (NoSuchAlgorithmException e) { throw new IOException(e); }
+
+		byte[] buffer = new byte[64 * 1024];
+		try (InputStream input = new FileInputStream(file))
+		{
+			int bytes_read;
+			while ((bytes_read = input.read(buffer)) != -1)
+				digest.update(buffer, 0, bytes_read);
+		}
+
+		StringBuilder key = new StringBuilder();
+		for (byte b : digest.digest())
+			key.append(String.format("%02x", b));
+		return key.toString();
+	}
+
+
+	/**
+	 * Find the key identifying the window settings that features are extracted with.
+	 *
+	 * @param save_features_for_each_window	Whether features are extracted from windows rather than from
+	 *										whole files.
+	 * @param window_size					The window size in seconds. Ignored if
+	 *										save_features_for_each_window is false.
+	 * @param window_overlap_offset			The number of seconds that windows are offset by. Ignored if
+	 *										save_features_for_each_window is false.
+	 * @return								A key that is only the same for the same window settings, and
+	 *										that may be used in a file name.
+	 */
+	public static String getWindowSettingsKey( boolean save_features_for_each_window,
+	                                           double window_size,
+	                                           double window_overlap_offset )
+	{
+		if (!save_features_for_each_window)
+			return "whole";
+		return "w" + Long.toHexString(Double.doubleToLongBits(window_size)) +
+		       "o" + Long.toHexString(Double.doubleToLongBits(window_overlap_offset));
+	}
+
+
+	/**
+	 * Find the key identifying the given feature in cache entries. The key changes if the class implementing
+	 * the feature or any part of its definition or dependencies changes.
+	 *
+	 * @param feature	The feature to find the key of.
+	 * @return			The key identifying the feature.
+	 */
+	public static String getFeatureKey(MIDIFeatureExtractor feature)
+	{
+		FeatureDefinition definition = feature.getFeatureDefinition();
+		return feature.getClass().getName() + "\n" +
+		       definition.name + "\n" +
+		       definition.description + "\n" +
+		       definition.is_sequential + "\n" +
+		       definition.dimensions + "\n" +
+		       Arrays.toString(feature.getDepenedencies()) + "\n" +
+		       Arrays.toString(feature.getDepenedencyOffsets());
+	}
+
+
+	/* PUBLIC METHODS ***************************************************************************************/
+
+
+	/**
+	 * Find the feature values stored for the file with the given contents and window settings. The entry is
+	 * marked as recently used.
+	 *
+	 * @param content_key	The key returned by getContentKey for the file.
+	 * @param settings_key	The key returned by getWindowSettingsKey for the window settings.
+	 * @return				The cached values, or null if there are none, if they cannot be read or if this
+	 *						object was instantiated not to read cached values.
+	 */
+	public CachedFeatureValues getCachedValues(String content_key, String settings_key)
+	{
+		if (!read_cached_values)
+			return null;
+
+		File entry_file = getEntryFile(content_key, settings_key);
+		CachedFeatureValues cached_values = readEntry(entry_file);
+		if (cached_values != null)
+			entry_file.setLastModified(System.currentTimeMillis());
+		return cached_values;
+	}
+
+
+	/**
+	 * Store the given feature values for the file with the given contents and window settings. Values of
+	 * other features already stored for the same file and window settings are kept, as long as they were
+	 * stored with the same windows. Least recently used entries are then deleted if the cache has grown
+	 * too large.
+	 *
+	 * @param content_key			The key returned by getContentKey for the file.
+	 * @param settings_key			The key returned by getWindowSettingsKey for the window settings.
+	 * @param window_start_times	The start time in seconds of each window.
+	 * @param window_end_times		The end time in seconds of each window.
+	 * @param feature_keys			The keys returned by getFeatureKey for the features to store.
+	 * @param feature_values		The values of the features to store. The first indice identifies the
+	 *								window, the second identifies the feature (corresponding to
+	 *								feature_keys) and the third identifies the feature value. The third
+	 *								dimension is null if the feature could not be extracted for the window.
+	 * @throws IOException			Thrown if the entry cannot be written.
+	 */
+	public synchronized void storeValues( String content_key,
+	                                      String settings_key,
+	                                      double[] window_start_times,
+	                                      double[] window_end_times,
+	                                      String[] feature_keys,
+	                                      double[][][] feature_values )
+		throws IOException
+	{
+		// Combine the new values with those already stored for the same windows
+		File entry_file = getEntryFile(content_key, settings_key);
+		CachedFeatureValues old_values = readEntry(entry_file);
+		Map<String, double[][]> values_by_feature = new HashMap<>();
+		if ( old_values != null &&
+		     Arrays.equals(old_values.window_start_times, window_start_times) &&
+		     Arrays.equals(old_values.window_end_times, window_end_times) &&
+		     old_values.number_of_windows == feature_values.length )
+			values_by_feature.putAll(old_values.values_by_feature);
+		for (int feat = 0; feat < feature_keys.length; feat++)
+		{
+			double[][] this_feature_values = new double[feature_values.length][];
+			for (int win = 0; win < feature_values.length; win++)
+				this_feature_values[win] = feature_values[win][feat];
+			values_by_feature.put(feature_keys[feat], this_feature_values);
+		}
+
+		// Write the entry to a temporary file and then move it into place
+		File temporary_file = File.createTempFile(content_key, TEMPORARY_FILE_EXTENSION, cache_directory);
+		try
+		{
+			try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary_file))))
+			{
+				output.writeInt(CACHE_FORMAT_VERSION);
+				output.writeInt(feature_values.length);
+				writeDoubles(output, window_start_times);
+				writeDoubles(output, window_end_times);
+				output.writeInt(values_by_feature.size());
+				for (Map.Entry<String, double[][]> feature : values_by_feature.entrySet())
+				{
+					output.writeUTF(feature.getKey());
+					for (double[] window_values : feature.getValue())
+						writeDoubles(output, window_values);
+				}
+			}
+			long old_size = entry_file.length();
+			Files.move( temporary_file.toPath(),
+			            entry_file.toPath(),
+			            StandardCopyOption.REPLACE_EXISTING,
+			            StandardCopyOption.ATOMIC_MOVE );
+			total_size_in_bytes += entry_file.length() - old_size;
+		}
+		finally
+		{
+			temporary_file.delete();
+		}
+
+		evictLeastRecentlyUsedEntries();
+	}
+
+
+	/**
+	 * Delete all entries from the cache.
+	 */
+	public synchronized void clear()
+	{
+		for (File entry_file : getEntryFiles())
+			entry_file.delete();
+		total_size_in_bytes = 0;
+		for (File entry_file : getEntryFiles())
+			total_size_in_bytes += entry_file.length();
+	}
+
+
+	/* PRIVATE METHODS **************************************************************************************/
+
+
+	/**
+	 * @param content_key	The key returned by getContentKey for a file.
+	 * @param settings_key	The key returned by getWindowSettingsKey for some window settings.
+	 * @return				The entry file for the given file contents and window settings.
+	 */
+	private File getEntryFile(String content_key, String settings_key)
+	{
+		return new File(cache_directory, content_key + "_" + settings_key + ENTRY_FILE_EXTENSION);
+	}
+
+
+	/**
+	 * @return	All entry files currently in cache_directory.
+	 */
+	private File[] getEntryFiles()
+	{
+		File[] entry_files = cache_directory.listFiles((File dir, String name) -> name.endsWith(ENTRY_FILE_EXTENSION));
+		return (entry_files == null) ? new File[0] : entry_files;
+	}
+
+
+	/**
+	 * Delete the least recently used entries until the total size of the entry files is no more than
+	 * maximum_size_in_bytes.
+	 */
+	private synchronized void evictLeastRecentlyUsedEntries()
+	{
+		if (total_size_in_bytes <= maximum_size_in_bytes)
+			return;
+
+		File[] entry_files = getEntryFiles();
+		long[] last_used = new long[entry_files.length];
+		Integer[] order = new Integer[entry_files.length];
+		total_size_in_bytes = 0;
+		for (int i = 0; i < entry_files.length; i++)
+		{
+			last_used[i] = entry_files[i].lastModified();
+			order[i] = i;
+			total_size_in_bytes += entry_files[i].length();
+		}
+		Arrays.sort(order, Comparator.comparingLong((Integer i) -> last_used[i]));
+
+		for (int i = 0; i < order.length && total_size_in_bytes > maximum_size_in_bytes; i++)
+		{
+			long size = entry_files[order[i]].length();
+			if (entry_files[order[i]].delete())
+				total_size_in_bytes -= size;
+		}
+	}
+
+
+	/**
+	 * Read the given entry file.
+	 *
+	 * @param entry_file	The entry file to read.
+	 * @return				The values stored in entry_file, or null if it does not exist, cannot be read or
+	 *						was written with a different CACHE_FORMAT_VERSION.
+	 */
+	private static CachedFeatureValues readEntry(File entry_file)
+	{
+		if (!entry_file.isFile())
+			return null;
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(entry_file))))
+		{
+			if (input.readInt() != CACHE_FORMAT_VERSION)
+				return null;
+			int number_of_windows = input.readInt();
+			double[] window_start_times = readDoubles(input);
+			double[] window_end_times = readDoubles(input);
+			int number_of_features = input.readInt();
+			Map<String, double[][]> values_by_feature = new HashMap<>();
+			for (int feat = 0; feat < number_of_features; feat++)
+			{
+				String feature_key = input.readUTF();
+				double[][] feature_values = new double[number_of_windows][];
+				for (int win = 0; win < number_of_windows; win++)
+					feature_values[win] = readDoubles(input);
+				values_by_feature.put(feature_key, feature_values);
+			}
+			return new CachedFeatureValues(number_of_windows, window_start_times, window_end_times, values_by_feature);
+		}
+		catch (IOException e)
+		{
+			// The entry may have been evicted while it was being read, or may be corrupt
+			return null;
+		}
+	}
+
+
+	/**
+	 * Write the given values, preceded by their number (or by -1 if values is null).
+	 *
+	 * @param output		The stream to write to.
+	 * @param values		The values to write. May be null.
+	 * @throws IOException	Thrown if the values cannot be written.
+	 */
+	private static void writeDoubles(DataOutputStream output, double[] values)
+		throws IOException
+	{
+		if (values == null)
+		{
+			output.writeInt(-1);
+			return;
+		}
+		output.writeInt(values.length);
+		for (double value : values)
+			output.writeDouble(value);
+	}
+
+
+	/**
+	 * Read values written by writeDoubles.
+	 *
+	 * @param input			The stream to read from.
+	 * @return				The values read. Null if null was written.
+	 * @throws IOException	Thrown if the values cannot be read.
+	 */
+	private static double[] readDoubles(DataInputStream input)
+		throws IOException
+	{
+		int length = input.readInt();
+		if (length < 0)
+			return null;
+		double[] values = new double[length];
+		for (int i = 0; i < length; i++)
+			values[i] = input.readDouble();
+		return values;
+	}
+
+
+	/* INTERNAL CLASSES *************************************************************************************/
+
+
+	/**
+	 * The feature values stored in the cache for a single file and set of window settings. Objects of this
+	 * class are not modified after construction.
+	 */
+	public static class CachedFeatureValues
+	{
+		/**
+		 * The number of windows that values are stored for.
+		 */
+		private final int number_of_windows;
+
+		/**
+		 * The start time in seconds of each window.
+		 */
+		private final double[] window_start_times;
+
+		/**
+		 * The end time in seconds of each window.
+		 */
+		private final double[] window_end_times;
+
+		/**
+		 * The values of each stored feature, keyed by the key returned by getFeatureKey. The first indice
+		 * identifies the window and the second identifies the feature value. The second dimension is null
+		 * if the feature could not be extracted for the window.
+		 */
+		private final Map<String, double[][]> values_by_feature;
+
+		private CachedFeatureValues( int number_of_windows,
+		                             double[] window_start_times,
+		                             double[] window_end_times,
+		                             Map<String, double[][]> values_by_feature )
+		{
+			this.number_of_windows = number_of_windows;
+			this.window_start_times = window_start_times;
+			this.window_end_times = window_end_times;
+			this.values_by_feature = values_by_feature;
+		}
+
+		/**
+		 * @return	The number of windows that values are stored for.
+		 */
+		public int getNumberOfWindows()
+		{
+			return number_of_windows;
+		}
+
+		/**
+		 * @return	The start time in seconds of each window.
+		 */
+		public double[] getWindowStartTimes()
+		{
+			return window_start_times;
+		}
+
+		/**
+		 * @return	The end time in seconds of each window.
+		 */
+		public double[] getWindowEndTimes()
+		{
+			return window_end_times;
+		}
+
+		/**
+		 * @param feature_key	The key returned by getFeatureKey for a feature.
+		 * @return				The stored values of the feature, or null if none are stored. The first
+		 *						indice identifies the window and the second identifies the feature value.
+		 *						The second dimension is null if the feature could not be extracted for the
+		 *						window.
+		 */
+		public double[][] getFeatureValues(String feature_key)
+		{
+			return values_by_feature.get(feature_key);
+		}
+	}
+}
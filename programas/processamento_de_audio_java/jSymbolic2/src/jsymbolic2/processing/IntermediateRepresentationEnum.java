@@ -0,0 +1,115 @@
+package jsymbolic2.processing;
+
+/**
+ * An enumerator identifying the groups of intermediate representations that a MIDIIntermediateRepresentations
+ * object can calculate. Each constant corresponds to a set of public fields of MIDIIntermediateRepresentations
+ * that are always calculated together, and indicates which other groups must be calculated before it can be.
+ * Features indicate which of these groups they read (see MIDIFeatureExtractor), so that only those groups
+ * need to be calculated when only a subset of features is extracted. The constants are listed in an order
+ * in which they can safely be calculated one after another.
+ *
+ * <ul>
+ * <li><b>OVERALL_METADATA</b>: overall_metadata.
+ * <li><b>SEQUENCE_DURATION</b>: sequence_duration and sequence_duration_precise.
+ * <li><b>AVERAGE_TICK_DURATION</b>: average_tick_duration.
+ * <li><b>TEMPO_AND_CHANNEL_VOLUME_MAPS</b>: duration_of_ticks_in_seconds and volume_of_channels_tick_map.
+ * <li><b>PITCHED_INSTRUMENTS</b>: pitched_instrument_prevalence and pitched_instrumentation_tick_map.
+ * <li><b>NON_PITCHED_INSTRUMENTS</b>: non_pitched_instrument_prevalence.
+ * <li><b>NOTE_COUNTS</b>: total_number_note_ons, total_number_pitched_note_ons and
+ * total_number_non_pitched_note_ons.
+ * <li><b>RHYTHMIC_VALUES</b>: average_quarter_note_duration_in_seconds, rhythmic_value_histogram,
+ * runs_of_same_rhythmic_value, rhythmic_value_of_each_note_in_quarter_notes and rhythmic_value_offsets.
+ * <li><b>BEAT_HISTOGRAMS</b>: beat_histogram and beat_histogram_120_bpm_standardized.
+ * <li><b>BEAT_HISTOGRAM_THRESHOLDED_TABLES</b>: beat_histogram_thresholded_table and
+ * beat_histogram_thresholded_table_120_bpm_standardized.
+ * <li><b>NOTE_DURATIONS</b>: note_durations.
+ * <li><b>NOTE_ATTACK_TICK_MAP</b>: note_attack_tick_map.
+ * <li><b>ALL_NOTES</b>: all_notes.
+ * <li><b>PITCH_HISTOGRAMS</b>: basic_pitch_histogram, pitch_class_histogram and fifths_pitch_histogram.
+ * <li><b>PITCH_BENDS</b>: pitch_bends_list.
+ * <li><b>MELODIC_INTERVALS</b>: melodic_interval_histogram and melodic_intervals_by_track_and_channel.
+ * <li><b>CHANNEL_NOTE_ONS</b>: channel_statistics, list_of_note_on_pitches_by_channel,
+ * note_sounding_on_a_channel_tick_map, number_of_active_voices and total_time_notes_sounding_per_channel.
+ * <li><b>PITCHES_OF_ALL_NOTE_ONS</b>: pitches_of_all_note_ons and pitch_classes_of_all_note_ons.
+ * <li><b>PITCH_STRENGTH_SEGMENTS</b>: pitch_strength_segments and total_vertical_unison_velocity.
+ * <li><b>PITCHES_PRESENT_BY_TICK</b>: pitches_present_by_tick_excluding_rests and
+ * pitch_classes_present_by_tick_excluding_rests.
+ * <li><b>CONTRAPUNTAL_MOTION</b>: parallel_motion_fraction, similar_motion_fraction,
+ * contrary_motion_fraction, oblique_motion_fraction, parallel_fifths_fraction and
+ * parallel_octaves_fraction.
+ * <li><b>NOTE_LOUDNESSES</b>: note_loudnesses.
+ * <li><b>REST_DURATIONS_BY_CHANNEL</b>: rest_durations_separated_by_channel.
+ * <li><b>COMPLETE_REST_DURATIONS</b>: complete_rest_durations.
+ * </ul>
+ *
+ * @author agent
+ */
+public enum IntermediateRepresentationEnum
+{
+	/* CONSTANTS ********************************************************************************************/
+
+
+	// Call the constructor for each constant, specifying the other constants it is calculated from
+	OVERALL_METADATA(),
+	SEQUENCE_DURATION(),
+	AVERAGE_TICK_DURATION(SEQUENCE_DURATION),
+	TEMPO_AND_CHANNEL_VOLUME_MAPS(),
+	PITCHED_INSTRUMENTS(TEMPO_AND_CHANNEL_VOLUME_MAPS),
+	NON_PITCHED_INSTRUMENTS(),
+	NOTE_COUNTS(PITCHED_INSTRUMENTS, NON_PITCHED_INSTRUMENTS),
+	RHYTHMIC_VALUES(AVERAGE_TICK_DURATION),
+	BEAT_HISTOGRAMS(TEMPO_AND_CHANNEL_VOLUME_MAPS),
+	BEAT_HISTOGRAM_THRESHOLDED_TABLES(BEAT_HISTOGRAMS),
+	NOTE_DURATIONS(TEMPO_AND_CHANNEL_VOLUME_MAPS),
+	NOTE_ATTACK_TICK_MAP(),
+	ALL_NOTES(),
+	PITCH_HISTOGRAMS(),
+	PITCH_BENDS(),
+	MELODIC_INTERVALS(),
+	CHANNEL_NOTE_ONS(TEMPO_AND_CHANNEL_VOLUME_MAPS),
+	PITCHES_OF_ALL_NOTE_ONS(ALL_NOTES),
+	PITCH_STRENGTH_SEGMENTS(),
+	PITCHES_PRESENT_BY_TICK(PITCH_STRENGTH_SEGMENTS),
+	CONTRAPUNTAL_MOTION(PITCH_STRENGTH_SEGMENTS, PITCHES_PRESENT_BY_TICK),
+	NOTE_LOUDNESSES(TEMPO_AND_CHANNEL_VOLUME_MAPS, CHANNEL_NOTE_ONS),
+	REST_DURATIONS_BY_CHANNEL(TEMPO_AND_CHANNEL_VOLUME_MAPS, RHYTHMIC_VALUES, CHANNEL_NOTE_ONS),
+	COMPLETE_REST_DURATIONS(TEMPO_AND_CHANNEL_VOLUME_MAPS, RHYTHMIC_VALUES, CHANNEL_NOTE_ONS, PITCH_STRENGTH_SEGMENTS);
+
+
+	/* FIELDS ***********************************************************************************************/
+
+
+	/**
+	 * The other groups of intermediate representations that must be calculated before this one can be.
+	 */
+	private final IntermediateRepresentationEnum[] prerequisites;
+
+
+	/* CONSTRUCTOR ******************************************************************************************/
+
+
+	/**
+	 * Instantiate an IntermediateRepresentationEnum that is calculated from the specified groups of
+	 * intermediate representations.
+	 *
+	 * @param prerequisites	The other groups of intermediate representations that must be calculated before
+	 *						this one can be. These must all be declared before this constant.
+	 */
+	private IntermediateRepresentationEnum(IntermediateRepresentationEnum... prerequisites)
+	{
+		this.prerequisites = prerequisites;
+	}
+
+
+	/* PUBLIC METHODS ***************************************************************************************/
+
+
+	/**
+	 * @return	The other groups of intermediate representations that must be calculated before this one can
+	 *			be.
+	 */
+	public IntermediateRepresentationEnum[] getPrerequisites()
+	{
+		return prerequisites.clone();
+	}
+}
@@ -2,12 +2,16 @@ package jsymbolic2.processing;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.LinkedList;
 import javax.sound.midi.*;
 
 import jsymbolic2.api.deprecated.JsymbolicData;
 import jsymbolic2.featureutils.MEIFeatureExtractor;
 import mckay.utilities.sound.midi.MIDIMethods;
+import ace.datatypes.BinaryFeatureValuesWriter;
 import ace.datatypes.FeatureDefinition;
 import ca.mcgill.music.ddmal.mei.MeiXmlReader.MeiXmlReadException;
 
@@ -75,6 +79,12 @@ public class MIDIFeatureProcessor
       */
      private	int[]			max_feature_offsets;
      
+     /**
+      * The groups of intermediate representations read by the features in the
+      * feature_extractors field. Only these are calculated for each window.
+      */
+     private   IntermediateRepresentationEnum[] intermediate_representations_to_generate;
+     
      /**
       * Which features are to be saved after processing. Entries correspond to
       * the feature_extractors field.
@@ -113,6 +123,38 @@ public class MIDIFeatureProcessor
       */
      private	boolean			definitions_written;
 
+     /**
+      * Used to save feature values as a Weka ARFF file and/or a CSV file as
+      * they are saved to the feature_vector_file. Null if neither is to be
+      * saved.
+      */
+     private	WekaArffAndCsvWriter	arff_and_csv_writer;
+
+     /**
+      * The path of the ACE binary feature values file that feature values
+      * are saved to as they are saved to the feature_vector_file. Null if no
+      * such file is to be saved.
+      */
+     private	String			binary_values_file_path;
+
+     /**
+      * Used to write the file referred to by binary_values_file_path. Null
+      * until the first recording is saved, or if no such file is to be saved.
+      */
+     private	BinaryFeatureValuesWriter	binary_values_writer;
+
+     /**
+      * The cache that extracted feature values are looked up in and stored
+      * in. Null if feature values are not cached.
+      */
+     private	FeatureValueCache	feature_value_cache;
+
+     /**
+      * The keys identifying each of the feature_extractors in the
+      * feature_value_cache. Null if feature values are not cached.
+      */
+     private	String[]		feature_cache_keys;
+
      
      /* CONSTRUCTORS **********************************************************/
      
@@ -272,6 +314,86 @@ public class MIDIFeatureProcessor
 		return feature_extractors;
 	}
 
+     /**
+      * Set the cache that extracted feature values are to be looked up in and
+      * stored in. Features whose values are already cached for a MIDI file
+      * (with the same window settings) are not extracted from it again, and
+      * the file is not even parsed if all of them are. This should be called
+      * before any features are extracted.
+      *
+      * @param feature_value_cache	The cache to use, or null if feature
+      *                                 values are not to be cached.
+      */
+     public void setFeatureValueCache(FeatureValueCache feature_value_cache)
+     {
+          this.feature_value_cache = feature_value_cache;
+          feature_cache_keys = null;
+          if (feature_value_cache != null)
+          {
+               feature_cache_keys = new String[feature_extractors.length];
+               for (int feat = 0; feat < feature_extractors.length; feat++)
+                    feature_cache_keys[feat] = FeatureValueCache.getFeatureKey(feature_extractors[feat]);
+          }
+     }
+
+     /**
+      * Set the Weka ARFF and/or CSV files that feature values are to be saved
+      * to, in addition to the feature_vector_file. The values of each recording
+      * are written to these files as the recording is saved, so the
+      * feature_vector_file does not need to be parsed again to produce them.
+      * The files are not created until the first recording is saved. This
+      * should be called before any features are saved.
+      *
+      * @param arff_file_path	The path of the Weka ARFF file to save, or null
+      *                         if none is to be saved.
+      * @param csv_file_path	The path of the CSV file to save, or null if
+      *                         none is to be saved.
+      */
+     public void setWekaArffAndCsvFilePaths(String arff_file_path, String csv_file_path)
+     {
+          if (arff_file_path == null && csv_file_path == null)
+               arff_and_csv_writer = null;
+          else
+               arff_and_csv_writer = new WekaArffAndCsvWriter(arff_file_path, csv_file_path);
+     }
+
+     /**
+      * @return	Whether any Weka ARFF or CSV files set with
+      *                 setWekaArffAndCsvFilePaths have been created. This is
+      *                 the case once at least one recording has been saved.
+      */
+     public boolean wereWekaArffOrCsvFilesSaved()
+     {
+          return arff_and_csv_writer != null && arff_and_csv_writer.isHeaderWritten();
+     }
+
+     /**
+      * Set the ACE binary feature values file that feature values are to be
+      * saved to, in addition to the feature_vector_file. This file holds the
+      * feature definitions as well as unrounded feature values, and can be
+      * memory-mapped by ACE rather than parsed (see BinaryFeatureValuesReader).
+      * The values of each recording are written to it as the recording is
+      * saved. The file is not created until the first recording is saved. This
+      * should be called before any features are saved.
+      *
+      * @param binary_values_file_path	The path of the file to save, or null
+      *                                 if none is to be saved.
+      */
+     public void setBinaryFeatureValuesFilePath(String binary_values_file_path)
+     {
+          this.binary_values_file_path = binary_values_file_path;
+     }
+
+     /**
+      * @return	Whether the file set with setBinaryFeatureValuesFilePath has
+      *                 been created. This is the case once at least one
+      *                 recording has been saved.
+      */
+     public boolean wasBinaryFeatureValuesFileSaved()
+     {
+          return binary_values_writer != null;
+     }
+
      /**
       * Extract the features from the provided MIDI or MEI file. This may involve
       * windowing, depending on the instantiation parameters of this object. The
@@ -290,9 +412,60 @@ public class MIDIFeatureProcessor
      public void extractFeatures(File recording_file, List<String> errorLog) 
              throws InvalidMidiDataException, MeiXmlReadException, IOException, Exception
      {
-         if(window_overlap_offset > window_size) 
-             throw new Exception("Window overlap offset is greater than window size, this is not possible.");
-         
+          saveExtractedFeatureValues(extractFeatureValues(recording_file, errorLog));
+     }
+
+     /**
+      * Parse the provided MIDI or MEI file and extract its feature values, but do not write
+      * anything to the feature_vector_file or feature_key_file XML files. This may involve
+      * windowing, depending on the instantiation parameters of this object. The returned
+      * values should be passed to saveExtractedFeatureValues in order to be saved.
+      *
+      * <p>If a feature value cache has been set, then the values of features
+      * already cached for the file are not extracted again, and the values
+      * extracted are added to the cache.
+      *
+      * <p>This method does not modify the state of this object, and so may be called
+      * concurrently by multiple threads, each working on a different file.
+      *
+      * @param recording_file	The music file to extract features from.
+      * @param errorLog  A List(String) that holds all the files with errors. Should not be
+      *                  shared with other threads calling this method at the same time.
+      * @return The extracted feature values, ready to be saved.
+      * @throws InvalidMidiDataException Thrown if the MIDI data is invalid.
+      * @throws IOException Thrown if there is a problem reading from the inputted file.
+      * @throws MeiXmlReadException Thrown if there is a problem reading in the MEI XML from the inputted file.
+      * @throws Exception When an unforeseen runtime exception occurs.
+      */
+     public ExtractedFeatureValues extractFeatureValues(File recording_file, List<String> errorLog)
+             throws InvalidMidiDataException, MeiXmlReadException, IOException, Exception
+     {
+          if(window_overlap_offset > window_size) 
+               throw new Exception("Window overlap offset is greater than window size, this is not possible.");
+
+          // Look up any values of the features to extract that are already cached
+          // for this file. Only MIDI files are cached. If all of them are cached,
+          // then the file does not need to be parsed at all.
+          String cache_content_key = null;
+          String cache_settings_key = null;
+          FeatureValueCache.CachedFeatureValues cached_values = null;
+          if (feature_value_cache != null && SymbolicMusicFileUtilities.isValidMidiFile(recording_file))
+          {
+               cache_content_key = FeatureValueCache.getContentKey(recording_file);
+               cache_settings_key = FeatureValueCache.getWindowSettingsKey(save_features_for_each_window, window_size, window_overlap_offset);
+               cached_values = feature_value_cache.getCachedValues(cache_content_key, cache_settings_key);
+               if (cached_values != null)
+               {
+                    double[][][] window_feature_values = getCachedFeatureValues(cached_values, cached_values.getNumberOfWindows(), null);
+                    if (window_feature_values != null)
+                         return getExtractedFeatureValues( recording_file,
+                              window_feature_values,
+                              cached_values.getWindowStartTimes(),
+                              cached_values.getWindowEndTimes(),
+                              null );
+               }
+          }
+
           // Extract the data from the file and check for exceptions
           Sequence full_sequence = null;
           MeiSequence mei_sequence = null;
@@ -356,31 +529,86 @@ public class MIDIFeatureProcessor
                throw new Exception("An error occured while processing the following file: " + recording_file + ".\n");
           }
           
-          // Extract the feature values from the samples
-         double[][][] window_feature_values = getFeatures(windows, meiSpecificStorage);
-          
-          // Find the feature averages and standard deviations if appropriate
-          FeatureDefinition[][] overall_feature_definitions = new FeatureDefinition[1][];
-          overall_feature_definitions[0] = null;
-          double[][] overall_feature_values = null;
-          if (save_overall_recording_features)
-               overall_feature_values = getOverallRecordingFeatures( window_feature_values,
-                    overall_feature_definitions );
-          
+          // Find the start and end time of each window
+          double[] window_start_times = new double[0];
+          double[] window_end_times = new double[0];
+          if (save_features_for_each_window)
+          {
+               window_start_times = new double[windows.length];
+               window_end_times = new double[windows.length];
+               for (int win = 0; win < windows.length; win++)
+               {
+                    double start_time = MIDIMethods.getSecondsAtTick(start_ticks[win], seconds_per_tick);
+                    window_start_times[win] = (start_time > 0) ? start_time : 0; //check for non negative
+                    window_end_times[win] = MIDIMethods.getSecondsAtTick(end_ticks[win], seconds_per_tick);
+               }
+          }
+
+          // Extract the feature values from the samples, using any cached values
+          // that were found for the same windows
+          boolean[] features_already_extracted = new boolean[feature_extractors.length];
+          double[][][] window_feature_values = null;
+          if ( cached_values != null &&
+               Arrays.equals(cached_values.getWindowStartTimes(), window_start_times) &&
+               Arrays.equals(cached_values.getWindowEndTimes(), window_end_times) )
+               window_feature_values = getCachedFeatureValues(cached_values, windows.length, features_already_extracted);
+          if (window_feature_values == null)
+          {
+               window_feature_values = new double[windows.length][feature_extractors.length][];
+               Arrays.fill(features_already_extracted, false);
+          }
+          getFeatures(windows, meiSpecificStorage, window_feature_values, features_already_extracted);
+
+          // Store the extracted values in the cache for next time
+          if (cache_content_key != null)
+          {
+               try
+               {
+                    feature_value_cache.storeValues( cache_content_key,
+                         cache_settings_key,
+                         window_start_times,
+                         window_end_times,
+                         feature_cache_keys,
+                         window_feature_values );
+               }
+               catch (IOException e)
+               {
+                    errorLog.add("Could not store the feature values of " + recording_file + " in the feature value cache: " + e.getMessage());
+               }
+          }
+
+          return getExtractedFeatureValues( recording_file,
+               window_feature_values,
+               window_start_times,
+               window_end_times,
+               meiSpecificStorage );
+     }
+
+     /**
+      * Save feature values previously returned by extractFeatureValues to the
+      * feature_vector_file XML file referred to by the values_writer field. The
+      * definitions of the features that are saved are also saved to the
+      * feature_key_file XML file referred to by the definitions_writer field if
+      * this has not already been done. Recordings are written in the order in
+      * which this method is called.
+      *
+      * @param extracted_values	The feature values to save.
+      * @throws Exception When the values cannot be written.
+      */
+     public synchronized void saveExtractedFeatureValues(ExtractedFeatureValues extracted_values)
+             throws Exception
+     {
           // Save the feature values for this recording
-          saveFeatureVectorsForARecording( window_feature_values,
-               recording_file.getPath(),
-               overall_feature_values,
-               overall_feature_definitions[0],
-               full_sequence,
-               windows,
-               start_ticks,
-               end_ticks,
-               seconds_per_tick);
+          saveFeatureVectorsForARecording( extracted_values.window_feature_values,
+               extracted_values.identifier,
+               extracted_values.overall_feature_values,
+               extracted_values.overall_feature_definitions,
+               extracted_values.window_start_times,
+               extracted_values.window_end_times);
           
           // Save the feature definitions
           if (!definitions_written)
-               saveFeatureDefinitions(window_feature_values, overall_feature_definitions[0]);
+               saveFeatureDefinitions(extracted_values.window_feature_values, extracted_values.overall_feature_definitions);
      }
 
     /**
@@ -397,108 +625,31 @@ public class MIDIFeatureProcessor
      public JsymbolicData extractAndReturnFeatures(File recording_file, List<String> errorLog, PrintStream error_print_stream)
              throws InvalidMidiDataException, MeiXmlReadException, IOException, Exception
      {
-          if(window_overlap_offset > window_size)
-               throw new Exception("Window overlap offset is greater than window size, this is not possible.");
-
-          // Extract the data from the file and check for exceptions
-          Sequence full_sequence = null;
-          MeiSequence mei_sequence = null;
-		  if(SymbolicMusicFileUtilities.isValidMidiFile(recording_file))
-			full_sequence = SymbolicMusicFileUtilities.getMidiSequenceFromMidiOrMeiFile(recording_file,errorLog);
-		  else if(SymbolicMusicFileUtilities.isValidMeiFile(recording_file))
-		  {
-               mei_sequence = SymbolicMusicFileUtilities.getMeiSequenceFromMeiFile(recording_file,errorLog);
-               full_sequence = mei_sequence.getSequence();
-          }
-
-          /**
-           * Mei Specific Storage added here
-           * null is set if the file is not an mei file
-           **/
-          MeiSpecificStorage meiSpecificStorage = null;
-          if(mei_sequence != null) {
-               meiSpecificStorage = mei_sequence.getNonMidiStorage();
-          }
-          /**
-           *
-           */
-
-          // Prepare the windows for feature extraction with correct times
-          // Tick arrays have been added to account for multiple windows
-          Sequence[] windows;
-          double[] seconds_per_tick = MIDIMethods.getSecondsPerTick(full_sequence);
-          List<int[]> startEndTickArrays;
-          int[] start_ticks;
-          int[] end_ticks;
-          try
-          {
-               if (!save_features_for_each_window)
-               {
-                    startEndTickArrays = MIDIMethods.getStartEndTickArrays(full_sequence,
-                            full_sequence.getMicrosecondLength() / 1000000.0,
-                            0.0,
-                            seconds_per_tick);
-                    start_ticks = startEndTickArrays.get(0);
-                    end_ticks = startEndTickArrays.get(1);
-                    windows = new Sequence[1];
-                    windows[0] = full_sequence;
-               }
-               else
-               {
-                    startEndTickArrays = MIDIMethods.getStartEndTickArrays(full_sequence,
-                            window_size,
-                            window_overlap_offset,
-                            seconds_per_tick);
-                    start_ticks = startEndTickArrays.get(0);
-                    end_ticks = startEndTickArrays.get(1);
-                    windows = MIDIMethods.breakSequenceIntoWindows( full_sequence,
-                            window_size,
-                            window_overlap_offset,
-                            start_ticks,
-                            end_ticks);
-               }
-          }
-          catch (RuntimeException e)
-          {
-               throw new Exception("An error occured while processing the following file: " + recording_file + ".\n");
-          }
-
-          // Extract the feature values from the samples
-          double[][][] window_feature_values = getFeatures(windows, meiSpecificStorage);
-
-          // Find the feature averages and standard deviations if appropriate
-          FeatureDefinition[][] overall_feature_definitions = new FeatureDefinition[1][];
-          overall_feature_definitions[0] = null;
-          double[][] overall_feature_values = null;
-          if (save_overall_recording_features)
-               overall_feature_values = getOverallRecordingFeatures( window_feature_values,
-                       overall_feature_definitions );
+          ExtractedFeatureValues extracted_values = extractFeatureValues(recording_file, errorLog);
 
           // Save the feature values for this recording
-          saveFeatureVectorsForARecording( window_feature_values,
-                  recording_file.getPath(),
-                  overall_feature_values,
-                  overall_feature_definitions[0],
-                  full_sequence,
-                  windows,
-                  start_ticks,
-                  end_ticks,
-                  seconds_per_tick);
+          saveFeatureVectorsForARecording( extracted_values.window_feature_values,
+                  extracted_values.identifier,
+                  extracted_values.overall_feature_values,
+                  extracted_values.overall_feature_definitions,
+                  extracted_values.window_start_times,
+                  extracted_values.window_end_times);
 
           // Write ending tags for
           finalizeFeatureValuesFile();
 
           // Save the feature definitions
           if (!definitions_written)
-               saveFeatureDefinitions(window_feature_values, overall_feature_definitions[0]);
+               saveFeatureDefinitions(extracted_values.window_feature_values, extracted_values.overall_feature_definitions);
 
-          return new JsymbolicData(meiSpecificStorage, feature_values_save_file, feature_definitions_save_file, null, null, error_print_stream);
+          return new JsymbolicData(extracted_values.mei_specific_storage, feature_values_save_file, feature_definitions_save_file, null, null, error_print_stream);
      }
      
      
      /**
       * Write the ending tags to the feature_vector_file XML file.
-      * Close the DataOutputStreams that were used to write it.
+      * Close the DataOutputStreams that were used to write it, and those used
+      * to write any Weka ARFF and CSV files.
       *
       * <p>This method should be called when all features have been extracted.
       *
@@ -512,6 +663,10 @@ public class MIDIFeatureProcessor
           try {
               values_writer.write("</feature_vector_file>");
               values_writer.close();
+              if (arff_and_csv_writer != null)
+                   arff_and_csv_writer.close();
+              if (binary_values_writer != null)
+                   binary_values_writer.close();
           }
           catch (IOException e) {
               //Squelch the already closed stream since its already closed
@@ -711,6 +866,10 @@ public class MIDIFeatureProcessor
                               max_feature_offsets[i] = Math.abs(these_offsets[k]);
                }
           }
+
+          // Find the groups of intermediate representations read by any of the
+          // features to be extracted
+          intermediate_representations_to_generate = getIntermediateRepresentationsReadBy(new boolean[feature_extractors.length]);
 		  
 		  // DEBUGGING: Print all features set to be extracted in the order they are set to be extracted
 		  //for (int i = 0; i < feature_extractors.length; i++)
@@ -744,18 +903,68 @@ public class MIDIFeatureProcessor
           // identifies the window, the second identifies the feature and the
           // third identifies the feature value.
           double[][][] results = new double[windows.length][feature_extractors.length][];
+          getFeatures(windows, meiSpecificStorage, results, new boolean[feature_extractors.length]);
+          return results;
+     }
+     
+     
+     /**
+      * Extracts features from each window of the given MIDI sequences, except
+      * for features whose values are already known. Only the intermediate
+      * representations read by the features that are extracted are calculated.
+      *
+      * @param	windows                    The ordered MIDI windows to extract
+      *                                    features from.
+      * @param	meiSpecificStorage         The mei specific data storage used
+      *                                    to extract mei specific features, or
+      *                                    null if the file is not an mei file.
+      * @param	results                    The feature values of this recording,
+      *                                    which are filled in by this method.
+      *                                    The first indice identifies the
+      *                                    window, the second identifies the
+      *                                    feature and the third identifies the
+      *                                    feature value. The values of features
+      *                                    that are already extracted must
+      *                                    already be filled in.
+      * @param	features_already_extracted Which features already have their
+      *                                    values filled in in results, and so
+      *                                    are not to be extracted. Entries
+      *                                    correspond to feature_extractors.
+      * @throws	Exception                  Throws an exception if a problem
+      *                                    occurs.
+      */
+     private void getFeatures( Sequence[] windows,
+          MeiSpecificStorage meiSpecificStorage,
+          double[][][] results,
+          boolean[] features_already_extracted )
+     throws Exception
+     {
+          // Find the groups of intermediate representations read by the features
+          // that still need to be extracted
+          IntermediateRepresentationEnum[] representations_to_generate = intermediate_representations_to_generate;
+          for (int feat = 0; feat < feature_extractors.length; feat++)
+               if (features_already_extracted[feat])
+               {
+                    representations_to_generate = getIntermediateRepresentationsReadBy(features_already_extracted);
+                    break;
+               }
           
           // Extract features from each window one by one and add save the results.
           // The last window is zero-padded at the end if it falls off the edge of the
           // provided samples.
           for (int win = 0; win < windows.length; win++)
           {
-               // Extract information from sequence that is needed to extract features
-              MIDIIntermediateRepresentations intermediate = new MIDIIntermediateRepresentations(windows[win]);
+               // Extract information from sequence that is needed to extract features.
+               // Only the information read by the features to be extracted is calculated.
+               MIDIIntermediateRepresentations intermediate = new MIDIIntermediateRepresentations(windows[win], representations_to_generate);
                
                // Extract the features one by one
                for (int feat = 0; feat < feature_extractors.length; feat++)
                {
+                    // Skip this feature if its values are already known
+                    if (features_already_extracted[feat])
+                         continue;
+                    
                     // Only extract this feature if enough previous information
                     // is available to extract this feature
                     if (win >= max_feature_offsets[feat])
@@ -806,9 +1015,118 @@ public class MIDIFeatureProcessor
                          results[win][feat] = null;
                }
           }
+     }
+     
+     
+     /**
+      * Finds the groups of intermediate representations read by the
+      * feature_extractors, other than the ones that are to be skipped.
+      *
+      * @param	features_to_skip	Which features not to include. Entries
+      *                                 correspond to feature_extractors.
+      * @return				The groups of intermediate representations
+      *                                 read by the remaining features.
+      */
+     private IntermediateRepresentationEnum[] getIntermediateRepresentationsReadBy(boolean[] features_to_skip)
+     {
+          EnumSet<IntermediateRepresentationEnum> representations = EnumSet.noneOf(IntermediateRepresentationEnum.class);
+          for (int feat = 0; feat < feature_extractors.length; feat++)
+          {
+               if (features_to_skip[feat])
+                    continue;
+               IntermediateRepresentationEnum[] these_representations = feature_extractors[feat].getIntermediateRepresentations();
+               if (these_representations == null)
+                    representations = EnumSet.allOf(IntermediateRepresentationEnum.class);
+               else
+                    for (int i = 0; i < these_representations.length; i++)
+                         representations.add(these_representations[i]);
+          }
+          return representations.toArray(new IntermediateRepresentationEnum[representations.size()]);
+     }
+     
+     
+     /**
+      * Finds the values of the feature_extractors stored in the given cached
+      * values.
+      *
+      * @param	cached_values		The values found in the feature_value_cache.
+      * @param	number_of_windows	The number of windows that values are needed
+      *                                 for.
+      * @param	features_found		Which features were found in cached_values.
+      *                                 Filled in by this method, with entries
+      *                                 corresponding to feature_extractors. If
+      *                                 this is null, then null is returned
+      *                                 unless all features were found.
+      * @return				The feature values found. The first indice
+      *                                 identifies the window, the second
+      *                                 identifies the feature and the third
+      *                                 identifies the feature value. Null if
+      *                                 cached_values holds values for a
+      *                                 different number of windows.
+      */
+     private double[][][] getCachedFeatureValues( FeatureValueCache.CachedFeatureValues cached_values,
+          int number_of_windows,
+          boolean[] features_found )
+     {
+          if (cached_values.getNumberOfWindows() != number_of_windows)
+               return null;
           
-          // Return the results
-         return results;
+          double[][][] values = new double[number_of_windows][feature_extractors.length][];
+          for (int feat = 0; feat < feature_extractors.length; feat++)
+          {
+               double[][] this_feature_values = cached_values.getFeatureValues(feature_cache_keys[feat]);
+               if (this_feature_values == null)
+               {
+                    if (features_found == null)
+                         return null;
+                    continue;
+               }
+               for (int win = 0; win < number_of_windows; win++)
+                    values[win][feat] = this_feature_values[win];
+               if (features_found != null)
+                    features_found[feat] = true;
+          }
+          return values;
+     }
+     
+     
+     /**
+      * Finds the overall recording features, if they are to be saved, and
+      * packages them with the given feature values.
+      *
+      * @param	recording_file          The file the values were extracted from.
+      * @param	window_feature_values   The extracted window feature values.
+      *                                 The first indice identifies the window,
+      *                                 the second identifies the feature and
+      *                                 the third identifies the feature value.
+      * @param	window_start_times      The start time in seconds of each window.
+      * @param	window_end_times        The end time in seconds of each window.
+      * @param	meiSpecificStorage      The mei specific data of the recording,
+      *                                 or null if it is not an mei file.
+      * @return                         The extracted feature values, ready to be
+      *                                 saved.
+      */
+     private ExtractedFeatureValues getExtractedFeatureValues( File recording_file,
+          double[][][] window_feature_values,
+          double[] window_start_times,
+          double[] window_end_times,
+          MeiSpecificStorage meiSpecificStorage )
+     {
+          // Find the feature averages and standard deviations if appropriate
+          FeatureDefinition[][] overall_feature_definitions = new FeatureDefinition[1][];
+          overall_feature_definitions[0] = null;
+          double[][] overall_feature_values = null;
+          if (save_overall_recording_features)
+               overall_feature_values = getOverallRecordingFeatures( window_feature_values,
+                    overall_feature_definitions );
+
+          return new ExtractedFeatureValues( recording_file.getPath(),
+               window_feature_values,
+               overall_feature_values,
+               overall_feature_definitions[0],
+               window_start_times,
+               window_end_times,
+               meiSpecificStorage );
      }
      
      
@@ -953,7 +1271,10 @@ public class MIDIFeatureProcessor
       * Writes the given feature values extracted from a recording to the
       * feature_vector_file XML file referred to by the values_writer field.
       * Writes both the individual window features and the overall recording
-      * features to disk.
+      * features to disk. The same values are also written to any Weka ARFF
+      * and CSV files referred to by the arff_and_csv_writer field, and to any
+      * ACE binary feature values file referred to by the binary_values_file_path
+      * field.
       *
       * @param	feature_values               The extracted feature values for
       *                                      this recording. The first indice
@@ -981,11 +1302,8 @@ public class MIDIFeatureProcessor
       *                                      overall_feature_values parameter.
       *                                      Will be null if no overall features
       *                                      were extracted.
-      * @param original_Sequence             The original sequence that contains the MIDI data.
-      * @param windows                       The original sequence split up into timed MIDI windows.
-      * @param start_ticks                   The start ticks that correspond to each MIDI window.
-      * @param end_ticks                     The end ticks that correspond to each MIDI window.
-      * @param seconds_per_tick              The number of seconds in a MIDI tick given by the sequence.
+      * @param window_start_times            The start time in seconds of each window.
+      * @param window_end_times              The end time in seconds of each window.
       * @throws	Exception                    Throws an exception if cannot
       *                                      write.
       */
@@ -993,31 +1311,26 @@ public class MIDIFeatureProcessor
           String identifier,
           double[][] overall_feature_values,
           FeatureDefinition[] overall_feature_definitions,
-          Sequence original_Sequence,
-          Sequence[] windows,
-          int[] start_ticks,
-          int[] end_ticks,
-          double[] seconds_per_tick)
+          double[] window_start_times,
+          double[] window_end_times)
           throws Exception
      {
           // Start the entry for the recording
           values_writer.write("\t<data_set>\n");
           values_writer.write("\t\t<data_set_id>" + identifier + "</data_set_id>\n");
           
+          // The formatted values of each window, to be written to any Weka ARFF
+          // and CSV files after the overall values
+          List<String[][]> window_value_strings = new ArrayList<>();
+          
           // Write the features for individual windows
           if (save_features_for_each_window) {
               //could change to win < windows.length
                for (int win = 0; win < feature_values.length; win++)
                {
-               //Compute start and end times
-               int start_tick = start_ticks[win];
-               int end_tick = end_ticks[win];
-               double start_time = MIDIMethods.getSecondsAtTick(start_tick, seconds_per_tick);
-               start_time = (start_time > 0) ? start_time : 0; //check for non negative
-               double end_time = MIDIMethods.getSecondsAtTick(end_tick, seconds_per_tick);
-               
-               values_writer.write( "\t\t<section start=\"" + start_time +
-                    "\" stop=\"" + end_time + "\">\n");
+               values_writer.write( "\t\t<section start=\"" + window_start_times[win] +
+                    "\" stop=\"" + window_end_times[win] + "\">\n");
+               List<String[]> this_window_value_strings = new ArrayList<>();
                for (int feat = 0; feat < feature_values[win].length; feat++)
                {
                     if (features_to_save[feat])
@@ -1026,34 +1339,87 @@ public class MIDIFeatureProcessor
                          String feature_name = feature_extractors[feat].getFeatureDefinition().name;
                          values_writer.write("\t\t\t<feature>\n");
                          values_writer.write("\t\t\t\t<name>" + feature_name + "</name>\n");
+                         String[] value_strings = new String[feature_values[win][feat].length];
                          for (int val = 0; val < feature_values[win][feat].length; val++)
                          {
                               String value = mckay.utilities.staticlibraries.StringMethods.getDoubleInScientificNotation(feature_values[win][feat][val], 4);
                               values_writer.write("\t\t\t\t<v>" + value + "</v>\n");
+                              value_strings[val] = value;
                          }
                          values_writer.write("\t\t\t</feature>\n");
+                         this_window_value_strings.add(value_strings);
                          }
                }
                values_writer.write("\t\t</section>\n");
+               window_value_strings.add(this_window_value_strings.toArray(new String[0][]));
                }
           }
           
           // Write the features for the file
+          String[][] overall_value_strings = new String[0][];
           if (overall_feature_values != null)
+          {
+               overall_value_strings = new String[overall_feature_values.length][];
                for (int feat = 0; feat < overall_feature_values.length; feat++)
                {
                values_writer.write("\t\t<feature>\n");
                values_writer.write("\t\t\t<name>" + overall_feature_definitions[feat].name + "</name>\n");
+               overall_value_strings[feat] = new String[overall_feature_values[feat].length];
                for (int val = 0; val < overall_feature_values[feat].length; val++)
                {
                     String value = mckay.utilities.staticlibraries.StringMethods.getDoubleInScientificNotation(overall_feature_values[feat][val], 4);
                     values_writer.write("\t\t\t<v>" + value + "</v>\n");
+                    overall_value_strings[feat][val] = value;
                }
                values_writer.write("\t\t</feature>\n");
                }
+          }
           
           // End the entry for the recording
           values_writer.write("\t</data_set>\n\n");
+          
+          // Write the same values to any Weka ARFF and CSV files, with the
+          // overall values first
+          if (arff_and_csv_writer != null)
+          {
+               if (!arff_and_csv_writer.isHeaderWritten())
+                    arff_and_csv_writer.writeHeader(getFeatureDefinitionsToSave(feature_values, overall_feature_definitions));
+               arff_and_csv_writer.writeInstance(identifier, overall_value_strings);
+               for (int win = 0; win < window_value_strings.size(); win++)
+                    arff_and_csv_writer.writeSubSection(identifier, win, window_value_strings.get(win));
+          }
+          
+          // Write the unrounded values to any ACE binary feature values file
+          if (binary_values_file_path != null)
+          {
+               if (binary_values_writer == null)
+               {
+                    binary_values_writer = new BinaryFeatureValuesWriter(new FileOutputStream(binary_values_file_path));
+                    binary_values_writer.writeHeader(getFeatureDefinitionsToSave(feature_values, overall_feature_definitions));
+               }
+               String[] overall_feature_names = new String[0];
+               if (overall_feature_values != null)
+               {
+                    overall_feature_names = new String[overall_feature_definitions.length];
+                    for (int feat = 0; feat < overall_feature_definitions.length; feat++)
+                         overall_feature_names[feat] = overall_feature_definitions[feat].name;
+               }
+               binary_values_writer.writeInstance(identifier, overall_feature_names, overall_feature_values);
+               if (save_features_for_each_window)
+               {
+                    String[] window_feature_names = new String[feature_extractors.length];
+                    for (int feat = 0; feat < feature_extractors.length; feat++)
+                         window_feature_names[feat] = feature_extractors[feat].getFeatureDefinition().name;
+                    for (int win = 0; win < feature_values.length; win++)
+                    {
+                         double[][] saved_values = new double[feature_values[win].length][];
+                         for (int feat = 0; feat < feature_values[win].length; feat++)
+                              if (features_to_save[feat])
+                                   saved_values[feat] = feature_values[win][feat];
+                         binary_values_writer.writeSubSection(win, window_start_times[win], window_end_times[win], window_feature_names, saved_values);
+                    }
+               }
+          }
      }
      
      
@@ -1095,40 +1461,144 @@ public class MIDIFeatureProcessor
                );
           definitions_writer.write(feature_key_header);
           
+          // Write the window features and then the overall file features
+          FeatureDefinition[] definitions_to_save = getFeatureDefinitionsToSave(feature_values, overall_feature_definitions);
+          for (int feat = 0; feat < definitions_to_save.length; feat++)
+          {
+               FeatureDefinition def = definitions_to_save[feat];
+               definitions_writer.write("   <feature>\n");
+               definitions_writer.write("      <name>" + def.name + "</name>\n");
+               definitions_writer.write("      <description>" + def.description + "</description>\n");
+               definitions_writer.write("      <is_sequential>" + def.is_sequential + "</is_sequential>\n");
+               definitions_writer.write("      <parallel_dimensions>" + def.dimensions + "</parallel_dimensions>\n");
+               definitions_writer.write("   </feature>\n\n");
+          }
+          
+          definitions_writer.write("</feature_key_file>");
+          
+          definitions_writer.close();
+          
+          definitions_written = true;
+     }
+     
+     
+     /**
+      * Finds the definitions of the features that are saved for a recording,
+      * in the order that they are saved to the feature_key_file XML file: first
+      * the features saved for individual windows (if any), and then the
+      * overall recording features (if any). The dimensions of window features
+      * are those of the values extracted from the last window.
+      *
+      * @param	feature_values               The extracted feature values for a
+      *                                      recording. The first indice
+      *                                      identifies the window, the second
+      *                                      identifies the feature and the
+      *                                      third identifies the feature value.
+      * @param	overall_feature_definitions  The feature definitions of the
+      *                                      overall features for the recording.
+      *                                      Will be null if no overall features
+      *                                      were extracted.
+      * @return                              The definitions of the saved
+      *                                      features.
+      */
+     private FeatureDefinition[] getFeatureDefinitionsToSave( double[][][] feature_values,
+          FeatureDefinition[] overall_feature_definitions )
+     {
+          List<FeatureDefinition> definitions = new ArrayList<>();
+          
           double[][] last_window_features = feature_values[feature_values.length - 1];
           
-          // Write the window functions
+          // Find the window features
           if (save_features_for_each_window)
                for (int feat = 0; feat < feature_extractors.length; feat++)
                     if (features_to_save[feat])
                          if (last_window_features[feat] != null)
                          {
                FeatureDefinition def = feature_extractors[feat].getFeatureDefinition();
-               definitions_writer.write("   <feature>\n");
-               definitions_writer.write("      <name>" + def.name + "</name>\n");
-               definitions_writer.write("      <description>" + def.description + "</description>\n");
-               definitions_writer.write("      <is_sequential>" + def.is_sequential + "</is_sequential>\n");
-               definitions_writer.write("      <parallel_dimensions>" + last_window_features[feat].length + "</parallel_dimensions>\n");
-               definitions_writer.write("   </feature>\n\n");
+               definitions.add(new FeatureDefinition(def.name, def.description, def.is_sequential, last_window_features[feat].length));
                          }
           
-          // Write the overall file functions
+          // Find the overall file features
           if (overall_feature_definitions != null)
                for (int feat = 0; feat < overall_feature_definitions.length; feat++)
-               {
-               FeatureDefinition def = overall_feature_definitions[feat];
-               definitions_writer.write("   <feature>\n");
-               definitions_writer.write("      <name>" + def.name + "</name>\n");
-               definitions_writer.write("      <description>" + def.description + "</description>\n");
-               definitions_writer.write("      <is_sequential>" + def.is_sequential + "</is_sequential>\n");
-               definitions_writer.write("      <parallel_dimensions>" + def.dimensions + "</parallel_dimensions>\n");
-               definitions_writer.write("   </feature>\n\n");
-               }
-          
-          definitions_writer.write("</feature_key_file>");
+                    definitions.add(overall_feature_definitions[feat]);
           
-          definitions_writer.close();
-          
-          definitions_written = true;
+          return definitions.toArray(new FeatureDefinition[definitions.size()]);
+     }
+     
+     
+     /* INTERNAL CLASSES ******************************************************/
+     
+     
+     /**
+      * The feature values extracted from a single recording by extractFeatureValues,
+      * along with the timing information needed in order to save them. Objects of
+      * this class are not modified after construction.
+      */
+     public static class ExtractedFeatureValues
+     {
+          /**
+           * A string identifying the recording. Often a file path.
+           */
+          private final String identifier;
+
+          /**
+           * The extracted window feature values. The first indice identifies the
+           * window, the second identifies the feature and the third identifies the
+           * feature value.
+           */
+          private final double[][][] window_feature_values;
+
+          /**
+           * The overall average and standard deviations of the window feature
+           * values. Null if overall feature values were not extracted.
+           */
+          private final double[][] overall_feature_values;
+
+          /**
+           * The feature definitions of overall_feature_values. Null if overall
+           * feature values were not extracted.
+           */
+          private final FeatureDefinition[] overall_feature_definitions;
+
+          /**
+           * The start time in seconds of each window.
+           */
+          private final double[] window_start_times;
+
+          /**
+           * The end time in seconds of each window.
+           */
+          private final double[] window_end_times;
+
+          /**
+           * The MEI-specific data of the recording. Null if it is not an MEI file.
+           */
+          private final MeiSpecificStorage mei_specific_storage;
+
+          private ExtractedFeatureValues( String identifier,
+               double[][][] window_feature_values,
+               double[][] overall_feature_values,
+               FeatureDefinition[] overall_feature_definitions,
+               double[] window_start_times,
+               double[] window_end_times,
+               MeiSpecificStorage mei_specific_storage )
+          {
+               this.identifier = identifier;
+               this.window_feature_values = window_feature_values;
+               this.overall_feature_values = overall_feature_values;
+               this.overall_feature_definitions = overall_feature_definitions;
+               this.window_start_times = window_start_times;
+               this.window_end_times = window_end_times;
+               this.mei_specific_storage = mei_specific_storage;
+          }
+
+          /**
+           * @return	A string identifying the recording. Often a file path.
+           */
+          public String getIdentifier()
+          {
+               return identifier;
+          }
      }
 }
@@ -1,11 +1,14 @@
 package jsymbolic2.processing;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.LinkedList;
 import java.util.List;
 import javax.sound.midi.*;
 import jsymbolic2.featureutils.CollectedNoteInfo;
 import jsymbolic2.featureutils.NoteInfo;
+import jsymbolic2.featureutils.NoteOffIndex;
+import jsymbolic2.featureutils.PitchStrengthSegments;
 import mckay.utilities.staticlibraries.ArrayMethods;
 import mckay.utilities.staticlibraries.MathAndStatsMethods;
 
@@ -444,12 +447,12 @@ public class MIDIIntermediateRepresentations
 	public boolean[][] note_sounding_on_a_channel_tick_map;
 	
 	/**
-	 * A table indicating what pitches are sounding during each MIDI tick. The first index indicates tick and
-	 * the second indicates MIDI pitch (and is always set to size 128). Each entry indicates the cumulative
-	 * velocity of all notes (NOT including Channel 10 unpitched notes) sounding at that tick with that
-	 * pitch.
+	 * An indication of what pitches are sounding during each MIDI tick, and with what cumulative velocity
+	 * (NOT including Channel 10 unpitched notes). The piece is divided into segments of ticks that begin
+	 * only at note boundaries, so that memory use scales with the number of notes rather than with the
+	 * number of ticks. Rests are segments holding no pitches.
 	 */
-	public short[][] pitch_strength_by_tick_chart;
+	public PitchStrengthSegments pitch_strength_segments;
 
 	/**
 	 * Total combined velocity of all notes involved in a vertical unison, summed over the the entire piece.
@@ -619,6 +622,17 @@ public class MIDIIntermediateRepresentations
 	 */
 	private final Track[] tracks;
 
+	/**
+	 * The tick of the Note Off corresponding to each Note On in tracks. This is built once, and then used by
+	 * all processing that needs to know when notes end.
+	 */
+	private final NoteOffIndex note_off_index;
+
+	/**
+	 * The groups of intermediate representations whose public fields have been calculated so far.
+	 */
+	private final EnumSet<IntermediateRepresentationEnum> generated_representations;
+
 	/**
 	 * Average number of MIDI ticks corresponding to 1 second of score time. Tempo change messages can cause
 	 * variations in the number of ticks per second, which is why this is a mean value.
@@ -638,6 +652,27 @@ public class MIDIIntermediateRepresentations
 	 */
 	public MIDIIntermediateRepresentations(Sequence midi_sequence)
 			throws Exception
+	{
+		this(midi_sequence, IntermediateRepresentationEnum.values());
+	}
+
+
+	/**
+	 * Parse the specified MIDI sequence, but only fill the fields of this object belonging to the specified
+	 * groups of intermediate representations (and to the groups that they are calculated from). All other
+	 * fields are left unset until they are requested through the generateRepresentations method. This
+	 * avoids the cost of calculating representations that will never be used when only a few features are
+	 * to be extracted.
+	 *
+	 * @param	midi_sequence				The MIDI sequence to extract information from.
+	 * @param	representations_to_generate	The groups of intermediate representations to calculate
+	 *										immediately. May be empty.
+	 * @throws	Exception					Informative exceptions are thrown if problems are encountered
+	 *										during parsing.
+	 */
+	public MIDIIntermediateRepresentations( Sequence midi_sequence,
+											IntermediateRepresentationEnum[] representations_to_generate )
+			throws Exception
 	{
 		// Check the MIDI sequence. Throw exceptions if it uses SMPTE timing or if it is too long.
 		// Fill sequence and all_tracks fields otherwise.
@@ -649,247 +684,52 @@ public class MIDIIntermediateRepresentations
 		if (((double) sequence.getTickLength()) > ((double) Integer.MAX_VALUE) - 1.0)
 			throw new Exception("The MIDI sequence could not be processed because it is too long.");
 
+		// Pair each Note On with its Note Off
+		note_off_index = new NoteOffIndex(tracks);
+
 		// Caclulate mean_ticks_per_second
 		mean_ticks_per_second = ((double) sequence.getTickLength()) / ((double) sequence.getMicrosecondLength() / 1000000.0);
 
-		// Fill in the public fields of this class
-		// Commented out code is for the purpose of testing calculated values in case changes are made
-		
-		generateOverallMetadata();
-		/*int quality = ((Integer) overall_metadata[0]).intValue();
-		Object[] numerators_objects = ((LinkedList) overall_metadata[1]).toArray();
-		int[] numerators = new int[numerators_objects.length];
-		for (int i = 0; i < numerators.length; i++)
-			numerators[i] = ((Integer) numerators_objects[i]).intValue();
-		Object[] denominators_objects = ((LinkedList) overall_metadata[2]).toArray();
-		int[] denominators = new int[denominators_objects.length];
-		for (int i = 0; i < denominators.length; i++)
-			denominators[i] = ((Integer) denominators_objects[i]).intValue();
-		int tempo = ((Integer) overall_metadata[3]).intValue();
-		System.out.println(quality);
-		for (int i = 0; i < numerators.length; i++)
-			System.out.print(numerators[i] + " ");
-		for (int i = 0; i < denominators.length; i++)
-			System.out.print(denominators[i] + " ");
-		System.out.println("\n" + tempo);
-		System.out.println();*/
-	
-		generateSequenceDurationIntermediateRepresentations();
-		//System.out.println(sequence_duration);
+		// Note that no intermediate representations have been calculated yet
+		generated_representations = EnumSet.noneOf(IntermediateRepresentationEnum.class);
 
-		generateAverageTickDuration();
-		// System.out.println("Average tick duration (in seconds): " + average_tick_duration);
-		// System.out.println("Ticks per beat: " + sequence.getResolution());
-		
-		generateTempoAndChannelVolumeMaps();
-		/*for (int i = 0; i < duration_of_ticks_in_seconds.length; i++)
-			System.out.println(i + " " + duration_of_ticks_in_seconds[i]);
-		for (int i = 0; i < volume_of_channels_tick_map.length; i++)
-		{
-			System.out.print("\nTick: " + i + "     ");
-			for (int j = 0; j < volume_of_channels_tick_map[i].length; j++)
-				System.out.print("j: " + j + " vol: " + volume_of_channels_tick_map[i][j] + "    ");
-		}*/
-		 
-		generatePitchedInstrumentIntermediateRepresentations();
-		/*for (int i = 0; i < pitched_instrument_prevalence.length; i++)
-			System.out.println("INST: " + i + "   N Ons: " + pitched_instrument_prevalence[i][0] + "    Time: " + pitched_instrument_prevalence[i][1]);
-		for (int i = 0; i < pitched_instrumentation_tick_map.length; i++)
-		{
-			System.out.print("Tick: " + i + " - ");
-			for (int j = 0; j < pitched_instrumentation_tick_map[i].length; j++)
-				System.out.print("Inst " + j + ": " + pitched_instrumentation_tick_map[i][j] + "  |  ");
-			System.out.print("\n");
-		}*/
-		
-		generateNonPitchedInstrumentPrevalence();
-		/*for (int i = 0; i < non_pitched_instrument_prevalence.length; i++)
-			System.out.println(i + " " + non_pitched_instrument_prevalence[i]);*/
+		// Fill in the requested public fields of this class
+		generateRepresentations(representations_to_generate);
+	}
 
-		generateNoteCountIntermediateRepresentations();
-		//System.out.println(total_number_note_ons + " " + total_number_pitched_note_ons + " " + total_number_non_pitched_note_ons);
-		
-		generateRhythmicValueFeatures();
-		// System.out.println("Fraction thirty second notes: " + rhythmic_value_histogram[0]);
-		// System.out.println("Fraction sixteenth notes: " + rhythmic_value_histogram[1]);
-		// System.out.println("Fraction eighth notes: " + rhythmic_value_histogram[2]);
-		// System.out.println("Fraction dotted eighth notes: " + rhythmic_value_histogram[3]);
-		// System.out.println("Fraction quarter notes: " + rhythmic_value_histogram[4]);
-		// System.out.println("Fraction dotted quarter notes: " + rhythmic_value_histogram[5]);
-		// System.out.println("Fraction half notes: " + rhythmic_value_histogram[6]);
-		// System.out.println("Fraction dotted half notes: " + rhythmic_value_histogram[7]);
-		// System.out.println("Fraction whole notes: " + rhythmic_value_histogram[8]);
-		// System.out.println("Fraction dotted whole notes: " + rhythmic_value_histogram[9]);
-		// System.out.println("Fraction double whole notes: " + rhythmic_value_histogram[10]);
-		// System.out.println("Fraction dotted double whole notes: " + rhythmic_value_histogram[11]);
-		// System.out.println("---");
-		// System.out.println("Average quarter note duration (seconds): " + average_quarter_note_duration_in_seconds);
-		// System.out.println("---");
-		// for (int i = 0; i < runs_of_same_rhythmic_value.length; i ++)		
-		//	for (int j = 0; j < runs_of_same_rhythmic_value[i].size(); j++)
-		// 		System.out.println("Rhythmic Value: " + i + " Run Length: " + runs_of_same_rhythmic_value[i].get(j));
-		// System.out.println("---");			
-		// for (int i = 0; i < rhythmic_value_of_each_note_in_quarter_notes.length; i++)
-		//	System.out.println(rhythmic_value_of_each_note_in_quarter_notes[i]);
-		// System.out.println("===");
-		// for (int i = 0; i < rhythmic_value_offsets.length; i++)
-		//	System.out.println(rhythmic_value_offsets[i]);
-		// System.out.println("===");
-		
-		generateBeatHistograms();
-		/*for (int i = 0; i < beat_histogram.length; i++)
-			System.out.println("BPM: " + i + ": " + beat_histogram[i]);*/
 	
-		generateBeatHistogramThresholdedTables();
-		 /*for (int i = 0; i < beat_histogram_thresholded_table.length; i++)
-		{
-			System.out.print("\nBPM: " + i + "     ");
-			for (int j = 0; j < beat_histogram_thresholded_table[i].length; j++)
-				System.out.print("   " + beat_histogram_thresholded_table[i][j]);
-		}*/
-		
-		generateNoteDurations();
-		/*for (int i = 0; i < note_durations.size(); i++)
-		{
-			double duration = ((Double) (note_durations.get(i))).doubleValue();
-			System.out.println(duration);
-		}*/
-	
-		generateNoteAttackTickMap();
-		/*for (int i = 0; i < note_attack_tick_map.length; i++)
-		{
-			System.out.print("\ntick: " + i + "     ");
-			for (int j = 0; j < note_attack_tick_map[i].length; j++)
-				System.out.print("   " + note_attack_tick_map[i][j]);
-		}*/
-		
-		generateAllNotes();
-		
-		generatePitchHistogramsIntermediateRepresentations();
-		/*System.out.println("basic_pitch_histogram");
-		for (int i = 0; i < basic_pitch_histogram.length; i++)
-			System.out.println(i + ": " + basic_pitch_histogram[i]);
-		System.out.println("pitch_class_histogram");
-		for (int i = 0; i < pitch_class_histogram.length; i++)
-			System.out.println(i + ": " + pitch_class_histogram[i]);
-		System.out.println("fifths_pitch_histogram");
-		for (int i = 0; i < fifths_pitch_histogram.length; i++)
-			System.out.println(i + ": " + fifths_pitch_histogram[i]);*/
-	
-		generatePitchBendsList();
-		/*Object[] notes_objects = pitch_bends_list.toArray();
-		LinkedList[] notes = new LinkedList[notes_objects.length];
-		for (int i = 0; i < notes.length; i++)
-			notes[i] = (LinkedList) notes_objects[i];
-		int[][] pitch_bends = new int[notes.length][];
-		for (int i = 0; i < notes.length; i++)
-		{
-			Object[] this_note_pitch_bends_objects = notes[i].toArray();
-			pitch_bends[i] = new int[this_note_pitch_bends_objects.length];
-			for (int j = 0; j < pitch_bends[i].length; j++)
-				pitch_bends[i][j] = ((Integer) this_note_pitch_bends_objects[j]).intValue();
-		}
-		System.out.println(pitch_bends.length);
-		for (int i = 0; i < pitch_bends.length; i++)
-		{
-			for (int j = 0; j < pitch_bends[i].length; j++)
-				System.out.print(pitch_bends[i][j] + " ");
-			System.out.print("\n\n");
-		}
-		System.out.print("\n\n--\n\n");*/
-		 	
-		generateMelodicIntermediateRepresentations();
-		/*
-		for (int i = 0; i < melodic_interval_histogram.length; i++)
-			System.out.println(i + ": " + melodic_interval_histogram[i]);
-		for (int t = 0; t < melodic_intervals_by_track_and_channel.size(); t++)
-		{
-			System.out.print("\nTrack: " + t + "     ");
-			LinkedList<Integer>[] melodic_intervals_by_channel = melodic_intervals_by_track_and_channel.get(t);
-			for (int i = 0; i < melodic_intervals_by_channel.length; i++)
-			{
-				System.out.print("\nChannel: " + i + "     ");
-				for (int j = 0; j < melodic_intervals_by_channel[i].size(); j++)
-					System.out.print(" " + ((Integer) melodic_intervals_by_channel[i].get(j)).intValue());
-			}
-		}*/
-		
-		generateChannelNoteOnIntermediateRepresentations();
-		/*for (int i = 0; i < channel_statistics.length; i++)
-		{
-			System.out.print("Channel: " + i + "  ");
-			for (int j = 0; j < channel_statistics[i].length; j++)
-				System.out.print(channel_statistics[i][j] + "    ");
-			System.out.print("\n");
-		}
-		for (int i = 0; i < note_sounding_on_a_channel_tick_map.length; i++)
-		{
-			System.out.print("Tick: " + i + " - ");
-			for (int j = 0; j < note_sounding_on_a_channel_tick_map[i].length; j++)
-				System.out.print("Channel " + j + ": " + note_sounding_on_a_channel_tick_map[i][j] + "  |  ");
-			System.out.print("\n");
-		}
-		System.out.println("Number of active voices: " + number_of_active_voices);*/
-		
-		generatePitchAndPitchClaessesOfAllNoteOns();
-		/*
-		for (int i = 0; i < pitch_classes_of_all_note_ons.length; i++)
-			System.out.println("NOTE " + (i + 1) + ": Pitch " + pitches_of_all_note_ons[i] + "  Pitch Class:" + pitch_classes_of_all_note_ons[i]);
-		*/
-		
-		generatePitchStrengthByTickChartAndCalculateTotalVerticalUnsionVelocity();
+	/* PUBLIC METHODS ***************************************************************************************/
 
-		generatePitchesAndPitchClassesPresentByTickExcludingRests();
-		/*for (int i = 0; i < pitches_present_by_tick_excluding_rests.length; i++)
-		{
-			System.out.print("\nTICK " + i + ": ");
-			for (int j = 0; j < pitches_present_by_tick_excluding_rests[i].length; j++)
-				System.out.print(pitches_present_by_tick_excluding_rests[i][j] + " ");
-		}
-		for (int i = 0; i < pitch_classes_present_by_tick_excluding_rests.length; i++)
-		{
-			System.out.print("\nTICK: " + i + ": ");
-			for (int j = 0; j < pitch_classes_present_by_tick_excluding_rests[i].length; j++)
-				System.out.print(pitch_classes_present_by_tick_excluding_rests[i][j] + " ");
-		}*/	
-		
-		generateContrapuntalCounts();
-		/*System.out.println("SEQUENCE DURATION: " + sequence_duration);
-		System.out.println("parallel_motion_fraction " + parallel_motion_fraction);
-		System.out.println("similar_motion_fraction " + similar_motion_fraction);
-		System.out.println("contrary_motion_fraction " + contrary_motion_fraction);
-		System.out.println("oblique_motion_fraction " + oblique_motion_fraction);
-		System.out.println("parallel_fifths_fraction " + parallel_fifths_fraction);
-		System.out.println("parallel_octaves_fraction " + parallel_octaves_fraction);*/
-	
-		generateNoteLoudnesses();
-		/*for (int i = 0; i < note_loudnesses.length; i++)
-			System.out.print("\nCHAN: " + i + "  ");
-			for (int j = 0; j < note_loudnesses[i].length; j++)
-				System.out.print("   " + note_loudnesses[i][j]);
-		System.out.println("\n");*/
-		
-		generateRestDurationsSeparatedByChannel();
-		/*for (int i = 0; i < rest_durations_separated_by_channel.length; i++)
-		{
-			for (int j = 0; j < rest_durations_separated_by_channel[i].length; j++)
-				System.out.print(rest_durations_separated_by_channel[i][j] + " / ");
-			System.out.print("\n");
-		}*/
-		
-		generateCompleteRestDurations();
-		/*if (complete_rest_durations == null)
-			System.out.print("complete_rest_durataions: null");
-		else
-		{
-			System.out.print("complete_rest_durataions: ");
-			for (int i = 0; i < complete_rest_durations.length; i++)
-				System.out.print(complete_rest_durations[i] + " / ");
-		}
-		System.out.print("\n");*/
+
+	/**
+	 * Calculate the specified groups of intermediate representations, along with the groups that they are
+	 * calculated from, and fill the corresponding public fields of this object. Groups that have already
+	 * been calculated are not calculated again, so this may be called cheaply before each feature is
+	 * extracted with the groups that the feature reads.
+	 *
+	 * @param representations	The groups of intermediate representations to calculate. All groups are
+	 *							calculated if this is null.
+	 */
+	public void generateRepresentations(IntermediateRepresentationEnum[] representations)
+	{
+		if (representations == null)
+			representations = IntermediateRepresentationEnum.values();
+		for (IntermediateRepresentationEnum representation : representations)
+			generateRepresentation(representation);
 	}
 
-	
+
+	/**
+	 * @param representation	A group of intermediate representations.
+	 * @return					Whether the public fields of this object belonging to the given group have
+	 *							been calculated.
+	 */
+	public boolean isRepresentationGenerated(IntermediateRepresentationEnum representation)
+	{
+		return generated_representations.contains(representation);
+	}
+
+
 	/* STATIC PUBLIC METHOD *********************************************************************************/
 
 
@@ -918,6 +758,285 @@ public class MIDIIntermediateRepresentations
 	/* PRIVATE METHODS **************************************************************************************/
 
 
+	/**
+	 * Calculate the specified group of intermediate representations if it has not already been calculated,
+	 * after first calculating the groups that it is calculated from. Commented out code is for the purpose
+	 * of testing calculated values in case changes are made.
+	 *
+	 * @param representation	The group of intermediate representations to calculate.
+	 */
+	private void generateRepresentation(IntermediateRepresentationEnum representation)
+	{
+		if (generated_representations.contains(representation))
+			return;
+		for (IntermediateRepresentationEnum prerequisite : representation.getPrerequisites())
+			generateRepresentation(prerequisite);
+
+		switch (representation)
+		{
+			case OVERALL_METADATA:
+				generateOverallMetadata();
+				/*int quality = ((Integer) overall_metadata[0]).intValue();
+				Object[] numerators_objects = ((LinkedList) overall_metadata[1]).toArray();
+				int[] numerators = new int[numerators_objects.length];
+				for (int i = 0; i < numerators.length; i++)
+					numerators[i] = ((Integer) numerators_objects[i]).intValue();
+				Object[] denominators_objects = ((LinkedList) overall_metadata[2]).toArray();
+				int[] denominators = new int[denominators_objects.length];
+				for (int i = 0; i < denominators.length; i++)
+					denominators[i] = ((Integer) denominators_objects[i]).intValue();
+				int tempo = ((Integer) overall_metadata[3]).intValue();
+				System.out.println(quality);
+				for (int i = 0; i < numerators.length; i++)
+					System.out.print(numerators[i] + " ");
+				for (int i = 0; i < denominators.length; i++)
+					System.out.print(denominators[i] + " ");
+				System.out.println("\n" + tempo);
+				System.out.println();*/
+				break;
+			case SEQUENCE_DURATION:
+				generateSequenceDurationIntermediateRepresentations();
+				//System.out.println(sequence_duration);
+				break;
+			case AVERAGE_TICK_DURATION:
+				generateAverageTickDuration();
+				// System.out.println("Average tick duration (in seconds): " + average_tick_duration);
+				// System.out.println("Ticks per beat: " + sequence.getResolution());
+				break;
+			case TEMPO_AND_CHANNEL_VOLUME_MAPS:
+				generateTempoAndChannelVolumeMaps();
+				/*for (int i = 0; i < duration_of_ticks_in_seconds.length; i++)
+					System.out.println(i + " " + duration_of_ticks_in_seconds[i]);
+				for (int i = 0; i < volume_of_channels_tick_map.length; i++)
+				{
+					System.out.print("\nTick: " + i + "     ");
+					for (int j = 0; j < volume_of_channels_tick_map[i].length; j++)
+						System.out.print("j: " + j + " vol: " + volume_of_channels_tick_map[i][j] + "    ");
+				}*/
+				break;
+			case PITCHED_INSTRUMENTS:
+				generatePitchedInstrumentIntermediateRepresentations();
+				/*for (int i = 0; i < pitched_instrument_prevalence.length; i++)
+					System.out.println("INST: " + i + "   N Ons: " + pitched_instrument_prevalence[i][0] + "    Time: " + pitched_instrument_prevalence[i][1]);
+				for (int i = 0; i < pitched_instrumentation_tick_map.length; i++)
+				{
+					System.out.print("Tick: " + i + " - ");
+					for (int j = 0; j < pitched_instrumentation_tick_map[i].length; j++)
+						System.out.print("Inst " + j + ": " + pitched_instrumentation_tick_map[i][j] + "  |  ");
+					System.out.print("\n");
+				}*/
+				break;
+			case NON_PITCHED_INSTRUMENTS:
+				generateNonPitchedInstrumentPrevalence();
+				/*for (int i = 0; i < non_pitched_instrument_prevalence.length; i++)
+					System.out.println(i + " " + non_pitched_instrument_prevalence[i]);*/
+				break;
+			case NOTE_COUNTS:
+				generateNoteCountIntermediateRepresentations();
+				//System.out.println(total_number_note_ons + " " + total_number_pitched_note_ons + " " + total_number_non_pitched_note_ons);
+				break;
+			case RHYTHMIC_VALUES:
+				generateRhythmicValueFeatures();
+				// System.out.println("Fraction thirty second notes: " + rhythmic_value_histogram[0]);
+				// System.out.println("Fraction sixteenth notes: " + rhythmic_value_histogram[1]);
+				// System.out.println("Fraction eighth notes: " + rhythmic_value_histogram[2]);
+				// System.out.println("Fraction dotted eighth notes: " + rhythmic_value_histogram[3]);
+				// System.out.println("Fraction quarter notes: " + rhythmic_value_histogram[4]);
+				// System.out.println("Fraction dotted quarter notes: " + rhythmic_value_histogram[5]);
+				// System.out.println("Fraction half notes: " + rhythmic_value_histogram[6]);
+				// System.out.println("Fraction dotted half notes: " + rhythmic_value_histogram[7]);
+				// System.out.println("Fraction whole notes: " + rhythmic_value_histogram[8]);
+				// System.out.println("Fraction dotted whole notes: " + rhythmic_value_histogram[9]);
+				// System.out.println("Fraction double whole notes: " + rhythmic_value_histogram[10]);
+				// System.out.println("Fraction dotted double whole notes: " + rhythmic_value_histogram[11]);
+				// System.out.println("---");
+				// System.out.println("Average quarter note duration (seconds): " + average_quarter_note_duration_in_seconds);
+				// System.out.println("---");
+				// for (int i = 0; i < runs_of_same_rhythmic_value.length; i ++)		
+				//	for (int j = 0; j < runs_of_same_rhythmic_value[i].size(); j++)
+				// 		System.out.println("Rhythmic Value: " + i + " Run Length: " + runs_of_same_rhythmic_value[i].get(j));
+				// System.out.println("---");			
+				// for (int i = 0; i < rhythmic_value_of_each_note_in_quarter_notes.length; i++)
+				//	System.out.println(rhythmic_value_of_each_note_in_quarter_notes[i]);
+				// System.out.println("===");
+				// for (int i = 0; i < rhythmic_value_offsets.length; i++)
+				//	System.out.println(rhythmic_value_offsets[i]);
+				// System.out.println("===");
+				break;
+			case BEAT_HISTOGRAMS:
+				generateBeatHistograms();
+				/*for (int i = 0; i < beat_histogram.length; i++)
+					System.out.println("BPM: " + i + ": " + beat_histogram[i]);*/
+				break;
+			case BEAT_HISTOGRAM_THRESHOLDED_TABLES:
+				generateBeatHistogramThresholdedTables();
+				 /*for (int i = 0; i < beat_histogram_thresholded_table.length; i++)
+				{
+					System.out.print("\nBPM: " + i + "     ");
+					for (int j = 0; j < beat_histogram_thresholded_table[i].length; j++)
+						System.out.print("   " + beat_histogram_thresholded_table[i][j]);
+				}*/
+				break;
+			case NOTE_DURATIONS:
+				generateNoteDurations();
+				/*for (int i = 0; i < note_durations.size(); i++)
+				{
+					double duration = ((Double) (note_durations.get(i))).doubleValue();
+					System.out.println(duration);
+				}*/
+				break;
+			case NOTE_ATTACK_TICK_MAP:
+				generateNoteAttackTickMap();
+				/*for (int i = 0; i < note_attack_tick_map.length; i++)
+				{
+					System.out.print("\ntick: " + i + "     ");
+					for (int j = 0; j < note_attack_tick_map[i].length; j++)
+						System.out.print("   " + note_attack_tick_map[i][j]);
+				}*/
+				break;
+			case ALL_NOTES:
+				generateAllNotes();
+				break;
+			case PITCH_HISTOGRAMS:
+				generatePitchHistogramsIntermediateRepresentations();
+				/*System.out.println("basic_pitch_histogram");
+				for (int i = 0; i < basic_pitch_histogram.length; i++)
+					System.out.println(i + ": " + basic_pitch_histogram[i]);
+				System.out.println("pitch_class_histogram");
+				for (int i = 0; i < pitch_class_histogram.length; i++)
+					System.out.println(i + ": " + pitch_class_histogram[i]);
+				System.out.println("fifths_pitch_histogram");
+				for (int i = 0; i < fifths_pitch_histogram.length; i++)
+					System.out.println(i + ": " + fifths_pitch_histogram[i]);*/
+				break;
+			case PITCH_BENDS:
+				generatePitchBendsList();
+				/*Object[] notes_objects = pitch_bends_list.toArray();
+				LinkedList[] notes = new LinkedList[notes_objects.length];
+				for (int i = 0; i < notes.length; i++)
+					notes[i] = (LinkedList) notes_objects[i];
+				int[][] pitch_bends = new int[notes.length][];
+				for (int i = 0; i < notes.length; i++)
+				{
+					Object[] this_note_pitch_bends_objects = notes[i].toArray();
+					pitch_bends[i] = new int[this_note_pitch_bends_objects.length];
+					for (int j = 0; j < pitch_bends[i].length; j++)
+						pitch_bends[i][j] = ((Integer) this_note_pitch_bends_objects[j]).intValue();
+				}
+				System.out.println(pitch_bends.length);
+				for (int i = 0; i < pitch_bends.length; i++)
+				{
+					for (int j = 0; j < pitch_bends[i].length; j++)
+						System.out.print(pitch_bends[i][j] + " ");
+					System.out.print("\n\n");
+				}
+				System.out.print("\n\n--\n\n");*/
+				break;
+			case MELODIC_INTERVALS:
+				generateMelodicIntermediateRepresentations();
+				/*
+				for (int i = 0; i < melodic_interval_histogram.length; i++)
+					System.out.println(i + ": " + melodic_interval_histogram[i]);
+				for (int t = 0; t < melodic_intervals_by_track_and_channel.size(); t++)
+				{
+					System.out.print("\nTrack: " + t + "     ");
+					LinkedList<Integer>[] melodic_intervals_by_channel = melodic_intervals_by_track_and_channel.get(t);
+					for (int i = 0; i < melodic_intervals_by_channel.length; i++)
+					{
+						System.out.print("\nChannel: " + i + "     ");
+						for (int j = 0; j < melodic_intervals_by_channel[i].size(); j++)
+							System.out.print(" " + ((Integer) melodic_intervals_by_channel[i].get(j)).intValue());
+					}
+				}*/
+				break;
+			case CHANNEL_NOTE_ONS:
+				generateChannelNoteOnIntermediateRepresentations();
+				/*for (int i = 0; i < channel_statistics.length; i++)
+				{
+					System.out.print("Channel: " + i + "  ");
+					for (int j = 0; j < channel_statistics[i].length; j++)
+						System.out.print(channel_statistics[i][j] + "    ");
+					System.out.print("\n");
+				}
+				for (int i = 0; i < note_sounding_on_a_channel_tick_map.length; i++)
+				{
+					System.out.print("Tick: " + i + " - ");
+					for (int j = 0; j < note_sounding_on_a_channel_tick_map[i].length; j++)
+						System.out.print("Channel " + j + ": " + note_sounding_on_a_channel_tick_map[i][j] + "  |  ");
+					System.out.print("\n");
+				}
+				System.out.println("Number of active voices: " + number_of_active_voices);*/
+				break;
+			case PITCHES_OF_ALL_NOTE_ONS:
+				generatePitchAndPitchClaessesOfAllNoteOns();
+				/*
+				for (int i = 0; i < pitch_classes_of_all_note_ons.length; i++)
+					System.out.println("NOTE " + (i + 1) + ": Pitch " + pitches_of_all_note_ons[i] + "  Pitch Class:" + pitch_classes_of_all_note_ons[i]);
+				*/
+				break;
+			case PITCH_STRENGTH_SEGMENTS:
+				generatePitchStrengthSegmentsAndCalculateTotalVerticalUnsionVelocity();
+				break;
+			case PITCHES_PRESENT_BY_TICK:
+				generatePitchesAndPitchClassesPresentByTickExcludingRests();
+				/*for (int i = 0; i < pitches_present_by_tick_excluding_rests.length; i++)
+				{
+					System.out.print("\nTICK " + i + ": ");
+					for (int j = 0; j < pitches_present_by_tick_excluding_rests[i].length; j++)
+						System.out.print(pitches_present_by_tick_excluding_rests[i][j] + " ");
+				}
+				for (int i = 0; i < pitch_classes_present_by_tick_excluding_rests.length; i++)
+				{
+					System.out.print("\nTICK: " + i + ": ");
+					for (int j = 0; j < pitch_classes_present_by_tick_excluding_rests[i].length; j++)
+						System.out.print(pitch_classes_present_by_tick_excluding_rests[i][j] + " ");
+				}*/	
+				break;
+			case CONTRAPUNTAL_MOTION:
+				generateContrapuntalCounts();
+				/*System.out.println("SEQUENCE DURATION: " + sequence_duration);
+				System.out.println("parallel_motion_fraction " + parallel_motion_fraction);
+				System.out.println("similar_motion_fraction " + similar_motion_fraction);
+				System.out.println("contrary_motion_fraction " + contrary_motion_fraction);
+				System.out.println("oblique_motion_fraction " + oblique_motion_fraction);
+				System.out.println("parallel_fifths_fraction " + parallel_fifths_fraction);
+				System.out.println("parallel_octaves_fraction " + parallel_octaves_fraction);*/
+				break;
+			case NOTE_LOUDNESSES:
+				generateNoteLoudnesses();
+				/*for (int i = 0; i < note_loudnesses.length; i++)
+					System.out.print("\nCHAN: " + i + "  ");
+					for (int j = 0; j < note_loudnesses[i].length; j++)
+						System.out.print("   " + note_loudnesses[i][j]);
+				System.out.println("\n");*/
+				break;
+			case REST_DURATIONS_BY_CHANNEL:
+				generateRestDurationsSeparatedByChannel();
+				/*for (int i = 0; i < rest_durations_separated_by_channel.length; i++)
+				{
+					for (int j = 0; j < rest_durations_separated_by_channel[i].length; j++)
+						System.out.print(rest_durations_separated_by_channel[i][j] + " / ");
+					System.out.print("\n");
+				}*/
+				break;
+			case COMPLETE_REST_DURATIONS:
+				generateCompleteRestDurations();
+				/*if (complete_rest_durations == null)
+					System.out.print("complete_rest_durataions: null");
+				else
+				{
+					System.out.print("complete_rest_durataions: ");
+					for (int i = 0; i < complete_rest_durations.length; i++)
+						System.out.print(complete_rest_durations[i] + " / ");
+				}
+				System.out.print("\n");*/
+				break;
+		}
+
+		generated_representations.add(representation);
+	}
+
+
 	/**
 	 * Calculate values for the overall_metadata field.
 	 */
@@ -1158,7 +1277,7 @@ public class MIDIIntermediateRepresentations
 								// Look ahead to find the corresponding note off for this note on. Defaults
 								// to the last tick if no corresponding note off is found.
 								int event_start_tick = (int) event.getTick();
-								int event_end_tick = findCorrespondingNoteOffEndTick(short_message, n_event, track);
+								int event_end_tick = findCorrespondingNoteOffEndTick(n_track, n_event);
 
 								// Fill in pitched_instrumentation_tick_map for all the ticks corresponding to this note
 								for (int i = event_start_tick; i < event_end_tick; i++)
@@ -1174,8 +1293,8 @@ public class MIDIIntermediateRepresentations
 		double[] total = new double[pitched_instrument_prevalence.length];
 		for (int i = 0; i < total.length; i++)
 			total[i] = 0.0;
-		for (int instrument = 0; instrument < pitched_instrument_prevalence.length; instrument++)
-			for (int tick = 0; tick < pitched_instrumentation_tick_map.length; tick++)
+		for (int tick = 0; tick < pitched_instrumentation_tick_map.length; tick++)
+			for (int instrument = 0; instrument < pitched_instrument_prevalence.length; instrument++)
 				if (pitched_instrumentation_tick_map[tick][instrument])
 					total[instrument] = total[instrument] + duration_of_ticks_in_seconds[tick];
 		for (int i = 0; i < total.length; i++)
@@ -1360,7 +1479,7 @@ public class MIDIIntermediateRepresentations
 							// Look ahead to find the corresponding note off for this note on. Defaults
 							// to the last tick if no corresponding note off is found.
 							int event_start_tick = (int) event.getTick();
-							int event_end_tick = findCorrespondingNoteOffEndTick(short_message, n_event, track);
+							int event_end_tick = findCorrespondingNoteOffEndTick(n_track, n_event);
 							
 							// Calculate duration in ticks of the note
 							int duration_in_ticks = event_end_tick - event_start_tick;
@@ -1550,17 +1669,29 @@ public class MIDIIntermediateRepresentations
 			}
 		}
 
+		// Note the ticks on which rhythm_score is not 0, so that the autocorrelations below only need to
+		// visit the ticks on which notes start, rather than every tick
+		int number_of_onset_ticks = 0;
+		for (int i = 0; i < rhythm_score.length; i++)
+			if (rhythm_score[i] != 0)
+				number_of_onset_ticks++;
+		int[] onset_ticks = new int[number_of_onset_ticks];
+		number_of_onset_ticks = 0;
+		for (int i = 0; i < rhythm_score.length; i++)
+			if (rhythm_score[i] != 0)
+				onset_ticks[number_of_onset_ticks++] = i;
+
 		// Histogram based on tick interval bins
-		double[] tick_histogram = new double[convertBPMtoTicks(min_BPM - 1, mean_ticks_per_second)];
-		for (int lag = convertBPMtoTicks(max_BPM, mean_ticks_per_second); lag < tick_histogram.length; lag++)
-			tick_histogram[lag] = autoCorrelate(rhythm_score, lag);
+		int min_lag = convertBPMtoTicks(max_BPM, mean_ticks_per_second);
+		int max_lag = convertBPMtoTicks(min_BPM - 1, mean_ticks_per_second);
+		double[] tick_histogram = autoCorrelate(rhythm_score, onset_ticks, min_lag, max_lag);
 		
 		// Histogram based on tick interval bins (standardized to 120 BPM)
 		int ticks_per_beat = sequence.getResolution();
 		int ticks_per_second_at_120_bpm = ticks_per_beat * 2; 
-		double[] tick_histogram_120_bpm_standardized = new double[convertBPMtoTicks(min_BPM - 1, ticks_per_second_at_120_bpm)];
-		for (int lag = convertBPMtoTicks(max_BPM, ticks_per_second_at_120_bpm); lag < tick_histogram_120_bpm_standardized.length; lag++)
-			tick_histogram_120_bpm_standardized[lag] = autoCorrelate(rhythm_score, lag);				
+		min_lag = convertBPMtoTicks(max_BPM, ticks_per_second_at_120_bpm);
+		max_lag = convertBPMtoTicks(min_BPM - 1, ticks_per_second_at_120_bpm);
+		double[] tick_histogram_120_bpm_standardized = autoCorrelate(rhythm_score, onset_ticks, min_lag, max_lag);
 		
 		// Histograms with tick intervals collected into beats per minute bins
 		for (int bin = min_BPM; bin <= max_BPM; bin++)
@@ -1622,7 +1753,7 @@ public class MIDIIntermediateRepresentations
 							// Look ahead to find the corresponding note off for this note on. Defaults
 							// to the last tick if no corresponding note off is found.
 							int event_start_tick = (int) event.getTick();
-							int event_end_tick = findCorrespondingNoteOffEndTick(short_message, n_event, track);
+							int event_end_tick = findCorrespondingNoteOffEndTick(n_track, n_event);
 							
 							// Calculate duration of note
 							double duration = 0;
@@ -1693,7 +1824,7 @@ public class MIDIIntermediateRepresentations
 	 */
 	private void generateAllNotes()
 	{
-		all_notes = new CollectedNoteInfo(tracks);
+		all_notes = new CollectedNoteInfo(tracks, note_off_index);
 	}
 	
 	
@@ -2003,38 +2134,8 @@ public class MIDIIntermediateRepresentations
 							tick_of_last_note_on[on_channel] = on_tick;
 							previous_pitch[on_channel] = on_pitch;
 							
-							// Look ahead to find the Note Off corresponding to this Note On
-							int end_tick = (int) this_track.ticks(); // When the Note Off occurs, defaulted to the last tick
-							for (int i = event_i + 1; i < this_track.size(); i++)
-							{
-								MidiEvent end_event = this_track.get(i);
-								if (end_event.getMessage() instanceof ShortMessage)
-								{
-									ShortMessage end_message = (ShortMessage) end_event.getMessage();
-									if (end_message.getChannel() == on_channel) // Must be on same channel as Note On
-									{
-										if (end_message.getCommand() == 0x80) // Note off
-										{
-											if (end_message.getData1() == on_pitch) // Pitch must match
-											{
-												end_tick = (int) end_event.getTick();
-												break;
-											}
-										}
-										if (end_message.getCommand() == 0x90) // Note On (with velocity 0 is equivalent to Note Off)
-										{
-											if (end_message.getData2() == 0) // Velocity 0
-											{
-												if (end_message.getData1() == on_pitch) //Pitch must match
-												{
-													end_tick = (int) end_event.getTick();
-													break;
-												}
-											}
-										}
-									}
-								}
-							}
+							// Find the Note Off corresponding to this Note On (defaulted to the last tick)
+							int end_tick = findCorrespondingNoteOffEndTick(track_i, event_i);
 
 							// Fill in note_sounding_on_a_channel_tick_map for all the ticks corresponding to this note
 							for (int i = on_tick; i < end_tick; i++)
@@ -2117,61 +2218,18 @@ public class MIDIIntermediateRepresentations
 	
 	
 	/**
-	 * Calculate the values of the pitch_strength_by_tick_chart and the total_vertical_unison_velocity fields.
+	 * Calculate the values of the pitch_strength_segments and the total_vertical_unison_velocity fields.
 	 */
-	private void generatePitchStrengthByTickChartAndCalculateTotalVerticalUnsionVelocity()
+	private void generatePitchStrengthSegmentsAndCalculateTotalVerticalUnsionVelocity()
 	{
 		// Duration of the piece in MIDI ticks
 		int duration_in_ticks = (int) sequence.getTickLength() + 1;
 
-		// Number of piches in the MIDI specification
-		int candidate_midi_pitches = 128;
-
-		// Instantiate pitch_strength_by_tick_chart with 0 values
-		pitch_strength_by_tick_chart = new short[duration_in_ticks][candidate_midi_pitches];
-
-		// Initialize total_vertical_unison_velocity
-		total_vertical_unison_velocity = 0;
-
-		// Intantiate a chart indicating the number of notes sounding at each pitch during each tick.
-		// The first index indicates the MIDI tick and the second index indicates the MIDI pitch (this is 
-		// always set to size 128). Each entry indicates the number of notes sounding. For example, a value of
-		// 1 means on note is sounding at the given tick and pitch, a value of 2 means 2 notes are sounding 
-		// (and thus there is 1 unison), a value of 3 means 3 notes are sounding (and thus there are 2 
-		// unisons), etc. Instantiated with 0 values.
-		short[][] number_notes_sounding_by_tick_and_pitch_chart = new short[duration_in_ticks][candidate_midi_pitches];
+		// Find the pitches sounding (excluding Channel 10) segment by segment
+		pitch_strength_segments = new PitchStrengthSegments(tracks, note_off_index, duration_in_ticks);
 
-		// Go through all MIDI events in all MIDI tracks, searching for Note On events. When a Note On is 
-		// found, fill in the pitch_strength_by_tick_chart based on it. Channel 10 (non-pitched) Note Ons are
-		// excluded, as are velocity 0 Note Ons (i.e. effective Note Offs).
-		for (int n_track = 0; n_track < tracks.length; n_track++)
-		{
-			Track track = tracks[n_track];
-			for (int n_event = 0; n_event < track.size(); n_event++)
-			{
-				MidiEvent event = track.get(n_event);
-				MidiMessage message = event.getMessage();
-				if (message instanceof ShortMessage)
-				{
-					ShortMessage short_message = (ShortMessage) message;
-					if ( short_message.getChannel() != 10 - 1 && // is not on Channel 10
-						 short_message.getCommand() == 0x90 && // is a Note On message
-						 short_message.getData2() != 0 ) // does not have velocity 0
-					{
-						total_vertical_unison_velocity = lookAheadForNoteOffAndUpdate( 
-								track,
-								n_event,
-								(int) event.getTick(),
-								short_message.getChannel(),
-								short_message.getData1(),
-								short_message.getData2(),
-								number_notes_sounding_by_tick_and_pitch_chart,
-								pitch_strength_by_tick_chart,
-								total_vertical_unison_velocity);
-					}
-				}
-			}
-		}
+		// Note the velocity of all notes involved in unisons
+		total_vertical_unison_velocity = pitch_strength_segments.getTotalVerticalUnisonVelocity();
 	}
 	
 	
@@ -2181,31 +2239,26 @@ public class MIDIIntermediateRepresentations
 	 */
 	private void generatePitchesAndPitchClassesPresentByTickExcludingRests()
 	{
-		// An ArrayList version of pitches_present_by_tick_excluding_rests
-		ArrayList<short[]> pitches_present_by_tick_excluding_rests_arli = new ArrayList<>();
-		
-		// An ArrayList version of pitch_classes_present_by_tick_excluding_rests
-		ArrayList<short[]> pitch_classes_present_by_tick_excluding_rests_arli = new ArrayList<>();
-		
-		// Fill in number_pitch_classes_by_tick tick by tick 
-		for (int tick = 0; tick < pitch_strength_by_tick_chart.length; tick++)
+		// The number of ticks on which one or more pitches are sounding
+		int number_of_sounding_ticks = 0;
+		for (int segment = 0; segment < pitch_strength_segments.getNumberOfSegments(); segment++)
+			if (!pitch_strength_segments.isRest(segment))
+				number_of_sounding_ticks += pitch_strength_segments.getDurationInTicks(segment);
+		pitches_present_by_tick_excluding_rests = new short[number_of_sounding_ticks][];
+		pitch_classes_present_by_tick_excluding_rests = new short[number_of_sounding_ticks][];
+
+		// Fill in the pitches and pitch classes segment by segment. All ticks in a segment share the same
+		// arrays, since the pitches sounding only change at segment boundaries.
+		int tick = 0;
+		for (int segment = 0; segment < pitch_strength_segments.getNumberOfSegments(); segment++)
 		{
-			// Find the MIDI pitch numbers of all pitches found this tick
-			ArrayList<Short> pitches_this_tick = new ArrayList<>();
-			for (int pitch = 0; pitch < pitch_strength_by_tick_chart[tick].length; pitch++)
-				if (pitch_strength_by_tick_chart[tick][pitch] != 0)
-					pitches_this_tick.add((short) pitch);
-
 			// If not a rest
-			if (!pitches_this_tick.isEmpty())
+			if (!pitch_strength_segments.isRest(segment))
 			{
-				// Store pitches present this tick
-				short[] these_pitches = new short[pitches_this_tick.size()];
-				for (int i = 0; i < these_pitches.length; i++)
-					these_pitches[i] = pitches_this_tick.get(i);
-				pitches_present_by_tick_excluding_rests_arli.add(these_pitches);
+				// Store pitches present this segment
+				short[] these_pitches = pitch_strength_segments.getPitches(segment).clone();
 				
-				// Store pitch classes present this tick
+				// Store pitch classes present this segment
 				ArrayList<Short> pitch_classes_this_tick = new ArrayList<>();
 				for (int i = 0; i < these_pitches.length; i++)
 				{
@@ -2230,13 +2283,15 @@ public class MIDIIntermediateRepresentations
 				short[] these_pitch_classes = new short[pitch_classes_this_tick.size()];
 				for (int i = 0; i < these_pitch_classes.length; i++)
 					these_pitch_classes[i] = pitch_classes_this_tick.get(i);
-				pitch_classes_present_by_tick_excluding_rests_arli.add(these_pitch_classes);
+
+				for (int i = 0; i < pitch_strength_segments.getDurationInTicks(segment); i++)
+				{
+					pitches_present_by_tick_excluding_rests[tick] = these_pitches;
+					pitch_classes_present_by_tick_excluding_rests[tick] = these_pitch_classes;
+					tick++;
+				}
 			}
 		}
-
-		// Convert ArrayLists to arrays
-		pitches_present_by_tick_excluding_rests = pitches_present_by_tick_excluding_rests_arli.toArray(new short[pitches_present_by_tick_excluding_rests_arli.size()][]);
-		pitch_classes_present_by_tick_excluding_rests = pitch_classes_present_by_tick_excluding_rests_arli.toArray(new short[pitch_classes_present_by_tick_excluding_rests_arli.size()][]);
 	}
 
 	
@@ -2266,9 +2321,25 @@ public class MIDIIntermediateRepresentations
 		// The unique sorted pitches on the current tick (on which pitches are sounding)
 		short[] current_pitches = null;
 		
-		// Iterate through all ticks on which one or more pitches were sounding
-		for (int tick = 0; tick < pitches_present_by_tick_excluding_rests.length; tick++)
+		// The tick (in pitches_present_by_tick_excluding_rests) on which each run of ticks with unchanging
+		// pitches begins. Ticks after the first in a run can be skipped, since they could only ever be
+		// compared against identical pitches.
+		ArrayList<Integer> run_start_ticks_list = new ArrayList<>();
+		int sounding_tick = 0;
+		for (int segment = 0; segment < pitch_strength_segments.getNumberOfSegments(); segment++)
+		{
+			if (!pitch_strength_segments.isRest(segment))
+			{
+				run_start_ticks_list.add(sounding_tick);
+				sounding_tick += pitch_strength_segments.getDurationInTicks(segment);
+			}
+		}
+		
+		// Iterate through all runs of ticks on which one or more pitches were sounding
+		for (int run = 0; run < run_start_ticks_list.size(); run++)
 		{
+			int tick = run_start_ticks_list.get(run);
+			
 			// Fill previous_pitches and move to the next tick if it has not been filled yet
 			if (previous_pitches == null || previous_pitches.length == 0)
 			{
@@ -2299,10 +2370,12 @@ public class MIDIIntermediateRepresentations
 				boolean move_on = true;
 				if ( tick < (pitches_present_by_tick_excluding_rests.length - TICK_DELAY_TOLERANCE - 1) )
 				{
-					for (int look_ahead_tick = tick + 1; look_ahead_tick < (tick + TICK_DELAY_TOLERANCE); look_ahead_tick++)
+					for (int look_ahead_run = run + 1; look_ahead_run < run_start_ticks_list.size() && run_start_ticks_list.get(look_ahead_run) < (tick + TICK_DELAY_TOLERANCE); look_ahead_run++)
 					{
+						int look_ahead_tick = run_start_ticks_list.get(look_ahead_run);
 						if (pitches_present_by_tick_excluding_rests[look_ahead_tick].length == previous_pitches.length)
 						{
+							run = look_ahead_run;
 							tick = look_ahead_tick;
 							current_pitches = pitches_present_by_tick_excluding_rests[look_ahead_tick];
 							move_on = false;
@@ -2520,11 +2593,14 @@ public class MIDIIntermediateRepresentations
 
 		// Note the amount of time during which there is a complete rest on each tick
 		double[] seconds_of_rest_per_tick = new double[ticks_to_test];
-		for (int tick = 0; tick < ticks_to_test; tick++)
+		for (int segment = 0; segment < pitch_strength_segments.getNumberOfSegments(); segment++)
 		{
-			if (ArrayMethods.doesArrayContainOnlyThisValue(pitch_strength_by_tick_chart[tick], 0))
-				seconds_of_rest_per_tick[tick] = duration_of_ticks_in_seconds[tick];
-			else seconds_of_rest_per_tick[tick] = 0.0;
+			if (pitch_strength_segments.isRest(segment))
+			{
+				int end_tick = Math.min(pitch_strength_segments.getEndTick(segment), ticks_to_test);
+				for (int tick = pitch_strength_segments.getStartTick(segment); tick < end_tick; tick++)
+					seconds_of_rest_per_tick[tick] = duration_of_ticks_in_seconds[tick];
+			}
 		}
 			
 		// Find the duration of each complete rest
@@ -2560,141 +2636,27 @@ public class MIDIIntermediateRepresentations
 	}
 	
 	
-	/* PRIVATE STATIC METHODS *******************************************************************************/
-
-	
 	/**
-	 * Look ahead on a MIDI track to find the tick corresponding to the note off (or velocity 0 note on) for
-	 * the specified note on.
+	 * Find the tick corresponding to the note off (or velocity 0 note on) for the specified note on.
 	 *
-	 * @param note_on				The note on message for which the note off is being searched for.
-	 * @param note_on_start_tick	The MIDI tick on which note_on occurred.
-	 * @param track					The MIDI track on which note_on is found.
-	 * @return						The tick of the note off corresponding to note_on. If the note off never
-	 *								occurs, then the last tick is returned.
+	 * @param track_index			The index of the MIDI track on which the note on is found.
+	 * @param note_on_event_index	The index of the note on event on its track.
+	 * @return						The tick of the note off corresponding to the note on. If the note off
+	 *								never occurs, then the last tick is returned.
  	 */
-	private static int findCorrespondingNoteOffEndTick( ShortMessage note_on,
-	                                                    int note_on_start_tick,
-	                                                    Track track )
+	private int findCorrespondingNoteOffEndTick(int track_index, int note_on_event_index)
 	{
-		for (int i = note_on_start_tick + 1; i < track.size(); i++)
-		{
-			MidiEvent end_event = track.get(i);
-			MidiMessage end_message = end_event.getMessage();
-			if (end_message instanceof ShortMessage)
-			{
-				ShortMessage end_short_message = (ShortMessage) end_message;
-				if (end_short_message.getChannel() == note_on.getChannel()) // must be on same channel
-				{
-					if (end_short_message.getCommand() == 0x80) // note off
-					{
-						if (end_short_message.getData1() == note_on.getData1()) // same pitch
-							return (int) end_event.getTick();
-					}
-					if (end_short_message.getCommand() == 0x90) // note on (with vel 0 is equiv to note off)
-					{
-						if (end_short_message.getData2() == 0) // velocity 0
-							if (end_short_message.getData1() == note_on.getData1()) // same pitch
-								return (int) end_event.getTick();
-					}
-				}
-			}
-		}
+		int note_off_tick = note_off_index.getNoteOffTick(track_index, note_on_event_index);
 		
 		// Default to the total number of ticks if the note off is not found
-		return (int) track.ticks();
+		if (note_off_tick == -1)
+			return (int) tracks[track_index].ticks();
+		return note_off_tick;
 	}
 	
 	
-	/**
-	 * Given information for a MIDI Note On event, find the corresponding Note Off event, and update the
-	 * number_notes_sounding_by_tick_and_pitch_chart and pitch_strength_by_tick_chart_to_fill variables
-	 * correspondingly. Also return an updated version of total_vertical_unison_velocity_so_far.
-	 *
-	 * @param midi_track									The track the Note On occurred on.
-	 * @param note_on_event_index							The event index of the Note On event.
-	 * @param note_on_tick									The MIDI tick the Note On occurred at.
-	 * @param note_on_channel								The MIDI channel the Note On occurred on.
-	 * @param note_on_pitch									The MIDI pitch of the Note On.
-	 * @param note_on_velocity								The MIDI velocity of the Not On.
-	 * @param number_notes_sounding_by_tick_and_pitch_chart	A chart indicating the number of notes sounding at
-	 *														each pitch during each tick. The first index
-	 *														indicates the MIDI tick and the second index
-	 *														indicates the MIDI pitch (this is always set to
-	 *														size 128). Each entry indicates the number of 
-	 *														notes sounding.
-	 * @param pitch_strength_by_tick_chart_to_fill			A chart indicating what pitches are sounding
-	 *														during each tick. The first index indicates MIDI
-	 *														tick and the second indicates MIDI pitch (this is
-	 *														always set to size 128). Each entry indicates the
-	 *														cumulative velocity of all notes (not including
-	 *														Channel 10 non-pitched percussion instruments)
-	 *														sounding at that tick on that pitch.
-	 * @param total_vertical_unison_velocity_so_far			Total velocity (so far) of all notes involved in a
-	 *														vertical unison.
-	 * @return												The value of total_vertical_unison_velocity_so_far
-	 *														after updating to account for this Note On.
-	 */
-	private static int lookAheadForNoteOffAndUpdate( Track midi_track,
-													 int note_on_event_index,
-													 int note_on_tick,
-													 int note_on_channel,
-													 int note_on_pitch,
-													 int note_on_velocity,
-													 short[][] number_notes_sounding_by_tick_and_pitch_chart,
-													 short[][] pitch_strength_by_tick_chart_to_fill,
-													 int total_vertical_unison_velocity_so_far)
-	{
-		for (int n_event = note_on_event_index; n_event < midi_track.size(); n_event++)
-		{
-			MidiEvent event = midi_track.get(n_event);
-			MidiMessage message = event.getMessage();
-			if (message instanceof ShortMessage)
-			{
-				// Is this a Note Off message (or equivalent Note On with velocity 0)?
-				ShortMessage short_message = (ShortMessage) message;
-				if (     short_message.getCommand() == 0x80
-				     || (short_message.getCommand() == 0x90 && short_message.getData2() == 0))
-				{
-					// Is this Note Off message on the same channel, and does it have the same pitch as the
-					// Note On message under consideration?
-					if (short_message.getChannel() == note_on_channel && short_message.getData1() == note_on_pitch)
-					{
-						// Fill in pitch_strength_by_tick_chart_to_fill now that the start and end ticks are
-						// known for this note
-						int note_off_tick = (int) event.getTick();
-						for (int tick = note_on_tick; tick < note_off_tick; tick++)
-						{
-							// Update total_vertical_unison_velocity_so_far
-							if (number_notes_sounding_by_tick_and_pitch_chart[tick][note_on_pitch] > 0)
-							{
-								int number_previously_detected_notes_at_this_pitch = number_notes_sounding_by_tick_and_pitch_chart[tick][note_on_pitch];
-								if (number_previously_detected_notes_at_this_pitch == 1)
-									total_vertical_unison_velocity_so_far += pitch_strength_by_tick_chart_to_fill[tick][note_on_pitch] + note_on_velocity;
-								else if (number_previously_detected_notes_at_this_pitch > 1)
-									total_vertical_unison_velocity_so_far += note_on_velocity;
-							}
-
-							// Update number_notes_sounding_by_tick_and_pitch_chart
-							number_notes_sounding_by_tick_and_pitch_chart[tick][note_on_pitch]++;
-
-							// Update pitch_strength_by_tick_chart_to_fill
-							pitch_strength_by_tick_chart_to_fill[tick][note_on_pitch] += note_on_velocity;
-						}
-
-						// Stop looping through MIDI events, since the appropriate Note Off has been
-						// found, and processing has proceded accordingly.
-						break;
-					}
-				}
-			}
-		}
+	/* PRIVATE STATIC METHODS *******************************************************************************/
 
-		// Return the given total_vertical_unison_velocity_so_far, updated to include the information
-		// associated with the Note On that this method was called for
-		return total_vertical_unison_velocity_so_far;
-	}
-	
 	
 	/**
 	 * Finds the number of MIDI ticks corresponding to the duration of a single beat at the given tempo in
@@ -2711,19 +2673,38 @@ public class MIDIIntermediateRepresentations
 	
 	
 	/**
-	 * Perform an autocorrelation calculation as follows on the specified data with the specified lag:
+	 * Perform an autocorrelation calculation as follows on the specified data for each lag from min_lag up
+	 * to (but not including) max_lag:
 	 *
 	 * y[lag] = (1/N) SUM(n to N){ x[n] * x[n-lag] }
 	 *
-	 * @param	data	The data to be correlated.
-	 * @param	lag		The lag for each data point.
-	 * @return			The resultant auto correlation.
-	 */
-	private static double autoCorrelate(int[] data, int lag)
+	 * <p>Only the pairs of non-zero data points that are less than max_lag apart are visited, since all
+	 * other terms of the sum are 0. This makes the cost of this calculation depend on the number of non-zero
+	 * data points, rather than on the length of the data multiplied by the number of lags. The terms of each
+	 * sum are added in the same order as if every data point were visited, so the results are identical.
+	 *
+	 * @param	data				The data to be correlated.
+	 * @param	nonzero_indices		The indices of all entries of data that are not 0, in increasing order.
+	 * @param	min_lag				The lowest lag to calculate the autocorrelation for.
+	 * @param	max_lag				One more than the highest lag to calculate the autocorrelation for.
+	 * @return						The resultant auto correlation for each lag, indexed by lag. Has size
+	 *								max_lag, and entries for lags below min_lag are 0.
+	 */
+	private static double[] autoCorrelate(int[] data, int[] nonzero_indices, int min_lag, int max_lag)
 	{
-		double result = 0.0;
-		for (int i = lag; i < data.length; i++)
-			result += (double) (data[i] * data[i - lag]);
-		return result / (double) data.length; // divide by N
+		double[] result = new double[max_lag];
+		for (int a = 0; a < nonzero_indices.length; a++)
+		{
+			int n = nonzero_indices[a];
+			for (int b = a; b >= 0 && n - nonzero_indices[b] < max_lag; b--)
+			{
+				int lag = n - nonzero_indices[b];
+				if (lag >= min_lag)
+					result[lag] += (double) (data[n] * data[n - lag]);
+			}
+		}
+		for (int lag = min_lag; lag < max_lag; lag++)
+			result[lag] = result[lag] / (double) data.length; // divide by N
+		return result;
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -262,6 +262,18 @@ public class UserFeedbackGenerator
 	}
 	
 	
+	/**
+	 * Print a formatted message to stream indicating that an ACE binary feature values file is being saved.
+	 * 
+	 * @param stream	The stream to print the message to.
+	 * @param save_path The path of the file being saved.
+	 */
+	public static void printGeneratingBinaryFeatureValuesFile(PrintStream stream, String save_path)
+	{
+		stream.println(">>> Saving extracted features as an ACE binary feature values file: " + save_path + ".\n");
+	}
+	
+	
 	/**
 	 * Print a formatted message to stream indicating that all processing is complete.
 	 * 
@@ -0,0 +1,248 @@
+package jsymbolic2.processing;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import ace.datatypes.FeatureDefinition;
+
+/**
+ * An object of this class saves feature values as a Weka ARFF file and/or a CSV file one instance at a time,
+ * as they are extracted. Only the values of the instance currently being written are held in memory, so
+ * memory use does not grow with the number of instances saved.
+ *
+ * <p>The files written are identical to those produced by AceXmlConverter.saveAsArffOrCsvFiles from the
+ * corresponding ACE XML Feature Values and Feature Definitions files: the ARFF relation is named
+ * Converted_from_ACE_XML, feature names have spaces replaced by underscores (with an index appended for
+ * each dimension of multi-dimensional features), and each feature value is written as it would be after
+ * being saved to and parsed from ACE XML. The values of each instance are written in the order they are
+ * given, regardless of the order of the feature definitions. Each instance's overall values are written
+ * before the values of its sub-sections (windows).
+ *
+ * <p>The header of each file is written by writeHeader, which must be called before any instances are
+ * written. The files are not created until then.
+ *
+ * @author agent
+ */
+public class WekaArffAndCsvWriter
+{
+	/* STATIC FINAL FIELDS **********************************************************************************/
+
+
+	/**
+	 * The relation name given to saved Weka ARFF files.
+	 */
+	public static final String ARFF_RELATION_NAME = "Converted_from_ACE_XML";
+
+
+	/* FIELDS ***********************************************************************************************/
+
+
+	/**
+	 * The path of the Weka ARFF file to save. Null if no ARFF file is to be saved.
+	 */
+	private final String arff_file_path;
+
+	/**
+	 * The path of the CSV file to save. Null if no CSV file is to be saved.
+	 */
+	private final String csv_file_path;
+
+	/**
+	 * Used to write the Weka ARFF file. Null if the header has not been written yet, or if no ARFF file is to
+	 * be saved.
+	 */
+	private DataOutputStream arff_writer;
+
+	/**
+	 * Used to write the CSV file. Null if the header has not been written yet, or if no CSV file is to be
+	 * saved.
+	 */
+	private DataOutputStream csv_writer;
+
+	/**
+	 * Whether writeHeader has been called.
+	 */
+	private boolean header_written;
+
+
+	/* CONSTRUCTOR ******************************************************************************************/
+
+
+	/**
+	 * Instantiate a WekaArffAndCsvWriter that will save the specified files. No files are created until the
+	 * header is written.
+	 *
+	 * @param arff_file_path	The path of the Weka ARFF file to save, or null if none is to be saved.
+	 * @param csv_file_path		The path of the CSV file to save, or null if none is to be saved.
+	 */
+	public WekaArffAndCsvWriter(String arff_file_path, String csv_file_path)
+	{
+		this.arff_file_path = arff_file_path;
+		this.csv_file_path = csv_file_path;
+		arff_writer = null;
+		csv_writer = null;
+		header_written = false;
+	}
+
+
+	/* PUBLIC METHODS ***************************************************************************************/
+
+
+	/**
+	 * @return	Whether the header has been written, and so the files created.
+	 */
+	public boolean isHeaderWritten()
+	{
+		return header_written;
+	}
+
+
+	/**
+	 * Create the files and write their headers, which list the names of the features that will be saved.
+	 *
+	 * @param feature_definitions	The definitions of the features that will be saved, in the order that
+	 *								they appear in the ACE XML Feature Definitions file.
+	 * @throws IOException			Thrown if the files cannot be created or written to.
+	 */
+	public void writeHeader(FeatureDefinition[] feature_definitions)
+		throws IOException
+	{
+		if (arff_file_path != null)
+		{
+			arff_writer = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(arff_file_path)));
+			arff_writer.writeBytes("@relation " + ARFF_RELATION_NAME + "\n\n");
+			for (int i = 0; i < feature_definitions.length; i++)
+			{
+				if (feature_definitions[i].dimensions == 1)
+					arff_writer.writeBytes("@attribute " + feature_definitions[i].name.replace(' ', '_') + " numeric\n");
+				else
+					for (int j = 0; j < feature_definitions[i].dimensions; j++)
+						arff_writer.writeBytes("@attribute " + feature_definitions[i].name.replace(' ', '_') + "_" + j + " numeric\n");
+			}
+			arff_writer.writeBytes("\n@data\n");
+		}
+
+		if (csv_file_path != null)
+		{
+			csv_writer = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(csv_file_path)));
+			csv_writer.writeBytes(",");
+			for (int i = 0; i < feature_definitions.length; i++)
+			{
+				if (feature_definitions[i].dimensions == 1)
+					csv_writer.writeBytes(feature_definitions[i].name.replace(' ', '_'));
+				else
+					for (int j = 0; j < feature_definitions[i].dimensions; j++)
+					{
+						csv_writer.writeBytes(feature_definitions[i].name.replace(' ', '_') + "_" + j);
+						if (j != feature_definitions[i].dimensions - 1)
+							csv_writer.writeBytes(",");
+					}
+
+				if (i == feature_definitions.length - 1)
+					csv_writer.writeBytes("\n");
+				else
+					csv_writer.writeBytes(",");
+			}
+		}
+
+		header_written = true;
+	}
+
+
+	/**
+	 * Write the overall feature values of an instance. Nothing is written if no feature values are given.
+	 *
+	 * @param identifier		The identifier of the instance. Often a file path.
+	 * @param feature_values	The values to write, formatted as in an ACE XML Feature Values file. The
+	 *							first indice identifies the feature and the second identifies the feature
+	 *							value.
+	 * @throws IOException		Thrown if the files cannot be written to.
+	 */
+	public void writeInstance(String identifier, String[][] feature_values)
+		throws IOException
+	{
+		writeValues("\"" + identifier + "\",", feature_values);
+	}
+
+
+	/**
+	 * Write the feature values of a sub-section (window) of an instance. Nothing is written if no feature
+	 * values are given.
+	 *
+	 * @param identifier		The identifier of the instance that the sub-section belongs to. Often a file
+	 *							path.
+	 * @param section			The index of the sub-section within its instance.
+	 * @param feature_values	The values to write, formatted as in an ACE XML Feature Values file. The
+	 *							first indice identifies the feature and the second identifies the feature
+	 *							value.
+	 * @throws IOException		Thrown if the files cannot be written to.
+	 */
+	public void writeSubSection(String identifier, int section, String[][] feature_values)
+		throws IOException
+	{
+		writeValues("\"" + identifier + "_" + section + "\",", feature_values);
+	}
+
+
+	/**
+	 * Flush and close the files. Does nothing if they were never created.
+	 *
+	 * @throws IOException	Thrown if the files cannot be written to or closed.
+	 */
+	public void close()
+		throws IOException
+	{
+		try
+		{
+			if (arff_writer != null)
+				arff_writer.close();
+		}
+		finally
+		{
+			if (csv_writer != null)
+				csv_writer.close();
+		}
+	}
+
+
+	/* PRIVATE METHODS **************************************************************************************/
+
+
+	/**
+	 * Write one row of feature values to each file. Values are separated by commas, and the row is ended
+	 * after the last value of the last feature.
+	 *
+	 * @param csv_row_prefix	The text identifying the row at the beginning of the CSV row.
+	 * @param feature_values	The values to write, formatted as in an ACE XML Feature Values file. The
+	 *							first indice identifies the feature and the second identifies the feature
+	 *							value.
+	 * @throws IOException		Thrown if the files cannot be written to.
+	 */
+	private void writeValues(String csv_row_prefix, String[][] feature_values)
+		throws IOException
+	{
+		if (feature_values.length == 0)
+			return;
+
+		// Write values as they are read back from ACE XML
+		StringBuilder row = new StringBuilder();
+		for (int j = 0; j < feature_values.length; j++)
+			for (int k = 0; k < feature_values[j].length; k++)
+			{
+				row.append(String.valueOf(Double.parseDouble(feature_values[j][k])));
+				if (j == feature_values.length - 1 && k == feature_values[j].length - 1)
+					row.append("\n");
+				else
+					row.append(", ");
+			}
+
+		if (arff_writer != null)
+			arff_writer.writeBytes(row.toString());
+		if (csv_writer != null)
+		{
+			csv_writer.writeBytes(csv_row_prefix);
+			csv_writer.writeBytes(row.toString());
+		}
+	}
+}
@@ -0,0 +1,370 @@
+package jsymbolic2.benchmarks;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A small microbenchmark harness that follows the methodology of JMH: each benchmark is run for a number
+ * of warmup iterations whose results are discarded, so that the JIT compiler can settle, and then for a
+ * number of measurement iterations. Each iteration repeatedly invokes the benchmark until a minimum amount
+ * of time has passed. The mean time per invocation is reported along with its standard deviation over the
+ * measurement iterations, and the number of bytes allocated per invocation is reported along with the
+ * resulting allocation rate (as JMH's GC profiler does). Results are passed to a sink so that the work
+ * being measured cannot be eliminated as dead code.
+ *
+ * <p>Allocation is measured on the benchmarking thread only, so work delegated to other threads is not
+ * counted.</p>
+ *
+ * @author agent
+ */
+public class BenchmarkHarness
+{
+	/* PUBLIC ABSTRACT CLASS ********************************************************************************/
+
+
+	/**
+	 * A piece of work to be timed.
+	 */
+	public static abstract class Benchmark
+	{
+		/**
+		 * The name of the benchmark, as reported.
+		 */
+		public final String name;
+
+		/**
+		 * How many units of work (e.g. notes or files) a single invocation processes, or 0 if throughput in
+		 * such units should not be reported.
+		 */
+		public final double units_per_invocation;
+
+		/**
+		 * The name of the units counted by units_per_invocation.
+		 */
+		public final String unit_name;
+
+		/**
+		 * @param name					The name of the benchmark.
+		 * @param units_per_invocation	How many units of work a single invocation processes, or 0.
+		 * @param unit_name				The name of the units of work.
+		 */
+		public Benchmark(String name, double units_per_invocation, String unit_name)
+		{
+			this.name = name;
+			this.units_per_invocation = units_per_invocation;
+			this.unit_name = unit_name;
+		}
+
+		/**
+		 * @return	Whether setUpInvocation must be called before each invocation. If false, invocations are
+		 *			timed in batches, which lets very fast benchmarks be measured without timer overhead.
+		 */
+		public boolean hasInvocationSetUp()
+		{
+			return false;
+		}
+
+		/**
+		 * Prepare for a single invocation. Called before each invocation if hasInvocationSetUp returns true.
+		 * Not included in the measured time or allocation.
+		 *
+		 * @throws Exception	Any exception aborts the benchmark.
+		 */
+		public void setUpInvocation()
+				throws Exception {}
+
+		/**
+		 * Perform the work to be measured once.
+		 *
+		 * @return				The result of the work, which is consumed so that it cannot be optimized
+		 *						away.
+		 * @throws Exception	Any exception aborts the benchmark.
+		 */
+		public abstract Object invoke()
+				throws Exception;
+	}
+
+
+	/* PUBLIC CLASS *****************************************************************************************/
+
+
+	/**
+	 * The measurements of a single benchmark.
+	 */
+	public static class Result
+	{
+		/**
+		 * The benchmark that was measured.
+		 */
+		public final Benchmark benchmark;
+
+		/**
+		 * The mean time per invocation over the measurement iterations, in nanoseconds.
+		 */
+		public final double mean_nanoseconds;
+
+		/**
+		 * The standard deviation of the time per invocation over the measurement iterations, in
+		 * nanoseconds.
+		 */
+		public final double standard_deviation_nanoseconds;
+
+		/**
+		 * The mean number of bytes allocated per invocation, or NaN if allocation cannot be measured.
+		 */
+		public final double bytes_per_invocation;
+
+		/**
+		 * The total number of invocations measured.
+		 */
+		public final long invocations;
+
+		private Result( Benchmark benchmark,
+		                double mean_nanoseconds,
+		                double standard_deviation_nanoseconds,
+		                double bytes_per_invocation,
+		                long invocations )
+		{
+			this.benchmark = benchmark;
+			this.mean_nanoseconds = mean_nanoseconds;
+			this.standard_deviation_nanoseconds = standard_deviation_nanoseconds;
+			this.bytes_per_invocation = bytes_per_invocation;
+			this.invocations = invocations;
+		}
+
+		/**
+		 * @return	The rate at which memory was allocated while the benchmark ran, in megabytes per second.
+		 */
+		public double getAllocationRate()
+		{
+			return bytes_per_invocation / mean_nanoseconds * 1E9 / (1024.0 * 1024.0);
+		}
+
+		/**
+		 * @return	The number of units of work processed per second, or NaN if the benchmark does not count
+		 *			units.
+		 */
+		public double getThroughput()
+		{
+			if (benchmark.units_per_invocation == 0.0)
+				return Double.NaN;
+			return benchmark.units_per_invocation / mean_nanoseconds * 1E9;
+		}
+	}
+
+
+	/* PRIVATE FIELDS ***************************************************************************************/
+
+
+	/**
+	 * The number of iterations to run and discard before measuring.
+	 */
+	private final int warmup_iterations;
+
+	/**
+	 * The number of iterations to measure.
+	 */
+	private final int measurement_iterations;
+
+	/**
+	 * The minimum duration of each iteration, in nanoseconds.
+	 */
+	private final long minimum_iteration_nanoseconds;
+
+	/**
+	 * Used to measure the memory allocated by the benchmarking thread. Null if this is not supported by the
+	 * JVM.
+	 */
+	private final com.sun.management.ThreadMXBean allocation_bean;
+
+	/**
+	 * The results of all benchmarks run so far.
+	 */
+	private final List<Result> results;
+
+	/**
+	 * The results of benchmarks are stored here so that the JIT compiler cannot tell that they are unused.
+	 */
+	private static volatile Object sink;
+
+
+	/* CONSTRUCTOR ******************************************************************************************/
+
+
+	/**
+	 * @param warmup_iterations				The number of iterations to run and discard before measuring.
+	 * @param measurement_iterations		The number of iterations to measure. Must be at least 1.
+	 * @param minimum_iteration_milliseconds	The minimum duration of each iteration, in milliseconds.
+	 */
+	public BenchmarkHarness(int warmup_iterations, int measurement_iterations, long minimum_iteration_milliseconds)
+	{
+		this.warmup_iterations = warmup_iterations;
+		this.measurement_iterations = Math.max(1, measurement_iterations);
+		minimum_iteration_nanoseconds = minimum_iteration_milliseconds * 1000000L;
+		results = new ArrayList<>();
+
+		com.sun.management.ThreadMXBean bean = null;
+		if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)
+		{
+			bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+			if (bean.isThreadAllocatedMemorySupported())
+				bean.setThreadAllocatedMemoryEnabled(true);
+			else bean = null;
+		}
+		allocation_bean = bean;
+	}
+
+
+	/* PUBLIC METHODS ***************************************************************************************/
+
+
+	/**
+	 * Run the given benchmark, print its result to the given stream and store it.
+	 *
+	 * @param benchmark		The benchmark to run.
+	 * @param output		The stream to print the result to.
+	 * @return				The result of the benchmark.
+	 * @throws Exception	Any exception thrown by the benchmark.
+	 */
+	public Result run(Benchmark benchmark, PrintStream output)
+			throws Exception
+	{
+		for (int i = 0; i < warmup_iterations; i++)
+			runIteration(benchmark);
+
+		double[] nanoseconds_per_invocation = new double[measurement_iterations];
+		double total_bytes = 0.0;
+		long total_invocations = 0;
+		for (int i = 0; i < measurement_iterations; i++)
+		{
+			long[] iteration = runIteration(benchmark);
+			nanoseconds_per_invocation[i] = (double) iteration[0] / (double) iteration[2];
+			total_bytes += iteration[1];
+			total_invocations += iteration[2];
+		}
+
+		double mean = 0.0;
+		for (double value : nanoseconds_per_invocation)
+			mean += value;
+		mean /= nanoseconds_per_invocation.length;
+		double variance = 0.0;
+		for (double value : nanoseconds_per_invocation)
+			variance += (value - mean) * (value - mean);
+		if (nanoseconds_per_invocation.length > 1)
+			variance /= nanoseconds_per_invocation.length - 1;
+
+		Result result = new Result( benchmark,
+		                            mean,
+		                            Math.sqrt(variance),
+		                            allocation_bean == null ? Double.NaN : total_bytes / total_invocations,
+		                            total_invocations );
+		results.add(result);
+		output.println(formatResult(result));
+		return result;
+	}
+
+
+	/**
+	 * @return	The results of all benchmarks run so far, in the order they were run.
+	 */
+	public List<Result> getResults()
+	{
+		return results;
+	}
+
+
+	/**
+	 * @return	A header for the lines returned by formatResult.
+	 */
+	public static String getHeader()
+	{
+		return String.format( "%-72s %16s %12s %14s %12s %16s",
+		                      "Benchmark", "ns/op", "error", "B/op", "MB/s alloc", "throughput" );
+	}
+
+
+	/**
+	 * @param result	A benchmark result.
+	 * @return			A single line describing the result, in the columns of getHeader.
+	 */
+	public static String formatResult(Result result)
+	{
+		String throughput = Double.isNaN(result.getThroughput())
+		                    ? ""
+		                    : String.format("%.1f %s/s", result.getThroughput(), result.benchmark.unit_name);
+		return String.format( "%-72s %16.1f %12.1f %14.0f %12.1f %16s",
+		                      result.benchmark.name,
+		                      result.mean_nanoseconds,
+		                      result.standard_deviation_nanoseconds,
+		                      result.bytes_per_invocation,
+		                      result.getAllocationRate(),
+		                      throughput );
+	}
+
+
+	/**
+	 * Save all results so far as a CSV file, so that they can be compared between versions.
+	 *
+	 * @param output	The stream to write the CSV file to.
+	 */
+	public void saveResultsAsCsv(PrintStream output)
+	{
+		output.println("benchmark,ns_per_op,error_ns,bytes_per_op,alloc_mb_per_s,throughput,unit,invocations");
+		for (Result result : results)
+			output.println( "\"" + result.benchmark.name + "\"," +
+			                result.mean_nanoseconds + "," +
+			                result.standard_deviation_nanoseconds + "," +
+			                result.bytes_per_invocation + "," +
+			                result.getAllocationRate() + "," +
+			                result.getThroughput() + "," +
+			                (result.benchmark.unit_name == null ? "" : result.benchmark.unit_name) + "," +
+			                result.invocations );
+	}
+
+
+	/* PRIVATE METHODS **************************************************************************************/
+
+
+	/**
+	 * Invoke the given benchmark repeatedly until the minimum iteration time has passed.
+	 *
+	 * @param benchmark		The benchmark to run.
+	 * @return				The measured nanoseconds, the allocated bytes and the number of invocations.
+	 * @throws Exception	Any exception thrown by the benchmark.
+	 */
+	private long[] runIteration(Benchmark benchmark)
+			throws Exception
+	{
+		long measured_nanoseconds = 0;
+		long measured_bytes = 0;
+		long invocations = 0;
+		long batch_size = 1;
+		long thread_id = Thread.currentThread().getId();
+		while (measured_nanoseconds < minimum_iteration_nanoseconds || invocations == 0)
+		{
+			if (benchmark.hasInvocationSetUp())
+			{
+				benchmark.setUpInvocation();
+				batch_size = 1;
+			}
+
+			long start_bytes = allocation_bean == null ? 0 : allocation_bean.getThreadAllocatedBytes(thread_id);
+			long start_time = System.nanoTime();
+			for (long i = 0; i < batch_size; i++)
+				sink = benchmark.invoke();
+			long end_time = System.nanoTime();
+			long end_bytes = allocation_bean == null ? 0 : allocation_bean.getThreadAllocatedBytes(thread_id);
+
+			measured_nanoseconds += end_time - start_time;
+			measured_bytes += end_bytes - start_bytes;
+			invocations += batch_size;
+
+			// Grow batches of fast invocations so that reading the timers does not dominate
+			if (end_time - start_time < minimum_iteration_nanoseconds / 100)
+				batch_size *= 2;
+		}
+		return new long[] {measured_nanoseconds, measured_bytes, invocations};
+	}
+}
@@ -0,0 +1,415 @@
+package jsymbolic2.benchmarks;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.regex.Pattern;
+import javax.sound.midi.Sequence;
+import jsymbolic2.benchmarks.SyntheticMidiCorpus.CorpusSize;
+import jsymbolic2.featureutils.FeatureExtractorAccess;
+import jsymbolic2.featureutils.MEIFeatureExtractor;
+import jsymbolic2.featureutils.MIDIFeatureExtractor;
+import jsymbolic2.processing.FeatureExtractionJobProcessor;
+import jsymbolic2.processing.IntermediateRepresentationEnum;
+import jsymbolic2.processing.MIDIIntermediateRepresentations;
+
+/**
+ * Benchmarks of jSymbolic's feature extraction, run on synthetic MIDI sequences generated by
+ * SyntheticMidiCorpus. There are three groups of benchmarks:
+ *
+ * <ul>
+ * <li><i>representations</i>: The time to parse a sequence into a MIDIIntermediateRepresentations object,
+ * and the time to calculate each group of intermediate representations (once the groups it is calculated
+ * from are available).</li>
+ * <li><i>features</i>: The time to extract each feature from a sequence whose intermediate representations
+ * and feature dependencies have all been calculated beforehand.</li>
+ * <li><i>endtoend</i>: The throughput of FeatureExtractionJobProcessor when extracting the default features
+ * from a set of MIDI files and saving them, both for whole pieces and for windows.</li>
+ * </ul>
+ *
+ * <p>Each benchmark is run at each of the requested corpus sizes, and its mean time, bytes allocated and
+ * allocation rate are reported. The benchmarks are run by the benchmark target of the ant build file, with
+ * options passed in the benchmark.args property. Run with -help to see the options.</p>
+ *
+ * @author agent
+ */
+public class JsymbolicBenchmarks
+{
+	/* CONSTANTS ********************************************************************************************/
+
+
+	/**
+	 * The usage message printed for -help or for invalid options.
+	 */
+	private static final String USAGE =
+			"Usage: JsymbolicBenchmarks [options]\n" +
+			"  -groups <list>     Comma-separated groups to run: representations, features, endtoend (default: all)\n" +
+			"  -sizes <list>      Comma-separated corpus sizes: small, medium, huge (default: small,medium)\n" +
+			"  -filter <regex>    Only run benchmarks whose names contain a match of this regular expression\n" +
+			"  -warmup <n>        Warmup iterations per benchmark (default: 3)\n" +
+			"  -iterations <n>    Measurement iterations per benchmark (default: 5)\n" +
+			"  -time <ms>         Minimum duration of each iteration in milliseconds (default: 500)\n" +
+			"  -files <n>         Number of files in the end-to-end corpus (default: 8)\n" +
+			"  -csv <path>        Also save the results to this CSV file\n" +
+			"  -help              Print this message";
+
+
+	/* PRIVATE FIELDS ***************************************************************************************/
+
+
+	/**
+	 * Runs the benchmarks.
+	 */
+	private final BenchmarkHarness harness;
+
+	/**
+	 * Only benchmarks whose names contain a match of this pattern are run.
+	 */
+	private final Pattern filter;
+
+	/**
+	 * A stream that discards everything printed to it.
+	 */
+	private final PrintStream null_print_stream;
+
+
+	/* CONSTRUCTOR ******************************************************************************************/
+
+
+	/**
+	 * @param harness	Runs the benchmarks.
+	 * @param filter	Only benchmarks whose names contain a match of this pattern are run.
+	 */
+	private JsymbolicBenchmarks(BenchmarkHarness harness, Pattern filter)
+	{
+		this.harness = harness;
+		this.filter = filter;
+		null_print_stream = new PrintStream(new OutputStream()
+		{
+			@Override
+			public void write(int b) {}
+
+			@Override
+			public void write(byte[] b, int off, int len) {}
+		});
+	}
+
+
+	/* MAIN METHOD ******************************************************************************************/
+
+
+	/**
+	 * Run the benchmarks selected by the given options and print the results to standard out.
+	 *
+	 * @param args			The options described by USAGE.
+	 * @throws Exception	An exception is thrown if a benchmark fails.
+	 */
+	public static void main(String[] args)
+			throws Exception
+	{
+		List<String> groups = Arrays.asList("representations", "features", "endtoend");
+		List<CorpusSize> sizes = Arrays.asList(CorpusSize.SMALL, CorpusSize.MEDIUM);
+		Pattern filter = Pattern.compile("");
+		int warmup_iterations = 3;
+		int measurement_iterations = 5;
+		long iteration_milliseconds = 500;
+		int number_of_files = 8;
+		String csv_path = null;
+
+		// Parse the options
+		try
+		{
+			for (int i = 0; i < args.length; i++)
+			{
+				String option = args[i];
+				if (option.equals("-help"))
+				{
+					System.out.println(USAGE);
+					return;
+				}
+				if (i + 1 == args.length)
+					throw new IllegalArgumentException("The " + option + " option requires a value.");
+				String value = args[++i];
+				switch (option)
+				{
+					case "-groups":
+						groups = Arrays.asList(value.toLowerCase().split(","));
+						break;
+					case "-sizes":
+						sizes = new ArrayList<>();
+						for (String size : value.split(","))
+							sizes.add(CorpusSize.valueOf(size.trim().toUpperCase()));
+						break;
+					case "-filter":
+						filter = Pattern.compile(value);
+						break;
+					case "-warmup":
+						warmup_iterations = Integer.parseInt(value);
+						break;
+					case "-iterations":
+						measurement_iterations = Integer.parseInt(value);
+						break;
+					case "-time":
+						iteration_milliseconds = Long.parseLong(value);
+						break;
+					case "-files":
+						number_of_files = Integer.parseInt(value);
+						break;
+					case "-csv":
+						csv_path = value;
+						break;
+					default:
+						throw new IllegalArgumentException("Unknown option: " + option);
+				}
+			}
+		}
+		catch (IllegalArgumentException e)
+		{
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(-1);
+		}
+
+		// Run the benchmarks
+		BenchmarkHarness harness = new BenchmarkHarness(warmup_iterations, measurement_iterations, iteration_milliseconds);
+		JsymbolicBenchmarks benchmarks = new JsymbolicBenchmarks(harness, filter);
+		System.out.println(BenchmarkHarness.getHeader());
+		for (CorpusSize size : sizes)
+		{
+			if (groups.contains("representations"))
+				benchmarks.runRepresentationBenchmarks(size);
+			if (groups.contains("features"))
+				benchmarks.runFeatureBenchmarks(size);
+			if (groups.contains("endtoend"))
+				benchmarks.runEndToEndBenchmarks(size, number_of_files);
+		}
+
+		if (csv_path != null)
+			try (PrintStream csv = new PrintStream(csv_path, "UTF-8"))
+			{
+				harness.saveResultsAsCsv(csv);
+			}
+	}
+
+
+	/* PRIVATE METHODS **************************************************************************************/
+
+
+	/**
+	 * Benchmark parsing a sequence and calculating each group of intermediate representations.
+	 *
+	 * @param size			The size of sequence to benchmark with.
+	 * @throws Exception	An exception is thrown if a benchmark fails.
+	 */
+	private void runRepresentationBenchmarks(CorpusSize size)
+			throws Exception
+	{
+		final Sequence sequence = SyntheticMidiCorpus.generateSequence(size, 0);
+		double notes = size.number_of_notes;
+
+		runIfSelected(new BenchmarkHarness.Benchmark("representations." + size + ".Parse", notes, "notes")
+		{
+			@Override
+			public Object invoke()
+					throws Exception
+			{
+				return new MIDIIntermediateRepresentations(sequence, new IntermediateRepresentationEnum[0]);
+			}
+		});
+
+		runIfSelected(new BenchmarkHarness.Benchmark("representations." + size + ".All", notes, "notes")
+		{
+			@Override
+			public Object invoke()
+					throws Exception
+			{
+				return new MIDIIntermediateRepresentations(sequence);
+			}
+		});
+
+		// Calculate each group on its own, with the groups it is calculated from already available
+		for (final IntermediateRepresentationEnum representation : IntermediateRepresentationEnum.values())
+		{
+			runIfSelected(new BenchmarkHarness.Benchmark("representations." + size + "." + representation, notes, "notes")
+			{
+				private MIDIIntermediateRepresentations sequence_info;
+
+				@Override
+				public boolean hasInvocationSetUp()
+				{
+					return true;
+				}
+
+				@Override
+				public void setUpInvocation()
+						throws Exception
+				{
+					sequence_info = new MIDIIntermediateRepresentations(sequence, representation.getPrerequisites());
+				}
+
+				@Override
+				public Object invoke()
+				{
+					sequence_info.generateRepresentations(new IntermediateRepresentationEnum[] {representation});
+					return sequence_info;
+				}
+			});
+		}
+	}
+
+
+	/**
+	 * Benchmark extracting each feature from a sequence whose intermediate representations and feature
+	 * dependencies have already been calculated. MEI-specific features, which cannot be extracted from MIDI
+	 * sequences, and features that depend on the values of other windows are skipped.
+	 *
+	 * @param size			The size of sequence to benchmark with.
+	 * @throws Exception	An exception is thrown if a benchmark fails.
+	 */
+	private void runFeatureBenchmarks(CorpusSize size)
+			throws Exception
+	{
+		final Sequence sequence = SyntheticMidiCorpus.generateSequence(size, 0);
+		final MIDIIntermediateRepresentations sequence_info = new MIDIIntermediateRepresentations(sequence);
+
+		// Find the features that can be extracted from a single MIDI sequence
+		List<MIDIFeatureExtractor> features = new ArrayList<>();
+		for (MIDIFeatureExtractor feature : FeatureExtractorAccess.getAllImplementedFeatureExtractors())
+		{
+			boolean has_offsets = false;
+			if (feature.getDepenedencyOffsets() != null)
+				for (int offset : feature.getDepenedencyOffsets())
+					if (offset != 0)
+						has_offsets = true;
+			if (!(feature instanceof MEIFeatureExtractor) && !has_offsets)
+				features.add(feature);
+		}
+
+		// Extract every feature once, in an order that respects dependencies, so that the values each
+		// feature depends on are available to it when it is benchmarked
+		HashMap<String, double[]> feature_values = new HashMap<>();
+		HashMap<MIDIFeatureExtractor, double[][]> dependency_values = new HashMap<>();
+		List<MIDIFeatureExtractor> remaining = new ArrayList<>(features);
+		while (!remaining.isEmpty())
+		{
+			List<MIDIFeatureExtractor> extracted = new ArrayList<>();
+			for (MIDIFeatureExtractor feature : remaining)
+			{
+				String[] dependencies = feature.getDepenedencies();
+				double[][] values = new double[dependencies == null ? 0 : dependencies.length][];
+				boolean ready = true;
+				for (int dep = 0; dep < values.length; dep++)
+				{
+					values[dep] = feature_values.get(dependencies[dep]);
+					if (!feature_values.containsKey(dependencies[dep]))
+						ready = false;
+				}
+				if (ready)
+				{
+					dependency_values.put(feature, dependencies == null ? null : values);
+					feature_values.put(feature.getFeatureDefinition().name, feature.extractFeature(sequence, sequence_info, dependencies == null ? null : values));
+					extracted.add(feature);
+				}
+			}
+			if (extracted.isEmpty())
+				throw new Exception("The dependencies of " + remaining.size() + " features could not be resolved.");
+			remaining.removeAll(extracted);
+		}
+
+		for (final MIDIFeatureExtractor feature : features)
+		{
+			final double[][] other_feature_values = dependency_values.get(feature);
+			runIfSelected(new BenchmarkHarness.Benchmark("features." + size + "." + feature.getFeatureCode() + " " + feature.getFeatureDefinition().name, size.number_of_notes, "notes")
+			{
+				@Override
+				public Object invoke()
+						throws Exception
+				{
+					return feature.extractFeature(sequence, sequence_info, other_feature_values);
+				}
+			});
+		}
+	}
+
+
+	/**
+	 * Benchmark extracting the default features from a corpus of MIDI files and saving them, both for the
+	 * whole pieces and for windows. The files are processed on the benchmarking thread so that the memory
+	 * allocated while processing them is measured.
+	 *
+	 * @param size				The size of the sequences in the corpus.
+	 * @param number_of_files	The number of files in the corpus.
+	 * @throws Exception		An exception is thrown if a benchmark fails.
+	 */
+	private void runEndToEndBenchmarks(CorpusSize size, int number_of_files)
+			throws Exception
+	{
+		final File directory = java.nio.file.Files.createTempDirectory("jsymbolic_benchmarks").toFile();
+		try
+		{
+			final List<File> corpus = Arrays.asList(SyntheticMidiCorpus.writeCorpus(size, number_of_files, directory));
+			final String values_path = new File(directory, "feature_values.xml").getPath();
+			final String definitions_path = new File(directory, "feature_definitions.xml").getPath();
+			final boolean[] features_to_extract = FeatureExtractorAccess.getDefaultFeaturesToSave();
+
+			for (final boolean windowed : new boolean[] {false, true})
+			{
+				BenchmarkHarness.Result result = runIfSelected(new BenchmarkHarness.Benchmark("endtoend." + size + "." + (windowed ? "Windowed" : "Overall") + " (" + number_of_files + " files)", number_of_files, "files")
+				{
+					@Override
+					public Object invoke()
+							throws Exception
+					{
+						List<String> errors = FeatureExtractionJobProcessor.extractAndSaveSpecificFeatures( corpus,
+						                                                                                     values_path,
+						                                                                                     definitions_path,
+						                                                                                     features_to_extract,
+						                                                                                     windowed,
+						                                                                                     !windowed,
+						                                                                                     10.0,
+						                                                                                     0.0,
+						                                                                                     false,
+						                                                                                     false,
+						                                                                                     false,
+						                                                                                     1,
+						                                                                                     null,
+						                                                                                     null_print_stream,
+						                                                                                     null_print_stream,
+						                                                                                     false );
+						if (!errors.isEmpty())
+							throw new Exception(errors.get(0));
+						return errors;
+					}
+				});
+				if (result != null)
+					System.out.println(String.format("%-72s %.1f notes/s", "", result.getThroughput() * size.number_of_notes));
+			}
+		}
+		finally
+		{
+			for (File file : directory.listFiles())
+				file.delete();
+			directory.delete();
+		}
+	}
+
+
+	/**
+	 * Run the given benchmark if its name matches the filter.
+	 *
+	 * @param benchmark		The benchmark to run.
+	 * @return				The result of the benchmark, or null if it was not run.
+	 * @throws Exception	An exception is thrown if the benchmark fails.
+	 */
+	private BenchmarkHarness.Result runIfSelected(BenchmarkHarness.Benchmark benchmark)
+			throws Exception
+	{
+		if (!filter.matcher(benchmark.name).find())
+			return null;
+		return harness.run(benchmark, System.out);
+	}
+}
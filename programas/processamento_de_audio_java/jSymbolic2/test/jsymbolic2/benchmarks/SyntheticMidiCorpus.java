@@ -0,0 +1,252 @@
+package jsymbolic2.benchmarks;
+
+import java.io.File;
+import java.util.Random;
+import javax.sound.midi.MetaMessage;
+import javax.sound.midi.MidiEvent;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.MidiSystem;
+import javax.sound.midi.Sequence;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.Track;
+
+/**
+ * Generates reproducible synthetic MIDI sequences for the jSymbolic benchmarks. Sequences are built from a
+ * seeded random number generator, so the same size and seed always produce exactly the same notes, and
+ * benchmark results obtained on different occasions can be compared with one another.
+ *
+ * <p>Each channel plays a random walk of pitches with varied rhythmic values, occasional chords and rests,
+ * and (beyond the smallest size) program changes, volume changes, pitch bends and tempo changes, so that
+ * every group of intermediate representations and every feature has realistic work to do. Channel 10 holds
+ * unpitched percussion when there are enough channels to reach it.</p>
+ *
+ * @author agent
+ */
+public final class SyntheticMidiCorpus
+{
+	/* PUBLIC ENUM ******************************************************************************************/
+
+
+	/**
+	 * The sizes of sequence that can be generated.
+	 */
+	public enum CorpusSize
+	{
+		/**
+		 * A short single-channel piece, like a folk melody.
+		 */
+		SMALL(200, 1, false),
+
+		/**
+		 * A piece of typical length for a small ensemble, with tempo, program and pitch bend changes.
+		 */
+		MEDIUM(5000, 4, true),
+
+		/**
+		 * A very long piece using all sixteen channels, to expose costs that grow faster than the number of
+		 * notes.
+		 */
+		HUGE(100000, 16, true);
+
+		/**
+		 * The total number of notes in a sequence of this size.
+		 */
+		public final int number_of_notes;
+
+		/**
+		 * The number of MIDI channels (and tracks) that the notes are divided among.
+		 */
+		public final int number_of_channels;
+
+		/**
+		 * Whether tempo changes, program changes, volume changes and pitch bends are included.
+		 */
+		public final boolean include_changes;
+
+		private CorpusSize(int number_of_notes, int number_of_channels, boolean include_changes)
+		{
+			this.number_of_notes = number_of_notes;
+			this.number_of_channels = number_of_channels;
+			this.include_changes = include_changes;
+		}
+	}
+
+
+	/* CONSTANTS ********************************************************************************************/
+
+
+	/**
+	 * The number of ticks per quarter note of the generated sequences.
+	 */
+	public static final int TICKS_PER_QUARTER_NOTE = 480;
+
+	/**
+	 * The rhythmic values that notes and rests are drawn from, in ticks (sixteenth to half notes).
+	 */
+	private static final int[] RHYTHMIC_VALUES = {120, 240, 240, 480, 480, 480, 720, 960};
+
+	/**
+	 * The number of quarter notes between tempo changes, when they are included.
+	 */
+	private static final int QUARTER_NOTES_PER_TEMPO_CHANGE = 64;
+
+
+	/* CONSTRUCTOR ******************************************************************************************/
+
+
+	/**
+	 * Not instantiable.
+	 */
+	private SyntheticMidiCorpus() {}
+
+
+	/* PUBLIC STATIC METHODS ********************************************************************************/
+
+
+	/**
+	 * Generate a synthetic sequence of the given size.
+	 *
+	 * @param size			The size of sequence to generate.
+	 * @param seed			The seed of the random number generator. The same size and seed always result in
+	 *						the same sequence.
+	 * @return				A PPQ sequence with one track per channel plus a conductor track.
+	 * @throws Exception	An exception is thrown if the MIDI messages cannot be built.
+	 */
+	public static Sequence generateSequence(CorpusSize size, long seed)
+			throws Exception
+	{
+		Random random = new Random(seed);
+		Sequence sequence = new Sequence(Sequence.PPQ, TICKS_PER_QUARTER_NOTE);
+		Track conductor_track = sequence.createTrack();
+		conductor_track.add(new MidiEvent(makeTempoMessage(500000), 0));
+		conductor_track.add(new MidiEvent(new MetaMessage(0x58, new byte[] {4, 2, 24, 8}, 4), 0));
+
+		long last_tick = 0;
+		for (int chan = 0; chan < size.number_of_channels; chan++)
+		{
+			// Spread the notes evenly among the channels
+			int notes_in_channel = size.number_of_notes / size.number_of_channels;
+			if (chan < size.number_of_notes % size.number_of_channels)
+				notes_in_channel++;
+			long channel_last_tick = addChannel(sequence.createTrack(), chan, notes_in_channel, size.include_changes, random);
+			last_tick = Math.max(last_tick, channel_last_tick);
+		}
+
+		// Add tempo changes over the whole length of the sequence
+		if (size.include_changes)
+			for (long tick = QUARTER_NOTES_PER_TEMPO_CHANGE * TICKS_PER_QUARTER_NOTE; tick < last_tick; tick += QUARTER_NOTES_PER_TEMPO_CHANGE * TICKS_PER_QUARTER_NOTE)
+				conductor_track.add(new MidiEvent(makeTempoMessage(400000 + random.nextInt(400000)), tick));
+
+		return sequence;
+	}
+
+
+	/**
+	 * Generate the given number of sequences of the given size and save them as MIDI files in the given
+	 * directory. The seed of each file is its index, so the same files are always generated.
+	 *
+	 * @param size				The size of sequence to generate.
+	 * @param number_of_files	The number of files to generate.
+	 * @param directory			The directory to save the files in. Must exist.
+	 * @return					The saved files.
+	 * @throws Exception		An exception is thrown if the sequences cannot be generated or saved.
+	 */
+	public static File[] writeCorpus(CorpusSize size, int number_of_files, File directory)
+			throws Exception
+	{
+		File[] files = new File[number_of_files];
+		for (int i = 0; i < number_of_files; i++)
+		{
+			files[i] = new File(directory, size.name().toLowerCase() + "_" + i + ".mid");
+			MidiSystem.write(generateSequence(size, i), 1, files[i]);
+		}
+		return files;
+	}
+
+
+	/* PRIVATE STATIC METHODS *******************************************************************************/
+
+
+	/**
+	 * Add the notes of one channel to the given track.
+	 *
+	 * @param track				The track to add the notes to.
+	 * @param channel			The MIDI channel of the notes (0 to 15).
+	 * @param number_of_notes	The number of notes to add.
+	 * @param include_changes	Whether to add program changes, volume changes and pitch bends.
+	 * @param random			The source of random numbers.
+	 * @return					The tick of the last event added.
+	 * @throws Exception		An exception is thrown if the MIDI messages cannot be built.
+	 */
+	private static long addChannel( Track track,
+	                                int channel,
+	                                int number_of_notes,
+	                                boolean include_changes,
+	                                Random random )
+			throws Exception
+	{
+		boolean percussion = channel == 9;
+		int pitch = 48 + random.nextInt(25);
+		long tick = 0;
+		track.add(new MidiEvent(new ShortMessage(ShortMessage.PROGRAM_CHANGE, channel, random.nextInt(128), 0), 0));
+
+		int notes_added = 0;
+		while (notes_added < number_of_notes)
+		{
+			int duration = RHYTHMIC_VALUES[random.nextInt(RHYTHMIC_VALUES.length)];
+
+			// Occasionally rest instead of playing
+			if (random.nextInt(10) == 0)
+			{
+				tick += duration;
+				continue;
+			}
+
+			// Occasionally change the instrument and volume, and bend the pitch
+			if (include_changes)
+			{
+				if (random.nextInt(200) == 0)
+					track.add(new MidiEvent(new ShortMessage(ShortMessage.PROGRAM_CHANGE, channel, random.nextInt(128), 0), tick));
+				if (random.nextInt(50) == 0)
+					track.add(new MidiEvent(new ShortMessage(ShortMessage.CONTROL_CHANGE, channel, 7, 40 + random.nextInt(88)), tick));
+				if (!percussion && random.nextInt(25) == 0)
+				{
+					int bend = 8192 + random.nextInt(2049) - 1024;
+					track.add(new MidiEvent(new ShortMessage(ShortMessage.PITCH_BEND, channel, bend & 0x7F, bend >> 7), tick));
+					track.add(new MidiEvent(new ShortMessage(ShortMessage.PITCH_BEND, channel, 0, 64), tick + duration));
+				}
+			}
+
+			// Play a single note or a chord of up to three notes
+			int notes_in_chord = Math.min(1 + (random.nextInt(4) == 0 ? 1 + random.nextInt(2) : 0), number_of_notes - notes_added);
+			for (int i = 0; i < notes_in_chord; i++)
+			{
+				int note_pitch = percussion ? 35 + random.nextInt(47) : Math.min(127, pitch + 4 * i - random.nextInt(2));
+				int velocity = 30 + random.nextInt(98);
+				track.add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_ON, channel, note_pitch, velocity), tick));
+				track.add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_OFF, channel, note_pitch, 0), tick + duration));
+			}
+			notes_added += notes_in_chord;
+
+			// Move the melody by a small interval, staying within a comfortable range
+			pitch = Math.max(24, Math.min(96, pitch + random.nextInt(9) - 4));
+			tick += duration;
+		}
+		return tick;
+	}
+
+
+	/**
+	 * @param microseconds_per_quarter_note	The tempo.
+	 * @return								A Set Tempo meta message.
+	 * @throws Exception					An exception is thrown if the message cannot be built.
+	 */
+	private static MidiMessage makeTempoMessage(int microseconds_per_quarter_note)
+			throws Exception
+	{
+		byte[] data = { (byte) (microseconds_per_quarter_note >> 16),
+		                (byte) (microseconds_per_quarter_note >> 8),
+		                (byte) microseconds_per_quarter_note };
+		return new MetaMessage(0x51, data, 3);
+	}
+}
@@ -29,6 +29,7 @@ public class ConfigurationOptionsEnumTest {
         assertTrue(OptionsEnum.contains("save_overall_recording_features"));
         assertTrue(OptionsEnum.contains("convert_to_arff"));
         assertTrue(OptionsEnum.contains("convert_to_csv"));
+        assertTrue(OptionsEnum.contains("number_of_threads"));
     }
 
     @Test
@@ -40,6 +41,16 @@ public class ConfigurationOptionsEnumTest {
         assertFalse(OptionsEnum.window_overlap.checkValue("1.1"));
         assertTrue(OptionsEnum.convert_to_arff.checkValue("false"));
         assertFalse(OptionsEnum.window_size.checkValue("-1"));
+        assertTrue(OptionsEnum.number_of_threads.checkValue("8"));
+        assertFalse(OptionsEnum.number_of_threads.checkValue("0"));
+        assertFalse(OptionsEnum.number_of_threads.checkValue("1.5"));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void optionalOptions() throws Exception {
+        assertTrue(OptionsEnum.number_of_threads.isOptional());
+        assertFalse(OptionsEnum.window_size.isOptional());
+        assertEquals(OptionsEnum.values().length - 1, OptionsEnum.numberOfRequiredOptions());
+    }
+
+}
\ No newline at end of file
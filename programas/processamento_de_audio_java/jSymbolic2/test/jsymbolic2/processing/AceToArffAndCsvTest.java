@@ -6,6 +6,7 @@
 package jsymbolic2.processing;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.util.Scanner;
 import org.junit.After;
@@ -30,6 +31,39 @@ public class AceToArffAndCsvTest {
         tempFolder.delete();
     }
     
+    /**
+     * Copies one of the test resources into the temporary folder, so that the
+     * ARFF and CSV files written beside it by AceXmlConverter are deleted with
+     * the folder instead of being left in the resources directory.
+     * @param resourceName the name of the file in the resources directory
+     * @return the copy in the temporary folder
+     * @throws IOException if the resource cannot be copied
+     */
+    private File copyResource(String resourceName)
+            throws IOException {
+        File resource = new File("./test/jsymbolic2/processing/resources/" + resourceName);
+        File copy = new File(tempFolder.getRoot(), resourceName);
+        Files.copy(resource.toPath(), copy.toPath());
+        return copy;
+    }
+
+    /**
+     * Checks that every line of the expected file is matched by the actual file.
+     * @param expected the file whose lines are expected
+     * @param actual the file that was written by the test
+     * @throws IOException if either file cannot be read
+     */
+    private void assertSameLines(File expected, File actual)
+            throws IOException {
+        try(Scanner inExpected = new Scanner(expected);
+            Scanner inActual = new Scanner(actual))
+        {
+            while(inExpected.hasNextLine()) {
+                assertEquals(inExpected.nextLine(), inActual.nextLine());
+            }
+        }
+    }
+
     /**
      * Test of convertACEXMLtoARFF method, of class AceXmlConverter.
      * @throws java.io.IOException test
@@ -37,27 +71,11 @@ public class AceToArffAndCsvTest {
     @Test
     public void testConvertACEXMLtoARFF() 
             throws Exception {
-        String ACEname = "./test/jsymbolic2/processing/resources/feature_values.xml";
-        File testACE = new File(ACEname);
-        String ARFFname = "./test/jsymbolic2/processing/resources/feature_values.arff";
-        File testARFF = new File(ARFFname);
-        if(Files.exists(testARFF.toPath())) {
-            Files.delete(testARFF.toPath());
-        }
-        AceXmlConverter.saveAsArffOrCsvFiles(ACEname, null, true, false, System.out);
-        testARFF = new File(ARFFname);
-        File actualARFF = new File(ARFFname);
-        try(Scanner inACE = new Scanner(testARFF);
-            Scanner inARFF = new Scanner(actualARFF))
-        {
-            String nextACELine;
-            String nextARFFLine;
-            while(inACE.hasNextLine()) {
-                nextACELine = inACE.nextLine();
-                nextARFFLine = inARFF.nextLine();
-                assertEquals(nextACELine,nextARFFLine);
-            }
-        }
+        File testACE = copyResource("feature_values.xml");
+        File testARFF = new File(tempFolder.getRoot(), "feature_values.arff");
+        AceXmlConverter.saveAsArffOrCsvFiles(testACE.getPath(), null, true, false, System.out);
+        assertTrue(testARFF.exists());
+        assertSameLines(new File("./test/jsymbolic2/processing/resources/feature_values.arff"), testARFF);
     }
 
     /**
@@ -67,27 +85,13 @@ public class AceToArffAndCsvTest {
     @Test
     public void testConvertARFFtoCSV() 
             throws Exception {
-        String CSVname = "./test/jsymbolic2/processing/resources/feature_values_noxml.csv";
-        File testCSV = new File(CSVname);
-        String ACEname = "./test/jsymbolic2/processing/resources/feature_values.xml";
-        String newCSVname = "./test/jsymbolic2/processing/resources/feature_values.csv";
-        File tempCSV = new File(newCSVname);
-        if(Files.exists(tempCSV.toPath())) {
-            Files.delete(tempCSV.toPath());
-        }
-        AceXmlConverter.saveAsArffOrCsvFiles(ACEname, null, false, true, System.out);
-        tempCSV = new File(newCSVname);
-        try(Scanner inACE = new Scanner(testCSV);
-            Scanner inCSV = new Scanner(tempCSV))
-        {
-            String nextACELine;
-            String nextCSVLine;
-            while(inACE.hasNextLine()) {
-                nextACELine = inACE.nextLine();
-                nextCSVLine = inCSV.nextLine();
-                assertEquals(nextACELine,nextCSVLine);
-            }
-        }
+        File noXMLACE = copyResource("feature_values_noxml");
+        AceXmlConverter.saveAsArffOrCsvFiles(noXMLACE.getPath(), null, false, true, System.out);
+        File testCSV = new File(tempFolder.getRoot(), "feature_values_noxml.csv");
+        File testACE = copyResource("feature_values.xml");
+        AceXmlConverter.saveAsArffOrCsvFiles(testACE.getPath(), null, false, true, System.out);
+        File tempCSV = new File(tempFolder.getRoot(), "feature_values.csv");
+        assertSameLines(testCSV, tempCSV);
     }
 
     /**
@@ -98,26 +102,10 @@ public class AceToArffAndCsvTest {
     public void testConvertACEtoCSVwithARFF() throws Exception {
         String CSVname = "./test/jsymbolic2/processing/resources/feature_values_1.csv";
         File testCSV = new File(CSVname);
-        String ACEname = "./test/jsymbolic2/processing/resources/feature_values.xml";
-        String newCSVname = "./test/jsymbolic2/processing/resources/feature_values.csv";
-        File tempCSV = new File(newCSVname);
-        if(Files.exists(tempCSV.toPath())) {
-            Files.delete(tempCSV.toPath());
-        }
-        AceXmlConverter.saveAsArffOrCsvFiles(ACEname, null, true, true, System.out);
-        tempCSV = new File(newCSVname);
-        
-        try(Scanner inACE = new Scanner(testCSV);
-            Scanner inCSV = new Scanner(tempCSV))
-        {
-            String nextACELine;
-            String nextCSVLine;
-            while(inACE.hasNextLine()) {
-                nextACELine = inACE.nextLine();
-                nextCSVLine = inCSV.nextLine();
-                assertEquals(nextACELine,nextCSVLine);
-            }
-        }
+        File testACE = copyResource("feature_values.xml");
+        AceXmlConverter.saveAsArffOrCsvFiles(testACE.getPath(), null, true, true, System.out);
+        File tempCSV = new File(tempFolder.getRoot(), "feature_values.csv");
+        assertSameLines(testCSV, tempCSV);
     }
 
     /**
@@ -128,40 +116,18 @@ public class AceToArffAndCsvTest {
     public void testOutputArffandCsvFormats() 
             throws Exception {
         //Check for xml extension
-        String ACEname = "./test/jsymbolic2/processing/resources/feature_values.xml";
-
-        String ARFFname = ACEname.replace(".xml", ".arff");
-        File arffFile = new File(ARFFname);
-        if(arffFile.exists()) {
-            Files.delete(arffFile.toPath());
-        }
-
-        String CSVname = ACEname.replace(".xml", ".csv");
-        File csvFile = new File(CSVname);
-        if(csvFile.exists()) {
-            Files.delete(csvFile.toPath());
-        }
-
-        AceXmlConverter.saveAsArffOrCsvFiles(ACEname, null, true, true, System.out);
+        File testACE = copyResource("feature_values.xml");
+        File arffFile = new File(tempFolder.getRoot(), "feature_values.arff");
+        File csvFile = new File(tempFolder.getRoot(), "feature_values.csv");
+        AceXmlConverter.saveAsArffOrCsvFiles(testACE.getPath(), null, true, true, System.out);
         assertTrue(arffFile.exists());
         assertTrue(csvFile.exists());
         
         //Check for no xml extension
-        String noXML = "./test/jsymbolic2/processing/resources/feature_values_noxml";
-
-        String ARFFnoXMLName = noXML + ".arff";
-        File arffnoXMLFile = new File(ARFFnoXMLName);
-        if(arffnoXMLFile.exists()) {
-            Files.delete(arffnoXMLFile.toPath());
-        }
-
-        String CSVnoXMLname = noXML + ".csv";
-        File csvnoXMLFile = new File(CSVnoXMLname);
-        if(csvnoXMLFile.exists()) {
-            Files.delete(csvnoXMLFile.toPath());
-        }
-
-        AceXmlConverter.saveAsArffOrCsvFiles(noXML, null, true, true, System.out);
+        File noXMLACE = copyResource("feature_values_noxml");
+        File arffnoXMLFile = new File(tempFolder.getRoot(), "feature_values_noxml.arff");
+        File csvnoXMLFile = new File(tempFolder.getRoot(), "feature_values_noxml.csv");
+        AceXmlConverter.saveAsArffOrCsvFiles(noXMLACE.getPath(), null, true, true, System.out);
         assertTrue(arffnoXMLFile.exists());
         assertTrue(csvnoXMLFile.exists());
     }
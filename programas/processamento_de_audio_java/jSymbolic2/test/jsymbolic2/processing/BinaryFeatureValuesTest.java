@@ -0,0 +1,111 @@
+package jsymbolic2.processing;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import ace.datatypes.BinaryFeatureValuesReader;
+import ace.datatypes.BinaryFeatureValuesWriter;
+import ace.datatypes.DataSet;
+import ace.datatypes.FeatureDefinition;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the ACE binary feature values files saved along with jSymbolic's ACE XML files.
+ *
+ * @author agent
+ */
+public class BinaryFeatureValuesTest
+{
+	@Rule public TemporaryFolder temporary_folder = new TemporaryFolder();
+
+	/**
+	 * Test that written instances and sub-sections are read back with their identifiers, times and unrounded
+	 * values, and that missing features are read back as missing.
+	 *
+	 * @throws Exception test
+	 */
+	@Test
+	public void testWriteAndReadInstancesAndSubSections()
+			throws Exception
+	{
+		File binary_file = new File(temporary_folder.getRoot(), "values" + BinaryFeatureValuesWriter.FILE_EXTENSION);
+		BinaryFeatureValuesWriter writer = new BinaryFeatureValuesWriter(new FileOutputStream(binary_file));
+		assertFalse(writer.isHeaderWritten());
+
+		FeatureDefinition[] definitions = { new FeatureDefinition("Note Count", "", false, 1),
+		                                    new FeatureDefinition("Histogram", "Bins", true, 2) };
+		writer.writeHeader(definitions);
+		writer.writeInstance("a.mid", new String[] {"Histogram", "Note Count"}, new double[][] {{0.123456789, 2.0}, {15.0}});
+		writer.writeInstance("b.mid", new String[0], null);
+		writer.writeSubSection(0, 0.0, 4.0, new String[] {"Note Count", "Histogram"}, new double[][] {{3.0}, null});
+		writer.close();
+		assertTrue(writer.isHeaderWritten());
+
+		assertTrue(BinaryFeatureValuesReader.isBinaryFeatureValuesFile(binary_file.getPath()));
+		BinaryFeatureValuesReader reader = new BinaryFeatureValuesReader(binary_file.getPath());
+		assertEquals(2, reader.getFeatureDefinitions().length);
+		assertEquals("Bins", reader.getFeatureDefinitions()[1].description);
+		assertEquals(2, reader.getNumberOfInstances());
+		assertEquals(3, reader.getNumberOfRows());
+		assertEquals(3, reader.getNumberOfColumns());
+		assertEquals("b.mid", reader.getIdentifier(1));
+		assertArrayEquals(new double[] {0.123456789, 2.0}, reader.getFeatureValues(0, 1), 0.0);
+		assertEquals(-1, reader.getSection(1));
+		assertNull(reader.getFeatureValues(1, 0));
+		assertEquals(1, reader.getInstance(2));
+		assertEquals(4.0, reader.getStop(2), 0.0);
+		assertTrue(Double.isNaN(reader.getValue(2, reader.getFirstColumn(1))));
+
+		DataSet[] data_sets = reader.getDataSets();
+		assertEquals(2, data_sets.length);
+		assertArrayEquals(new String[] {"Note Count", "Histogram"}, data_sets[0].feature_names);
+		assertNull(data_sets[0].sub_sets);
+		assertNull(data_sets[1].feature_names);
+		assertEquals(1, data_sets[1].sub_sets.length);
+		assertArrayEquals(new String[] {"Note Count"}, data_sets[1].sub_sets[0].feature_names);
+		assertEquals(data_sets[1], data_sets[1].sub_sets[0].parent);
+	}
+
+
+	/**
+	 * Test that the binary file saved while extracting features holds the same instances as the ACE XML
+	 * Feature Values file, and that DataSet loads it in place of the ACE XML file.
+	 *
+	 * @throws Exception test
+	 */
+	@Test
+	public void testSavedWithExtractedFeatures()
+			throws Exception
+	{
+		String values_path = new File(temporary_folder.getRoot(), "values.xml").getPath();
+		String definitions_path = new File(temporary_folder.getRoot(), "definitions.xml").getPath();
+		MIDIFeatureProcessor processor = new MIDIFeatureProcessor( 4.0,
+		                                                           0.0,
+		                                                           jsymbolic2.featureutils.FeatureExtractorAccess.getAllImplementedFeatureExtractors(),
+		                                                           jsymbolic2.featureutils.FeatureExtractorAccess.getDefaultFeaturesToSave(),
+		                                                           true,
+		                                                           false,
+		                                                           values_path,
+		                                                           definitions_path );
+		processor.setBinaryFeatureValuesFilePath(AceXmlConverter.getBinaryFilePath(values_path));
+		processor.extractFeatures(new File("./test/jsymbolic2/api/resources/Chopin_Mazurka.midi"), new java.util.ArrayList<>());
+		processor.finalizeFeatureValuesFile();
+		assertTrue(processor.wasBinaryFeatureValuesFileSaved());
+
+		FeatureDefinition[] definitions = FeatureDefinition.parseFeatureDefinitionsFile(definitions_path);
+		DataSet[] from_xml = DataSet.parseDataSetFile(values_path, definitions);
+		DataSet[] from_binary = DataSet.parseDataSetFile(AceXmlConverter.getBinaryFilePath(values_path), definitions);
+		assertEquals(from_xml.length, from_binary.length);
+		assertEquals(from_xml[0].identifier, from_binary[0].identifier);
+		assertEquals(from_xml[0].sub_sets.length, from_binary[0].sub_sets.length);
+		DataSet xml_window = from_xml[0].sub_sets[1];
+		DataSet binary_window = from_binary[0].sub_sets[1];
+		assertEquals(xml_window.start, binary_window.start, 0.0);
+		assertArrayEquals(xml_window.feature_names, binary_window.feature_names);
+		for (int feat = 0; feat < xml_window.feature_values.length; feat++)
+			for (int val = 0; val < xml_window.feature_values[feat].length; val++)
+				assertEquals(xml_window.feature_values[feat][val], binary_window.feature_values[feat][val], Math.abs(xml_window.feature_values[feat][val]) * 1E-3);
+	}
+}
@@ -0,0 +1,102 @@
+package jsymbolic2.processing;
+
+import java.io.File;
+import java.nio.file.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the FeatureValueCache class.
+ *
+ * @author agent
+ */
+public class FeatureValueCacheTest
+{
+	@Rule public TemporaryFolder temporary_folder = new TemporaryFolder();
+
+	private static final double[] START_TIMES = {0.0, 4.0};
+	private static final double[] END_TIMES = {4.0, 8.0};
+
+	/**
+	 * Test that stored values are returned for the same contents and window settings only, and that values
+	 * of other features stored earlier for the same windows are kept.
+	 *
+	 * @throws Exception test
+	 */
+	@Test
+	public void testStoreAndGetCachedValues()
+			throws Exception
+	{
+		FeatureValueCache cache = new FeatureValueCache(temporary_folder.newFolder("cache"), FeatureValueCache.DEFAULT_MAXIMUM_SIZE_IN_BYTES, true);
+		String settings_key = FeatureValueCache.getWindowSettingsKey(true, 4.0, 0.0);
+		assertNull(cache.getCachedValues("abc", settings_key));
+
+		cache.storeValues("abc", settings_key, START_TIMES, END_TIMES, new String[] {"first"}, new double[][][] {{{1.0, 2.0}}, {null}});
+		cache.storeValues("abc", settings_key, START_TIMES, END_TIMES, new String[] {"second"}, new double[][][] {{{3.0}}, {{4.0}}});
+
+		FeatureValueCache.CachedFeatureValues cached_values = cache.getCachedValues("abc", settings_key);
+		assertEquals(2, cached_values.getNumberOfWindows());
+		assertArrayEquals(START_TIMES, cached_values.getWindowStartTimes(), 0.0);
+		assertArrayEquals(END_TIMES, cached_values.getWindowEndTimes(), 0.0);
+		assertArrayEquals(new double[] {1.0, 2.0}, cached_values.getFeatureValues("first")[0], 0.0);
+		assertNull(cached_values.getFeatureValues("first")[1]);
+		assertArrayEquals(new double[] {4.0}, cached_values.getFeatureValues("second")[1], 0.0);
+		assertNull(cached_values.getFeatureValues("third"));
+
+		assertNull(cache.getCachedValues("abd", settings_key));
+		assertNull(cache.getCachedValues("abc", FeatureValueCache.getWindowSettingsKey(false, 4.0, 0.0)));
+	}
+
+
+	/**
+	 * Test that cached values are not returned when reading is bypassed, or after the cache is cleared.
+	 *
+	 * @throws Exception test
+	 */
+	@Test
+	public void testBypassAndClear()
+			throws Exception
+	{
+		File cache_directory = temporary_folder.newFolder("cache");
+		String settings_key = FeatureValueCache.getWindowSettingsKey(false, 0.0, 0.0);
+		FeatureValueCache bypassing_cache = new FeatureValueCache(cache_directory, FeatureValueCache.DEFAULT_MAXIMUM_SIZE_IN_BYTES, false);
+		bypassing_cache.storeValues("abc", settings_key, new double[0], new double[0], new String[] {"first"}, new double[][][] {{{1.0}}});
+		assertNull(bypassing_cache.getCachedValues("abc", settings_key));
+
+		FeatureValueCache cache = new FeatureValueCache(cache_directory, FeatureValueCache.DEFAULT_MAXIMUM_SIZE_IN_BYTES, true);
+		assertNotNull(cache.getCachedValues("abc", settings_key));
+		cache.clear();
+		assertNull(cache.getCachedValues("abc", settings_key));
+	}
+
+
+	/**
+	 * Test that the least recently used entries are deleted when the cache grows too large.
+	 *
+	 * @throws Exception test
+	 */
+	@Test
+	public void testLeastRecentlyUsedEviction()
+			throws Exception
+	{
+		File cache_directory = temporary_folder.newFolder("cache");
+		String settings_key = FeatureValueCache.getWindowSettingsKey(false, 0.0, 0.0);
+		double[][][] values = {{new double[100]}};
+		FeatureValueCache cache = new FeatureValueCache(cache_directory, Long.MAX_VALUE, true);
+		cache.storeValues("abc", settings_key, new double[0], new double[0], new String[] {"first"}, values);
+		long entry_size = Files.size(cache_directory.listFiles()[0].toPath());
+
+		// Allow two entries, and make the first one the most recently used
+		cache = new FeatureValueCache(cache_directory, 2 * entry_size, true);
+		cache.storeValues("abd", settings_key, new double[0], new double[0], new String[] {"first"}, values);
+		new File(cache_directory, "abd_" + settings_key + ".jsc").setLastModified(System.currentTimeMillis() - 60000);
+		cache.getCachedValues("abc", settings_key);
+		cache.storeValues("abe", settings_key, new double[0], new double[0], new String[] {"first"}, values);
+
+		assertNotNull(cache.getCachedValues("abc", settings_key));
+		assertNull(cache.getCachedValues("abd", settings_key));
+		assertNotNull(cache.getCachedValues("abe", settings_key));
+	}
+}
@@ -0,0 +1,58 @@
+package jsymbolic2.processing;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import ace.datatypes.FeatureDefinition;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the WekaArffAndCsvWriter class.
+ *
+ * @author agent
+ */
+public class WekaArffAndCsvWriterTest
+{
+	@Rule public TemporaryFolder temporary_folder = new TemporaryFolder();
+
+	/**
+	 * Test that instances and sub-sections are written in the same format as AceXmlConverter produces.
+	 *
+	 * @throws Exception test
+	 */
+	@Test
+	public void testWriteInstancesAndSubSections()
+			throws Exception
+	{
+		File arff_file = new File(temporary_folder.getRoot(), "values.arff");
+		File csv_file = new File(temporary_folder.getRoot(), "values.csv");
+		WekaArffAndCsvWriter writer = new WekaArffAndCsvWriter(arff_file.getPath(), csv_file.getPath());
+		assertFalse(writer.isHeaderWritten());
+		assertFalse(arff_file.exists());
+
+		FeatureDefinition[] definitions = { new FeatureDefinition("Note Count", "", false, 1),
+		                                    new FeatureDefinition("Histogram", "", true, 2) };
+		writer.writeHeader(definitions);
+		writer.writeInstance("a.mid", new String[][] {{"1.5E1"}, {"2E-1", "0E0"}});
+		writer.writeInstance("b.mid", new String[0][]);
+		writer.writeSubSection("b.mid", 1, new String[][] {{"3E0"}, {"NaN", "1.25E0"}});
+		writer.close();
+		assertTrue(writer.isHeaderWritten());
+
+		assertEquals( "@relation Converted_from_ACE_XML\n\n" +
+		              "@attribute Note_Count numeric\n" +
+		              "@attribute Histogram_0 numeric\n" +
+		              "@attribute Histogram_1 numeric\n" +
+		              "\n@data\n" +
+		              "15.0, 0.2, 0.0\n" +
+		              "3.0, NaN, 1.25\n",
+		              new String(Files.readAllBytes(arff_file.toPath()), StandardCharsets.US_ASCII) );
+		assertEquals( ",Note_Count,Histogram_0,Histogram_1\n" +
+		              "\"a.mid\",15.0, 0.2, 0.0\n" +
+		              "\"b.mid_1\",3.0, NaN, 1.25\n",
+		              new String(Files.readAllBytes(csv_file.toPath()), StandardCharsets.US_ASCII) );
+	}
+}